@@ -0,0 +1,425 @@
+package org.jlinda.core.delaunay;
+
+/**
+ * Delaunay triangulator working on primitive arrays.
+ * <p>
+ * This is the algorithm of {@link FastDelaunayTriangulator} (sweep over the vertices sorted by x then y,
+ * extension of the convex hull and Lawson flips) with vertices held in flat coordinate arrays and
+ * triangles in an int table instead of Coordinate and Triangle objects. For the same input it produces
+ * the same triangles in the same order.
+ * <p>
+ * An instance is a reusable workspace: its arrays grow as needed and are kept between triangulations,
+ * so a thread triangulating tile after tile does not allocate. Instances are not thread safe.
+ */
+public final class IndexedDelaunayTriangulator {
+
+    /**
+     * Vertex index of the fictive point closing the triangles around the convex hull
+     */
+    private static final int HORIZON = -1;
+
+    // triangle table layout: vertices A, B, C followed by neighbours BAO, CBO, ACO
+    private static final int A = 0, B = 1, C = 2, BAO = 3, CBO = 4, ACO = 5;
+    private static final int STRIDE = 6;
+
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private int[] id = new int[0];
+    private int numVertices;
+
+    private int[] sorted = new int[0];
+    private int[] sortBuffer = new int[0];
+
+    private int[] tri = new int[0];
+    private int numTriangleSlots;
+
+    private int[] triangles = new int[0];
+    private int numTriangles;
+
+    private int[] newTriangles = new int[0];
+    private int numNewTriangles;
+
+    private int currentExternalTriangle;
+
+    /**
+     * Removes all vertices and triangles, reserving room for the given number of vertices.
+     */
+    public void reset(final int expectedVertices) {
+        numVertices = 0;
+        numTriangleSlots = 0;
+        numTriangles = 0;
+        ensureVertexCapacity(expectedVertices);
+    }
+
+    /**
+     * Adds a vertex.
+     *
+     * @param vx x coordinate
+     * @param vy y coordinate
+     * @param vid user index carried with the vertex, e.g. its position in the input grid
+     */
+    public void addVertex(final double vx, final double vy, final int vid) {
+        if (numVertices == x.length) {
+            ensureVertexCapacity(Math.max(16, 2 * numVertices));
+        }
+        x[numVertices] = vx;
+        y[numVertices] = vy;
+        id[numVertices] = vid;
+        ++numVertices;
+    }
+
+    /**
+     * Triangulates the vertices added since the last reset. Vertices with the same x and y as an
+     * earlier added vertex are ignored.
+     *
+     * @return false if there are less than three distinct vertices, in which case there are no triangles
+     */
+    public boolean triangulate() {
+        numTriangleSlots = 0;
+        numTriangles = 0;
+
+        final int numUnique = sortUniqueVertices();
+        if (numUnique < 3) {
+            return false;
+        }
+
+        // each vertex after the first two adds two exterior triangles
+        final int maxTriangles = 2 * numUnique;
+        if (tri.length < maxTriangles * STRIDE) {
+            tri = new int[maxTriangles * STRIDE];
+            triangles = new int[maxTriangles];
+            newTriangles = new int[maxTriangles];
+        }
+
+        initTriangulation(sorted[0], sorted[1]);
+        for (int k = 2; k < numUnique; ++k) {
+            addExternalVertex(sorted[k]);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of triangles inside the convex hull
+     */
+    public int getNumTriangles() {
+        return numTriangles;
+    }
+
+    /**
+     * @param triangle triangle number, from 0 to getNumTriangles() - 1
+     * @param corner   0, 1 or 2 for vertex A, B or C
+     * @return vertex index of the corner, to be used with getX, getY and getId
+     */
+    public int getVertex(final int triangle, final int corner) {
+        return tri[triangles[triangle] * STRIDE + corner];
+    }
+
+    public double getX(final int vertex) {
+        return x[vertex];
+    }
+
+    public double getY(final int vertex) {
+        return y[vertex];
+    }
+
+    public int getId(final int vertex) {
+        return id[vertex];
+    }
+
+    private void ensureVertexCapacity(final int capacity) {
+        if (x.length < capacity) {
+            final double[] nx = new double[capacity];
+            final double[] ny = new double[capacity];
+            final int[] nid = new int[capacity];
+            System.arraycopy(x, 0, nx, 0, numVertices);
+            System.arraycopy(y, 0, ny, 0, numVertices);
+            System.arraycopy(id, 0, nid, 0, numVertices);
+            x = nx;
+            y = ny;
+            id = nid;
+        }
+    }
+
+    /**
+     * Stable sort of the vertices by x then y, keeping the first added of equal vertices
+     *
+     * @return number of distinct vertices at the start of sorted
+     */
+    private int sortUniqueVertices() {
+        final int n = numVertices;
+        if (sorted.length < n) {
+            sorted = new int[x.length];
+            sortBuffer = new int[x.length];
+        }
+        for (int i = 0; i < n; ++i) {
+            sorted[i] = i;
+        }
+
+        // bottom-up merge sort
+        int[] src = sorted;
+        int[] dst = sortBuffer;
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                final int mid = Math.min(lo + width, n);
+                final int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+                }
+                while (i < mid) {
+                    dst[k++] = src[i++];
+                }
+                while (j < hi) {
+                    dst[k++] = src[j++];
+                }
+            }
+            final int[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        sorted = src;
+        sortBuffer = dst;
+
+        int numUnique = 0;
+        for (int i = 0; i < n; ++i) {
+            if (numUnique == 0 || compare(sorted[i], sorted[numUnique - 1]) != 0) {
+                sorted[numUnique++] = sorted[i];
+            }
+        }
+        return numUnique;
+    }
+
+    private int compare(final int v0, final int v1) {
+        if (x[v0] < x[v1]) return -1;
+        if (x[v0] > x[v1]) return 1;
+        if (y[v0] < y[v1]) return -1;
+        if (y[v0] > y[v1]) return 1;
+        return 0;
+    }
+
+    private int newTriangle(final int a, final int b, final int c) {
+        final int t = numTriangleSlots++;
+        final int o = t * STRIDE;
+        tri[o + A] = a;
+        tri[o + B] = b;
+        tri[o + C] = c;
+        tri[o + BAO] = -1;
+        tri[o + CBO] = -1;
+        tri[o + ACO] = -1;
+        return t;
+    }
+
+    private int vertex(final int t, final int i) {
+        return tri[t * STRIDE + (i == 0 ? A : i == 1 ? B : C)];
+    }
+
+    private int neighbour(final int t, final int side) {
+        return tri[t * STRIDE + (side == 0 ? BAO : side == 1 ? CBO : ACO)];
+    }
+
+    private void setNeighbour(final int t, final int side, final int n) {
+        tri[t * STRIDE + (side == 0 ? BAO : side == 1 ? CBO : ACO)] = n;
+    }
+
+    private void initTriangulation(final int c0, final int c1) {
+        final int t0 = newTriangle(c0, c1, HORIZON);
+        final int t1 = newTriangle(c1, c0, HORIZON);
+        for (int side = 0; side < 3; ++side) {
+            setNeighbour(t0, side, t1);
+            setNeighbour(t1, side, t0);
+        }
+        currentExternalTriangle = t1;
+    }
+
+    private void addExternalVertex(final int v) {
+        buildTrianglesBetweenNewVertexAndConvexHull(v);
+        for (int k = 0; k < numNewTriangles; ++k) {
+            final int t = newTriangles[k];
+            if (tri[t * STRIDE + C] != HORIZON) {
+                delaunay(t, 0);
+            }
+        }
+        System.arraycopy(newTriangles, 0, triangles, numTriangles, numNewTriangles);
+        numTriangles += numNewTriangles;
+    }
+
+    private void buildTrianglesBetweenNewVertexAndConvexHull(final int c) {
+
+        int currentT = currentExternalTriangle;
+        int nextExternalTriangle = neighbour(currentExternalTriangle, 2);
+
+        int lastCCW = ccw(currentT, c);
+        int currentCCW;
+        int beforeFirstVisibleT = currentExternalTriangle;
+        int firstVisibleT = -1;
+        int lastVisibleT = -1;
+        int afterLastVisibleT = nextExternalTriangle;
+        numNewTriangles = 0;
+        boolean oneCycleCompleted = false;
+        while (true) {
+            currentT = tri[currentT * STRIDE + ACO];
+            currentCCW = ccw(currentT, c);
+            if (currentCCW > 0) {
+                if (lastCCW <= 0) {
+                    firstVisibleT = currentT;
+                    beforeFirstVisibleT = tri[currentT * STRIDE + CBO];
+                }
+                if (firstVisibleT != -1) {
+                    tri[currentT * STRIDE + C] = c;
+                    newTriangles[numNewTriangles++] = currentT;
+                }
+            } else if (firstVisibleT != -1 && lastCCW > 0) {
+                lastVisibleT = tri[currentT * STRIDE + CBO];
+                afterLastVisibleT = currentT;
+            }
+            lastCCW = currentCCW;
+            if (firstVisibleT != -1 && lastVisibleT != -1) break;
+            if (oneCycleCompleted && firstVisibleT == -1 && lastVisibleT == -1) break;
+            if (currentT == currentExternalTriangle) oneCycleCompleted = true;
+        }
+
+        currentExternalTriangle = newTriangle(c, tri[beforeFirstVisibleT * STRIDE + A], HORIZON);
+        nextExternalTriangle = newTriangle(tri[afterLastVisibleT * STRIDE + B], c, HORIZON);
+        linkExteriorTriangles(beforeFirstVisibleT, currentExternalTriangle);
+        if (firstVisibleT != -1 || lastVisibleT != -1) {
+            link(currentExternalTriangle, 0, firstVisibleT, 1);
+            link(nextExternalTriangle, 0, lastVisibleT, 2);
+        } else {
+            link(currentExternalTriangle, 0, nextExternalTriangle, 0);
+        }
+        linkExteriorTriangles(nextExternalTriangle, afterLastVisibleT);
+
+        linkExteriorTriangles(currentExternalTriangle, nextExternalTriangle);
+    }
+
+    private void linkExteriorTriangles(final int t1, final int t2) {
+        tri[t1 * STRIDE + ACO] = t2;
+        tri[t2 * STRIDE + CBO] = t1;
+    }
+
+    /**
+     * Check the delaunay property of the triangle along the given side and flip
+     * the quadrilateral with its neighbour if needed. See FastDelaunayTriangulator.
+     */
+    private void delaunay(final int t, final int side) {
+
+        final int opp = neighbour(t, side);
+        if (tri[opp * STRIDE + C] == HORIZON) return;
+        final int i = getOpposite(t, side);
+
+        if (inCircle(t, vertex(opp, i)) > 0) {
+            flip(t, side, opp, (i + 1) % 3);
+            delaunay(t, 1);
+            delaunay(t, 2);
+            delaunay(opp, 0);
+            delaunay(opp, 1);
+        }
+    }
+
+    private int getOpposite(final int t, final int side) {
+        final int o = t * STRIDE;
+        return side == 0 ? getOppSide(tri[o + BAO], tri[o + A]) :
+                side == 1 ? getOppSide(tri[o + CBO], tri[o + B]) :
+                        side == 2 ? getOppSide(tri[o + ACO], tri[o + C]) : -1;
+    }
+
+    private int getOppSide(final int t, final int p) {
+        final int o = t * STRIDE;
+        return tri[o + A] == p ? 1 : tri[o + B] == p ? 2 : tri[o + C] == p ? 0 : -1;
+    }
+
+    private void flip(final int t0, final int side0, final int t1, final int side1) {
+        final int side0_1 = (side0 + 1) % 3;
+        final int side0_2 = (side0 + 2) % 3;
+        final int side1_1 = (side1 + 1) % 3;
+        final int side1_2 = (side1 + 2) % 3;
+
+        final int t0A = vertex(t1, side1_2);
+        final int t0B = vertex(t0, side0_2);
+        final int t1B = vertex(t0, side0_1);
+        final int t0C = vertex(t0, side0);
+        // New neighbours
+        final int newt0N1 = neighbour(t0, side0_2);
+        final int newt0N2 = neighbour(t1, side1_1);
+        final int newt1N0 = neighbour(t1, side1_2);
+        final int newt1N1 = neighbour(t0, side0_1);
+        setABC(t0, t0A, t0B, t0C);
+        tri[t0 * STRIDE + BAO] = t1;
+        link(t0, 1, newt0N1);
+        link(t0, 2, newt0N2);
+        setABC(t1, t0A, t1B, t0B);
+        link(t1, 0, newt1N0);
+        link(t1, 1, newt1N1);
+        tri[t1 * STRIDE + ACO] = t0;
+    }
+
+    private void setABC(final int t, final int a, final int b, final int c) {
+        final int o = t * STRIDE;
+        tri[o + A] = a;
+        tri[o + B] = b;
+        tri[o + C] = c;
+    }
+
+    private void link(final int t1, final int side1, final int t2, final int side2) {
+        setNeighbour(t1, side1, t2);
+        setNeighbour(t2, side2, t1);
+    }
+
+    private void link(final int t1, final int side1, final int t2) {
+        final int p1 = vertex(t1, side1);
+        if (p1 == vertex(t2, side1)) {
+            setNeighbour(t1, side1, t2);
+            setNeighbour(t2, (side1 + 2) % 3, t1);
+        } else {
+            final int side2 = (side1 + 1) % 3;
+            if (p1 == vertex(t2, side2)) {
+                setNeighbour(t1, side1, t2);
+                setNeighbour(t2, side1, t1);
+            } else {
+                final int side3 = (side1 + 2) % 3;
+                if (p1 == vertex(t2, side3)) {
+                    setNeighbour(t1, side1, t2);
+                    setNeighbour(t2, side2, t1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Orientation of vertex c relative to the AB side of triangle t, see Triangle.ccw
+     */
+    private int ccw(final int t, final int c) {
+        final int o = t * STRIDE;
+        final int a = tri[o + A];
+        final int b = tri[o + B];
+        final double dx1dy2 = (x[b] - x[a]) * (y[c] - y[a]);
+        final double dy1dx2 = (y[b] - y[a]) * (x[c] - x[a]);
+        return dx1dy2 > dy1dx2 ? 1 : dx1dy2 < dy1dx2 ? -1 : 0;
+    }
+
+    /**
+     * Positive if vertex p lies inside the circumcircle of triangle t, see Triangle.inCircle
+     */
+    private double inCircle(final int t, final int p) {
+        final int o = t * STRIDE;
+        final int a = tri[o + A];
+        final int b = tri[o + B];
+        final int c = tri[o + C];
+
+        final double adx = x[a] - x[p];
+        final double ady = y[a] - y[p];
+        final double bdx = x[b] - x[p];
+        final double bdy = y[b] - y[p];
+        final double cdx = x[c] - x[p];
+        final double cdy = y[c] - y[p];
+
+        final double abdet = adx * bdy - bdx * ady;
+        final double bcdet = bdx * cdy - cdx * bdy;
+        final double cadet = cdx * ady - adx * cdy;
+        final double alift = adx * adx + ady * ady;
+        final double blift = bdx * bdx + bdy * bdy;
+        final double clift = cdx * cdx + cdy * cdy;
+
+        return alift * bcdet + blift * cadet + clift * abdet;
+    }
+}
@@ -10,6 +10,10 @@ import java.util.List;
 
 public class TriangleInterpolator {
 
+    // triangulation arrays are kept per thread and reused from one tile to the next
+    private static final ThreadLocal<IndexedDelaunayTriangulator> workspace =
+            ThreadLocal.withInitial(IndexedDelaunayTriangulator::new);
+
     public static class ZData {
         public final double[] z_1d_in;
         public final double[][] z_in;
@@ -33,9 +37,20 @@ public class TriangleInterpolator {
                                       final Window window, final double xyRatio, final int xScale,
                                       final int yScale, final double invalidIndex, final int offset) throws Exception {
 
-        final FastDelaunayTriangulator FDT = triangulate(x_in, y_in, xyRatio, invalidIndex);
-        if(FDT != null) {
-            interpolate(xyRatio, window, xScale, yScale, offset, invalidIndex, FDT, zList);
+        final IndexedDelaunayTriangulator triangulator = workspace.get();
+        final int width = x_in[0].length;
+        triangulator.reset(x_in.length * width);
+        for (int i = 0; i < x_in.length; i++) {
+            for (int j = 0; j < width; j++) {
+                if (x_in[i][j] == invalidIndex || y_in[i][j] == invalidIndex) {
+                    continue;
+                }
+                triangulator.addVertex(x_in[i][j], y_in[i][j] * xyRatio, i * width + j);
+            }
+        }
+
+        if (triangulator.triangulate()) {
+            interpolate(xyRatio, window, xScale, yScale, offset, invalidIndex, triangulator, zList);
         }
     }
 
@@ -43,9 +58,17 @@ public class TriangleInterpolator {
                                       final Window window, final double xyRatio, final int xScale,
                                       final int yScale, final double invalidIndex, final int offset) throws Exception {
 
-        final FastDelaunayTriangulator FDT = triangulate(x_in, y_in, xyRatio, invalidIndex);
-        if(FDT != null) {
-            interpolate(xyRatio, window, xScale, yScale, offset, invalidIndex, FDT, zList);
+        final IndexedDelaunayTriangulator triangulator = workspace.get();
+        triangulator.reset(x_in.length);
+        for (int i = 0; i < x_in.length; i++) {
+            if (x_in[i] == invalidIndex || y_in[i] == invalidIndex) {
+                continue;
+            }
+            triangulator.addVertex(x_in[i], y_in[i] * xyRatio, i);
+        }
+
+        if (triangulator.triangulate()) {
+            interpolate(xyRatio, window, xScale, yScale, offset, invalidIndex, triangulator, zList);
         }
     }
 
@@ -231,6 +254,131 @@ public class TriangleInterpolator {
         //SystemUtils.LOG.info("Data set interpolated in " + (0.001 * (t5 - t4)) + " sec");
     }
 
+    /**
+     * Linear interpolation over the triangles of an IndexedDelaunayTriangulator.
+     * Same computation as the FastDelaunayTriangulator version, with the vertex ids indexing the z input.
+     */
+    public static void interpolate(final double xyRatio, final Window tileWindow,
+                                   final double xScale, final double yScale,
+                                   final double offset, final double invalidIndex,
+                                   final IndexedDelaunayTriangulator triangulator, final ZData[] zList) {
+
+        final double x_min = tileWindow.linelo;
+        final double y_min = tileWindow.pixlo;
+
+        long i_min, i_max, j_min, j_max; // minimas/maximas
+        double xp, yp;
+        double xkj, ykj, xlj, ylj;
+        double f; // function
+
+        final int nx = (int) tileWindow.lines();
+        final int ny = (int) tileWindow.pixels();
+
+        for (int t = 0; t < triangulator.getNumTriangles(); t++) {
+
+            final int a = triangulator.getVertex(t, 0);
+            final int b = triangulator.getVertex(t, 1);
+            final int c = triangulator.getVertex(t, 2);
+
+            // triangle coordinates
+            final double vx0 = triangulator.getX(a);
+            final double vy0 = triangulator.getY(a) / xyRatio;
+            final double vx1 = triangulator.getX(b);
+            final double vy1 = triangulator.getY(b) / xyRatio;
+            final double vx2 = triangulator.getX(c);
+            final double vy2 = triangulator.getY(c) / xyRatio;
+
+            // skip invalid indices
+            if (vx0 == invalidIndex || vx1 == invalidIndex || vx2 == invalidIndex ||
+                    vy0 == invalidIndex || vy1 == invalidIndex || vy2 == invalidIndex) {
+                continue;
+            }
+
+            // Compute grid indices the current triangle may cover
+            xp = Math.min(Math.min(vx0, vx1), vx2);
+            i_min = coordToIndex(xp, x_min, xScale, offset);
+
+            xp = Math.max(Math.max(vx0, vx1), vx2);
+            i_max = coordToIndex(xp, x_min, xScale, offset);
+
+            yp = Math.min(Math.min(vy0, vy1), vy2);
+            j_min = coordToIndex(yp, y_min, yScale, offset);
+
+            yp = Math.max(Math.max(vy0, vy1), vy2);
+            j_max = coordToIndex(yp, y_min, yScale, offset);
+
+            // skip triangle that is above, below, on the left or on the right of the region
+            if ((i_max < 0) || (i_min >= nx) || (j_max < 0) || (j_min >= ny)) {
+                continue;
+            }
+
+            // clip to the region
+            i_min = Math.max(i_min, 0);
+            i_max = Math.min(i_max, nx - 1);
+            j_min = Math.max(j_min, 0);
+            j_max = Math.min(j_max, ny - 1);
+
+            // compute plane defined by the three vertices of the triangle: z = ax + by + c
+            xkj = vx1 - vx0;
+            ykj = vy1 - vy0;
+            xlj = vx2 - vx0;
+            ylj = vy2 - vy0;
+
+            f = 1.0 / (xkj * ylj - ykj * xlj);
+
+            final int id0 = triangulator.getId(a);
+            final int id1 = triangulator.getId(b);
+            final int id2 = triangulator.getId(c);
+
+            for (ZData data : zList) {
+                final double zj, zk, zl;
+                if (data.z_1d_in != null) {
+                    zj = data.z_1d_in[id0];
+                    zk = data.z_1d_in[id1];
+                    zl = data.z_1d_in[id2];
+                } else {
+                    final int width = data.z_in[0].length;
+                    zj = data.z_in[id0 / width][id0 % width];
+                    zk = data.z_in[id1 / width][id1 % width];
+                    zl = data.z_in[id2 / width][id2 % width];
+                }
+
+                final double zkj = zk - zj;
+                final double zlj = zl - zj;
+
+                data.a = -f * (ykj * zlj - zkj * ylj);
+                data.b = -f * (zkj * xlj - xkj * zlj);
+                data.c = -data.a * vx1 - data.b * vy1 + zk;
+            }
+
+            // point in triangle test, as in PointInTriangle
+            final double xtd0 = vx2 - vx0;
+            final double xtd1 = vx0 - vx1;
+            final double xtd2 = vx1 - vx2;
+            final double ytd0 = vy2 - vy0;
+            final double ytd1 = vy0 - vy1;
+            final double ytd2 = vy1 - vy2;
+
+            for (int i = (int)i_min; i <= i_max; i++) {
+                xp = x_min + i * xScale + offset;
+                for (int j = (int)j_min; j <= j_max; j++) {
+                    yp = y_min + j * yScale + offset;
+
+                    final boolean s0 = (xtd0 * (yp - vy0)) > ((xp - vx0) * ytd0);
+                    final boolean s1 = (xtd1 * (yp - vy1)) > ((xp - vx1) * ytd1);
+                    final boolean s2 = (xtd2 * (yp - vy2)) > ((xp - vx2) * ytd2);
+                    if (s0 != s1 || s1 != s2) {
+                        continue;
+                    }
+
+                    for (ZData d : zList) {
+                        d.z_out[i][j] = d.a * xp + d.b * yp + d.c;
+                    }
+                }
+            }
+        }
+    }
+
     private static void getABC(
             final double[] vx, final double[] vy, final double[] vz, final ZData data,
             final double f, final double  xkj, final double ykj, final double xlj, final double ylj) {
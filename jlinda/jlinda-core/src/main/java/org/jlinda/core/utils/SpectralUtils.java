@@ -6,44 +6,72 @@ import org.esa.snap.core.util.SystemUtils;
 import org.jblas.ComplexDoubleMatrix;
 import org.jblas.DoubleMatrix;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 public class SpectralUtils {
 
     static Logger logger = SystemUtils.LOG;
 
-    private static void fftTransform1D_inplace(ComplexDoubleMatrix vector, int fftLength, int direction) {
-        switch (direction) {
-            case 1:
-                fft1D_inplace(vector, fftLength);
-                break;
-            case -1:
-                invfft1D_inplace(vector, fftLength);
-                break;
-            default:
-                throw new IllegalArgumentException("fourier1D: direction 1, or -1");
+    private static final int MAX_PLANS = 64;
+
+    // FFT plans are reused for each length: the 1D plans only hold read-only tables and are shared by all
+    // threads, the 2D plans keep a work buffer and are kept per thread
+    private static final Map<Integer, DoubleFFT_1D> fft1DPlans = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Map<Long, DoubleFFT_2D>> fft2DPlans = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<double[][]> rowBuffer = ThreadLocal.withInitial(() -> new double[1][0]);
+
+    private static DoubleFFT_1D getFFT1D(final int fftLength) {
+        DoubleFFT_1D fft = fft1DPlans.get(fftLength);
+        if (fft == null) {
+            if (fft1DPlans.size() >= MAX_PLANS) {
+                fft1DPlans.clear();
+            }
+            fft = new DoubleFFT_1D(fftLength);
+            fft1DPlans.put(fftLength, fft);
+        }
+        return fft;
+    }
+
+    private static DoubleFFT_2D getFFT2D(final int rows, final int columns) {
+        final Map<Long, DoubleFFT_2D> plans = fft2DPlans.get();
+        final long key = ((long) rows << 32) | columns;
+        DoubleFFT_2D fft = plans.get(key);
+        if (fft == null) {
+            if (plans.size() >= MAX_PLANS) {
+                plans.clear();
+            }
+            fft = new DoubleFFT_2D(rows, columns);
+            plans.put(key, fft);
         }
+        return fft;
+    }
+
+    private static double[] getRowBuffer(final int length) {
+        final double[][] holder = rowBuffer.get();
+        if (holder[0].length < length) {
+            holder[0] = new double[length];
+        }
+        return holder[0];
     }
 
     public static void fft1D_inplace(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
-        fft.complexForward(vector.data);
+        getFFT1D(fftLength).complexForward(vector.data);
     }
 
     public static void invfft1D_inplace(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
-        fft.complexInverse(vector.data, true);
+        getFFT1D(fftLength).complexInverse(vector.data, true);
     }
 
     public static ComplexDoubleMatrix fft1D(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
-        fft.complexForward(vector.data);
+        getFFT1D(fftLength).complexForward(vector.data);
         return vector;
     }
 
     public static ComplexDoubleMatrix invfft1D(ComplexDoubleMatrix vector, final int fftLength) {
-        DoubleFFT_1D fft = new DoubleFFT_1D(fftLength);
-        fft.complexInverse(vector.data, true);
+        getFFT1D(fftLength).complexInverse(vector.data, true);
         return vector;
     }
 
@@ -53,25 +81,51 @@ public class SpectralUtils {
         return result;
     }
 
+    /**
+     * Transform all columns (dimension 1) or all rows (dimension 2) of a matrix in place. The matrix is stored
+     * column by column with interleaved real and imaginary parts, so the columns are transformed directly in
+     * the data array and the rows are gathered into a buffer of the thread, transformed and scattered back.
+     */
     private static void fftTransformInPlace(ComplexDoubleMatrix cplxData, int dimension, int flag) {
         int i;
         final int columns = cplxData.columns;
         final int rows = cplxData.rows;
+        final double[] data = cplxData.data;
+
+        if (flag != 1 && flag != -1) {
+            throw new IllegalArgumentException("fourier1D: direction 1, or -1");
+        }
 
         switch (dimension) {
             case 1: {
+                final DoubleFFT_1D fft = getFFT1D(rows);
                 for (i = 0; i < columns; ++i) {
-                    ComplexDoubleMatrix VECTOR = cplxData.getColumn(i);
-                    fftTransform1D_inplace(VECTOR, rows, flag);
-                    cplxData.putColumn(i, VECTOR);
+                    if (flag == 1) {
+                        fft.complexForward(data, 2 * i * rows);
+                    } else {
+                        fft.complexInverse(data, 2 * i * rows, true);
+                    }
                 }
                 break;
             }
             case 2: {
+                final DoubleFFT_1D fft = getFFT1D(columns);
+                final double[] row = getRowBuffer(2 * columns);
+                final int stride = 2 * rows;
                 for (i = 0; i < rows; ++i) {
-                    ComplexDoubleMatrix VECTOR = cplxData.getRow(i);
-                    fftTransform1D_inplace(VECTOR, columns, flag);
-                    cplxData.putRow(i, VECTOR);
+                    for (int c = 0, k = 2 * i; c < columns; ++c, k += stride) {
+                        row[2 * c] = data[k];
+                        row[2 * c + 1] = data[k + 1];
+                    }
+                    if (flag == 1) {
+                        fft.complexForward(row);
+                    } else {
+                        fft.complexInverse(row, true);
+                    }
+                    for (int c = 0, k = 2 * i; c < columns; ++c, k += stride) {
+                        data[k] = row[2 * c];
+                        data[k + 1] = row[2 * c + 1];
+                    }
                 }
                 break;
             }
@@ -97,12 +151,12 @@ public class SpectralUtils {
         fftTransformInPlace(inMatrix, dimension, -1);
     }
 
+    /**
+     * 2D transform in place. The column major data of A is the row major data of its transpose, and the
+     * transform of the transpose is the transpose of the transform, so the data is transformed as it is.
+     */
     public static void fft2D_inplace(ComplexDoubleMatrix A) {
-        ComplexDoubleMatrix aTemp = A.transpose();
-        DoubleFFT_2D fft2d = new DoubleFFT_2D(aTemp.rows, aTemp.columns);
-//        fft2d.complexForward(A.data);
-        fft2d.complexForward(aTemp.data);
-        A.data = aTemp.transpose().data;
+        getFFT2D(A.columns, A.rows).complexForward(A.data);
     }
 
     public static ComplexDoubleMatrix fft2D(ComplexDoubleMatrix inMatrix) {
@@ -112,16 +166,11 @@ public class SpectralUtils {
     }
 
     public static void fft2D_inplace(DoubleMatrix A) {
-        DoubleFFT_2D fft2d = new DoubleFFT_2D(A.rows, A.columns);
-        fft2d.realForwardFull(A.data);
+        getFFT2D(A.rows, A.columns).realForwardFull(A.data);
     }
 
     public static void invfft2D_inplace(ComplexDoubleMatrix A) {
-        DoubleFFT_2D fft2d = new DoubleFFT_2D(A.rows, A.columns);
-//        fft2d.complexInverse(A.data, true);
-        ComplexDoubleMatrix aTemp = A.transpose();
-        fft2d.complexInverse(aTemp.data, true);
-        A.data = aTemp.transpose().data;
+        getFFT2D(A.columns, A.rows).complexInverse(A.data, true);
     }
 
     public static ComplexDoubleMatrix invfft2d(ComplexDoubleMatrix inMatrix) {
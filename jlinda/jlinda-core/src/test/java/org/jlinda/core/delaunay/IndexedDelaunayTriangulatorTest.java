@@ -0,0 +1,103 @@
+package org.jlinda.core.delaunay;
+
+import org.jlinda.core.Window;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IndexedDelaunayTriangulatorTest {
+
+    private static final double invalidIndex = -9999.0;
+    private static final double xyRatio = 4.7;
+
+    @Test
+    public void testTooFewVertices() {
+        final IndexedDelaunayTriangulator triangulator = new IndexedDelaunayTriangulator();
+        triangulator.reset(3);
+        triangulator.addVertex(0, 0, 0);
+        triangulator.addVertex(1, 1, 1);
+        triangulator.addVertex(1, 1, 2);
+        assertFalse(triangulator.triangulate());
+        assertEquals(0, triangulator.getNumTriangles());
+    }
+
+    @Test
+    public void testSameTrianglesAsFastDelaunayTriangulator() throws Exception {
+        final double[][] az = new double[40][50];
+        final double[][] rg = new double[40][50];
+        createDistortedGrid(az, rg, new Random(7));
+
+        final FastDelaunayTriangulator fdt = TriangleInterpolator.triangulate(az, rg, xyRatio, invalidIndex);
+
+        final IndexedDelaunayTriangulator triangulator = new IndexedDelaunayTriangulator();
+        triangulator.reset(0);
+        for (int i = 0; i < az.length; i++) {
+            for (int j = 0; j < az[0].length; j++) {
+                if (az[i][j] != invalidIndex && rg[i][j] != invalidIndex) {
+                    triangulator.addVertex(az[i][j], rg[i][j] * xyRatio, i * az[0].length + j);
+                }
+            }
+        }
+        assertTrue(triangulator.triangulate());
+
+        assertEquals(fdt.triangles.size(), triangulator.getNumTriangles());
+        for (int t = 0; t < triangulator.getNumTriangles(); t++) {
+            final Triangle expected = fdt.triangles.get(t);
+            for (int corner = 0; corner < 3; corner++) {
+                final int v = triangulator.getVertex(t, corner);
+                assertEquals(expected.getVertex(corner).x, triangulator.getX(v), 0.0);
+                assertEquals(expected.getVertex(corner).y, triangulator.getY(v), 0.0);
+                assertEquals((int) expected.getVertex(corner).z, triangulator.getId(v));
+            }
+        }
+    }
+
+    @Test
+    public void testGridDataLinearMatchesFastDelaunayTriangulator() throws Exception {
+        final Random random = new Random(11);
+        for (int run = 0; run < 3; run++) {
+            final double[][] az = new double[30 + run][45];
+            final double[][] rg = new double[30 + run][45];
+            final double[][] z = new double[30 + run][45];
+            createDistortedGrid(az, rg, random);
+            for (double[] row : z) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = random.nextDouble() * 100.0;
+                }
+            }
+
+            final Window window = new Window(100, 160, 200, 290);
+            final double[][] expected = new double[(int) window.lines()][(int) window.pixels()];
+            final double[][] actual = new double[(int) window.lines()][(int) window.pixels()];
+
+            final FastDelaunayTriangulator fdt = TriangleInterpolator.triangulate(az, rg, xyRatio, invalidIndex);
+            TriangleInterpolator.interpolate(xyRatio, window, 1, 1, 0, invalidIndex, fdt,
+                    new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(z, expected)});
+
+            TriangleInterpolator.gridDataLinear(az, rg,
+                    new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(z, actual)},
+                    window, xyRatio, 1, 1, invalidIndex, 0);
+
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], actual[i], 0.0);
+            }
+        }
+    }
+
+    // DEM posts geocoded into a sheared and jittered image grid, with holes and a repeated post
+    private static void createDistortedGrid(final double[][] az, final double[][] rg, final Random random) {
+        for (int i = 0; i < az.length; i++) {
+            for (int j = 0; j < az[0].length; j++) {
+                az[i][j] = 80.0 + i * 3.1 + j * 0.4 + random.nextDouble();
+                rg[i][j] = 180.0 + j * 2.3 - i * 0.2 + random.nextDouble();
+                if (random.nextInt(20) == 0) {
+                    az[i][j] = invalidIndex;
+                }
+            }
+        }
+        az[5][6] = az[5][5];
+        rg[5][6] = rg[5][5];
+    }
+}
@@ -20,16 +20,24 @@ import org.esa.snap.core.util.StopWatch;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.core.util.io.FileUtils;
 import org.json.simple.JSONObject;
+import org.junit.Assume;
 
 import java.io.File;
 import java.nio.file.Files;
 
+/**
+ * Wall clock timing of whole operator runs on external test products.
+ * Enabled with -Ds1tbx.benchmark.wallclock=true, results are appended to the file given by
+ * s1tbx.benchmark.wallclock.results. Kernels and operator chains on synthetic products are
+ * measured by the JMH benchmarks in org.esa.s1tbx.benchmark.jmh.
+ */
 public abstract class Benchmark {
 
-    private final static boolean DISABLE_BENCHMARKS = true;
+    private final static boolean ENABLE_BENCHMARKS = Boolean.getBoolean("s1tbx.benchmark.wallclock");
     private final static int iterations = 5;
     private final String name;
-    private final File resultsFile = new File("e:\\out\\results.json");
+    private final File resultsFile = new File(
+            System.getProperty("s1tbx.benchmark.wallclock.results", "target/wallclock-results.json"));
     protected File outputFolder;
 
     public Benchmark(final String name) {
@@ -37,10 +45,7 @@ public abstract class Benchmark {
     }
 
     public void run() throws Exception {
-        if(DISABLE_BENCHMARKS) {
-            System.out.println("Benchmark " + name + " disabled");
-            return;
-        }
+        Assume.assumeTrue("Benchmark " + name + " disabled", ENABLE_BENCHMARKS);
         SystemUtils.LOG.info("Initial cold start run");
         StopWatch coldStartTimer = new StopWatch();
         outputFolder = Files.createTempDirectory(name).toFile();
@@ -67,6 +72,7 @@ public abstract class Benchmark {
         String avgTime = StopWatch.getTimeString(totalTime / (long)iterations);
         SystemUtils.LOG.warning(name + " average time " + avgTime);
 
+        resultsFile.getAbsoluteFile().getParentFile().mkdirs();
         final JSONObject json = readJSON(resultsFile);
         json.put(name, avgTime);
         JSON.write(json, resultsFile);
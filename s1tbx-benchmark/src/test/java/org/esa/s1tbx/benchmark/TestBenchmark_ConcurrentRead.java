@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Read throughput of GRD measurement tiles against the number of reading threads
+ */
+public class TestBenchmark_ConcurrentRead extends BaseBenchmarks {
+
+    private final static int tileSize = 512;
+
+    @Test
+    public void testGRD_read_1thread() throws Exception {
+        concurrentRead(1);
+    }
+
+    @Test
+    public void testGRD_read_2threads() throws Exception {
+        concurrentRead(2);
+    }
+
+    @Test
+    public void testGRD_read_4threads() throws Exception {
+        concurrentRead(4);
+    }
+
+    @Test
+    public void testGRD_read_8threads() throws Exception {
+        concurrentRead(8);
+    }
+
+    @Test
+    public void testGRD_read_16threads() throws Exception {
+        concurrentRead(16);
+    }
+
+    private void concurrentRead(final int numThreads) throws Exception {
+        Benchmark b = new Benchmark("GRD_read_" + numThreads + "threads") {
+            @Override
+            protected void execute() throws Exception {
+                final Product srcProduct = read(grdFile);
+                final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+                try {
+                    final List<Future<?>> futures = new ArrayList<>();
+                    for (Band band : srcProduct.getBands()) {
+                        final int width = Math.min(band.getRasterWidth(), rect.width);
+                        final int height = Math.min(band.getRasterHeight(), rect.height);
+                        for (int y = 0; y < height; y += tileSize) {
+                            for (int x = 0; x < width; x += tileSize) {
+                                final int tx = x, ty = y;
+                                final int tw = Math.min(tileSize, width - x);
+                                final int th = Math.min(tileSize, height - y);
+                                futures.add(executor.submit(() -> {
+                                    final ProductData data = band.createCompatibleRasterData(tw, th);
+                                    band.readRasterData(tx, ty, tw, th, data);
+                                    return null;
+                                }));
+                            }
+                        }
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                } finally {
+                    executor.shutdown();
+                    srcProduct.dispose();
+                }
+            }
+        };
+        b.run();
+    }
+}
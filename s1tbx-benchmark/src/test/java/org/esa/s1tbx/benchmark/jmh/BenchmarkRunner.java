@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the JMH benchmarks of this package and writes the results as JSON.
+ * <p>
+ * From the project root:
+ * <pre>
+ * mvn -Pbenchmark install -DskipTests
+ * mvn -Pbenchmark -pl s1tbx-benchmark exec:exec
+ * mvn -Pbenchmark -pl s1tbx-benchmark exec:exec -Dbenchmark.include=Orbit -Dbenchmark.results=orbit.json
+ * </pre>
+ * Arguments are standard JMH command line options, the benchmarks to run are selected by regular
+ * expressions and default to all of this package. Results are written to the file given by the
+ * s1tbx.benchmark.results system property, target/jmh-results.json by default.
+ */
+public class BenchmarkRunner {
+
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final File resultFile = new File(System.getProperty("s1tbx.benchmark.results", "target/jmh-results.json"));
+        final File parent = resultFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + parent);
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath());
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + "\\.");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.jlinda.core.Window;
+import org.jlinda.core.delaunay.FastDelaunayTriangulator;
+import org.jlinda.core.delaunay.TriangleInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delaunay triangulation and linear interpolation of DEM posts geocoded into a tile, as done for
+ * back-geocoding: the object based FastDelaunayTriangulator against the gridDataLinear path
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DelaunayBenchmark {
+
+    private static final double invalidIndex = -9999.0;
+    private static final double xyRatio = 4.7;
+
+    @Param({"32", "96"})
+    private int gridSize;
+
+    private double[][] azimuth;
+    private double[][] range;
+    private double[][] elevation;
+    private double[][] output;
+    private Window window;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(7);
+        azimuth = new double[gridSize][gridSize];
+        range = new double[gridSize][gridSize];
+        elevation = new double[gridSize][gridSize];
+        for (int i = 0; i < gridSize; i++) {
+            for (int j = 0; j < gridSize; j++) {
+                azimuth[i][j] = i * 3.1 + j * 0.4 + random.nextDouble();
+                range[i][j] = j * 2.3 - i * 0.2 + random.nextDouble();
+                elevation[i][j] = 100.0 * random.nextDouble();
+            }
+        }
+        final int lines = (int) (gridSize * 2.5);
+        final int pixels = (int) (gridSize * 1.8);
+        window = new Window(gridSize / 4, gridSize / 4 + lines - 1, gridSize / 4, gridSize / 4 + pixels - 1);
+        output = new double[lines][pixels];
+    }
+
+    @Benchmark
+    public double[][] fastDelaunayTriangulator() throws Exception {
+        final FastDelaunayTriangulator fdt = TriangleInterpolator.triangulate(azimuth, range, xyRatio, invalidIndex);
+        TriangleInterpolator.interpolate(xyRatio, window, 1, 1, 0, invalidIndex, fdt,
+                new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(elevation, output)});
+        return output;
+    }
+
+    @Benchmark
+    public double[][] gridDataLinear() throws Exception {
+        TriangleInterpolator.gridDataLinear(azimuth, range,
+                new TriangleInterpolator.ZData[]{new TriangleInterpolator.ZData(elevation, output)},
+                window, xyRatio, 1, 1, invalidIndex, 0);
+        return output;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.Sentinel1Utils;
+import org.esa.snap.engine_utilities.eo.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TOPS deramp and demodulation of a tile of a synthetic IW burst: the per pixel phase followed by its cos and sin,
+ * against the fused kernel with the azimuth recurrence
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DerampDemodBenchmark {
+
+    private static final int linesPerBurst = 1500;
+    private static final int samplesPerBurst = 25000;
+    private static final int burstIndex = 1;
+
+    @Param({"512"})
+    private int tileSize;
+
+    private final Sentinel1Utils.SubSwathInfo[] subSwath = {new Sentinel1Utils.SubSwathInfo()};
+    private final Sentinel1Utils.DerampDemod derampDemod = new Sentinel1Utils.DerampDemod();
+    private Rectangle rectangle;
+
+    @Setup
+    public void setup() {
+        final Sentinel1Utils.SubSwathInfo sw = subSwath[0];
+        sw.linesPerBurst = linesPerBurst;
+        sw.azimuthTimeInterval = 0.002055556;
+        sw.dopplerRate = new double[2][samplesPerBurst];
+        sw.referenceTime = new double[2][samplesPerBurst];
+        sw.dopplerCentroid = new double[2][samplesPerBurst];
+
+        final Random random = new Random(42);
+        for (int b = 0; b < 2; ++b) {
+            for (int x = 0; x < samplesPerBurst; ++x) {
+                sw.dopplerRate[b][x] = -2000.0 - 300.0 * x / samplesPerBurst;
+                sw.referenceTime[b][x] = 1.5 + 0.01 * random.nextDouble();
+                sw.dopplerCentroid[b][x] = 50.0 * random.nextDouble() - 25.0;
+            }
+        }
+        rectangle = new Rectangle(10000, burstIndex * linesPerBurst + 300, tileSize, tileSize);
+    }
+
+    @Benchmark
+    public double phaseThenSinCos() {
+        final Sentinel1Utils.SubSwathInfo sw = subSwath[0];
+        final int x0 = rectangle.x, y0 = rectangle.y, w = rectangle.width, h = rectangle.height;
+        final double[][] phase = new double[h][w];
+        final int firstLineInBurst = burstIndex * sw.linesPerBurst;
+        for (int y = y0; y < y0 + h; y++) {
+            final double ta = (y - firstLineInBurst) * sw.azimuthTimeInterval;
+            for (int x = x0; x < x0 + w; x++) {
+                final double kt = sw.dopplerRate[burstIndex][x];
+                final double deramp = -Constants.PI * kt * FastMath.pow(ta - sw.referenceTime[burstIndex][x], 2);
+                final double demod = -Constants.TWO_PI * sw.dopplerCentroid[burstIndex][x] * ta;
+                phase[y - y0][x - x0] = deramp + demod;
+            }
+        }
+
+        double sum = 0;
+        for (int yy = 0; yy < h; yy++) {
+            for (int xx = 0; xx < w; xx++) {
+                sum += FastMath.cos(phase[yy][xx]) + FastMath.sin(phase[yy][xx]);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double fusedKernel() {
+        Sentinel1Utils.computeDerampDemod(subSwath, 1, burstIndex, rectangle, derampDemod);
+        return derampDemod.cos[0] + derampDemod.sin[derampDemod.width * derampDemod.height - 1];
+    }
+}
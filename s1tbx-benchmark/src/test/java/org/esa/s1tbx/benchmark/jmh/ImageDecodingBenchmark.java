@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.s1tbx.commons.io.FileImageInputStreamExtImpl;
+import org.esa.s1tbx.commons.io.UncompressedTiffFile;
+import org.esa.s1tbx.io.binary.BinaryFileReader;
+import org.esa.s1tbx.io.binary.BinaryRecord;
+import org.esa.s1tbx.io.ceos.CEOSImageFile;
+import org.esa.snap.core.datamodel.ProductData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decoding 512 x 512 complex int16 tiles from a CEOS image file and from an uncompressed TIFF,
+ * from a single thread and from four threads sharing the file as GPF tile requests do.
+ * The files are written to the temporary folder at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ImageDecodingBenchmark {
+
+    private static final int width = 4096;
+    private static final int height = 2048;
+    private static final int tileSize = 512;
+    private static final int numTilesX = width / tileSize;
+    private static final int numTiles = numTilesX * (height / tileSize);
+
+    // ALOS PALSAR level 1.1 image file layout
+    private static final int descriptorLength = 720;
+    private static final int prefixLength = 412;
+
+    private File ceosFile;
+    private File tiffFile;
+    private CEOSImageFile ceosImage;
+    private UncompressedTiffFile tiff;
+    private final AtomicInteger nextTile = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class TileBuffers {
+        final ProductData i = ProductData.createInstance(ProductData.TYPE_INT16, tileSize * tileSize);
+        final ProductData q = ProductData.createInstance(ProductData.TYPE_INT16, tileSize * tileSize);
+        final short[] iData = (short[]) i.getElems();
+        final short[] qData = (short[]) q.getElems();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ceosFile = SyntheticData.createCeosImageFile(width, height, descriptorLength, prefixLength);
+        ceosImage = new SyntheticCEOSImageFile(ceosFile);
+        tiffFile = SyntheticData.createComplexTiff(width, height);
+        tiff = UncompressedTiffFile.open(tiffFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ceosImage.close();
+        tiff.close();
+        ceosFile.delete();
+        tiffFile.delete();
+    }
+
+    @Benchmark
+    public ProductData ceosTile(final TileBuffers buffers) {
+        return readCeosTile(buffers);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ProductData ceosTileConcurrent(final TileBuffers buffers) {
+        return readCeosTile(buffers);
+    }
+
+    @Benchmark
+    public short[] tiffTile(final TileBuffers buffers) {
+        return readTiffTile(buffers);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public short[] tiffTileConcurrent(final TileBuffers buffers) {
+        return readTiffTile(buffers);
+    }
+
+    private ProductData readCeosTile(final TileBuffers buffers) {
+        final int tile = Math.floorMod(nextTile.getAndIncrement(), numTiles);
+        final int x0 = (tile % numTilesX) * tileSize;
+        final int y0 = (tile / numTilesX) * tileSize;
+        ceosImage.readBandRasterDataSLC(x0, y0, tileSize, tileSize, 1, 1, tileSize, buffers.i, true, 4);
+        ceosImage.readBandRasterDataSLC(x0, y0, tileSize, tileSize, 1, 1, tileSize, buffers.q, false, 4);
+        return buffers.q;
+    }
+
+    private short[] readTiffTile(final TileBuffers buffers) {
+        final int tile = Math.floorMod(nextTile.getAndIncrement(), numTiles);
+        final int x0 = (tile % numTilesX) * tileSize;
+        final int y0 = (tile / numTilesX) * tileSize;
+        tiff.readInt16(x0, y0, tileSize, tileSize, 0, buffers.iData);
+        tiff.readInt16(x0, y0, tileSize, tileSize, 1, buffers.qData);
+        return buffers.qData;
+    }
+
+    private static final class SyntheticCEOSImageFile extends CEOSImageFile {
+
+        SyntheticCEOSImageFile(final File file) throws IOException {
+            binaryReader = new BinaryFileReader(new FileImageInputStreamExtImpl(file));
+            _imageRecordLength = prefixLength + width * 4;
+            startPosImageRecords = descriptorLength;
+            imageHeaderLength = prefixLength;
+        }
+
+        @Override
+        protected BinaryRecord createNewImageRecord(final int line) {
+            return null;
+        }
+    }
+}
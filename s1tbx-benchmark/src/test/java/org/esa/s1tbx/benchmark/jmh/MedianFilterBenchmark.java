@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters.SlidingMedian;
+import org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters.SpeckleFilter;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Median speckle filter of a 256 x 256 tile: sorting every window against the sliding median
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MedianFilterBenchmark {
+
+    private static final int tileSize = 256;
+    private static final double noDataValue = 0.0;
+
+    @Param({"3", "5", "7", "9", "11", "13", "15", "17", "19", "21"})
+    private int windowSize;
+
+    private int x0, y0, imageSize;
+    private Rectangle sourceRectangle;
+    private ProductData sourceData;
+    private TileIndex srcIndex;
+    private double[][] filteredTile;
+
+    private final SpeckleFilter neighbours = new SpeckleFilter() {
+        public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) {
+        }
+
+        public double[][] performFiltering(int x0, int y0, int w, int h, String[] srcBandNames) {
+            return null;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        final int halfSize = windowSize / 2;
+        x0 = halfSize;
+        y0 = halfSize;
+        imageSize = tileSize + 2 * halfSize;
+        sourceRectangle = new Rectangle(0, 0, imageSize, imageSize);
+
+        final Tile tile = SyntheticData.createTile(SyntheticData.createIntensities(imageSize, imageSize, 42),
+                imageSize, imageSize);
+        sourceData = tile.getDataBuffer();
+        srcIndex = new TileIndex(tile);
+        filteredTile = new double[tileSize][tileSize];
+    }
+
+    @Benchmark
+    public double[][] sortWindows() {
+        final double[] neighborValues = new double[windowSize * windowSize];
+        for (int y = y0; y < y0 + tileSize; ++y) {
+            for (int x = x0; x < x0 + tileSize; ++x) {
+                final int numSamples = neighbours.getNeighborValues(x, y, sourceData, null, srcIndex, noDataValue,
+                        false, windowSize, windowSize, imageSize, imageSize, neighborValues);
+
+                final double[] tmp = new double[numSamples];
+                int k = 0;
+                for (double v : neighborValues) {
+                    if (Double.compare(v, noDataValue) != 0) {
+                        tmp[k++] = v;
+                    }
+                }
+                Arrays.sort(tmp);
+                filteredTile[y - y0][x - x0] = tmp[numSamples / 2];
+            }
+        }
+        return filteredTile;
+    }
+
+    @Benchmark
+    public double[][] slidingMedian() {
+        final SlidingMedian median = new SlidingMedian(sourceData, null, srcIndex, sourceRectangle, noDataValue, false);
+        median.filter(x0, y0, tileSize, tileSize, windowSize, windowSize, filteredTile);
+        return filteredTile;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.util.io.FileUtils;
+import org.esa.snap.engine_utilities.util.TestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.Raster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operator chains run end to end through GPF on a synthetic detected product:
+ * multilook followed by a speckle filter, computing every tile in memory or writing BEAM-DIMAP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OperatorChainBenchmark {
+
+    private static final int width = 2048;
+    private static final int height = 2048;
+
+    @Param({"Lee", "Median", "Gamma Map"})
+    private String filter;
+
+    private Product sourceProduct;
+    private File outputFolder;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        TestUtils.initTestEnvironment();
+        GPF.getDefaultInstance().getOperatorSpiRegistry().loadOperatorSpis();
+        sourceProduct = SyntheticData.createDetectedProduct(width, height);
+        outputFolder = Files.createTempDirectory("s1tbx-benchmark").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sourceProduct.dispose();
+        FileUtils.deleteTree(outputFolder);
+    }
+
+    @Benchmark
+    public Raster multilookSpeckleFilter() {
+        final Product targetProduct = createChain();
+        Raster raster = null;
+        for (Band band : targetProduct.getBands()) {
+            raster = band.getSourceImage().getData();
+        }
+        targetProduct.dispose();
+        return raster;
+    }
+
+    @Benchmark
+    public File multilookSpeckleFilterWrite() {
+        final Product targetProduct = createChain();
+        final File file = new File(outputFolder, targetProduct.getName());
+        GPF.writeProduct(targetProduct, file, "BEAM-DIMAP", false, ProgressMonitor.NULL);
+        targetProduct.dispose();
+        return file;
+    }
+
+    private Product createChain() {
+        final Map<String, Object> multilookParameters = new HashMap<>();
+        multilookParameters.put("nRgLooks", 2);
+        multilookParameters.put("nAzLooks", 2);
+        multilookParameters.put("grSquarePixel", false);
+        final Product multilooked = GPF.createProduct("Multilook", multilookParameters, sourceProduct);
+
+        final Map<String, Object> filterParameters = new HashMap<>();
+        filterParameters.put("filter", filter);
+        filterParameters.put("filterSizeX", 7);
+        filterParameters.put("filterSizeY", 7);
+        return GPF.createProduct("Speckle-Filter", filterParameters, multilooked);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.s1tbx.commons.OrbitStateVectors;
+import org.esa.s1tbx.commons.SARGeocoding;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.esa.snap.engine_utilities.eo.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orbit interpolation and zero Doppler time solver on a synthetic Sentinel-1 like orbit
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrbitBenchmark {
+
+    private static final double firstLineTime = 7000.0;
+    private static final double lineTimeInterval = 0.002055556 / Constants.secondsInDay;
+    private static final double wavelength = 0.05546576;
+    private static final double orbitRadius = 7071000.0;
+    private static final double earthRadius = 6371000.0;
+    private static final double orbitPeriod = 5925.0;
+
+    private OrbitStateVectors orbit;
+    private PosVector earthPoint;
+    private final PosVector sensorPos = new PosVector();
+    private final double[] position = new double[3];
+    private final double[] velocity = new double[3];
+    private double baseX;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        final int numVectors = 30;
+        final OrbitStateVector[] vectors = new OrbitStateVector[numVectors];
+        final double w = 2.0 * Math.PI / orbitPeriod;
+        for (int i = 0; i < numVectors; ++i) {
+            final double t = i * 10.0;
+            vectors[i] = new OrbitStateVector(new ProductData.UTC(firstLineTime + t / Constants.secondsInDay),
+                    orbitRadius * Math.cos(w * t), 0.0, orbitRadius * Math.sin(w * t),
+                    -orbitRadius * w * Math.sin(w * t), 0.0, orbitRadius * w * Math.cos(w * t));
+        }
+        orbit = new OrbitStateVectors(vectors);
+
+        // a ground point looking sideways at the orbit 143.7 seconds after the first vector
+        final double a = w * 143.7;
+        final double side = 0.1;
+        earthPoint = new PosVector(earthRadius * Math.cos(a) * Math.cos(side), earthRadius * Math.sin(side),
+                earthRadius * Math.sin(a) * Math.cos(side));
+        baseX = earthPoint.x;
+    }
+
+    private double nextTime() {
+        return firstLineTime + (50.0 + (++counter & 1023) * 0.1) / Constants.secondsInDay;
+    }
+
+    private PosVector nextEarthPoint() {
+        earthPoint.x = baseX + (++counter & 1023);
+        return earthPoint;
+    }
+
+    @Benchmark
+    public double positionVelocity() {
+        orbit.getPositionVelocity(nextTime(), position, velocity);
+        return position[0] + velocity[0];
+    }
+
+    @Benchmark
+    public double slantRange() {
+        return SARGeocoding.computeSlantRange(nextTime(), orbit, earthPoint, sensorPos);
+    }
+
+    @Benchmark
+    public double zeroDopplerTimeNewton() {
+        return SARGeocoding.getEarthPointZeroDopplerTimeNewton(lineTimeInterval, wavelength, nextEarthPoint(), orbit);
+    }
+
+    @Benchmark
+    public double zeroDopplerTimeBisection() {
+        return SARGeocoding.getZeroDopplerTime(lineTimeInterval, wavelength, nextEarthPoint(), orbit);
+    }
+}
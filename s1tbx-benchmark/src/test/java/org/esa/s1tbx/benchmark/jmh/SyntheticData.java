@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2021 SkyWatch Space Applications Inc. https://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.benchmark.jmh;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.MetadataElement;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.TiePointGrid;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.internal.TileImpl;
+import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.gpf.OperatorUtils;
+import org.esa.snap.engine_utilities.util.TestUtils;
+
+import java.awt.*;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic inputs for the benchmarks, generated at setup so that no external test products are needed
+ */
+final class SyntheticData {
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Single look speckled intensities with exponential distribution
+     */
+    static float[] createIntensities(final int w, final int h, final long seed) {
+        final Random random = new Random(seed);
+        final float[] values = new float[w * h];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = (float) (-100.0 * Math.log(1.0 - random.nextDouble()));
+        }
+        return values;
+    }
+
+    /**
+     * Tile over the whole raster of a single float band product
+     */
+    static Tile createTile(final float[] values, final int w, final int h) {
+        final Product product = new Product("tile", "tile", w, h);
+        final Band band = product.addBand("Intensity", ProductData.TYPE_FLOAT32);
+        band.setUnit(Unit.INTENSITY);
+        band.setData(ProductData.createInstance(values));
+        return new TileImpl(band, band.getSourceImage().getData(new Rectangle(0, 0, w, h)));
+    }
+
+    /**
+     * Detected ground range product with abstracted metadata and an incidence angle tie point grid
+     */
+    static Product createDetectedProduct(final int w, final int h) {
+        final Product product = TestUtils.createProduct("GRD", w, h);
+
+        final Band band = product.addBand("Intensity_VV", ProductData.TYPE_FLOAT32);
+        band.setUnit(Unit.INTENSITY);
+        band.setNoDataValueUsed(true);
+        band.setNoDataValue(0.0);
+        band.setData(ProductData.createInstance(createIntensities(w, h, 42)));
+
+        final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(product);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.SAMPLE_TYPE, "DETECTED");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.MISSION, "SENTINEL-1A");
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.srgr_flag, 1);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.radar_frequency, 5405.0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.range_spacing, 10.0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.azimuth_spacing, 10.0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.azimuth_looks, 1);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.range_looks, 1);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.line_time_interval, 0.0015);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.slant_range_to_first_pixel, 800000.0);
+        AbstractMetadata.setAttribute(absRoot, AbstractMetadata.first_line_time,
+                AbstractMetadata.parseUTC("19-JUL-2018 00:28:54.000000"));
+
+        final int gridSize = 11;
+        final float[] incidenceAngles = new float[gridSize * gridSize];
+        for (int i = 0; i < incidenceAngles.length; ++i) {
+            incidenceAngles[i] = 30.0f + 15.0f * (i % gridSize) / (gridSize - 1);
+        }
+        product.addTiePointGrid(new TiePointGrid(OperatorUtils.TPG_INCIDENT_ANGLE, gridSize, gridSize, 0.5, 0.5,
+                (w - 1) / (double) (gridSize - 1), (h - 1) / (double) (gridSize - 1), incidenceAngles));
+        return product;
+    }
+
+    /**
+     * Uncompressed little endian complex int16 TIFF as found in SAFE measurement folders
+     */
+    static File createComplexTiff(final int w, final int h) throws IOException {
+        final int numEntries = 9;
+        final int ifdOffset = 8;
+        final int ifdSize = 2 + numEntries * 12 + 4;
+        final int stripOffsetsPos = ifdOffset + ifdSize;
+        final int stripCountsPos = stripOffsetsPos + h * 4;
+        final int dataPos = stripCountsPos + h * 4;
+        final int rowBytes = w * 4;
+
+        final ByteBuffer buf = ByteBuffer.allocate(dataPos + h * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifdOffset);
+        buf.putShort((short) numEntries);
+        putTiffEntry(buf, 256, 3, 1, w);
+        putTiffEntry(buf, 257, 3, 1, h);
+        putTiffEntry(buf, 258, 3, 1, 32);
+        putTiffEntry(buf, 259, 3, 1, 1);
+        putTiffEntry(buf, 273, 4, h, stripOffsetsPos);
+        putTiffEntry(buf, 277, 3, 1, 1);
+        putTiffEntry(buf, 278, 3, 1, 1);
+        putTiffEntry(buf, 279, 4, h, stripCountsPos);
+        putTiffEntry(buf, 339, 3, 1, 5);
+        buf.putInt(0);
+
+        for (int y = 0; y < h; ++y) {
+            buf.putInt(dataPos + y * rowBytes);
+        }
+        for (int y = 0; y < h; ++y) {
+            buf.putInt(rowBytes);
+        }
+        final Random random = new Random(7);
+        for (int i = 0; i < w * h; ++i) {
+            buf.putShort((short) random.nextInt()).putShort((short) random.nextInt());
+        }
+
+        final File file = File.createTempFile("s1tbx-benchmark", ".tif");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(buf.array());
+        }
+        return file;
+    }
+
+    private static void putTiffEntry(final ByteBuffer buf, final int tag, final int type, final int count,
+                                     final int value) {
+        buf.putShort((short) tag).putShort((short) type).putInt(count);
+        if (type == 3 && count == 1) {
+            buf.putShort((short) value).putShort((short) 0);
+        } else {
+            buf.putInt(value);
+        }
+    }
+
+    /**
+     * CEOS image file of big endian complex int16 records, each preceded by a record prefix
+     */
+    static File createCeosImageFile(final int w, final int h, final int descriptorLength,
+                                    final int prefixLength) throws IOException {
+        final int recordLength = prefixLength + w * 4;
+        final ByteBuffer record = ByteBuffer.allocate(recordLength).order(ByteOrder.BIG_ENDIAN);
+        final Random random = new Random(9);
+
+        final File file = File.createTempFile("s1tbx-benchmark", ".dat");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[descriptorLength]);
+            for (int y = 0; y < h; ++y) {
+                record.clear();
+                record.putInt(y + 2);
+                Arrays.fill(record.array(), 4, prefixLength, (byte) 0);
+                record.position(prefixLength);
+                for (int x = 0; x < w; ++x) {
+                    record.putShort((short) random.nextInt()).putShort((short) random.nextInt());
+                }
+                out.write(record.array());
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.esa.snap.core.dataop.dem.ElevationModel;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.dem.dataio.EarthGravitationalModel96;
+import org.esa.snap.runtime.Config;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Provides elevations of a DEM on a regular lat/lon grid of posts, window by window.
+ * <p>
+ * Post (row, col) of the grid is at lat = latOrigin - row * latSpacing and lon = lonOrigin + col * lonSpacing.
+ * The posts are sampled in blocks of BLOCK_SIZE x BLOCK_SIZE, which are kept in a cache bounded by bytes and
+ * shared by all providers of the same DEM instance and grid, so that overlapping windows of neighbouring tiles
+ * sample the DEM only once. The blocks of a DEM are released by dispose, before the DEM itself is disposed.
+ */
+public class DEMWindowProvider {
+
+    public static final int BLOCK_SIZE = 128;
+
+    private static final long MAX_CACHE_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.dem.windowCacheSizeMB", 128L) * 1024L * 1024L;
+
+    private static final Cache<BlockKey, double[]> blockCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHE_BYTES)
+            .weigher((BlockKey key, double[] block) -> block.length * 8)
+            .build();
+
+    private final ElevationModel dem;
+    private final double demNoDataValue;
+    private final double latOrigin;
+    private final double lonOrigin;
+    private final double latSpacing;
+    private final double lonSpacing;
+
+    /**
+     * @param dem            the elevation model. Providers of the same instance and grid share the cached posts
+     * @param demNoDataValue the no data value of the DEM
+     * @param latOrigin      latitude of the first row of posts
+     * @param lonOrigin      longitude of the first column of posts
+     * @param latSpacing     distance between rows in degrees
+     * @param lonSpacing     distance between columns in degrees
+     */
+    public DEMWindowProvider(final ElevationModel dem, final double demNoDataValue,
+                             final double latOrigin, final double lonOrigin,
+                             final double latSpacing, final double lonSpacing) {
+        this.dem = dem;
+        this.demNoDataValue = demNoDataValue;
+        this.latOrigin = latOrigin;
+        this.lonOrigin = lonOrigin;
+        this.latSpacing = latSpacing;
+        this.lonSpacing = lonSpacing;
+    }
+
+    public double getLatitude(final int row) {
+        return latOrigin - row * latSpacing;
+    }
+
+    public double getLongitude(final int col) {
+        return lonOrigin + col * lonSpacing;
+    }
+
+    /**
+     * Get the window of posts covering the given lat/lon boundaries.
+     *
+     * @param latMin            minimum latitude
+     * @param latMax            maximum latitude
+     * @param lonMin            minimum longitude
+     * @param lonMax            maximum longitude
+     * @param fillNoDataWithEGM replace posts without elevation with the EGM96 geoid height
+     * @return the window
+     * @throws Exception The exceptions.
+     */
+    public Window getWindow(final double latMin, final double latMax, final double lonMin, final double lonMax,
+                            final boolean fillNoDataWithEGM) throws Exception {
+        final int row0 = (int) Math.floor((latOrigin - latMax) / latSpacing);
+        final int row1 = (int) Math.ceil((latOrigin - latMin) / latSpacing);
+        final int col0 = (int) Math.floor((lonMin - lonOrigin) / lonSpacing);
+        final int col1 = (int) Math.ceil((lonMax - lonOrigin) / lonSpacing);
+        return getWindow(row0, col0, row1 - row0 + 1, col1 - col0 + 1, fillNoDataWithEGM);
+    }
+
+    /**
+     * Get a window of posts.
+     *
+     * @param row0              the first row
+     * @param col0              the first column
+     * @param rows              the number of rows
+     * @param cols              the number of columns
+     * @param fillNoDataWithEGM replace posts without elevation with the EGM96 geoid height
+     * @return the window
+     * @throws Exception The exceptions.
+     */
+    public Window getWindow(final int row0, final int col0, final int rows, final int cols,
+                            final boolean fillNoDataWithEGM) throws Exception {
+
+        final Window window = new Window(row0, col0, rows, cols);
+        final int B = BLOCK_SIZE;
+        for (int br = Math.floorDiv(row0, B); br <= Math.floorDiv(row0 + rows - 1, B); ++br) {
+            for (int bc = Math.floorDiv(col0, B); bc <= Math.floorDiv(col0 + cols - 1, B); ++bc) {
+                final double[] block = getBlock(br, bc);
+
+                final int r0 = Math.max(br * B, row0);
+                final int r1 = Math.min((br + 1) * B, row0 + rows);
+                final int c0 = Math.max(bc * B, col0);
+                final int c1 = Math.min((bc + 1) * B, col0 + cols);
+                for (int r = r0; r < r1; ++r) {
+                    System.arraycopy(block, (r - br * B) * B + c0 - bc * B,
+                                     window.elevation, (r - row0) * cols + c0 - col0, c1 - c0);
+                }
+            }
+        }
+
+        if (fillNoDataWithEGM) {
+            final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
+            for (int r = 0; r < rows; ++r) {
+                final double lat = window.getLatitude(r);
+                final int offset = r * cols;
+                for (int c = 0; c < cols; ++c) {
+                    if (window.elevation[offset + c] == demNoDataValue) {
+                        window.elevation[offset + c] = egm.getEGM(lat, window.getLongitude(c));
+                    }
+                }
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Release the cached posts of the DEM of this provider, for all grids.
+     */
+    public void dispose() {
+        blockCache.asMap().keySet().removeIf(key -> key.dem == dem);
+    }
+
+    private double[] getBlock(final int blockRow, final int blockCol) throws Exception {
+        final BlockKey key = new BlockKey(dem, latOrigin, lonOrigin, latSpacing, lonSpacing, blockRow, blockCol);
+        try {
+            return blockCache.get(key, () -> sampleBlock(blockRow, blockCol));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private double[] sampleBlock(final int blockRow, final int blockCol) throws Exception {
+        final int B = BLOCK_SIZE;
+        final double[] block = new double[B * B];
+        final GeoPos geoPos = new GeoPos();
+        for (int r = 0; r < B; ++r) {
+            final double lat = getLatitude(blockRow * B + r);
+            for (int c = 0; c < B; ++c) {
+                double lon = getLongitude(blockCol * B + c);
+                if (lon >= 180.0) {
+                    lon -= 360.0;
+                } else if (lon < -180.0) {
+                    lon += 360.0;
+                }
+                if (lat > 90.0 || lat < -90.0) {
+                    block[r * B + c] = demNoDataValue;
+                } else {
+                    geoPos.setLocation(lat, lon);
+                    block[r * B + c] = dem.getElevation(geoPos);
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Elevations of a window of posts, row by row from north to south.
+     */
+    public final class Window {
+        public final int row0;
+        public final int col0;
+        public final int rows;
+        public final int cols;
+        public final double[] elevation;
+
+        private Window(final int row0, final int col0, final int rows, final int cols) {
+            this.row0 = row0;
+            this.col0 = col0;
+            this.rows = rows;
+            this.cols = cols;
+            this.elevation = new double[rows * cols];
+        }
+
+        public double getElevation(final int r, final int c) {
+            return elevation[r * cols + c];
+        }
+
+        public double getLatitude(final int r) {
+            return DEMWindowProvider.this.getLatitude(row0 + r);
+        }
+
+        public double getLongitude(final int c) {
+            return DEMWindowProvider.this.getLongitude(col0 + c);
+        }
+    }
+
+    private static final class BlockKey {
+        private final ElevationModel dem;
+        private final double latOrigin, lonOrigin, latSpacing, lonSpacing;
+        private final int blockRow, blockCol;
+
+        BlockKey(final ElevationModel dem, final double latOrigin, final double lonOrigin,
+                 final double latSpacing, final double lonSpacing, final int blockRow, final int blockCol) {
+            this.dem = dem;
+            this.latOrigin = latOrigin;
+            this.lonOrigin = lonOrigin;
+            this.latSpacing = latSpacing;
+            this.lonSpacing = lonSpacing;
+            this.blockRow = blockRow;
+            this.blockCol = blockCol;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlockKey)) return false;
+            final BlockKey that = (BlockKey) o;
+            return blockRow == that.blockRow && blockCol == that.blockCol &&
+                    Double.compare(latOrigin, that.latOrigin) == 0 && Double.compare(lonOrigin, that.lonOrigin) == 0 &&
+                    Double.compare(latSpacing, that.latSpacing) == 0 && Double.compare(lonSpacing, that.lonSpacing) == 0 &&
+                    dem == that.dem;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(dem) +
+                    Objects.hash(latOrigin, lonOrigin, latSpacing, lonSpacing, blockRow, blockCol);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
+import org.esa.snap.core.util.SystemUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FFTs for the operators, on complex data stored as flat arrays of interleaved real and imaginary parts.
+ * <p>
+ * The 1D plans of each length are created once and shared by all threads and engines. 2D data is stored row by
+ * row, rows * cols complex values, and is transformed in place: the rows directly in the array and the columns
+ * through a buffer of the calling thread, so that a transform allocates nothing once the buffers have grown to the
+ * tile size. Each thread also has a few numbered work buffers that the operators can use for their own data instead
+ * of allocating it per tile or window.
+ * <p>
+ * An engine is obtained by name, usually the operator name, and counts the transforms done through it and the time
+ * spent in them.
+ */
+public final class FFTEngine {
+
+    public static final int NUM_BUFFERS = 4;
+
+    private static final Cache<Integer, DoubleFFT_1D> doublePlans = CacheBuilder.newBuilder().maximumSize(128).build();
+    private static final Cache<Integer, FloatFFT_1D> floatPlans = CacheBuilder.newBuilder().maximumSize(128).build();
+
+    private static final Map<String, FFTEngine> engines = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    private FFTEngine(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the engine of an operator.
+     *
+     * @param name the operator name
+     * @return the engine, shared by all instances of the operator
+     */
+    public static FFTEngine getInstance(final String name) {
+        return engines.computeIfAbsent(name, FFTEngine::new);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of transforms done, a 2D transform counts as one
+     */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the time spent in the transforms in nanoseconds
+     */
+    public long getTime() {
+        return nanos.sum();
+    }
+
+    public static void logStatistics() {
+        for (FFTEngine engine : engines.values()) {
+            if (engine.getCallCount() > 0) {
+                SystemUtils.LOG.info(engine.toString());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " FFT calls " + getCallCount() + " time " + getTime() / 1000000 + " ms";
+    }
+
+    /**
+     * Get a work buffer of the calling thread. The content is not cleared, and the same buffer is returned for
+     * the slot until a longer one is requested.
+     *
+     * @param slot   buffer number from 0 to NUM_BUFFERS - 1
+     * @param length minimum length
+     * @return the buffer
+     */
+    public static double[] getDoubleBuffer(final int slot, final int length) {
+        final Workspace ws = workspace.get();
+        if (ws.doubleBuffers[slot].length < length) {
+            ws.doubleBuffers[slot] = new double[length];
+        }
+        return ws.doubleBuffers[slot];
+    }
+
+    /**
+     * Float version of getDoubleBuffer, with its own slots.
+     */
+    public static float[] getFloatBuffer(final int slot, final int length) {
+        final Workspace ws = workspace.get();
+        if (ws.floatBuffers[slot].length < length) {
+            ws.floatBuffers[slot] = new float[length];
+        }
+        return ws.floatBuffers[slot];
+    }
+
+    static DoubleFFT_1D getDoublePlan(final int n) {
+        try {
+            return doublePlans.get(n, () -> new DoubleFFT_1D(n));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static FloatFFT_1D getFloatPlan(final int n) {
+        try {
+            return floatPlans.get(n, () -> new FloatFFT_1D(n));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Forward transform of n complex values starting at offset.
+     */
+    public void complexForward(final double[] a, final int offset, final int n) {
+        final long start = System.nanoTime();
+        getDoublePlan(n).complexForward(a, offset);
+        record(start);
+    }
+
+    /**
+     * Inverse transform of n complex values starting at offset.
+     */
+    public void complexInverse(final double[] a, final int offset, final int n, final boolean scale) {
+        final long start = System.nanoTime();
+        getDoublePlan(n).complexInverse(a, offset, scale);
+        record(start);
+    }
+
+    public void complexForward(final float[] a, final int offset, final int n) {
+        final long start = System.nanoTime();
+        getFloatPlan(n).complexForward(a, offset);
+        record(start);
+    }
+
+    public void complexInverse(final float[] a, final int offset, final int n, final boolean scale) {
+        final long start = System.nanoTime();
+        getFloatPlan(n).complexInverse(a, offset, scale);
+        record(start);
+    }
+
+    /**
+     * Forward transform of n real values starting at offset. The array must have room for 2 * n values from the
+     * offset, which are replaced by the full complex spectrum.
+     */
+    public void realForwardFull(final double[] a, final int offset, final int n) {
+        final long start = System.nanoTime();
+        getDoublePlan(n).realForwardFull(a, offset);
+        record(start);
+    }
+
+    public void realForwardFull(final float[] a, final int offset, final int n) {
+        final long start = System.nanoTime();
+        getFloatPlan(n).realForwardFull(a, offset);
+        record(start);
+    }
+
+    /**
+     * In place 2D forward transform of rows * cols complex values stored row by row.
+     */
+    public void complexForward2D(final double[] a, final int rows, final int cols) {
+        final long start = System.nanoTime();
+        final DoubleFFT_1D rowPlan = getDoublePlan(cols);
+        for (int r = 0; r < rows; ++r) {
+            rowPlan.complexForward(a, 2 * r * cols);
+        }
+        transformColumns(a, rows, cols, true, false);
+        record(start);
+    }
+
+    /**
+     * In place 2D inverse transform of rows * cols complex values stored row by row.
+     */
+    public void complexInverse2D(final double[] a, final int rows, final int cols, final boolean scale) {
+        final long start = System.nanoTime();
+        transformColumns(a, rows, cols, false, scale);
+        final DoubleFFT_1D rowPlan = getDoublePlan(cols);
+        for (int r = 0; r < rows; ++r) {
+            rowPlan.complexInverse(a, 2 * r * cols, scale);
+        }
+        record(start);
+    }
+
+    public void complexForward2D(final float[] a, final int rows, final int cols) {
+        final long start = System.nanoTime();
+        final FloatFFT_1D rowPlan = getFloatPlan(cols);
+        for (int r = 0; r < rows; ++r) {
+            rowPlan.complexForward(a, 2 * r * cols);
+        }
+        transformColumns(a, rows, cols, true, false);
+        record(start);
+    }
+
+    public void complexInverse2D(final float[] a, final int rows, final int cols, final boolean scale) {
+        final long start = System.nanoTime();
+        transformColumns(a, rows, cols, false, scale);
+        final FloatFFT_1D rowPlan = getFloatPlan(cols);
+        for (int r = 0; r < rows; ++r) {
+            rowPlan.complexInverse(a, 2 * r * cols, scale);
+        }
+        record(start);
+    }
+
+    /**
+     * 2D forward transform of rows * cols real values stored row by row. The rows are transformed with the real
+     * transform, which takes about half the time of a complex one.
+     *
+     * @param real     the real values
+     * @param rows     number of rows
+     * @param cols     number of columns
+     * @param spectrum receives the rows * cols complex values of the spectrum
+     */
+    public void realForward2D(final double[] real, final int rows, final int cols, final double[] spectrum) {
+        final long start = System.nanoTime();
+        final DoubleFFT_1D rowPlan = getDoublePlan(cols);
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(real, r * cols, spectrum, 2 * r * cols, cols);
+            rowPlan.realForwardFull(spectrum, 2 * r * cols);
+        }
+        transformColumns(spectrum, rows, cols, true, false);
+        record(start);
+    }
+
+    public void realForward2D(final float[] real, final int rows, final int cols, final float[] spectrum) {
+        final long start = System.nanoTime();
+        final FloatFFT_1D rowPlan = getFloatPlan(cols);
+        for (int r = 0; r < rows; ++r) {
+            System.arraycopy(real, r * cols, spectrum, 2 * r * cols, cols);
+            rowPlan.realForwardFull(spectrum, 2 * r * cols);
+        }
+        transformColumns(spectrum, rows, cols, true, false);
+        record(start);
+    }
+
+    private static void transformColumns(final double[] a, final int rows, final int cols,
+                                         final boolean forward, final boolean scale) {
+        final DoubleFFT_1D colPlan = getDoublePlan(rows);
+        final Workspace ws = workspace.get();
+        if (ws.doubleColumn.length < 2 * rows) {
+            ws.doubleColumn = new double[2 * rows];
+        }
+        final double[] col = ws.doubleColumn;
+        final int stride = 2 * cols;
+        for (int c = 0; c < cols; ++c) {
+            for (int r = 0, k = 2 * c; r < rows; ++r, k += stride) {
+                col[2 * r] = a[k];
+                col[2 * r + 1] = a[k + 1];
+            }
+            if (forward) {
+                colPlan.complexForward(col);
+            } else {
+                colPlan.complexInverse(col, scale);
+            }
+            for (int r = 0, k = 2 * c; r < rows; ++r, k += stride) {
+                a[k] = col[2 * r];
+                a[k + 1] = col[2 * r + 1];
+            }
+        }
+    }
+
+    private static void transformColumns(final float[] a, final int rows, final int cols,
+                                         final boolean forward, final boolean scale) {
+        final FloatFFT_1D colPlan = getFloatPlan(rows);
+        final Workspace ws = workspace.get();
+        if (ws.floatColumn.length < 2 * rows) {
+            ws.floatColumn = new float[2 * rows];
+        }
+        final float[] col = ws.floatColumn;
+        final int stride = 2 * cols;
+        for (int c = 0; c < cols; ++c) {
+            for (int r = 0, k = 2 * c; r < rows; ++r, k += stride) {
+                col[2 * r] = a[k];
+                col[2 * r + 1] = a[k + 1];
+            }
+            if (forward) {
+                colPlan.complexForward(col);
+            } else {
+                colPlan.complexInverse(col, scale);
+            }
+            for (int r = 0, k = 2 * c; r < rows; ++r, k += stride) {
+                a[k] = col[2 * r];
+                a[k + 1] = col[2 * r + 1];
+            }
+        }
+    }
+
+    private void record(final long start) {
+        nanos.add(System.nanoTime() - start);
+        calls.increment();
+    }
+
+    private static final class Workspace {
+        final double[][] doubleBuffers = new double[NUM_BUFFERS][0];
+        final float[][] floatBuffers = new float[NUM_BUFFERS][0];
+        double[] doubleColumn = new double[0];
+        float[] floatColumn = new float[0];
+    }
+}
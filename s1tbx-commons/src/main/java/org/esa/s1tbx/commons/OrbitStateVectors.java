@@ -2,11 +2,11 @@ package org.esa.s1tbx.commons;
 
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
 import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.esa.snap.engine_utilities.eo.Constants;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public final class OrbitStateVectors {
 
@@ -14,35 +14,81 @@ public final class OrbitStateVectors {
     public PosVector[] sensorPosition = null; // sensor position for all range lines
     public PosVector[] sensorVelocity = null; // sensor velocity for all range lines
     private double dt = 0.0;
-    private final Map<Double, PositionVelocity> timeMap = new HashMap<>();
+
+    // compiled orbit for allocation free evaluation
+    private double firstVectorTime;
+    private double[] vectorTimes;
+    private double[] stateVectors;
+    private double[] baryWeights;
+    private int windowSize;
+    private final AtomicReferenceArray<CachedPositionVelocity> timeCache = new AtomicReferenceArray<>(CACHE_SIZE);
 
     private static final int nv = 8;
 
+    // bounded open addressing table of interpolated position/velocity keyed on the bits of the time
+    private static final int CACHE_SIZE = 4096;
+    private static final int CACHE_MASK = CACHE_SIZE - 1;
+    private static final int MAX_PROBES = 4;
+
     public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors,
                              final double firstLineUTC, final double lineTimeInterval, final int sourceImageHeight) {
         if(orbitStateVectors != null && orbitStateVectors.length > 0) {
-            this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
-
-            this.dt = (this.orbitStateVectors[this.orbitStateVectors.length - 1].time_mjd -
-                    this.orbitStateVectors[0].time_mjd) / (this.orbitStateVectors.length - 1);
+            init(orbitStateVectors);
 
             this.sensorPosition = new PosVector[sourceImageHeight];
             this.sensorVelocity = new PosVector[sourceImageHeight];
             for (int i = 0; i < sourceImageHeight; i++) {
                 final double time = firstLineUTC + i * lineTimeInterval;
-                PositionVelocity pv = getPositionVelocity(time);
-                sensorPosition[i] = pv.position;
-                sensorVelocity[i] = pv.velocity;
+                sensorPosition[i] = new PosVector();
+                sensorVelocity[i] = new PosVector();
+                interpolate(time, sensorPosition[i], sensorVelocity[i]);
             }
         }
     }
 
     public OrbitStateVectors(final OrbitStateVector[] orbitStateVectors) {
 
+        init(orbitStateVectors);
+    }
+
+    private void init(final OrbitStateVector[] orbitStateVectors) {
+
         this.orbitStateVectors = removeRedundantVectors(orbitStateVectors);
 
-        this.dt = (this.orbitStateVectors[orbitStateVectors.length - 1].time_mjd -
-                this.orbitStateVectors[0].time_mjd) / (this.orbitStateVectors.length - 1);
+        final int numVectors = this.orbitStateVectors.length;
+        this.dt = (this.orbitStateVectors[numVectors - 1].time_mjd -
+                this.orbitStateVectors[0].time_mjd) / (numVectors - 1);
+
+        // compile the orbit: flat state vectors with times in seconds from the first vector
+        // and the barycentric weights of every interpolation window
+        this.firstVectorTime = this.orbitStateVectors[0].time_mjd;
+        this.vectorTimes = new double[numVectors];
+        this.stateVectors = new double[6 * numVectors];
+        for (int i = 0; i < numVectors; ++i) {
+            final OrbitStateVector orb = this.orbitStateVectors[i];
+            vectorTimes[i] = (orb.time_mjd - firstVectorTime) * Constants.secondsInDay;
+            stateVectors[6 * i] = orb.x_pos;
+            stateVectors[6 * i + 1] = orb.y_pos;
+            stateVectors[6 * i + 2] = orb.z_pos;
+            stateVectors[6 * i + 3] = orb.x_vel;
+            stateVectors[6 * i + 4] = orb.y_vel;
+            stateVectors[6 * i + 5] = orb.z_vel;
+        }
+
+        this.windowSize = Math.min(nv, numVectors);
+        final int numWindows = numVectors - windowSize + 1;
+        this.baryWeights = new double[numWindows * nv];
+        for (int i0 = 0; i0 < numWindows; ++i0) {
+            for (int k = 0; k < windowSize; ++k) {
+                double prod = 1.0;
+                for (int j = 0; j < windowSize; ++j) {
+                    if (j != k) {
+                        prod *= vectorTimes[i0 + k] - vectorTimes[i0 + j];
+                    }
+                }
+                baryWeights[i0 * nv + k] = 1.0 / prod;
+            }
+        }
     }
 
     private static OrbitStateVector[] removeRedundantVectors(OrbitStateVector[] orbitStateVectors) {
@@ -62,114 +108,199 @@ public final class OrbitStateVectors {
         return vectorList.toArray(new OrbitStateVector[0]);
     }
 
-    public PositionVelocity getPositionVelocity(final Double time) {
-
-        PositionVelocity cachedPosVel = timeMap.get(time);
-        if(cachedPosVel != null) {
-            return cachedPosVel;
-        }
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
+    /**
+     * Returns the interpolated sensor position and velocity at the given time.
+     * Results are memoized in a bounded table shared by all threads; the returned object must not be modified.
+     *
+     * @param time the time in days (MJD)
+     * @return the position and velocity
+     */
+    public PositionVelocity getPositionVelocity(final double time) {
+
+        final long key = Double.doubleToLongBits(time);
+        final int index = cacheIndex(key);
+        for (int p = 0; p < MAX_PROBES; ++p) {
+            final CachedPositionVelocity cached = timeCache.get((index + p) & CACHE_MASK);
+            if (cached == null) {
+                break;
+            }
+            if (cached.key == key) {
+                return cached.pv;
+            }
         }
 
-        //lagrangeInterpolatingPolynomial
         final PositionVelocity pv = new PositionVelocity();
+        interpolate(time, pv.position, pv.velocity);
 
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
-
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
+        final CachedPositionVelocity entry = new CachedPositionVelocity(key, pv);
+        for (int p = 0; p < MAX_PROBES; ++p) {
+            if (timeCache.compareAndSet((index + p) & CACHE_MASK, null, entry)) {
+                return pv;
             }
-
-            pv.position.x += weight * orbI.x_pos;
-            pv.position.y += weight * orbI.y_pos;
-            pv.position.z += weight * orbI.z_pos;
-
-            pv.velocity.x += weight * orbI.x_vel;
-            pv.velocity.y += weight * orbI.y_vel;
-            pv.velocity.z += weight * orbI.z_vel;
         }
-
-        timeMap.put(time, pv);
+        // table is full around this slot, evict the home entry
+        timeCache.set(index, entry);
         return pv;
     }
 
-    PosVector getPosition(final double time, final PosVector position) {
-
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
+    /**
+     * Interpolates sensor positions and velocities for a vector of times without allocating or caching.
+     *
+     * @param times      the times in days (MJD)
+     * @param positions  output x,y,z positions, 3 values per time
+     * @param velocities output x,y,z velocities, 3 values per time, may be null
+     */
+    public void getPositionVelocity(final double[] times, final double[] positions, final double[] velocities) {
+
+        for (int k = 0; k < times.length; ++k) {
+            evaluate(times[k], positions, 3 * k, velocities, 3 * k);
         }
+    }
 
-        //lagrangeInterpolatingPolynomial
-        position.x = 0;
-        position.y = 0;
-        position.z = 0;
+    /**
+     * Interpolates the sensor position and velocity at the given time without allocating or caching.
+     *
+     * @param time     the time in days (MJD)
+     * @param position output x,y,z position
+     * @param velocity output x,y,z velocity
+     */
+    public void getPositionVelocity(final double time, final double[] position, final double[] velocity) {
+        evaluate(time, position, 0, velocity, 0);
+    }
 
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
+    /**
+     * Interpolates the sensor position at the given time without allocating or caching.
+     *
+     * @param time     the time in days (MJD)
+     * @param position output x,y,z position
+     */
+    public void getPosition(final double time, final double[] position) {
+        evaluate(time, position, 0, null, 0);
+    }
 
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
+    /**
+     * Interpolates the sensor velocity at the given time without allocating or caching.
+     *
+     * @param time     the time in days (MJD)
+     * @param velocity output x,y,z velocity
+     */
+    public void getVelocity(final double time, final double[] velocity) {
+        evaluate(time, null, 0, velocity, 0);
+    }
+
+    PosVector getPosition(final double time, final PosVector position) {
+
+        final int i0 = getFirstVectorIndex(time);
+        final int w0 = i0 * nv;
+        final double t = (time - firstVectorTime) * Constants.secondsInDay;
+
+        double sum = 0, px = 0, py = 0, pz = 0;
+        for (int k = 0; k < windowSize; ++k) {
+            final int i = i0 + k;
+            final double diff = t - vectorTimes[i];
+            final int v = 6 * i;
+            if (diff == 0.0) {
+                position.x = stateVectors[v];
+                position.y = stateVectors[v + 1];
+                position.z = stateVectors[v + 2];
+                return position;
             }
-            position.x += weight * orbI.x_pos;
-            position.y += weight * orbI.y_pos;
-            position.z += weight * orbI.z_pos;
+            final double c = baryWeights[w0 + k] / diff;
+            sum += c;
+            px += c * stateVectors[v];
+            py += c * stateVectors[v + 1];
+            pz += c * stateVectors[v + 2];
         }
+
+        final double norm = 1.0 / sum;
+        position.x = px * norm;
+        position.y = py * norm;
+        position.z = pz * norm;
         return position;
     }
 
     PosVector getVelocity(final double time) {
 
-        int i0, iN;
-        if (orbitStateVectors.length <= nv) {
-            i0 = 0;
-            iN = orbitStateVectors.length - 1;
-        } else {
-            i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
-            iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
-            i0 = (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
-        }
-
-        //lagrangeInterpolatingPolynomial
-        final PosVector velocity = new PosVector();
+        final double[] vel = new double[3];
+        evaluate(time, null, 0, vel, 0);
+        return new PosVector(vel[0], vel[1], vel[2]);
+    }
 
-        for (int i = i0; i <= iN; ++i) {
-            final OrbitStateVector orbI = orbitStateVectors[i];
+    private void interpolate(final double time, final PosVector position, final PosVector velocity) {
+
+        final double[] pos = new double[3];
+        final double[] vel = new double[3];
+        evaluate(time, pos, 0, vel, 0);
+        position.x = pos[0];
+        position.y = pos[1];
+        position.z = pos[2];
+        velocity.x = vel[0];
+        velocity.y = vel[1];
+        velocity.z = vel[2];
+    }
 
-            double weight = 1;
-            for (int j = i0; j <= iN; ++j) {
-                if (j != i) {
-                    final double time2 = orbitStateVectors[j].time_mjd;
-                    weight *= (time - time2) / (orbI.time_mjd - time2);
-                }
+    /**
+     * Evaluates the Lagrange polynomial through the nv state vectors around the given time
+     * in barycentric form using the precomputed weights of the window.
+     */
+    private void evaluate(final double time, final double[] position, final int posOffset,
+                          final double[] velocity, final int velOffset) {
+
+        final int i0 = getFirstVectorIndex(time);
+        final int w0 = i0 * nv;
+        final double t = (time - firstVectorTime) * Constants.secondsInDay;
+
+        double sum = 0, px = 0, py = 0, pz = 0, vx = 0, vy = 0, vz = 0;
+        for (int k = 0; k < windowSize; ++k) {
+            final int i = i0 + k;
+            final double diff = t - vectorTimes[i];
+            final int v = 6 * i;
+            if (diff == 0.0) {
+                // exactly on a state vector
+                sum = 1.0;
+                px = stateVectors[v];
+                py = stateVectors[v + 1];
+                pz = stateVectors[v + 2];
+                vx = stateVectors[v + 3];
+                vy = stateVectors[v + 4];
+                vz = stateVectors[v + 5];
+                break;
             }
-            velocity.x += weight * orbI.x_vel;
-            velocity.y += weight * orbI.y_vel;
-            velocity.z += weight * orbI.z_vel;
+            final double c = baryWeights[w0 + k] / diff;
+            sum += c;
+            px += c * stateVectors[v];
+            py += c * stateVectors[v + 1];
+            pz += c * stateVectors[v + 2];
+            vx += c * stateVectors[v + 3];
+            vy += c * stateVectors[v + 4];
+            vz += c * stateVectors[v + 5];
+        }
+
+        final double norm = 1.0 / sum;
+        if (position != null) {
+            position[posOffset] = px * norm;
+            position[posOffset + 1] = py * norm;
+            position[posOffset + 2] = pz * norm;
+        }
+        if (velocity != null) {
+            velocity[velOffset] = vx * norm;
+            velocity[velOffset + 1] = vy * norm;
+            velocity[velOffset + 2] = vz * norm;
+        }
+    }
+
+    private int getFirstVectorIndex(final double time) {
+        if (orbitStateVectors.length <= nv) {
+            return 0;
         }
-        return velocity;
+        final int i0 = Math.max((int) ((time - orbitStateVectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
+        final int iN = Math.min(i0 + nv - 1, orbitStateVectors.length - 1);
+        return (iN < orbitStateVectors.length - 1 ? i0 : iN - nv + 1);
+    }
+
+    private static int cacheIndex(final long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & CACHE_MASK;
     }
 
     private int[] findAdjacentVectors(final double time) {
@@ -219,4 +350,14 @@ public final class OrbitStateVectors {
         public final PosVector position = new PosVector();
         public final PosVector velocity = new PosVector();
     }
+
+    private static final class CachedPositionVelocity {
+        final long key;
+        final PositionVelocity pv;
+
+        CachedPositionVelocity(final long key, final PositionVelocity pv) {
+            this.key = key;
+            this.pv = pv;
+        }
+    }
 }
@@ -129,8 +129,10 @@ public final class SARGeocoding {
         double oldTime, oldFreq;
         double newTime = (firstVecTime + lastVecTime) / 2.0, oldFreqDel;
 
-        OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(newTime);
-        double newFreq = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+        final double[] sensorPos = new double[3];
+        final double[] sensorVel = new double[3];
+        orbit.getPositionVelocity(newTime, sensorPos, sensorVel);
+        double newFreq = getDopplerFrequency(earthPoint, sensorPos, sensorVel, wavelength);
 
         double d;
         int numIter = 0;
@@ -138,8 +140,8 @@ public final class SARGeocoding {
             oldTime = newTime;
             oldFreq = newFreq;
 
-            pv = orbit.getPositionVelocity(oldTime + lineTimeInterval);
-            oldFreqDel = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+            orbit.getPositionVelocity(oldTime + lineTimeInterval, sensorPos, sensorVel);
+            oldFreqDel = getDopplerFrequency(earthPoint, sensorPos, sensorVel, wavelength);
 
             d = (oldFreqDel - oldFreq) / lineTimeInterval;
 
@@ -150,8 +152,8 @@ public final class SARGeocoding {
                 newTime = lastVecTime;
             }
 
-            pv = orbit.getPositionVelocity(newTime);
-            newFreq = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+            orbit.getPositionVelocity(newTime, sensorPos, sensorVel);
+            newFreq = getDopplerFrequency(earthPoint, sensorPos, sensorVel, wavelength);
             numIter++;
         }
 
@@ -207,11 +209,13 @@ public final class SARGeocoding {
 
         final int totalIterations = (int)(diffTime/ absLineTimeInterval) + 1;
         int numIterations = 0;
+        final double[] sensorPos = new double[3];
+        final double[] sensorVel = new double[3];
         while (diffTime > absLineTimeInterval && numIterations <= totalIterations) {
 
             midTime = (upperBoundTime + lowerBoundTime) / 2.0;
-            OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(midTime);
-            midFreq = getDopplerFrequency(earthPoint, pv.position, pv.velocity, wavelength);
+            orbit.getPositionVelocity(midTime, sensorPos, sensorVel);
+            midFreq = getDopplerFrequency(earthPoint, sensorPos, sensorVel, wavelength);
 
             if (midFreq * lowerBoundFreq > 0.0) {
                 lowerBoundTime = midTime;
@@ -267,6 +271,27 @@ public final class SARGeocoding {
         return 2.0 * (sensorVelocity.x * xDiff + sensorVelocity.y * yDiff + sensorVelocity.z * zDiff) / (distance * wavelength);
     }
 
+    /**
+     * Compute Doppler frequency for given earthPoint and sensor position.
+     *
+     * @param earthPoint     The earth point in xyz coordinate.
+     * @param sensorPosition The sensor x,y,z position.
+     * @param sensorVelocity The sensor x,y,z velocity.
+     * @param wavelength     The radar wavelength.
+     * @return The Doppler frequency in Hz.
+     */
+    private static double getDopplerFrequency(
+            final PosVector earthPoint, final double[] sensorPosition,
+            final double[] sensorVelocity, final double wavelength) {
+
+        final double xDiff = earthPoint.x - sensorPosition[0];
+        final double yDiff = earthPoint.y - sensorPosition[1];
+        final double zDiff = earthPoint.z - sensorPosition[2];
+        final double distance = Math.sqrt(xDiff * xDiff + yDiff * yDiff + zDiff * zDiff);
+
+        return 2.0 * (sensorVelocity[0] * xDiff + sensorVelocity[1] * yDiff + sensorVelocity[2] * zDiff) / (distance * wavelength);
+    }
+
     /**
      * Compute Doppler frequency for given earthPoint and sensor position.
      *
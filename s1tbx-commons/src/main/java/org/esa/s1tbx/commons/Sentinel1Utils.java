@@ -864,7 +864,8 @@ public final class Sentinel1Utils {
             for (int x = x0; x < xMax; x++) {
                 final int xx = x - x0;
                 final double kt = subSwath[s].dopplerRate[sBurstIndex][x];
-                final double deramp = -Constants.PI * kt * FastMath.pow(ta - subSwath[s].referenceTime[sBurstIndex][x], 2);
+                final double dt = ta - subSwath[s].referenceTime[sBurstIndex][x];
+                final double deramp = -Constants.PI * kt * dt * dt;
                 final double demod = -Constants.TWO_PI * subSwath[s].dopplerCentroid[sBurstIndex][x] * ta;
                 phase[yy][xx] = deramp + demod;
             }
@@ -893,7 +894,8 @@ public final class Sentinel1Utils {
             for (int x = x0; x < xMax; x++) {
                 final int xx = x - x0;
                 final double kt = subSwath[s].dopplerRate[burstIndex][x];
-                phase[yy][xx] = -Constants.PI * kt * FastMath.pow(ta - subSwath[s].referenceTime[burstIndex][x], 2);
+                final double dt = ta - subSwath[s].referenceTime[burstIndex][x];
+                phase[yy][xx] = -Constants.PI * kt * dt * dt;
             }
         }
 
@@ -919,7 +921,6 @@ public final class Sentinel1Utils {
             final double ta = (y - firstLineInBurst)*subSwath[s].azimuthTimeInterval;
             for (int x = x0; x < xMax; x++) {
                 final int xx = x - x0;
-                final double kt = subSwath[s].dopplerRate[sBurstIndex][x];
                 phase[yy][xx] = -Constants.TWO_PI * subSwath[s].dopplerCentroid[sBurstIndex][x] * ta;
             }
         }
@@ -927,6 +928,86 @@ public final class Sentinel1Utils {
         return phase;
     }
 
+    /**
+     * Compute the deramp and demodulation phase of a rectangle of a burst together with its rotation factors
+     * cos(phase) and sin(phase), row by row, into the reusable buffers of derampDemod.
+     * <p>
+     * Along azimuth the phase of a column is quadratic in the line number, so the rotation of the next line is
+     * the rotation of the current line times a step, and the step itself changes by a constant factor from one
+     * line to the next. The rotation is evaluated with cos and sin only every RESYNC_LINES lines and updated with
+     * complex multiplications in between.
+     */
+    public static void computeDerampDemod(
+            final Sentinel1Utils.SubSwathInfo[] subSwath, final int subSwathIndex, final int burstIndex,
+            final Rectangle rectangle, final DerampDemod derampDemod) {
+
+        final int x0 = rectangle.x;
+        final int y0 = rectangle.y;
+        final int w = rectangle.width;
+        final int h = rectangle.height;
+        final SubSwathInfo sw = subSwath[subSwathIndex - 1];
+
+        derampDemod.allocate(w, h);
+        final double[] phase = derampDemod.phase;
+        final double[] cos = derampDemod.cos;
+        final double[] sin = derampDemod.sin;
+        final double[] stepRe = derampDemod.stepRe;
+        final double[] stepIm = derampDemod.stepIm;
+        final double[] rateRe = derampDemod.rateRe;
+        final double[] rateIm = derampDemod.rateIm;
+
+        final double[] dopplerRate = sw.dopplerRate[burstIndex];
+        final double[] referenceTime = sw.referenceTime[burstIndex];
+        final double[] dopplerCentroid = sw.dopplerCentroid[burstIndex];
+        final double dta = sw.azimuthTimeInterval;
+        final int firstLineInBurst = burstIndex * sw.linesPerBurst;
+
+        for (int xx = 0; xx < w; xx++) {
+            final double rate = -Constants.TWO_PI * dopplerRate[x0 + xx] * dta * dta;
+            rateRe[xx] = FastMath.cos(rate);
+            rateIm[xx] = FastMath.sin(rate);
+        }
+
+        for (int yy = 0; yy < h; yy++) {
+            final double ta = (y0 + yy - firstLineInBurst) * dta;
+            final int offset = yy * w;
+            for (int xx = 0; xx < w; xx++) {
+                final int x = x0 + xx;
+                final double dt = ta - referenceTime[x];
+                phase[offset + xx] = -Constants.PI * dopplerRate[x] * dt * dt -
+                        Constants.TWO_PI * dopplerCentroid[x] * ta;
+            }
+
+            if (yy % DerampDemod.RESYNC_LINES == 0) {
+                for (int xx = 0; xx < w; xx++) {
+                    final int x = x0 + xx;
+                    final double p = phase[offset + xx];
+                    cos[offset + xx] = FastMath.cos(p);
+                    sin[offset + xx] = FastMath.sin(p);
+
+                    // phase difference to the next line
+                    final double dt = ta - referenceTime[x];
+                    final double step = -Constants.PI * dopplerRate[x] * (2 * dt + dta) * dta -
+                            Constants.TWO_PI * dopplerCentroid[x] * dta;
+                    stepRe[xx] = FastMath.cos(step);
+                    stepIm[xx] = FastMath.sin(step);
+                }
+            } else {
+                final int prev = offset - w;
+                for (int xx = 0; xx < w; xx++) {
+                    final double c = cos[prev + xx];
+                    final double sn = sin[prev + xx];
+                    final double sRe = stepRe[xx];
+                    final double sIm = stepIm[xx];
+                    cos[offset + xx] = c * sRe - sn * sIm;
+                    sin[offset + xx] = c * sIm + sn * sRe;
+                    stepRe[xx] = sRe * rateRe[xx] - sIm * rateIm[xx];
+                    stepIm[xx] = sRe * rateIm[xx] + sIm * rateRe[xx];
+                }
+            }
+        }
+    }
+
     // =================================================================================
     private MetadataElement getCalibrationVectorList(final int subSwathIndex, final String polarization) {
 
@@ -1586,6 +1667,49 @@ public final class Sentinel1Utils {
 
     }
 
+    /**
+     * Reusable buffers of the deramp and demodulation of a rectangle, filled by computeDerampDemod.
+     * The phase, cos and sin of pixel (xx, yy) of the rectangle are at index yy * width + xx. The arrays
+     * grow as needed and may be longer than width * height. The i and q buffers are for the deramped and
+     * demodulated samples of the caller.
+     */
+    public final static class DerampDemod {
+
+        private static final int RESYNC_LINES = 32;
+
+        public int width;
+        public int height;
+        public double[] phase = new double[0];
+        public double[] cos = new double[0];
+        public double[] sin = new double[0];
+        public double[] i = new double[0];
+        public double[] q = new double[0];
+
+        private double[] stepRe = new double[0];
+        private double[] stepIm = new double[0];
+        private double[] rateRe = new double[0];
+        private double[] rateIm = new double[0];
+
+        private void allocate(final int w, final int h) {
+            width = w;
+            height = h;
+            final int size = w * h;
+            if (phase.length < size) {
+                phase = new double[size];
+                cos = new double[size];
+                sin = new double[size];
+                i = new double[size];
+                q = new double[size];
+            }
+            if (stepRe.length < w) {
+                stepRe = new double[w];
+                stepIm = new double[w];
+                rateRe = new double[w];
+                rateIm = new double[w];
+            }
+        }
+    }
+
     public final static class AzimuthFmRate {
         public double time;
         public double t0;
@@ -33,7 +33,15 @@ import java.awt.image.*;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Reader for ImageIO File
@@ -54,11 +62,23 @@ public class ImageIOFile {
     private ImageInputStream stream;
     private ImageReader reader;
 
+    // pool of independent readers so that tiles of the same image can be decoded concurrently
+    private final BlockingQueue<PooledReader> idleReaders = new LinkedBlockingQueue<>();
+    private final List<PooledReader> pooledReaders = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger numReaders = new AtomicInteger(0);
+    private File concurrentReadFile = null;
+    private volatile boolean closed = false;
+
     private static final boolean useFileCache = Config.instance().preferences().getBoolean("s1tbx.readers.useFileCache", false);
+    private static final int maxReadersPerImage = Math.max(1, Config.instance().preferences().getInt(
+            "s1tbx.readers.maxReadersPerImage", Runtime.getRuntime().availableProcessors()));
+    private static final long readerTimeoutSeconds = Config.instance().preferences().getLong(
+            "s1tbx.readers.readerTimeoutSeconds", 600);
 
     public ImageIOFile(final File inputFile, final ImageReader iioReader,
                        final File productInputFile) throws IOException {
         this(inputFile.getName(), ImageIO.createImageInputStream(inputFile), iioReader, productInputFile);
+        enableConcurrentReads(inputFile);
     }
 
     public ImageIOFile(final String name, final ImageInputStream inputStream, final ImageReader iioReader,
@@ -94,6 +114,21 @@ public class ImageIOFile {
     public void initReader() {
         if (reader != null) {
             reader.setInput(stream, false, true);
+            if (numReaders.compareAndSet(0, 1)) {
+                idleReaders.add(new PooledReader(stream, reader));
+            }
+        }
+    }
+
+    /**
+     * Allows tiles to be read concurrently by opening up to s1tbx.readers.maxReadersPerImage additional
+     * readers on the given uncompressed image file. Without it all reads go through the single primary reader.
+     *
+     * @param imageFile the image file on disk backing this ImageIOFile
+     */
+    public void enableConcurrentReads(final File imageFile) {
+        if (imageFile != null && imageFile.isFile()) {
+            this.concurrentReadFile = imageFile;
         }
     }
 
@@ -198,10 +233,20 @@ public class ImageIOFile {
     }
 
     public void close() throws IOException {
+        closed = true;
         if (stream != null)
             stream.close();
         if (reader != null)
             reader.dispose();
+        synchronized (pooledReaders) {
+            for (PooledReader pooledReader : pooledReaders) {
+                pooledReader.reader.dispose();
+                pooledReader.stream.close();
+            }
+            pooledReaders.clear();
+        }
+        idleReaders.clear();
+        numReaders.set(0);
     }
 
     public int getSceneWidth() throws IOException {
@@ -289,17 +334,94 @@ public class ImageIOFile {
         }
     }
 
-    private synchronized Raster getData(final ImageReadParam param,
-                                        final int destOffsetX, final int destOffsetY,
-                                        final int destWidth, final int destHeight) throws IOException {
+    private Raster getData(final ImageReadParam param,
+                           final int destOffsetX, final int destOffsetY,
+                           final int destWidth, final int destHeight) throws IOException {
+        return readRaster(param, new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight));
+    }
+
+    /**
+     * Reads a rectangle of the first image using one of the pooled readers
+     *
+     * @param param the read parameters, e.g. from getReader().getDefaultReadParam()
+     * @param rect  the rectangle to return
+     * @return the raster data of the rectangle
+     * @throws IOException if the image could not be read
+     */
+    public Raster readRaster(final ImageReadParam param, final Rectangle rect) throws IOException {
+        final PooledReader pooledReader = acquireReader();
         try {
-            final RenderedImage image = reader.readAsRenderedImage(0, param);
-            return image.getData(new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight));
+            final RenderedImage image = pooledReader.reader.readAsRenderedImage(0, param);
+            return image.getData(rect);
         } catch (Exception e) {
             if(ZipUtils.isZip(productInputFile) && !ZipUtils.isValid(productInputFile)) {
                 throw new IOException("Zip file is corrupt "+productInputFile.getName());
             }
             throw e;
+        } finally {
+            idleReaders.add(pooledReader);
+        }
+    }
+
+    private PooledReader acquireReader() throws IOException {
+        if (closed) {
+            throw new IOException(name + " is closed");
+        }
+        final PooledReader idle = idleReaders.poll();
+        if (idle != null) {
+            return idle;
+        }
+        if (concurrentReadFile != null && numReaders.incrementAndGet() <= maxReadersPerImage) {
+            try {
+                return createPooledReader();
+            } catch (IOException e) {
+                numReaders.decrementAndGet();
+                SystemUtils.LOG.warning("Unable to open additional reader for " + name + ": " + e.getMessage());
+            }
+        } else if (concurrentReadFile != null) {
+            numReaders.decrementAndGet();
+        }
+        if (numReaders.get() == 0) {
+            throw new IOException("No reader for " + name);
+        }
+
+        // wait for a reader in use, checking that the file is not closed meanwhile
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(readerTimeoutSeconds);
+        try {
+            while (!closed && System.nanoTime() < deadline) {
+                final PooledReader released = idleReaders.poll(1, TimeUnit.SECONDS);
+                if (released != null) {
+                    return released;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a reader of " + name);
+        }
+        throw new IOException(closed ? name + " is closed" : "Timed out waiting for a reader of " + name);
+    }
+
+    private PooledReader createPooledReader() throws IOException {
+        final ImageInputStream imgStream = ImageIO.createImageInputStream(concurrentReadFile);
+        if (imgStream == null)
+            throw new IOException("Unable to open " + concurrentReadFile);
+
+        final ImageReader imgReader = reader != null && reader.getOriginatingProvider() != null ?
+                reader.getOriginatingProvider().createReaderInstance() : getIIOReader(concurrentReadFile);
+        imgReader.setInput(imgStream, false, true);
+
+        final PooledReader pooledReader = new PooledReader(imgStream, imgReader);
+        pooledReaders.add(pooledReader);
+        return pooledReader;
+    }
+
+    private static final class PooledReader {
+        final ImageInputStream stream;
+        final ImageReader reader;
+
+        PooledReader(final ImageInputStream stream, final ImageReader reader) {
+            this.stream = stream;
+            this.reader = reader;
         }
     }
 
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.runtime.Config;
+
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes tiles of one band into a raw raster file with positional writes on a FileChannel,
+ * so that tiles of different bands and of the same band can be written from several threads.
+ * <p>
+ * Tiles narrower than the raster are collected in a strip buffer per row of tiles. A strip is
+ * written with a single write once all its tiles have arrived, or tile by tile when it is flushed
+ * before, such as when the buffered strips exceed the given limit or on {@link #flush()}.
+ * <p>
+ * A band is located in the file by an offset and a line stride, so that several bands may share
+ * the file of a band interleaved by line raster.
+ */
+public class RasterFileWriter {
+
+    /**
+     * Default limit of the strips buffered by a band writer.
+     */
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.writers.stripBufferSizeMB", 64) * 1024L * 1024L;
+
+    private final FileChannel channel;
+    private final int rasterWidth;
+    private final int pixelSize;
+    private final long offset;
+    private final long lineStride;
+    private final ByteOrder byteOrder;
+    private final long maxBufferedBytes;
+    private final int rowBytes;
+
+    private final Map<Long, Strip> strips = new LinkedHashMap<>();
+    private long bufferedBytes = 0;
+
+    /**
+     * @param channel          the file, shared by the bands of the file
+     * @param rasterWidth      the width of the band
+     * @param pixelSize        the number of bytes of a pixel
+     * @param offset           the file position of the first pixel of the band
+     * @param lineStride       the number of bytes from one line of the band to the next
+     * @param byteOrder        the byte order of the file
+     * @param maxBufferedBytes the maximum size of the strips waiting for tiles
+     */
+    public RasterFileWriter(final FileChannel channel, final int rasterWidth, final int pixelSize,
+                            final long offset, final long lineStride, final ByteOrder byteOrder,
+                            final long maxBufferedBytes) {
+        this.channel = channel;
+        this.rasterWidth = rasterWidth;
+        this.pixelSize = pixelSize;
+        this.offset = offset;
+        this.lineStride = lineStride;
+        this.byteOrder = byteOrder;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.rowBytes = rasterWidth * pixelSize;
+    }
+
+    /**
+     * Opens a file for writing and sets its length, creating the parent folders if needed.
+     */
+    public static FileChannel openChannel(final File file, final long fileSize) throws IOException {
+        final File parentDir = file.getParentFile();
+        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+            throw new IOException("Unable to create folders in " + parentDir);
+        }
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            if (randomAccessFile.length() != fileSize) {
+                randomAccessFile.setLength(fileSize);
+            }
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        return randomAccessFile.getChannel();
+    }
+
+    /**
+     * @return a buffer for the bytes of a tile of w x h pixels in the byte order of the file
+     */
+    public ByteBuffer allocateTile(final int w, final int h) {
+        return ByteBuffer.allocate(w * h * pixelSize).order(byteOrder);
+    }
+
+    /**
+     * Write a tile.
+     *
+     * @param x    the first column
+     * @param y    the first line
+     * @param w    the number of columns
+     * @param h    the number of lines
+     * @param tile the pixels of the tile line by line, as returned by allocateTile
+     * @throws IOException on failure
+     */
+    public void writeTile(final int x, final int y, final int w, final int h, final ByteBuffer tile)
+            throws IOException {
+        final long stripSize = (long) h * rowBytes;
+        if (w == rasterWidth || stripSize > maxBufferedBytes) {
+            writeRows(tile.array(), 0, w * pixelSize, x, y, h);
+            return;
+        }
+
+        final Long key = ((long) y << 32) | h;
+        Strip strip;
+        synchronized (strips) {
+            strip = strips.get(key);
+            if (strip == null) {
+                strip = new Strip(y, h);
+                strips.put(key, strip);
+                bufferedBytes += stripSize;
+            }
+            strip.numPending++;
+        }
+
+        final int tileRowBytes = w * pixelSize;
+        for (int row = 0; row < h; ++row) {
+            System.arraycopy(tile.array(), row * tileRowBytes, strip.data, row * rowBytes + x * pixelSize,
+                             tileRowBytes);
+        }
+
+        final List<Strip> toWrite = new ArrayList<>(1);
+        boolean writeTile = false;
+        synchronized (strips) {
+            strip.numPending--;
+            if (strip.removed) {
+                // the strip was flushed while the tile was being copied
+                writeTile = true;
+            } else {
+                strip.covered += (long) w * h;
+                strip.tiles.add(new Rectangle(x, y, w, h));
+                if (strip.covered >= (long) rasterWidth * h) {
+                    strips.remove(key);
+                    strip.removed = true;
+                    bufferedBytes -= stripSize;
+                    toWrite.add(strip);
+                } else {
+                    evict(toWrite);
+                }
+            }
+        }
+
+        if (writeTile) {
+            writeRows(tile.array(), 0, tileRowBytes, x, y, h, w);
+        }
+        for (Strip s : toWrite) {
+            write(s);
+        }
+    }
+
+    // remove the oldest strips while over the limit; strips still receiving tiles are kept
+    private void evict(final List<Strip> toWrite) {
+        final Iterator<Strip> iterator = strips.values().iterator();
+        while (bufferedBytes > maxBufferedBytes && iterator.hasNext()) {
+            final Strip strip = iterator.next();
+            if (strip.numPending == 0) {
+                iterator.remove();
+                strip.removed = true;
+                bufferedBytes -= strip.data.length;
+                toWrite.add(strip);
+            }
+        }
+    }
+
+    private void write(final Strip strip) throws IOException {
+        if (strip.covered >= (long) rasterWidth * strip.height) {
+            writeRows(strip.data, 0, rowBytes, 0, strip.y, strip.height);
+        } else {
+            for (Rectangle rect : strip.tiles) {
+                writeRows(strip.data, rect.x * pixelSize, rowBytes, rect.x, rect.y, rect.height, rect.width);
+            }
+        }
+    }
+
+    private void writeRows(final byte[] data, final int start, final int stride,
+                           final int x, final int y, final int h) throws IOException {
+        writeRows(data, start, stride, x, y, h, stride / pixelSize);
+    }
+
+    private void writeRows(final byte[] data, final int start, final int stride,
+                           final int x, final int y, final int h, final int w) throws IOException {
+        final int length = w * pixelSize;
+        final long position = offset + (long) y * lineStride + (long) x * pixelSize;
+        if (x == 0 && length == stride && lineStride == rowBytes && w == rasterWidth) {
+            writeFully(ByteBuffer.wrap(data, start, length * h), position);
+            return;
+        }
+        for (int row = 0; row < h; ++row) {
+            writeFully(ByteBuffer.wrap(data, start + row * stride, length), position + row * lineStride);
+        }
+    }
+
+    private void writeFully(final ByteBuffer buffer, final long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+    }
+
+    /**
+     * Write the tiles of all strips still waiting for tiles.
+     */
+    public void flush() throws IOException {
+        final List<Strip> toWrite;
+        synchronized (strips) {
+            toWrite = new ArrayList<>(strips.values());
+            for (Strip strip : toWrite) {
+                strip.removed = true;
+            }
+            strips.clear();
+            bufferedBytes = 0;
+        }
+        for (Strip strip : toWrite) {
+            write(strip);
+        }
+    }
+
+    /**
+     * Encode samples of a ProductData into the buffer in its byte order, with bulk puts for the primitive arrays.
+     */
+    public static void encode(final ProductData data, final int start, final int count, final ByteBuffer dest) {
+        final Object elems = data.getElems();
+        if (elems instanceof byte[]) {
+            dest.put((byte[]) elems, start, count);
+        } else if (elems instanceof short[]) {
+            dest.asShortBuffer().put((short[]) elems, start, count);
+            dest.position(dest.position() + count * 2);
+        } else if (elems instanceof int[]) {
+            dest.asIntBuffer().put((int[]) elems, start, count);
+            dest.position(dest.position() + count * 4);
+        } else if (elems instanceof float[]) {
+            dest.asFloatBuffer().put((float[]) elems, start, count);
+            dest.position(dest.position() + count * 4);
+        } else if (elems instanceof double[]) {
+            dest.asDoubleBuffer().put((double[]) elems, start, count);
+            dest.position(dest.position() + count * 8);
+        } else if (elems instanceof long[]) {
+            dest.asLongBuffer().put((long[]) elems, start, count);
+            dest.position(dest.position() + count * 8);
+        } else {
+            throw new IllegalArgumentException("Unsupported data type " + data.getTypeString());
+        }
+    }
+
+    private final class Strip {
+        final int y;
+        final int height;
+        final byte[] data;
+        final List<Rectangle> tiles = new ArrayList<>();
+        int numPending = 0;
+        long covered = 0;
+        boolean removed = false;
+
+        Strip(final int y, final int height) {
+            this.y = y;
+            this.height = height;
+            this.data = new byte[height * rowBytes];
+        }
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Zero-copy access to the first image of an uncompressed, stripped, single-plane TIFF or BigTIFF.
+ * The strip layout is parsed once and samples are copied straight from a memory mapping of the file
+ * into the destination arrays, bypassing ImageIO.
+ * Reads do not share any file pointer and may be issued concurrently.
+ */
+public class UncompressedTiffFile {
+
+    private static final int TAG_IMAGE_WIDTH = 256;
+    private static final int TAG_IMAGE_LENGTH = 257;
+    private static final int TAG_BITS_PER_SAMPLE = 258;
+    private static final int TAG_COMPRESSION = 259;
+    private static final int TAG_STRIP_OFFSETS = 273;
+    private static final int TAG_SAMPLES_PER_PIXEL = 277;
+    private static final int TAG_ROWS_PER_STRIP = 278;
+    private static final int TAG_STRIP_BYTE_COUNTS = 279;
+    private static final int TAG_PLANAR_CONFIGURATION = 284;
+    private static final int TAG_TILE_WIDTH = 322;
+
+    private static final int COMPRESSION_NONE = 1;
+    private static final int WINDOW_SHIFT = 30;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteOrder byteOrder;
+    private final int width;
+    private final int height;
+    private final int bytesPerPixel;
+    private final long[] rowOffsets;
+    private final MappedByteBuffer[] windows;
+
+    private UncompressedTiffFile(final File file, final FileChannel channel, final ByteOrder byteOrder,
+                                 final int width, final int height, final int bytesPerPixel,
+                                 final long[] rowOffsets) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.byteOrder = byteOrder;
+        this.width = width;
+        this.height = height;
+        this.bytesPerPixel = bytesPerPixel;
+        this.rowOffsets = rowOffsets;
+
+        // map in windows of 1GB overlapping by one row so that any row segment lies within a single window
+        final long rowBytes = (long) width * bytesPerPixel;
+        final long fileSize = channel.size();
+        final int numWindows = (int) ((fileSize - 1 >>> WINDOW_SHIFT) + 1);
+        windows = new MappedByteBuffer[numWindows];
+        for (int i = 0; i < numWindows; ++i) {
+            final long start = (long) i << WINDOW_SHIFT;
+            final long size = Math.min((1L << WINDOW_SHIFT) + rowBytes, fileSize - start);
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        }
+    }
+
+    /**
+     * Opens the file if it can be served without decoding
+     *
+     * @param file the TIFF file
+     * @return the mapped file or null if the file is compressed, tiled, planar or otherwise not supported
+     * @throws IOException if the file could not be read
+     */
+    public static UncompressedTiffFile open(final File file) throws IOException {
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            final UncompressedTiffFile tiff = parse(file, channel);
+            if (tiff == null) {
+                channel.close();
+            }
+            return tiff;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static UncompressedTiffFile parse(final File file, final FileChannel channel) throws IOException {
+        final ByteBuffer header = read(channel, 0, 16, ByteOrder.LITTLE_ENDIAN);
+        final ByteOrder order;
+        if (header.get(0) == 'I' && header.get(1) == 'I') {
+            order = ByteOrder.LITTLE_ENDIAN;
+        } else if (header.get(0) == 'M' && header.get(1) == 'M') {
+            order = ByteOrder.BIG_ENDIAN;
+        } else {
+            return null;
+        }
+        header.order(order);
+
+        final int magic = header.getShort(2) & 0xFFFF;
+        final boolean bigTiff;
+        final long ifdOffset;
+        if (magic == 42) {
+            bigTiff = false;
+            ifdOffset = header.getInt(4) & 0xFFFFFFFFL;
+        } else if (magic == 43) {
+            bigTiff = true;
+            ifdOffset = header.getLong(8);
+        } else {
+            return null;
+        }
+
+        final int countSize = bigTiff ? 8 : 2;
+        final int entrySize = bigTiff ? 20 : 12;
+        final ByteBuffer countBuf = read(channel, ifdOffset, countSize, order);
+        final int numEntries = (int) (bigTiff ? countBuf.getLong(0) : countBuf.getShort(0) & 0xFFFF);
+        final ByteBuffer ifd = read(channel, ifdOffset + countSize, numEntries * entrySize, order);
+
+        int width = 0, height = 0, samplesPerPixel = 1, planar = 1, compression = COMPRESSION_NONE;
+        long rowsPerStrip = Integer.MAX_VALUE;
+        long[] bitsPerSample = null, stripOffsets = null, stripByteCounts = null;
+        for (int i = 0; i < numEntries; ++i) {
+            final int pos = i * entrySize;
+            final int tag = ifd.getShort(pos) & 0xFFFF;
+            switch (tag) {
+                case TAG_IMAGE_WIDTH:
+                    width = (int) readValues(channel, ifd, pos, bigTiff, order)[0];
+                    break;
+                case TAG_IMAGE_LENGTH:
+                    height = (int) readValues(channel, ifd, pos, bigTiff, order)[0];
+                    break;
+                case TAG_BITS_PER_SAMPLE:
+                    bitsPerSample = readValues(channel, ifd, pos, bigTiff, order);
+                    break;
+                case TAG_COMPRESSION:
+                    compression = (int) readValues(channel, ifd, pos, bigTiff, order)[0];
+                    break;
+                case TAG_STRIP_OFFSETS:
+                    stripOffsets = readValues(channel, ifd, pos, bigTiff, order);
+                    break;
+                case TAG_SAMPLES_PER_PIXEL:
+                    samplesPerPixel = (int) readValues(channel, ifd, pos, bigTiff, order)[0];
+                    break;
+                case TAG_ROWS_PER_STRIP:
+                    rowsPerStrip = readValues(channel, ifd, pos, bigTiff, order)[0];
+                    break;
+                case TAG_STRIP_BYTE_COUNTS:
+                    stripByteCounts = readValues(channel, ifd, pos, bigTiff, order);
+                    break;
+                case TAG_PLANAR_CONFIGURATION:
+                    planar = (int) readValues(channel, ifd, pos, bigTiff, order)[0];
+                    break;
+                case TAG_TILE_WIDTH:
+                    return null;
+                default:
+                    break;
+            }
+        }
+
+        if (compression != COMPRESSION_NONE || (planar != 1 && samplesPerPixel > 1) || width <= 0 || height <= 0 ||
+                bitsPerSample == null || stripOffsets == null || stripByteCounts == null ||
+                stripOffsets.length != stripByteCounts.length) {
+            return null;
+        }
+
+        int bitsPerPixel = 0;
+        for (int s = 0; s < samplesPerPixel; ++s) {
+            bitsPerPixel += (int) bitsPerSample[Math.min(s, bitsPerSample.length - 1)];
+        }
+        if (bitsPerPixel % 8 != 0) {
+            return null;
+        }
+        final int bytesPerPixel = bitsPerPixel / 8;
+        final long rowBytes = (long) width * bytesPerPixel;
+        rowsPerStrip = Math.min(rowsPerStrip, height);
+
+        final long fileSize = channel.size();
+        final long[] rowOffsets = new long[height];
+        for (int y = 0; y < height; ++y) {
+            final int strip = (int) (y / rowsPerStrip);
+            if (strip >= stripOffsets.length) {
+                return null;
+            }
+            final int rowInStrip = (int) (y % rowsPerStrip);
+            if ((rowInStrip + 1) * rowBytes > stripByteCounts[strip]) {
+                return null;
+            }
+            rowOffsets[y] = stripOffsets[strip] + rowInStrip * rowBytes;
+            if (rowOffsets[y] + rowBytes > fileSize) {
+                return null;
+            }
+        }
+
+        return new UncompressedTiffFile(file, channel, order, width, height, bytesPerPixel, rowOffsets);
+    }
+
+    private static long[] readValues(final FileChannel channel, final ByteBuffer ifd, final int pos,
+                                     final boolean bigTiff, final ByteOrder order) throws IOException {
+        final int type = ifd.getShort(pos + 2) & 0xFFFF;
+        final long count = bigTiff ? ifd.getLong(pos + 4) : ifd.getInt(pos + 4) & 0xFFFFFFFFL;
+        final int typeSize;
+        switch (type) {
+            case 1:     // BYTE
+                typeSize = 1;
+                break;
+            case 3:     // SHORT
+                typeSize = 2;
+                break;
+            case 4:     // LONG
+                typeSize = 4;
+                break;
+            case 16:    // LONG8
+                typeSize = 8;
+                break;
+            default:
+                throw new IOException("Unsupported TIFF field type " + type);
+        }
+
+        final int valuePos = pos + (bigTiff ? 12 : 8);
+        final int inlineSize = bigTiff ? 8 : 4;
+        final ByteBuffer data;
+        final int start;
+        if (count * typeSize <= inlineSize) {
+            data = ifd;
+            start = valuePos;
+        } else {
+            final long offset = bigTiff ? ifd.getLong(valuePos) : ifd.getInt(valuePos) & 0xFFFFFFFFL;
+            data = read(channel, offset, (int) (count * typeSize), order);
+            start = 0;
+        }
+
+        final long[] values = new long[(int) count];
+        for (int i = 0; i < values.length; ++i) {
+            final int p = start + i * typeSize;
+            switch (typeSize) {
+                case 1:
+                    values[i] = data.get(p) & 0xFF;
+                    break;
+                case 2:
+                    values[i] = data.getShort(p) & 0xFFFF;
+                    break;
+                case 4:
+                    values[i] = data.getInt(p) & 0xFFFFFFFFL;
+                    break;
+                default:
+                    values[i] = data.getLong(p);
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private static ByteBuffer read(final FileChannel channel, final long position, final int length,
+                                   final ByteOrder order) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(order);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of TIFF file");
+            }
+        }
+        return buffer;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBytesPerPixel() {
+        return bytesPerPixel;
+    }
+
+    /**
+     * Reads one 16 bit component of each pixel of a rectangle, e.g. the I or Q part of complex int16 data.
+     * Pixels beyond the right or bottom edge of the image are set to zero.
+     *
+     * @param x         non-negative x offset of the rectangle
+     * @param y         non-negative y offset of the rectangle
+     * @param w         width of the rectangle
+     * @param h         height of the rectangle
+     * @param component index of the 16 bit component within a pixel
+     * @param dest      destination of w*h samples
+     */
+    public void readInt16(final int x, final int y, final int w, final int h, final int component, final short[] dest) {
+        checkOffset(x, y);
+        final int numComponents = bytesPerPixel / 2;
+        final short[] row = new short[validWidth(x, w) * numComponents];
+        for (int j = 0; j < h; ++j) {
+            final int destPos = j * w;
+            final int validWidth = readRow(x, y + j, w, row);
+            if (numComponents == 1) {
+                System.arraycopy(row, 0, dest, destPos, validWidth);
+            } else {
+                for (int i = 0, s = component; i < validWidth; ++i, s += numComponents) {
+                    dest[destPos + i] = row[s];
+                }
+            }
+            for (int i = validWidth; i < w; ++i) {
+                dest[destPos + i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads one signed 16 bit component of each pixel of a rectangle into an int array.
+     *
+     * @see #readInt16(int, int, int, int, int, short[])
+     */
+    public void readInt16(final int x, final int y, final int w, final int h, final int component, final int[] dest) {
+        checkOffset(x, y);
+        final int numComponents = bytesPerPixel / 2;
+        final short[] row = new short[validWidth(x, w) * numComponents];
+        for (int j = 0; j < h; ++j) {
+            final int destPos = j * w;
+            final int validWidth = readRow(x, y + j, w, row);
+            for (int i = 0, s = component; i < validWidth; ++i, s += numComponents) {
+                dest[destPos + i] = row[s];
+            }
+            for (int i = validWidth; i < w; ++i) {
+                dest[destPos + i] = 0;
+            }
+        }
+    }
+
+    private static void checkOffset(final int x, final int y) {
+        if (x < 0 || y < 0) {
+            throw new IllegalArgumentException("Negative offset " + x + ", " + y);
+        }
+    }
+
+    private int validWidth(final int x, final int w) {
+        return Math.max(0, Math.min(x + w, width) - x);
+    }
+
+    private int readRow(final int x, final int y, final int w, final short[] row) {
+        if (y >= height) {
+            return 0;
+        }
+        final int validWidth = validWidth(x, w);
+        if (validWidth == 0) {
+            return 0;
+        }
+        final long pos = rowOffsets[y] + (long) x * bytesPerPixel;
+        final int windowIndex = (int) (pos >>> WINDOW_SHIFT);
+        final ByteBuffer window = windows[windowIndex].duplicate();
+        window.order(byteOrder);
+        window.position((int) (pos - ((long) windowIndex << WINDOW_SHIFT)));
+        final ShortBuffer shorts = window.asShortBuffer();
+        shorts.get(row, 0, validWidth * (bytesPerPixel / 2));
+        return validWidth;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.core.dataop.dem.ElevationModel;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DEMWindowProviderTest {
+
+    private static final double noDataValue = -32768.0;
+    private static final double latOrigin = 10.0;
+    private static final double lonOrigin = 179.0;
+    private static final double latSpacing = 1.0 / 128.0;
+    private static final double lonSpacing = 1.0 / 64.0;
+    private static final int blockPosts = DEMWindowProvider.BLOCK_SIZE * DEMWindowProvider.BLOCK_SIZE;
+
+    // elevation of the stub DEM, which sees longitudes in [-180, 180)
+    private static double elevation(final double lat, final double lon) {
+        return lat * 1000.0 + lon;
+    }
+
+    // a DEM counting the posts it is asked for
+    private static ElevationModel createDEM(final AtomicInteger numCalls) {
+        return (ElevationModel) Proxy.newProxyInstance(ElevationModel.class.getClassLoader(),
+                new Class<?>[]{ElevationModel.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getElevation":
+                            numCalls.incrementAndGet();
+                            final GeoPos geoPos = (GeoPos) args[0];
+                            assertTrue(geoPos.getLon() >= -180.0 && geoPos.getLon() < 180.0);
+                            return elevation(geoPos.getLat(), geoPos.getLon());
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "stub DEM";
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testWindowContents() throws Exception {
+        final AtomicInteger numCalls = new AtomicInteger();
+        final DEMWindowProvider provider = new DEMWindowProvider(createDEM(numCalls), noDataValue,
+                latOrigin, lonOrigin, latSpacing, lonSpacing);
+
+        // rows of blocks -1 to 1 and columns of blocks 0 and 1, across the antimeridian
+        final DEMWindowProvider.Window window = provider.getWindow(-5, 100, 200, 150, false);
+        assertEquals(6 * blockPosts, numCalls.get());
+        assertEquals(-5, window.row0);
+        assertEquals(100, window.col0);
+
+        for (int r = 0; r < window.rows; ++r) {
+            final double lat = latOrigin - (r - 5) * latSpacing;
+            assertEquals(lat, window.getLatitude(r), 0.0);
+            for (int c = 0; c < window.cols; ++c) {
+                final double lon = lonOrigin + (c + 100) * lonSpacing;
+                assertEquals(lon, window.getLongitude(c), 0.0);
+                assertEquals(elevation(lat, lon >= 180.0 ? lon - 360.0 : lon), window.getElevation(r, c), 0.0);
+            }
+        }
+        provider.dispose();
+    }
+
+    @Test
+    public void testWindowBounds() throws Exception {
+        final DEMWindowProvider provider = new DEMWindowProvider(createDEM(new AtomicInteger()), noDataValue,
+                latOrigin, lonOrigin, latSpacing, lonSpacing);
+
+        final double latMin = 9.3, latMax = 9.61, lonMin = 179.2, lonMax = 180.5;
+        final DEMWindowProvider.Window window = provider.getWindow(latMin, latMax, lonMin, lonMax, false);
+
+        // the posts enclose the bounds with no more than one post outside on each side
+        assertTrue(window.getLatitude(0) >= latMax && window.getLatitude(1) < latMax);
+        assertTrue(window.getLatitude(window.rows - 1) <= latMin && window.getLatitude(window.rows - 2) > latMin);
+        assertTrue(window.getLongitude(0) <= lonMin && window.getLongitude(1) > lonMin);
+        assertTrue(window.getLongitude(window.cols - 1) >= lonMax && window.getLongitude(window.cols - 2) < lonMax);
+        assertEquals(window.cols * window.rows, window.elevation.length);
+        provider.dispose();
+    }
+
+    @Test
+    public void testCacheReuse() throws Exception {
+        final AtomicInteger numCalls = new AtomicInteger();
+        final ElevationModel dem = createDEM(numCalls);
+        final DEMWindowProvider provider = new DEMWindowProvider(dem, noDataValue,
+                latOrigin, lonOrigin, latSpacing, lonSpacing);
+
+        provider.getWindow(10, 10, 50, 50, false);
+        assertEquals(blockPosts, numCalls.get());
+
+        // overlapping windows and other providers of the same DEM and grid use the cached block
+        provider.getWindow(30, 60, 90, 60, false);
+        new DEMWindowProvider(dem, noDataValue, latOrigin, lonOrigin, latSpacing, lonSpacing)
+                .getWindow(0, 0, 20, 20, false);
+        assertEquals(blockPosts, numCalls.get());
+
+        // another grid of the same DEM is sampled again
+        final DEMWindowProvider otherGrid = new DEMWindowProvider(dem, noDataValue,
+                latOrigin, lonOrigin, latSpacing / 2, lonSpacing / 2);
+        otherGrid.getWindow(10, 10, 50, 50, false);
+        assertEquals(2 * blockPosts, numCalls.get());
+
+        // another DEM instance on the same grid does not share the blocks
+        final AtomicInteger otherCalls = new AtomicInteger();
+        final DEMWindowProvider otherDEM = new DEMWindowProvider(createDEM(otherCalls), noDataValue,
+                latOrigin, lonOrigin, latSpacing, lonSpacing);
+        otherDEM.getWindow(10, 10, 50, 50, false);
+        assertEquals(blockPosts, otherCalls.get());
+        assertEquals(2 * blockPosts, numCalls.get());
+
+        // disposing releases the blocks of the DEM for all grids, but not those of other DEMs
+        provider.dispose();
+        provider.getWindow(10, 10, 50, 50, false);
+        otherGrid.getWindow(10, 10, 50, 50, false);
+        assertEquals(4 * blockPosts, numCalls.get());
+        otherDEM.getWindow(10, 10, 50, 50, false);
+        assertEquals(blockPosts, otherCalls.get());
+
+        provider.dispose();
+        otherDEM.dispose();
+    }
+}
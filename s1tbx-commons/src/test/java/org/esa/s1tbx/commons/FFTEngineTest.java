@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class FFTEngineTest {
+
+    private static final int rows = 12;
+    private static final int cols = 20;
+
+    private final FFTEngine fftEngine = FFTEngine.getInstance("FFTEngineTest");
+
+    private static double[] createData(final int length) {
+        final Random random = new Random(11);
+        final double[] data = new double[length];
+        for (int i = 0; i < length; ++i) {
+            data[i] = random.nextDouble() - 0.5;
+        }
+        return data;
+    }
+
+    @Test
+    public void testComplexForward2DMatchesDFT() {
+        final double[] data = createData(2 * rows * cols);
+        final double[] expected = dft2D(data);
+
+        fftEngine.complexForward2D(data, rows, cols);
+        for (int i = 0; i < data.length; ++i) {
+            assertEquals(expected[i], data[i], 1e-10);
+        }
+    }
+
+    @Test
+    public void testComplexInverse2D() {
+        final double[] data = createData(2 * rows * cols);
+        final double[] original = data.clone();
+
+        fftEngine.complexForward2D(data, rows, cols);
+        fftEngine.complexInverse2D(data, rows, cols, true);
+        for (int i = 0; i < data.length; ++i) {
+            assertEquals(original[i], data[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void testRealForward2D() {
+        final double[] real = createData(rows * cols);
+        final double[] complex = new double[2 * rows * cols];
+        for (int i = 0; i < real.length; ++i) {
+            complex[2 * i] = real[i];
+        }
+        fftEngine.complexForward2D(complex, rows, cols);
+
+        final double[] spectrum = new double[2 * rows * cols];
+        fftEngine.realForward2D(real, rows, cols, spectrum);
+        for (int i = 0; i < spectrum.length; ++i) {
+            assertEquals(complex[i], spectrum[i], 1e-10);
+        }
+    }
+
+    @Test
+    public void testFloatComplexForward2D() {
+        final double[] data = createData(2 * rows * cols);
+        final float[] floatData = new float[data.length];
+        for (int i = 0; i < data.length; ++i) {
+            floatData[i] = (float) data[i];
+        }
+
+        fftEngine.complexForward2D(data, rows, cols);
+        fftEngine.complexForward2D(floatData, rows, cols);
+        for (int i = 0; i < data.length; ++i) {
+            assertEquals(data[i], floatData[i], 1e-4);
+        }
+    }
+
+    @Test
+    public void testCallCount() {
+        final FFTEngine engine = FFTEngine.getInstance("FFTEngineTest.testCallCount");
+        assertSame(engine, FFTEngine.getInstance("FFTEngineTest.testCallCount"));
+
+        final double[] line = FFTEngine.getDoubleBuffer(0, 2 * cols);
+        engine.complexForward(line, 0, cols);
+        engine.complexInverse(line, 0, cols, true);
+        assertEquals(2, engine.getCallCount());
+        assertSame(line, FFTEngine.getDoubleBuffer(0, cols));
+    }
+
+    private static double[] dft2D(final double[] data) {
+        final double[] out = new double[data.length];
+        for (int u = 0; u < rows; ++u) {
+            for (int v = 0; v < cols; ++v) {
+                double re = 0, im = 0;
+                for (int r = 0; r < rows; ++r) {
+                    for (int c = 0; c < cols; ++c) {
+                        final double angle = -2.0 * Math.PI * ((double) u * r / rows + (double) v * c / cols);
+                        final double cos = Math.cos(angle);
+                        final double sin = Math.sin(angle);
+                        final int k = 2 * (r * cols + c);
+                        re += data[k] * cos - data[k + 1] * sin;
+                        im += data[k] * sin + data[k + 1] * cos;
+                    }
+                }
+                out[2 * (u * cols + v)] = re;
+                out[2 * (u * cols + v) + 1] = im;
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,183 @@
+package org.esa.s1tbx.commons;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
+import org.esa.snap.engine_utilities.datamodel.PosVector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class OrbitStateVectorsTest {
+
+    private static final double secondsInDay = 86400.0;
+    private static final double radius = 7071000.0;
+    private static final double period = 5925.0;
+    private static final double startTime = 7000.0;
+    private static final double vectorInterval = 10.0;
+    private static final int numVectors = 30;
+
+    static OrbitStateVector[] createCircularOrbit() {
+        final OrbitStateVector[] vectors = new OrbitStateVector[numVectors];
+        for (int i = 0; i < numVectors; ++i) {
+            final double t = i * vectorInterval;
+            final PosVector pos = circularPosition(t);
+            final PosVector vel = circularVelocity(t);
+            vectors[i] = new OrbitStateVector(new ProductData.UTC(startTime + t / secondsInDay),
+                                              pos.x, pos.y, pos.z, vel.x, vel.y, vel.z);
+        }
+        return vectors;
+    }
+
+    static PosVector circularPosition(final double t) {
+        final double w = 2.0 * Math.PI / period;
+        return new PosVector(radius * Math.cos(w * t), radius * Math.sin(w * t) * 0.2, radius * Math.sin(w * t));
+    }
+
+    static PosVector circularVelocity(final double t) {
+        final double w = 2.0 * Math.PI / period;
+        return new PosVector(-radius * w * Math.sin(w * t), radius * w * Math.cos(w * t) * 0.2, radius * w * Math.cos(w * t));
+    }
+
+    @Test
+    public void testInterpolationAccuracy() {
+        final OrbitStateVectors orbit = new OrbitStateVectors(createCircularOrbit());
+
+        for (double t = 35.0; t < 255.0; t += 7.3) {
+            final OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(startTime + t / secondsInDay);
+            final PosVector expectedPos = circularPosition(t);
+            final PosVector expectedVel = circularVelocity(t);
+
+            assertEquals(expectedPos.x, pv.position.x, 1e-3);
+            assertEquals(expectedPos.y, pv.position.y, 1e-3);
+            assertEquals(expectedPos.z, pv.position.z, 1e-3);
+            assertEquals(expectedVel.x, pv.velocity.x, 1e-3);
+            assertEquals(expectedVel.y, pv.velocity.y, 1e-3);
+            assertEquals(expectedVel.z, pv.velocity.z, 1e-3);
+        }
+    }
+
+    @Test
+    public void testCompiledOrbitMatchesLagrangeInterpolation() {
+        final OrbitStateVector[] vectors = createCircularOrbit();
+        final OrbitStateVectors orbit = new OrbitStateVectors(vectors);
+        final double[] position = new double[3];
+        final double[] velocity = new double[3];
+        final PosVector posVector = new PosVector();
+
+        for (double t = -5.0; t < 300.0; t += 0.37) {
+            final double time = startTime + t / secondsInDay;
+            final double[] expected = lagrangeInterpolation(vectors, time);
+
+            orbit.getPositionVelocity(time, position, velocity);
+            orbit.getPosition(time, posVector);
+            for (int c = 0; c < 3; ++c) {
+                assertEquals(expected[c], position[c], 1e-5);
+                assertEquals(expected[c + 3], velocity[c], 1e-8);
+            }
+            assertEquals(position[0], posVector.x, 0.0);
+            assertEquals(position[1], posVector.y, 0.0);
+            assertEquals(position[2], posVector.z, 0.0);
+        }
+    }
+
+    @Test
+    public void testOnStateVector() {
+        final OrbitStateVector[] vectors = createCircularOrbit();
+        final OrbitStateVectors orbit = new OrbitStateVectors(vectors);
+        final double[] position = new double[3];
+        final double[] velocity = new double[3];
+
+        orbit.getPositionVelocity(vectors[12].time_mjd, position, velocity);
+        assertEquals(vectors[12].x_pos, position[0], 0.0);
+        assertEquals(vectors[12].z_vel, velocity[2], 0.0);
+    }
+
+    // the 8 point Lagrange interpolation evaluated directly, as done before the orbit was compiled
+    private static double[] lagrangeInterpolation(final OrbitStateVector[] vectors, final double time) {
+        final int nv = 8;
+        final double dt = (vectors[vectors.length - 1].time_mjd - vectors[0].time_mjd) / (vectors.length - 1);
+        int i0 = Math.max((int) ((time - vectors[0].time_mjd) / dt) - nv / 2 + 1, 0);
+        final int iN = Math.min(i0 + nv - 1, vectors.length - 1);
+        i0 = (iN < vectors.length - 1 ? i0 : iN - nv + 1);
+
+        final double[] result = new double[6];
+        for (int i = i0; i <= iN; ++i) {
+            double weight = 1;
+            for (int j = i0; j <= iN; ++j) {
+                if (j != i) {
+                    weight *= (time - vectors[j].time_mjd) / (vectors[i].time_mjd - vectors[j].time_mjd);
+                }
+            }
+            result[0] += weight * vectors[i].x_pos;
+            result[1] += weight * vectors[i].y_pos;
+            result[2] += weight * vectors[i].z_pos;
+            result[3] += weight * vectors[i].x_vel;
+            result[4] += weight * vectors[i].y_vel;
+            result[5] += weight * vectors[i].z_vel;
+        }
+        return result;
+    }
+
+    @Test
+    public void testCachedResultIsShared() {
+        final OrbitStateVectors orbit = new OrbitStateVectors(createCircularOrbit());
+        final double time = startTime + 100.5 / secondsInDay;
+
+        assertSame(orbit.getPositionVelocity(time), orbit.getPositionVelocity(time));
+    }
+
+    @Test
+    public void testBatchMatchesSingleEvaluation() {
+        final OrbitStateVectors orbit = new OrbitStateVectors(createCircularOrbit());
+
+        final double[] times = new double[50];
+        for (int k = 0; k < times.length; ++k) {
+            times[k] = startTime + (3.0 + k * 5.1) / secondsInDay;
+        }
+        final double[] positions = new double[3 * times.length];
+        final double[] velocities = new double[3 * times.length];
+        orbit.getPositionVelocity(times, positions, velocities);
+
+        for (int k = 0; k < times.length; ++k) {
+            final OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(times[k]);
+            assertEquals(pv.position.x, positions[3 * k], 0.0);
+            assertEquals(pv.position.y, positions[3 * k + 1], 0.0);
+            assertEquals(pv.position.z, positions[3 * k + 2], 0.0);
+            assertEquals(pv.velocity.x, velocities[3 * k], 0.0);
+            assertEquals(pv.velocity.y, velocities[3 * k + 1], 0.0);
+            assertEquals(pv.velocity.z, velocities[3 * k + 2], 0.0);
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final OrbitStateVectors orbit = new OrbitStateVectors(createCircularOrbit());
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Double>> futures = new ArrayList<>();
+            for (int n = 0; n < 8; ++n) {
+                final int offset = n;
+                futures.add(executor.submit(() -> {
+                    double maxError = 0;
+                    for (int k = 0; k < 20000; ++k) {
+                        final double t = 20.0 + ((k * 7 + offset) % 25000) * 0.01;
+                        final OrbitStateVectors.PositionVelocity pv = orbit.getPositionVelocity(startTime + t / secondsInDay);
+                        maxError = Math.max(maxError, Math.abs(pv.position.x - circularPosition(t).x));
+                    }
+                    return maxError;
+                }));
+            }
+            for (Future<Double> future : futures) {
+                assertEquals(0.0, future.get(), 1e-3);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
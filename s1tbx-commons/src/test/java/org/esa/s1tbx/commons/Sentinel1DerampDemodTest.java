@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class Sentinel1DerampDemodTest {
+
+    private static final int linesPerBurst = 1500;
+    private static final int samplesPerBurst = 2000;
+    private static final double azimuthTimeInterval = 0.002055556;
+
+    private static Sentinel1Utils.SubSwathInfo createSubSwath() {
+        final Sentinel1Utils.SubSwathInfo sw = new Sentinel1Utils.SubSwathInfo();
+        sw.linesPerBurst = linesPerBurst;
+        sw.azimuthTimeInterval = azimuthTimeInterval;
+        sw.dopplerRate = new double[2][samplesPerBurst];
+        sw.referenceTime = new double[2][samplesPerBurst];
+        sw.dopplerCentroid = new double[2][samplesPerBurst];
+
+        final Random random = new Random(7);
+        for (int b = 0; b < 2; ++b) {
+            for (int x = 0; x < samplesPerBurst; ++x) {
+                sw.dopplerRate[b][x] = -2000.0 - 300.0 * random.nextDouble();
+                sw.referenceTime[b][x] = 1.5 + 0.1 * random.nextDouble();
+                sw.dopplerCentroid[b][x] = 50.0 * random.nextDouble() - 25.0;
+            }
+        }
+        return sw;
+    }
+
+    @Test
+    public void testRotationMatchesPhase() {
+        final Sentinel1Utils.SubSwathInfo[] subSwath = {createSubSwath()};
+        final Sentinel1Utils.DerampDemod derampDemod = new Sentinel1Utils.DerampDemod();
+        final int burstIndex = 1;
+
+        // a second, smaller rectangle reuses the buffers of the first one
+        for (Rectangle rect : new Rectangle[]{new Rectangle(300, 1600, 200, 700), new Rectangle(1500, 2900, 90, 97)}) {
+            Sentinel1Utils.computeDerampDemod(subSwath, 1, burstIndex, rect, derampDemod);
+            assertEquals(rect.width, derampDemod.width);
+            assertEquals(rect.height, derampDemod.height);
+
+            final Sentinel1Utils.SubSwathInfo sw = subSwath[0];
+            for (int yy = 0; yy < rect.height; ++yy) {
+                final double ta = (rect.y + yy - burstIndex * linesPerBurst) * azimuthTimeInterval;
+                for (int xx = 0; xx < rect.width; ++xx) {
+                    final int x = rect.x + xx;
+                    final double dt = ta - sw.referenceTime[burstIndex][x];
+                    final double phase = -Math.PI * sw.dopplerRate[burstIndex][x] * dt * dt -
+                            2.0 * Math.PI * sw.dopplerCentroid[burstIndex][x] * ta;
+
+                    final int k = yy * rect.width + xx;
+                    assertEquals(phase, derampDemod.phase[k], 1e-9);
+                    assertEquals(Math.cos(phase), derampDemod.cos[k], 1e-9);
+                    assertEquals(Math.sin(phase), derampDemod.sin[k], 1e-9);
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package org.esa.s1tbx.commons.io;
 
 import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
 import javax.imageio.stream.FileCacheImageInputStream;
 import javax.imageio.stream.ImageInputStream;
 
@@ -17,4 +23,47 @@ public class ImageIOFileTest {
     ImageInputStream imageInputStream = ImageIOFile.createImageInputStream(new ByteArrayInputStream(new byte[0]), new Dimension(60000, 60000));
     Assert.assertTrue("For large files we expect a FileCacheImageInputStream", imageInputStream instanceof FileCacheImageInputStream);
   }
+
+  @Test
+  public void readAfterCloseFailsFast() throws IOException {
+    final File file = createImageFile();
+    try {
+      final ImageIOFile imgFile = new ImageIOFile(file, ImageIOFile.getIIOReader(file), file);
+      final ImageReader reader = imgFile.getReader();
+      final Raster raster = imgFile.readRaster(reader.getDefaultReadParam(), new Rectangle(0, 0, 8, 8));
+      Assert.assertEquals(7, raster.getSample(3, 4, 0));
+
+      imgFile.close();
+      try {
+        imgFile.readRaster(reader.getDefaultReadParam(), new Rectangle(0, 0, 8, 8));
+        Assert.fail("expected an IOException after close");
+      } catch (IOException expected) {
+        // the closed file must not block waiting for a reader
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void readWithoutReaderFailsFast() throws IOException {
+    final ImageInputStream stream = ImageIO.createImageInputStream(new ByteArrayInputStream(new byte[16]));
+    final ImageIOFile imgFile = new ImageIOFile("noReader", stream, null, 1, 1, 0, null);
+    try {
+      imgFile.readRaster(null, new Rectangle(0, 0, 1, 1));
+      Assert.fail("expected an IOException without a reader");
+    } catch (IOException expected) {
+      // no reader was registered, so there is nothing to wait for
+    } finally {
+      imgFile.close();
+    }
+  }
+
+  private static File createImageFile() throws IOException {
+    final BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_GRAY);
+    image.getRaster().setSample(3, 4, 0, 7);
+    final File file = File.createTempFile("ImageIOFileTest", ".png");
+    ImageIO.write(image, "png", file);
+    return file;
+  }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.commons.io;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+public class RasterFileWriterTest {
+
+    private static final int width = 103;
+    private static final int height = 77;
+
+    @Test
+    public void testWriteSingleBand() throws Exception {
+        writeAndCheck(1, RasterFileWriter.DEFAULT_MAX_BUFFERED_BYTES);
+    }
+
+    @Test
+    public void testWriteBandInterleavedByLine() throws Exception {
+        writeAndCheck(3, RasterFileWriter.DEFAULT_MAX_BUFFERED_BYTES);
+    }
+
+    @Test
+    public void testWriteWithSmallBuffer() throws Exception {
+        // strips are flushed before all their tiles have arrived
+        writeAndCheck(2, 3000);
+        // strips larger than the buffer are not buffered
+        writeAndCheck(2, 100);
+    }
+
+    private static void writeAndCheck(final int numBands, final long maxBufferedBytes) throws Exception {
+        final File file = File.createTempFile("rasterfilewriter", ".img");
+        final long lineStride = (long) width * 4 * numBands;
+        try {
+            final FileChannel channel = RasterFileWriter.openChannel(file, lineStride * height);
+            final RasterFileWriter[] bandWriters = new RasterFileWriter[numBands];
+            for (int b = 0; b < numBands; ++b) {
+                bandWriters[b] = new RasterFileWriter(channel, width, 4, (long) b * width * 4, lineStride,
+                                                      ByteOrder.BIG_ENDIAN, maxBufferedBytes);
+            }
+
+            final List<int[]> tiles = new ArrayList<>();
+            for (int b = 0; b < numBands; ++b) {
+                for (int y = 0; y < height; y += 16) {
+                    for (int x = 0; x < width; x += 20) {
+                        tiles.add(new int[]{b, x, y, Math.min(20, width - x), Math.min(16, height - y)});
+                    }
+                }
+            }
+            Collections.shuffle(tiles, new Random(42));
+
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int[] t : tiles) {
+                    futures.add(executor.submit(() -> {
+                        final float[] data = new float[t[3] * t[4]];
+                        for (int i = 0; i < data.length; ++i) {
+                            data[i] = getValue(t[0], t[1] + i % t[3], t[2] + i / t[3]);
+                        }
+                        final ByteBuffer tile = bandWriters[t[0]].allocateTile(t[3], t[4]);
+                        RasterFileWriter.encode(ProductData.createInstance(data), 0, data.length, tile);
+                        bandWriters[t[0]].writeTile(t[1], t[2], t[3], t[4], tile);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            for (RasterFileWriter bandWriter : bandWriters) {
+                bandWriter.flush();
+            }
+            channel.close();
+
+            final ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            assertEquals(lineStride * height, bytes.capacity());
+            for (int y = 0; y < height; ++y) {
+                for (int b = 0; b < numBands; ++b) {
+                    for (int x = 0; x < width; ++x) {
+                        final int pos = (int) (y * lineStride) + (b * width + x) * 4;
+                        assertEquals(getValue(b, x, y), bytes.getFloat(pos), 0.0f);
+                    }
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static float getValue(final int band, final int x, final int y) {
+        return band * 100000 + y * width + x;
+    }
+}
@@ -0,0 +1,133 @@
+package org.esa.s1tbx.commons.io;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class UncompressedTiffFileTest {
+
+    private static final int width = 5;
+    private static final int height = 7;
+    private static final int rowsPerStrip = 3;
+
+    @Test
+    public void testReadComplexInt16() throws IOException {
+        final File file = createComplexTiff();
+        try {
+            final UncompressedTiffFile tiff = UncompressedTiffFile.open(file);
+            assertNotNull(tiff);
+            assertEquals(width, tiff.getWidth());
+            assertEquals(height, tiff.getHeight());
+            assertEquals(4, tiff.getBytesPerPixel());
+
+            final short[] i = new short[3 * 4];
+            final int[] q = new int[3 * 4];
+            tiff.readInt16(1, 2, 3, 4, 0, i);
+            tiff.readInt16(1, 2, 3, 4, 1, q);
+            for (int y = 0; y < 4; ++y) {
+                for (int x = 0; x < 3; ++x) {
+                    assertEquals(real(x + 1, y + 2), i[y * 3 + x]);
+                    assertEquals(imaginary(x + 1, y + 2), q[y * 3 + x]);
+                }
+            }
+            tiff.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadBeyondEdge() throws IOException {
+        final File file = createComplexTiff();
+        try {
+            final UncompressedTiffFile tiff = UncompressedTiffFile.open(file);
+            assertNotNull(tiff);
+
+            final short[] i = new short[4 * 2];
+            tiff.readInt16(3, 6, 4, 2, 0, i);
+            assertArrayEquals(new short[]{real(3, 6), real(4, 6), 0, 0, 0, 0, 0, 0}, i);
+            tiff.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNotATiff() throws IOException {
+        final File file = File.createTempFile("notatiff", ".tif");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(new byte[64]);
+            }
+            assertNull(UncompressedTiffFile.open(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static short real(final int x, final int y) {
+        return (short) (y * 100 + x);
+    }
+
+    private static short imaginary(final int x, final int y) {
+        return (short) -(y * 100 + x);
+    }
+
+    private static File createComplexTiff() throws IOException {
+        final int numStrips = (height + rowsPerStrip - 1) / rowsPerStrip;
+        final int numEntries = 9;
+        final int ifdOffset = 8;
+        final int ifdSize = 2 + numEntries * 12 + 4;
+        final int stripOffsetsPos = ifdOffset + ifdSize;
+        final int stripCountsPos = stripOffsetsPos + numStrips * 4;
+        final int dataPos = stripCountsPos + numStrips * 4;
+        final int rowBytes = width * 4;
+
+        final ByteBuffer buf = ByteBuffer.allocate(dataPos + height * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(ifdOffset);
+        buf.putShort((short) numEntries);
+        putEntry(buf, 256, 3, 1, width);
+        putEntry(buf, 257, 3, 1, height);
+        putEntry(buf, 258, 3, 1, 32);
+        putEntry(buf, 259, 3, 1, 1);
+        putEntry(buf, 273, 4, numStrips, stripOffsetsPos);
+        putEntry(buf, 277, 3, 1, 1);
+        putEntry(buf, 278, 3, 1, rowsPerStrip);
+        putEntry(buf, 279, 4, numStrips, stripCountsPos);
+        putEntry(buf, 339, 3, 1, 5);
+        buf.putInt(0);
+
+        for (int s = 0; s < numStrips; ++s) {
+            buf.putInt(dataPos + s * rowsPerStrip * rowBytes);
+        }
+        for (int s = 0; s < numStrips; ++s) {
+            buf.putInt(Math.min(rowsPerStrip, height - s * rowsPerStrip) * rowBytes);
+        }
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                buf.putShort(real(x, y)).putShort(imaginary(x, y));
+            }
+        }
+
+        final File file = File.createTempFile("cint16", ".tif");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(buf.array());
+        }
+        return file;
+    }
+
+    private static void putEntry(final ByteBuffer buf, final int tag, final int type, final int count, final int value) {
+        buf.putShort((short) tag).putShort((short) type).putInt(count);
+        if (type == 3 && count == 1) {
+            buf.putShort((short) value).putShort((short) 0);
+        } else {
+            buf.putInt(value);
+        }
+    }
+}
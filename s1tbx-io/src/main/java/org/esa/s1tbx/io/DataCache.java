@@ -1,60 +1,121 @@
 package org.esa.s1tbx.io;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.esa.s1tbx.commons.io.ImageIOFile;
+import org.esa.snap.runtime.Config;
 
 import java.awt.*;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Cache of decoded image rectangles bounded by the number of bytes held.
+ * Concurrent requests for the same rectangle share a single load.
+ *
  * Created by lveci on 20/05/2014.
  */
 public class DataCache {
 
-    private final LoadingCache<DataKey, Data> cache;
+    private static final long DEFAULT_MAX_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.readers.dataCacheSizeMB", Math.max(64L, Runtime.getRuntime().maxMemory() / 1024 / 1024 / 10)) * 1024L * 1024L;
+
+    static final int CACHE_SEGMENTS = 4;
+
+    private final Cache<DataKey, Data> cache;
+    private final long maxBytes;
 
     public DataCache() {
-        cache = CacheBuilder.newBuilder().maximumSize(500).initialCapacity(500)
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public DataCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((DataKey key, Data value) -> value.getSizeInBytes())
+                // the weight is split among the segments, which must each hold the largest blocks
+                .concurrencyLevel(CACHE_SEGMENTS)
                 .expireAfterAccess(10, TimeUnit.MINUTES)
-                //.recordStats()
-                .build(new CacheLoader<DataKey, Data>() {
-                           @Override
-                           public Data load(DataKey key) throws Exception {
-                               return new Data();
-                           }
-                       }
-        );
+                .recordStats()
+                .build();
     }
 
     public long size() {
         return cache.size();
     }
 
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
     public String stats() {
         return cache.stats().toString();
     }
 
-    public Data get(DataKey key) {
-        return cache.getUnchecked(key);
+    /**
+     * Returns the cached data or null if the rectangle is not in the cache
+     */
+    public Data get(final DataKey key) {
+        return cache.getIfPresent(key);
     }
 
-    public synchronized void put(DataKey key, Data value) {
+    /**
+     * Returns the cached data, loading it if absent. If several threads request the same
+     * rectangle at once only one of them runs the loader and the others wait for its result.
+     */
+    public Data get(final DataKey key, final Callable<Data> loader) throws IOException {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Unable to read " + key, cause);
+        }
+    }
+
+    public void put(final DataKey key, final Data value) {
         cache.put(key, value);
     }
 
+    public void clear() {
+        cache.invalidateAll();
+    }
+
     public static class DataKey {
         private final ImageIOFile img;
         private final Rectangle rect;
+        private final int hash;
 
         public DataKey(final ImageIOFile img, final Rectangle rect) {
             this.img = img;
             this.rect = rect;
+
+            int h = System.identityHashCode(img);
+            h = 31 * h + rect.x;
+            h = 31 * h + rect.y;
+            h = 31 * h + rect.width;
+            h = 31 * h + rect.height;
+            this.hash = h;
         }
 
         @Override
         public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof DataKey))
+                return false;
 
             DataKey key = (DataKey) obj;
             return (rect.x == key.rect.x &&
@@ -66,7 +127,7 @@ public class DataCache {
 
         @Override
         public int hashCode() {
-            return img.hashCode();
+            return hash;
         }
 
         @Override
@@ -88,5 +149,9 @@ public class DataCache {
             this.intArray = srcArray;
             this.valid = true;
         }
+
+        int getSizeInBytes() {
+            return intArray == null ? 0 : intArray.length * 4;
+        }
     }
 }
@@ -15,7 +15,10 @@
  */
 package org.esa.s1tbx.io.binary;
 
+import org.esa.s1tbx.commons.io.FileImageInputStreamExtImpl;
+
 import javax.imageio.stream.ImageInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -44,6 +47,20 @@ public final class BinaryFileReader {
         stream.setByteOrder(order);
     }
 
+    public ByteOrder getByteOrder() {
+        return stream.getByteOrder();
+    }
+
+    /**
+     * @return the file read by the stream or null if the stream is not read from a file
+     */
+    public File getFile() {
+        if (stream instanceof FileImageInputStreamExtImpl) {
+            return ((FileImageInputStreamExtImpl) stream).getFile();
+        }
+        return null;
+    }
+
     public void seek(final long pos) throws IOException {
         stream.seek(pos);
     }
@@ -116,6 +133,10 @@ public final class BinaryFileReader {
         stream.readFully(array, 0, array.length);
     }
 
+    public void read(final byte[] array, final int offset, final int length) throws IOException {
+        stream.readFully(array, offset, length);
+    }
+
     public void read(final char[] array) throws IOException {
         stream.readFully(array, 0, array.length);
     }
@@ -23,6 +23,10 @@ import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.engine_utilities.eo.Constants;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 
 
 /**
@@ -40,6 +44,8 @@ public abstract class CEOSImageFile {
     protected long startPosImageRecords = 0;
     protected int imageHeaderLength = 0;
 
+    private volatile CEOSRecordReader recordReader = null;
+
     public BinaryRecord getImageFileDescriptor() {
         return imageFDR;
     }
@@ -67,9 +73,12 @@ public abstract class CEOSImageFile {
 
     BinaryRecord getImageRecord(int line) throws IOException {
         if (imageRecords[line] == null) {
-
-            binaryReader.seek(imageFDR.getAbsolutPosition(imageFDR.getRecordLength()));
-            imageRecords[line] = createNewImageRecord(line);
+            synchronized (binaryReader) {
+                if (imageRecords[line] == null) {
+                    binaryReader.seek(imageFDR.getAbsolutPosition(imageFDR.getRecordLength()));
+                    imageRecords[line] = createNewImageRecord(line);
+                }
+            }
         }
         return imageRecords[line];
     }
@@ -164,31 +173,31 @@ public abstract class CEOSImageFile {
 
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final ShortBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth * 2)
+                    .asShortBuffer();
+
             final short[] srcLine = new short[sourceWidth];
             short[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new short[destWidth];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
+            for (int i = 0; i < numLines; ++i) {
                 if (pm.isCanceled()) {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
-
                 // Copy source line into destination buffer
-                int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                int currentLineIndex = i * destWidth;
                 if (flipToSARGeometry) {
-                    currentLineIndex = (sourceMaxY - y) * destWidth;
+                    currentLineIndex = (numLines - 1 - i) * destWidth;
                 }
 
+                lines.position(i * sourceWidth);
                 if (sourceStepX == 1) {
 
-                    System.arraycopy(srcLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
+                    lines.get((short[]) destBuffer.getElems(), currentLineIndex, destWidth);
                 } else {
+                    lines.get(srcLine);
                     copyLine(srcLine, destLine, sourceStepX);
 
                     System.arraycopy(destLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
@@ -215,27 +224,27 @@ public abstract class CEOSImageFile {
 
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final IntBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth * 4)
+                    .asIntBuffer();
+
             final int[] srcLine = new int[sourceWidth];
             int[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new int[destWidth];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
+            for (int i = 0; i < numLines; ++i) {
                 if (pm.isCanceled()) {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
-
                 // Copy source line into destination buffer
-                final int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                final int currentLineIndex = i * destWidth;
+                lines.position(i * sourceWidth);
                 if (sourceStepX == 1) {
 
-                    System.arraycopy(srcLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
+                    lines.get((int[]) destBuffer.getElems(), currentLineIndex, destWidth);
                 } else {
+                    lines.get(srcLine);
                     copyLine(srcLine, destLine, sourceStepX);
 
                     System.arraycopy(destLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
@@ -259,27 +268,27 @@ public abstract class CEOSImageFile {
 
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final FloatBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth * 4)
+                    .asFloatBuffer();
+
             final float[] srcLine = new float[sourceWidth];
             float[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new float[destWidth];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
+            for (int i = 0; i < numLines; ++i) {
                 if (pm.isCanceled()) {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
-
                 // Copy source line into destination buffer
-                final int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                final int currentLineIndex = i * destWidth;
+                lines.position(i * sourceWidth);
                 if (sourceStepX == 1) {
 
-                    System.arraycopy(srcLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
+                    lines.get((float[]) destBuffer.getElems(), currentLineIndex, destWidth);
                 } else {
+                    lines.get(srcLine);
                     copyLine(srcLine, destLine, sourceStepX);
 
                     System.arraycopy(destLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
@@ -302,27 +311,26 @@ public abstract class CEOSImageFile {
 
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final ByteBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth);
+
             final byte[] srcLine = new byte[sourceWidth];
             byte[] destLine = null;
             if (sourceStepX != 1)
                 destLine = new byte[destWidth];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
+            for (int i = 0; i < numLines; ++i) {
                 if (pm.isCanceled()) {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
-
                 // Copy source line into destination buffer
-                final int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                final int currentLineIndex = i * destWidth;
+                lines.position(i * sourceWidth);
                 if (sourceStepX == 1) {
 
-                    System.arraycopy(srcLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
+                    lines.get((byte[]) destBuffer.getElems(), currentLineIndex, destWidth);
                 } else {
+                    lines.get(srcLine);
                     copyLine(srcLine, destLine, sourceStepX);
 
                     System.arraycopy(destLine, 0, destBuffer.getElems(), currentLineIndex, destWidth);
@@ -346,41 +354,17 @@ public abstract class CEOSImageFile {
         final long xpos = startPosImageRecords + imageHeaderLength + x;
 
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final ShortBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth * 4)
+                    .asShortBuffer();
+
             final short[] srcLine = new short[sourceWidth * 2];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
-
-                /*
-                synchronized (binaryReader) {
-                    Integer cacheIndex = indexMap.get(y);
-                    if(cacheIndex == null) {
-                            if (cachePos >= cacheSize) {
-                                cachePos = 0;
-                            }
-
-                            srcLine = new short[sourceWidth * 2];
-                            binaryReader.seek(_imageRecordLength * y + xpos);
-                            binaryReader.read(srcLine);
-
-                            if(linesCache[cachePos] != null) {
-                                indexMap.put(indexList[cachePos], null);
-                            }
-                            linesCache[cachePos] = srcLine;
-                            indexList[cachePos] = y;
-                            indexMap.put(y, cachePos);
-                            ++cachePos;
-                    } else {
-                        srcLine = (short[]) linesCache[cacheIndex];
-                    }
-                }   */
-
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+            for (int i = 0; i < numLines; ++i) {
+                lines.position(i * srcLine.length);
+                lines.get(srcLine);
 
                 // Copy source line into destination buffer
-                final int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                final int currentLineIndex = i * destWidth;
                 if (oneOf2)
                     copyLine1Of2(srcLine, destBuffer, currentLineIndex, sourceStepX);
                 else
@@ -392,7 +376,7 @@ public abstract class CEOSImageFile {
         }
     }
 
-    public synchronized void readBandRasterDataSLCFloat(final int sourceOffsetX, final int sourceOffsetY,
+    public void readBandRasterDataSLCFloat(final int sourceOffsetX, final int sourceOffsetY,
                                            final int sourceWidth, final int sourceHeight,
                                            final int sourceStepX, final int sourceStepY,
                                            final int destWidth, final ProductData destBuffer, boolean oneOf2,
@@ -403,17 +387,18 @@ public abstract class CEOSImageFile {
 
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final FloatBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth * 8)
+                    .asFloatBuffer();
+
             final float[] srcLine = new float[sourceWidth * 2];
             final float[] destLine = new float[destWidth];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
-                // Read source line
-                //synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                //}
+            for (int i = 0; i < numLines; ++i) {
+                lines.position(i * srcLine.length);
+                lines.get(srcLine);
 
                 // Copy source line into destination buffer
-                final int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                final int currentLineIndex = i * destWidth;
                 if (oneOf2)
                     copyLine1Of2(srcLine, destLine, sourceStepX);
                 else
@@ -437,21 +422,21 @@ public abstract class CEOSImageFile {
 
         pm.beginTask("Reading band...", sourceMaxY - sourceOffsetY);
         try {
+            final int numLines = getNumLines(sourceOffsetY, sourceMaxY, sourceStepY);
+            final ByteBuffer lines = readLines(sourceOffsetY, sourceStepY, numLines, xpos, sourceWidth * 2);
+
             final byte[] srcLine = new byte[sourceWidth * 2];
             final byte[] destLine = new byte[destWidth];
-            for (int y = sourceOffsetY; y <= sourceMaxY; y += sourceStepY) {
+            for (int i = 0; i < numLines; ++i) {
                 if (pm.isCanceled()) {
                     break;
                 }
 
-                // Read source line
-                synchronized (binaryReader) {
-                    binaryReader.seek(_imageRecordLength * y + xpos);
-                    binaryReader.read(srcLine);
-                }
+                lines.position(i * srcLine.length);
+                lines.get(srcLine);
 
                 // Copy source line into destination buffer
-                final int currentLineIndex = (y - sourceOffsetY) * destWidth;
+                final int currentLineIndex = i * destWidth;
                 if (oneOf2)
                     copyLine1Of2(srcLine, destLine, sourceStepX);
                 else
@@ -467,6 +452,34 @@ public abstract class CEOSImageFile {
         }
     }
 
+    private static int getNumLines(final int sourceOffsetY, final int sourceMaxY, final int sourceStepY) {
+        return sourceMaxY < sourceOffsetY ? 0 : (sourceMaxY - sourceOffsetY) / sourceStepY + 1;
+    }
+
+    /**
+     * Read the bytes of numLines image records in a single request, starting at record firstLine.
+     * The records hold lineLength bytes from xpos on and follow each other in the returned buffer.
+     */
+    private ByteBuffer readLines(final int firstLine, final int stepY, final int numLines,
+                                 final long xpos, final int lineLength) throws IOException {
+        return getRecordReader().read(_imageRecordLength * firstLine + xpos, lineLength,
+                _imageRecordLength * stepY, numLines);
+    }
+
+    private CEOSRecordReader getRecordReader() throws IOException {
+        CEOSRecordReader reader = recordReader;
+        if (reader == null) {
+            synchronized (this) {
+                reader = recordReader;
+                if (reader == null) {
+                    reader = new CEOSRecordReader(binaryReader);
+                    recordReader = reader;
+                }
+            }
+        }
+        return reader;
+    }
+
     private static void copyLine(final short[] srcLine, final short[] destLine, final int sourceStepX) {
         for (int x = 0, i = 0; x < destLine.length; ++x, i += sourceStepX) {
             destLine[x] = srcLine[i];
@@ -549,6 +562,10 @@ public abstract class CEOSImageFile {
     }
 
     public void close() throws IOException {
+        if (recordReader != null) {
+            recordReader.close();
+            recordReader = null;
+        }
         binaryReader.close();
         binaryReader = null;
     }
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.ceos;
+
+import org.esa.s1tbx.io.binary.BinaryFileReader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the same span of bytes from a run of fixed-length records of a CEOS image file.
+ * <p>
+ * Files on disk are read with positional reads on a FileChannel, which has no shared file pointer,
+ * so concurrent readers need no lock. Records close together are read as one span and the bytes
+ * between them are dropped. Streams not backed by a file, such as entries of zipped products,
+ * fall back to a seek and read under a lock on the BinaryFileReader.
+ */
+final class CEOSRecordReader {
+
+    // records further apart than this are read one by one instead of as a single span
+    private static final int MAX_GAP = 32 * 1024;
+    // maximum size of a single span read
+    private static final int MAX_SPAN_SIZE = 8 * 1024 * 1024;
+
+    private final BinaryFileReader binaryReader;
+    private final FileChannel channel;
+
+    CEOSRecordReader(final BinaryFileReader binaryReader) throws IOException {
+        this.binaryReader = binaryReader;
+        final File file = binaryReader.getFile();
+        this.channel = file != null ? FileChannel.open(file.toPath(), StandardOpenOption.READ) : null;
+    }
+
+    /**
+     * Read length bytes from each of numRecords records.
+     *
+     * @param position     the file position of the bytes of the first record
+     * @param length       the number of bytes to read from each record
+     * @param recordStride the distance in bytes between the records read
+     * @param numRecords   the number of records
+     * @return the bytes of the records one after the other, in the byte order of the image file
+     * @throws IOException if the records could not be read
+     */
+    ByteBuffer read(final long position, final int length, final long recordStride, final int numRecords)
+            throws IOException {
+        final ByteBuffer lines = ByteBuffer.allocate(length * numRecords);
+        lines.order(binaryReader.getByteOrder());
+
+        if (recordStride == length) {
+            readFully(lines, position);
+        } else if (recordStride - length > MAX_GAP || recordStride > MAX_SPAN_SIZE) {
+            for (int i = 0; i < numRecords; ++i) {
+                lines.limit((i + 1) * length).position(i * length);
+                readFully(lines, position + i * recordStride);
+            }
+        } else {
+            final int recordsPerSpan = (int) Math.max(1, MAX_SPAN_SIZE / recordStride);
+            final byte[] dest = lines.array();
+            ByteBuffer span = null;
+            for (int first = 0; first < numRecords; first += recordsPerSpan) {
+                final int count = Math.min(recordsPerSpan, numRecords - first);
+                final int spanLength = (int) ((count - 1) * recordStride) + length;
+                if (span == null || span.capacity() < spanLength) {
+                    span = ByteBuffer.allocate(spanLength);
+                }
+                span.clear().limit(spanLength);
+                readFully(span, position + first * recordStride);
+
+                final byte[] src = span.array();
+                for (int i = 0; i < count; ++i) {
+                    System.arraycopy(src, (int) (i * recordStride), dest, (first + i) * length, length);
+                }
+            }
+        }
+        lines.clear();
+        return lines;
+    }
+
+    private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+        if (channel != null) {
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                final int n = channel.read(buffer, pos);
+                if (n < 0) {
+                    throw new EOFException("Unable to read " + buffer.remaining() + " bytes at " + pos);
+                }
+                pos += n;
+            }
+        } else {
+            synchronized (binaryReader) {
+                binaryReader.seek(position);
+                binaryReader.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+            buffer.position(buffer.limit());
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -17,7 +17,7 @@ package org.esa.s1tbx.io.gamma;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.glevel.MultiLevelImage;
-import org.esa.s1tbx.commons.io.FileImageOutputStreamExtImpl;
+import org.esa.s1tbx.commons.io.RasterFileWriter;
 import org.esa.s1tbx.io.gamma.header.GammaConstants;
 import org.esa.s1tbx.io.gamma.header.HeaderDEMWriter;
 import org.esa.s1tbx.io.gamma.header.HeaderDiffWriter;
@@ -30,15 +30,15 @@ import org.esa.snap.core.gpf.internal.TileImpl;
 import org.esa.snap.core.util.Guardian;
 import org.esa.snap.engine_utilities.datamodel.Unit;
 
-import javax.imageio.stream.ImageOutputStream;
 import java.awt.*;
 import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.HashMap;
+import java.nio.channels.FileChannel;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The product writer for Gamma products.
@@ -48,7 +48,8 @@ public class GammaProductWriter extends AbstractProductWriter {
     private File outputDir;
     private File outputFile;
     private Product srcProduct;
-    private Map<Band, ImageOutputStream> bandOutputStreams;
+    private final Map<Band, RasterFileWriter> bandWriters = new ConcurrentHashMap<>();
+    private final Map<Band, FileChannel> bandChannels = new ConcurrentHashMap<>();
     private HeaderWriter headerWriter;
 
     public GammaProductWriter(final ProductWriterPlugIn writerPlugIn) {
@@ -89,76 +90,49 @@ public class GammaProductWriter extends AbstractProductWriter {
         headerWriter.writeParFile();
     }
 
-    private ImageOutputStream createImageOutputStream(final Band band) throws IOException {
-        final ImageOutputStream out = new FileImageOutputStreamExtImpl(getValidImageFile(band));
-        out.setByteOrder(ByteOrder.BIG_ENDIAN);
-        return out;
-    }
-
     /**
      * {@inheritDoc}
      */
-    public synchronized void writeBandRasterData(Band sourceBand,
-                                                 int sourceOffsetX, int sourceOffsetY,
-                                                 int sourceWidth, int sourceHeight,
-                                                 ProductData sourceBuffer,
-                                                 ProgressMonitor pm) throws IOException {
+    public void writeBandRasterData(Band sourceBand,
+                                    int sourceOffsetX, int sourceOffsetY,
+                                    int sourceWidth, int sourceHeight,
+                                    ProductData sourceBuffer,
+                                    ProgressMonitor pm) throws IOException {
         Guardian.assertNotNull("sourceBand", sourceBand);
         Guardian.assertNotNull("sourceBuffer", sourceBuffer);
-        final int sourceBandWidth = sourceBand.getRasterWidth();
         final int elemSize = headerWriter.getHighestElemSize();
+        final int numElems = sourceWidth * sourceHeight;
 
-        final ImageOutputStream outputStream = getOrCreateImageOutputStream(sourceBand);
+        final RasterFileWriter bandWriter = getOrCreateBandWriter(sourceBand);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
+            final ByteBuffer tile = bandWriter.allocateTile(sourceWidth, sourceHeight);
             if (isComplex(sourceBand)) {
-                int numInterleaved = 2;
                 final Rectangle rect = new Rectangle(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight);
                 final Tile sourceTile = getSourceTile(getComplexSrcBand(sourceBand), rect);
                 final ProductData qSourceBuffer = sourceTile.getRawSamples();
-                int srcCnt = 0;
 
+                // interleave i and q, then convert the byte order in bulk
                 if (elemSize >= 4) {
-                    final float[] destBuffer = new float[sourceWidth * numInterleaved];
-                    for (long y = sourceOffsetY; y < sourceOffsetY + sourceHeight; ++y) {
-                        int dstCnt = 0;
-                        for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; ++x) {
-
-                            destBuffer[dstCnt++] = sourceBuffer.getElemFloatAt(srcCnt);
-                            destBuffer[dstCnt++] = qSourceBuffer.getElemFloatAt(srcCnt);
-                            srcCnt++;
-                        }
-
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeFloats(destBuffer, 0, destBuffer.length);
+                    final float[] destBuffer = new float[numElems * 2];
+                    for (int i = 0, dstCnt = 0; i < numElems; ++i) {
+                        destBuffer[dstCnt++] = sourceBuffer.getElemFloatAt(i);
+                        destBuffer[dstCnt++] = qSourceBuffer.getElemFloatAt(i);
                     }
+                    tile.asFloatBuffer().put(destBuffer);
                 } else {
-                    final short[] destBuffer = new short[sourceWidth * numInterleaved];
-                    for (long y = sourceOffsetY; y < sourceOffsetY + sourceHeight; ++y) {
-                        int dstCnt = 0;
-                        for (int x = sourceOffsetX; x < sourceOffsetX + sourceWidth; ++x) {
-
-                            destBuffer[dstCnt++] = (short) sourceBuffer.getElemFloatAt(srcCnt);
-                            destBuffer[dstCnt++] = (short) qSourceBuffer.getElemFloatAt(srcCnt);
-                            srcCnt++;
-                        }
-
-                        outputStream.seek(elemSize * (y * sourceBandWidth + sourceOffsetX) * numInterleaved);
-                        outputStream.writeShorts(destBuffer, 0, destBuffer.length);
+                    final short[] destBuffer = new short[numElems * 2];
+                    for (int i = 0, dstCnt = 0; i < numElems; ++i) {
+                        destBuffer[dstCnt++] = (short) sourceBuffer.getElemFloatAt(i);
+                        destBuffer[dstCnt++] = (short) qSourceBuffer.getElemFloatAt(i);
                     }
+                    tile.asShortBuffer().put(destBuffer);
                 }
-
-                //System.out.println(rect.toString());
             } else {
-                //todo
-                long outputPos = (long) sourceOffsetY * (long) sourceBandWidth + sourceOffsetX;
-                final long max = sourceHeight * sourceWidth;
-                for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                    sourceBuffer.writeTo(sourcePos, sourceWidth, outputStream, outputPos);
-                    outputPos += sourceBandWidth;
-                }
+                RasterFileWriter.encode(sourceBuffer, 0, numElems, tile);
             }
-            pm.worked(1);
+            bandWriter.writeTile(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, tile);
+            pm.worked(sourceHeight);
         } finally {
             pm.done();
         }
@@ -188,11 +162,8 @@ public class GammaProductWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (bandOutputStreams == null) {
-            return;
-        }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).flush();
+        for (RasterFileWriter bandWriter : bandWriters.values()) {
+            bandWriter.flush();
         }
     }
 
@@ -201,15 +172,13 @@ public class GammaProductWriter extends AbstractProductWriter {
      *
      * @throws java.io.IOException on failure
      */
-    public void close() throws IOException {
-        if (bandOutputStreams == null) {
-            return;
-        }
-        for (Object o : bandOutputStreams.values()) {
-            ((ImageOutputStream) o).close();
+    public synchronized void close() throws IOException {
+        flush();
+        for (FileChannel channel : bandChannels.values()) {
+            channel.close();
         }
-        bandOutputStreams.clear();
-        bandOutputStreams = null;
+        bandWriters.clear();
+        bandChannels.clear();
     }
 
     /**
@@ -224,26 +193,34 @@ public class GammaProductWriter extends AbstractProductWriter {
     }
 
     /**
-     * Returns the data output stream associated with the given <code>Band</code>. If no stream exists, one is created
-     * and fed into the hash map
+     * Returns the writer associated with the given <code>Band</code>. If no writer exists, the image file is
+     * created with its full size and a writer is fed into the map
      */
-    private ImageOutputStream getOrCreateImageOutputStream(final Band band) throws IOException {
-        ImageOutputStream outputStream = getImageOutputStream(band);
-        if (outputStream == null) {
-            outputStream = createImageOutputStream(band);
-            if (bandOutputStreams == null) {
-                bandOutputStreams = new HashMap<>();
+    private RasterFileWriter getOrCreateBandWriter(final Band band) throws IOException {
+        RasterFileWriter bandWriter = bandWriters.get(band);
+        if (bandWriter == null) {
+            synchronized (this) {
+                bandWriter = bandWriters.get(band);
+                if (bandWriter == null) {
+                    final int pixelSize = getPixelSize(band);
+                    final FileChannel channel = RasterFileWriter.openChannel(getImageFile(band),
+                            (long) pixelSize * band.getRasterWidth() * band.getRasterHeight());
+                    bandChannels.put(band, channel);
+                    bandWriter = new RasterFileWriter(channel, band.getRasterWidth(), pixelSize, 0,
+                            (long) pixelSize * band.getRasterWidth(), ByteOrder.BIG_ENDIAN,
+                            RasterFileWriter.DEFAULT_MAX_BUFFERED_BYTES);
+                    bandWriters.put(band, bandWriter);
+                }
             }
-            bandOutputStreams.put(band, outputStream);
         }
-        return outputStream;
+        return bandWriter;
     }
 
-    private ImageOutputStream getImageOutputStream(final Band band) {
-        if (bandOutputStreams != null) {
-            return bandOutputStreams.get(band);
+    private int getPixelSize(final Band band) {
+        if (isComplex(band)) {
+            return headerWriter.getHighestElemSize() >= 4 ? 8 : 4;
         }
-        return null;
+        return ProductData.getElemSize(band.getDataType());
     }
 
     @Override
@@ -286,45 +263,6 @@ public class GammaProductWriter extends AbstractProductWriter {
         return new File(outputDir, filename);
     }
 
-    /**
-     * Returns a file associated with the given <code>Band</code>. The method ensures that the file exists and have the
-     * right size. Also ensures a recreate if the file not exists or the file have a different file size. A new envi
-     * header file was written every call.
-     */
-    private File getValidImageFile(final Band band) throws IOException {
-        final File file = getImageFile(band);
-        if (file.exists()) {
-            if (file.length() != getImageFileSize(band)) {
-                createPhysicalFile(file, getImageFileSize(band));
-            }
-        } else {
-            createPhysicalFile(file, getImageFileSize(band));
-        }
-        return file;
-    }
-
-    private static long getImageFileSize(final RasterDataNode band) {
-        long numInterleaved = 1;
-        if (isComplex(band)) {
-            numInterleaved = 2;
-        }
-        return (long) ProductData.getElemSize(band.getDataType()) *
-                (long) band.getRasterWidth() *
-                (long) band.getRasterHeight() * numInterleaved;
-    }
-
-    private static void createPhysicalFile(final File file, final long fileSize) throws IOException {
-        final File parentDir = file.getParentFile();
-        if (parentDir != null) {
-            if (!parentDir.exists() && !parentDir.mkdirs()) {
-                throw new IOException("Unable to create folders in " + parentDir);
-            }
-        }
-        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
-        randomAccessFile.setLength(fileSize);
-        randomAccessFile.close();
-    }
-
     private static boolean isComplex(final RasterDataNode band) {
         final String unit = band.getUnit();
         return unit != null && unit.equals(Unit.REAL);
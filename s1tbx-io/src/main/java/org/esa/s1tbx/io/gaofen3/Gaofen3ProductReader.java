@@ -24,10 +24,8 @@ import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.util.SystemUtils;
 
 import javax.imageio.ImageReadParam;
-import javax.imageio.ImageReader;
 import java.awt.*;
 import java.awt.image.Raster;
-import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.io.File;
 import java.io.IOException;
@@ -113,13 +111,9 @@ public class Gaofen3ProductReader extends SARReader {
         final ImageIOFile.BandInfo bandInfo = dataDir.getBandInfo(destBand);
         final Rectangle destRect = new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight);
         final DataCache.DataKey datakey = new DataCache.DataKey(bandInfo.img, destRect);
-        DataCache.Data cachedData = cache.get(datakey);
-        if (cachedData != null && cachedData.valid) {
-            srcArray = cachedData.intArray;
-        } else {
-            cachedData = readRect(datakey, bandInfo, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
-            srcArray = cachedData.intArray;
-        }
+        final DataCache.Data cachedData = cache.get(datakey, () -> readRect(bandInfo,
+                sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect));
+        srcArray = cachedData.intArray;
         final boolean isSLC = dataDir.isSLC();
         final float[] elems = (float[]) destBuffer.getElems();
         final int numElems = elems.length;
@@ -165,19 +159,17 @@ public class Gaofen3ProductReader extends SARReader {
 
     }
 
-    private synchronized DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
-                                                 int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
-                                                 final Rectangle destRect) {
+    private DataCache.Data readRect(final ImageIOFile.BandInfo bandInfo,
+                                    int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                    final Rectangle destRect) {
         try {
-            final ImageReader imageReader = bandInfo.img.getReader();
-            final ImageReadParam readParam = imageReader.getDefaultReadParam();
+            final ImageReadParam readParam = bandInfo.img.getReader().getDefaultReadParam();
             if (sourceStepX == 1 && sourceStepY == 1) {
                 readParam.setSourceRegion(destRect);
             }
             readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX,
                     sourceOffsetY % sourceStepY);
-            final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
-            final Raster data = subsampledImage.getData(destRect);
+            final Raster data = bandInfo.img.readRaster(readParam, destRect);
 
             final SampleModel sampleModel = data.getSampleModel();
             final int destWidth = Math.min((int) destRect.getWidth(), sampleModel.getWidth());
@@ -189,16 +181,10 @@ public class Gaofen3ProductReader extends SARReader {
                     data.getDataBuffer());
 
             DataCache.Data cachedData = new DataCache.Data(srcArray);
-            if (datakey != null) {
-                cache.put(datakey, cachedData);
-            }
             return cachedData;
         } catch (Exception e) {
             final int[] srcArray = new int[(int) destRect.getWidth() * (int) destRect.getHeight()];
             DataCache.Data cachedData = new DataCache.Data(srcArray);
-            if (datakey != null) {
-                cache.put(datakey, cachedData);
-            }
             return cachedData;
         }
     }
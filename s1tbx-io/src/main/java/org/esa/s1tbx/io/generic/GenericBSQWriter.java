@@ -16,6 +16,7 @@
 package org.esa.s1tbx.io.generic;
 
 import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.commons.io.RasterFileWriter;
 import org.esa.snap.core.dataio.AbstractProductWriter;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
 import org.esa.snap.core.datamodel.Band;
@@ -27,20 +28,23 @@ import org.esa.snap.core.util.Guardian;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
 
-import javax.imageio.stream.FileImageOutputStream;
-import javax.imageio.stream.ImageOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class GenericBSQWriter extends AbstractProductWriter {
 
-    private ImageOutputStream _outputStream = null;
+    private FileChannel channel = null;
 
-    private String bandName = null;
-    private int bandCounter = 0;
-    private int numOfWriteBands = 0; // number of bands that are written (no virtual bands)
+    // one writer per written band (no virtual bands), placed one after the other in each line
+    private final Map<Band, RasterFileWriter> bandWriters = new HashMap<>();
 
     /**
      * Construct a new instance of a product writer for the given product writer plug-in.
@@ -70,20 +74,28 @@ public class GenericBSQWriter extends AbstractProductWriter {
             file = (File) getOutput();
         }
 
-        _outputStream = new FileImageOutputStream(file);
-        // Default to nativeOrder
-        _outputStream.setByteOrder(ByteOrder.nativeOrder());
+        // Get the Real (not Virtual) bands and the size of a line of all of them
+        final List<Band> writeBands = new ArrayList<>();
+        long lineStride = 0;
+        for (Band band : getSourceProduct().getBands()) {
+            if (!(band instanceof VirtualBand)) {
+                writeBands.add(band);
+                lineStride += (long) ProductData.getElemSize(band.getDataType()) * band.getRasterWidth();
+            }
+        }
+
+        channel = RasterFileWriter.openChannel(file, lineStride * getSourceProduct().getSceneRasterHeight());
+        long offset = 0;
+        for (Band band : writeBands) {
+            final int elemSize = ProductData.getElemSize(band.getDataType());
+            // Default to nativeOrder
+            bandWriters.put(band, new RasterFileWriter(channel, band.getRasterWidth(), elemSize, offset, lineStride,
+                    ByteOrder.nativeOrder(), RasterFileWriter.DEFAULT_MAX_BUFFERED_BYTES));
+            offset += (long) elemSize * band.getRasterWidth();
+        }
 
         final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(getSourceProduct());
         AbstractMetadataIO.saveExternalMetadata(getSourceProduct(), absRoot, file);
-
-        // Get number of Real (not Virtual) bands
-        final int numOfBands = getSourceProduct().getNumBands();
-        for (int i = 0; i < numOfBands; i++) {
-            if (!(getSourceProduct().getBandAt(i) instanceof VirtualBand)) {
-                numOfWriteBands++;
-            }
-        }
     }
 
     /**
@@ -107,24 +119,18 @@ public class GenericBSQWriter extends AbstractProductWriter {
 
         checkSourceRegionInsideBandRegion(sourceWidth, sourceBandWidth, sourceHeight, sourceBandHeight, sourceOffsetX, sourceOffsetY);
 
-        // Define order number of Band that is being saved
-        if (bandName == null) {
-            bandName = sourceBand.getName();
-        } else if (!bandName.equals(sourceBand.getName())) {
-            bandName = sourceBand.getName();
-            bandCounter++;
+        final RasterFileWriter bandWriter = bandWriters.get(sourceBand);
+        if (bandWriter == null) {
+            throw new IOException("Band '" + sourceBand.getName() + "' is not written by this writer");
         }
 
         // Write all source NOT VIRTUAL bands in BSQ : Band Sequential Format
-        long outputPos = sourceOffsetY * (numOfWriteBands * sourceBandWidth) + sourceOffsetX + (bandCounter * sourceBandWidth);
         pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
         try {
-            final long max = sourceHeight * sourceWidth;
-            for (int sourcePos = 0; sourcePos < max; sourcePos += sourceWidth) {
-                sourceBuffer.writeTo(sourcePos, sourceWidth, _outputStream, outputPos);
-                outputPos += (numOfWriteBands * sourceBandWidth);
-            }
-            pm.worked(1);
+            final ByteBuffer tile = bandWriter.allocateTile(sourceWidth, sourceHeight);
+            RasterFileWriter.encode(sourceBuffer, 0, sourceWidth * sourceHeight, tile);
+            bandWriter.writeTile(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, tile);
+            pm.worked(sourceHeight);
         } finally {
             pm.done();
         }
@@ -162,8 +168,8 @@ public class GenericBSQWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void flush() throws IOException {
-        if (_outputStream != null) {
-            _outputStream.flush();
+        for (RasterFileWriter bandWriter : bandWriters.values()) {
+            bandWriter.flush();
         }
     }
 
@@ -173,10 +179,10 @@ public class GenericBSQWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void close() throws IOException {
-        if (_outputStream != null) {
-            _outputStream.flush();
-            _outputStream.close();
-            _outputStream = null;
+        if (channel != null) {
+            flush();
+            channel.close();
+            channel = null;
         }
     }
 
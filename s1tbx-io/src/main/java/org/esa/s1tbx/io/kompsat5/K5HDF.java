@@ -22,6 +22,7 @@ import org.esa.s1tbx.io.binary.ArrayCopy;
 import org.esa.s1tbx.io.netcdf.NcAttributeMap;
 import org.esa.s1tbx.io.netcdf.NcRasterDim;
 import org.esa.s1tbx.io.netcdf.NcVariableMap;
+import org.esa.s1tbx.io.netcdf.NetCDFBlockReader;
 import org.esa.s1tbx.io.netcdf.NetCDFReader;
 import org.esa.s1tbx.io.netcdf.NetCDFUtils;
 import org.esa.s1tbx.io.netcdf.NetcdfConstants;
@@ -41,8 +42,6 @@ import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.gpf.OperatorUtils;
 import org.esa.snap.engine_utilities.gpf.ReaderUtils;
-import ucar.ma2.Array;
-import ucar.ma2.InvalidRangeException;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
 
@@ -63,6 +62,7 @@ public class K5HDF implements K5Format {
     private final Kompsat5Reader reader;
     private Product product = null;
     private NetcdfFile netcdfFile = null;
+    private NetCDFBlockReader blockReader = null;
     private NcVariableMap variableMap = null;
     private boolean yFlipped = false;
     private boolean useFloatBands = false;
@@ -96,6 +96,7 @@ public class K5HDF implements K5Format {
 
         final Variable[] rasterVariables = getRasterVariables(variableListMap);
         this.netcdfFile = netcdfFile;
+        blockReader = new NetCDFBlockReader(netcdfFile);
         variableMap = new NcVariableMap(rasterVariables);
         yFlipped = false;
 
@@ -141,6 +142,8 @@ public class K5HDF implements K5Format {
             product = null;
             variableMap.clear();
             variableMap = null;
+            blockReader.close();
+            blockReader = null;
             netcdfFile.close();
             netcdfFile = null;
         }
@@ -849,47 +852,27 @@ public class K5HDF implements K5Format {
         Guardian.assertTrue("sourceHeight == destHeight", sourceHeight == destHeight);
 
         final int sceneHeight = product.getSceneRasterHeight();
-        final int sceneWidth = product.getSceneRasterWidth();
-        destHeight = Math.min(destHeight, sceneHeight - sourceOffsetY);
-        destWidth = Math.min(destWidth, sceneWidth - destOffsetX);
-
-        final int y0 = yFlipped ? (sceneHeight - 1) - sourceOffsetY : sourceOffsetY;
+        final int y0 = yFlipped ? sceneHeight - sourceOffsetY - destHeight : sourceOffsetY;
 
         final Variable variable = bandMap.get(destBand);
-        final int rank = variable.getRank();
-        final int[] origin = new int[rank];
-        final int[] shape = new int[rank];
-        for (int i = 0; i < rank; i++) {
-            shape[i] = 1;
-            origin[i] = 0;
-        }
-        shape[0] = 1;
-        shape[1] = destWidth;
-        origin[1] = sourceOffsetX;
-        if (isComplex && destBand.getUnit().equals(Unit.IMAGINARY)) {
-            origin[2] = 1;
-        }
+        // complex samples hold I and Q in the last dimension
+        final int component = variable.getRank() == 3 ?
+                (isComplex && destBand.getUnit().equals(Unit.IMAGINARY) ? 1 : 0) : -1;
 
-        pm.beginTask("Reading data from band " + destBand.getName(), destHeight);
+        pm.beginTask("Reading data from band " + destBand.getName(), 1);
         try {
-            for (int y = 0; y < destHeight; y++) {
-                origin[0] = yFlipped ? y0 - y : y0 + y;
-                final Array array;
-                synchronized (netcdfFile) {
-                    array = variable.read(origin, shape);
-                }
-
-                if (destBand.getDataType() == ProductData.TYPE_FLOAT32) {
-                    for (int x = 0; x < destWidth; x++) {
-                        destBuffer.setElemFloatAt(y * destWidth + x, ArrayCopy.toFloat(array.getShort(x)));
-                    }
-                } else {
-                    System.arraycopy(array.getStorage(), 0, destBuffer.getElems(), y * destWidth, destWidth);
+            if (destBand.getDataType() == ProductData.TYPE_FLOAT32) {
+                // float bands are stored as 16 bit half floats
+                final ProductData halfFloats = ProductData.createInstance(ProductData.TYPE_INT16, destWidth * destHeight);
+                blockReader.readRaster(variable, component, sourceOffsetX, y0, destWidth, destHeight, yFlipped, halfFloats);
+                final short[] src = (short[]) halfFloats.getElems();
+                for (int i = 0; i < src.length; i++) {
+                    destBuffer.setElemFloatAt(i, ArrayCopy.toFloat(src[i]));
                 }
-                pm.worked(1);
+            } else {
+                blockReader.readRaster(variable, component, sourceOffsetX, y0, destWidth, destHeight, yFlipped, destBuffer);
             }
-        } catch (InvalidRangeException e) {
-            throw new IOException(e.getMessage(), e);
+            pm.worked(1);
         } finally {
             pm.done();
         }
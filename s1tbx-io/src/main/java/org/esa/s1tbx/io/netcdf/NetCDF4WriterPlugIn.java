@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.netcdf;
+
+import org.esa.snap.core.dataio.ProductWriter;
+import ucar.nc2.NetcdfFileWriter;
+
+import java.util.Locale;
+
+/**
+ * Writes NetCDF-4 files with the bands chunked by tile. Deflate compression is set with the
+ * s1tbx.writers.netcdf4.deflateLevel preference.
+ */
+public class NetCDF4WriterPlugIn extends NetCDFWriterPlugIn {
+
+    @Override
+    public String[] getFormatNames() {
+        return NetcdfConstants.NETCDF4_FORMAT_NAMES;
+    }
+
+    @Override
+    public String[] getDefaultFileExtensions() {
+        return NetcdfConstants.NETCDF4_FORMAT_FILE_EXTENSIONS;
+    }
+
+    @Override
+    public String getDescription(Locale name) {
+        return "NetCDF-4 product writer";
+    }
+
+    @Override
+    public ProductWriter createWriterInstance() {
+        return new NetCDFWriter(this, NetcdfFileWriter.Version.netcdf4);
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.netcdf;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.runtime.Config;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reads rectangles of raster variables of a NetCDF or HDF5 file in blocks aligned to the chunk layout
+ * of the variable. The raster is held in the last two dimensions of the variable, or in the two before
+ * last when the last dimension holds the components of complex samples, such as the interleaved I and Q
+ * of COSMO-SkyMed and Kompsat-5 SCS products. Leading dimensions are read at index 0.
+ * <p>
+ * A block holds all components, so the I and Q bands are split from a single read. Decoded blocks are kept
+ * in a cache bounded by bytes, shared by neighbouring tiles and paired bands, and concurrent requests for
+ * the same block share a single read. Reads go through a pool of handles on the file, one per concurrent
+ * reader, so that no lock on the file is needed.
+ */
+public class NetCDFBlockReader {
+
+    private static final long DEFAULT_MAX_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.readers.netcdfBlockCacheSizeMB", 64L) * 1024L * 1024L;
+
+    // minimum size of a block in rows and columns, made of whole chunks
+    private static final int MIN_BLOCK_SIZE = 256;
+    // number of samples of a block of contiguous data, read as full rows
+    private static final int CONTIGUOUS_BLOCK_SAMPLES = 1 << 20;
+    private static final int CACHE_SEGMENTS = 4;
+
+    private final String location;
+    private final Cache<BlockKey, Block> cache;
+    private final Map<String, Layout> layouts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<NetcdfFile> handles = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed = false;
+
+    public NetCDFBlockReader(final NetcdfFile netcdfFile) {
+        this(netcdfFile, DEFAULT_MAX_BYTES);
+    }
+
+    public NetCDFBlockReader(final NetcdfFile netcdfFile, final long maxBytes) {
+        this.location = netcdfFile.getLocation();
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((BlockKey key, Block value) -> value.getSizeInBytes())
+                // the weight is split among the segments, which must each hold the largest blocks
+                .concurrencyLevel(CACHE_SEGMENTS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Read a rectangle of one component of a raster variable.
+     * Samples outside the raster are left unchanged in the destination.
+     *
+     * @param variable   the raster variable
+     * @param component  the index of the component in the last dimension, or -1 if the variable has no
+     *                   component dimension
+     * @param x          the first column
+     * @param y          the first row
+     * @param w          the number of columns
+     * @param h          the number of rows
+     * @param flipY      if true, the rows are written to the destination bottom up
+     * @param destBuffer the destination of w*h samples
+     * @throws IOException if the variable cannot be read
+     */
+    public void readRaster(final Variable variable, final int component,
+                           final int x, final int y, final int w, final int h,
+                           final boolean flipY, final ProductData destBuffer) throws IOException {
+
+        final Layout layout = getLayout(variable, component >= 0);
+        final int numComponents = layout.numComponents;
+        final int x0 = Math.max(x, 0);
+        final int y0 = Math.max(y, 0);
+        final int xEnd = Math.min(x + w, layout.width);
+        final int yEnd = Math.min(y + h, layout.height);
+        final int comp = Math.max(component, 0);
+        final Object dest = destBuffer.getElems();
+
+        for (int blockRow = y0 / layout.blockHeight; blockRow * layout.blockHeight < yEnd; ++blockRow) {
+            for (int blockCol = x0 / layout.blockWidth; blockCol * layout.blockWidth < xEnd; ++blockCol) {
+                final Block block = getBlock(variable, layout, blockRow, blockCol);
+
+                final int bx0 = blockCol * layout.blockWidth;
+                final int by0 = blockRow * layout.blockHeight;
+                final int cx0 = Math.max(x0, bx0);
+                final int cx1 = Math.min(xEnd, bx0 + block.width);
+                final int cy0 = Math.max(y0, by0);
+                final int cy1 = Math.min(yEnd, by0 + block.height);
+                final int length = cx1 - cx0;
+
+                for (int row = cy0; row < cy1; ++row) {
+                    final int srcPos = ((row - by0) * block.width + (cx0 - bx0)) * numComponents + comp;
+                    final int destRow = flipY ? (y + h - 1 - row) : (row - y);
+                    final int destPos = destRow * w + (cx0 - x);
+                    copy(block, srcPos, numComponents, dest, destBuffer, destPos, length);
+                }
+            }
+        }
+    }
+
+    private static void copy(final Block block, final int srcPos, final int srcStride,
+                             final Object dest, final ProductData destBuffer, final int destPos, final int length) {
+        final Object src = block.storage;
+        if (src.getClass() == dest.getClass()) {
+            if (srcStride == 1) {
+                System.arraycopy(src, srcPos, dest, destPos, length);
+                return;
+            }
+            if (src instanceof short[]) {
+                final short[] s = (short[]) src;
+                final short[] d = (short[]) dest;
+                for (int i = 0, j = srcPos; i < length; ++i, j += srcStride) {
+                    d[destPos + i] = s[j];
+                }
+                return;
+            } else if (src instanceof int[]) {
+                final int[] s = (int[]) src;
+                final int[] d = (int[]) dest;
+                for (int i = 0, j = srcPos; i < length; ++i, j += srcStride) {
+                    d[destPos + i] = s[j];
+                }
+                return;
+            } else if (src instanceof float[]) {
+                final float[] s = (float[]) src;
+                final float[] d = (float[]) dest;
+                for (int i = 0, j = srcPos; i < length; ++i, j += srcStride) {
+                    d[destPos + i] = s[j];
+                }
+                return;
+            } else if (src instanceof double[]) {
+                final double[] s = (double[]) src;
+                final double[] d = (double[]) dest;
+                for (int i = 0, j = srcPos; i < length; ++i, j += srcStride) {
+                    d[destPos + i] = s[j];
+                }
+                return;
+            }
+        }
+        for (int i = 0, j = srcPos; i < length; ++i, j += srcStride) {
+            destBuffer.setElemDoubleAt(destPos + i, block.array.getDouble(j));
+        }
+    }
+
+    private Layout getLayout(final Variable variable, final boolean hasComponents) {
+        final String name = variable.getFullNameEscaped();
+        Layout layout = layouts.get(name);
+        if (layout == null) {
+            layout = new Layout(variable, hasComponents);
+            layouts.put(name, layout);
+        }
+        return layout;
+    }
+
+    private Block getBlock(final Variable variable, final Layout layout,
+                           final int blockRow, final int blockCol) throws IOException {
+        final BlockKey key = new BlockKey(variable.getFullNameEscaped(), blockRow, blockCol);
+        try {
+            return cache.get(key, () -> readBlock(key.variableName, layout, blockRow, blockCol));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Unable to read " + key, cause);
+        }
+    }
+
+    private Block readBlock(final String variableName, final Layout layout,
+                            final int blockRow, final int blockCol) throws IOException {
+        final int rank = layout.rank;
+        final int[] origin = new int[rank];
+        final int[] shape = new int[rank];
+        for (int i = 0; i < rank; ++i) {
+            shape[i] = 1;
+        }
+        final int by0 = blockRow * layout.blockHeight;
+        final int bx0 = blockCol * layout.blockWidth;
+        final int height = Math.min(layout.blockHeight, layout.height - by0);
+        final int width = Math.min(layout.blockWidth, layout.width - bx0);
+        origin[layout.rowDim] = by0;
+        origin[layout.rowDim + 1] = bx0;
+        shape[layout.rowDim] = height;
+        shape[layout.rowDim + 1] = width;
+        if (layout.rowDim == rank - 3) {
+            shape[rank - 1] = layout.numComponents;
+        }
+
+        final NetcdfFile handle = acquireHandle();
+        try {
+            final Variable variable = handle.findVariable(variableName);
+            if (variable == null) {
+                throw new IOException("Variable " + variableName + " not found in " + location);
+            }
+            final Array array = variable.read(origin, shape);
+            return new Block(array, width, height);
+        } catch (InvalidRangeException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            releaseHandle(handle);
+        }
+    }
+
+    private NetcdfFile acquireHandle() throws IOException {
+        if (closed) {
+            throw new IOException(location + " is closed");
+        }
+        final NetcdfFile handle = handles.poll();
+        return handle != null ? handle : NetcdfFile.open(location);
+    }
+
+    private void releaseHandle(final NetcdfFile handle) {
+        handles.add(handle);
+        if (closed) {
+            closeHandles();
+        }
+    }
+
+    private void closeHandles() {
+        NetcdfFile handle;
+        while ((handle = handles.poll()) != null) {
+            try {
+                handle.close();
+            } catch (IOException e) {
+                SystemUtils.LOG.warning("Unable to close " + location + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public void close() {
+        closed = true;
+        cache.invalidateAll();
+        layouts.clear();
+        closeHandles();
+    }
+
+    /**
+     * Raster dimensions and block size of a variable
+     */
+    private static final class Layout {
+        final int rank;
+        final int rowDim;
+        final int width;
+        final int height;
+        final int numComponents;
+        final int blockWidth;
+        final int blockHeight;
+
+        Layout(final Variable variable, final boolean hasComponents) {
+            final int[] varShape = variable.getShape();
+            rank = varShape.length;
+            rowDim = hasComponents ? rank - 3 : rank - 2;
+            height = varShape[rowDim];
+            width = varShape[rowDim + 1];
+            numComponents = hasComponents ? varShape[rank - 1] : 1;
+
+            final int[] chunks = getChunkSizes(variable);
+            if (chunks != null) {
+                blockHeight = Math.min(wholeChunks(chunks[rowDim]), height);
+                blockWidth = Math.min(wholeChunks(chunks[rowDim + 1]), width);
+            } else {
+                blockWidth = width;
+                blockHeight = Math.max(1, Math.min(height, CONTIGUOUS_BLOCK_SAMPLES / (width * numComponents)));
+            }
+        }
+
+        private static int wholeChunks(final int chunkSize) {
+            return chunkSize * ((MIN_BLOCK_SIZE + chunkSize - 1) / chunkSize);
+        }
+
+        private static int[] getChunkSizes(final Variable variable) {
+            final Attribute attribute = variable.findAttribute("_ChunkSizes");
+            if (attribute == null || attribute.getLength() != variable.getRank()) {
+                return null;
+            }
+            final int[] chunks = new int[attribute.getLength()];
+            for (int i = 0; i < chunks.length; ++i) {
+                final Number value = attribute.getNumericValue(i);
+                if (value == null || value.intValue() <= 0) {
+                    return null;
+                }
+                chunks[i] = value.intValue();
+            }
+            return chunks;
+        }
+    }
+
+    private static final class BlockKey {
+        private final String variableName;
+        private final int blockRow;
+        private final int blockCol;
+        private final int hash;
+
+        BlockKey(final String variableName, final int blockRow, final int blockCol) {
+            this.variableName = variableName;
+            this.blockRow = blockRow;
+            this.blockCol = blockCol;
+            this.hash = 31 * (31 * variableName.hashCode() + blockRow) + blockCol;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlockKey)) return false;
+            final BlockKey key = (BlockKey) o;
+            return blockRow == key.blockRow && blockCol == key.blockCol && variableName.equals(key.variableName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return variableName + " block " + blockRow + ',' + blockCol;
+        }
+    }
+
+    private static final class Block {
+        final Array array;
+        final Object storage;
+        final int width;
+        final int height;
+
+        Block(final Array array, final int width, final int height) {
+            this.array = array;
+            this.storage = array.get1DJavaArray(array.getDataType());
+            this.width = width;
+            this.height = height;
+        }
+
+        int getSizeInBytes() {
+            return (int) Math.min(Integer.MAX_VALUE, array.getSize() * array.getDataType().getSize());
+        }
+    }
+}
@@ -23,8 +23,6 @@ import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.util.Guardian;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
-import ucar.ma2.Array;
-import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Group;
 import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
@@ -40,6 +38,7 @@ import java.util.Map;
 public class NetCDFReader extends SARReader {
 
     private NetcdfFile netcdfFile = null;
+    private NetCDFBlockReader blockReader = null;
     private Product product = null;
     private NcVariableMap variableMap = null;
     private boolean yFlipped = false;
@@ -59,6 +58,7 @@ public class NetCDFReader extends SARReader {
     private void initReader() {
         product = null;
         netcdfFile = null;
+        blockReader = null;
         variableMap = null;
     }
 
@@ -88,6 +88,7 @@ public class NetCDFReader extends SARReader {
             throw new IllegalFileFormatException("No netCDF variables found which could\n" +
                     "be interpreted as remote sensing bands.");  /*I18N*/
         }
+        blockReader = new NetCDFBlockReader(netcdfFile);
         final NcRasterDim rasterDim = NetCDFUtils.getBestRasterDim(variableListMap);
         final Variable[] rasterVariables = NetCDFUtils.getRasterVariables(variableListMap, rasterDim);
         final Variable[] tiePointGridVariables = NetCDFUtils.getTiePointGridVariables(variableListMap, rasterVariables);
@@ -132,6 +133,8 @@ public class NetCDFReader extends SARReader {
             product = null;
             variableMap.clear();
             variableMap = null;
+            blockReader.close();
+            blockReader = null;
             netcdfFile.close();
             netcdfFile = null;
         }
@@ -253,17 +256,17 @@ public class NetCDFReader extends SARReader {
      * {@inheritDoc}
      */
     @Override
-    protected synchronized void readBandRasterDataImpl(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
-                                                       int sourceStepX, int sourceStepY, Band destBand, int destOffsetX,
-                                                       int destOffsetY, int destWidth, int destHeight, ProductData destBuffer,
-                                                       ProgressMonitor pm) throws IOException {
+    protected void readBandRasterDataImpl(int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight,
+                                          int sourceStepX, int sourceStepY, Band destBand, int destOffsetX,
+                                          int destOffsetY, int destWidth, int destHeight, ProductData destBuffer,
+                                          ProgressMonitor pm) throws IOException {
 
         Guardian.assertTrue("sourceStepX == 1 && sourceStepY == 1", sourceStepX == 1 && sourceStepY == 1);
         Guardian.assertTrue("sourceWidth == destWidth", sourceWidth == destWidth);
         Guardian.assertTrue("sourceHeight == destHeight", sourceHeight == destHeight);
 
         final int sceneHeight = product.getSceneRasterHeight();
-        final int y0 = yFlipped ? (sceneHeight - 1) - sourceOffsetY : sourceOffsetY;
+        final int y0 = yFlipped ? sceneHeight - sourceOffsetY - destHeight : sourceOffsetY;
 
         final Variable[] variables = variableMap.getAll();
         Variable variable = null;
@@ -277,35 +280,11 @@ public class NetCDFReader extends SARReader {
         if (variable == null) {
             throw new IOException("Band " + destBand.getName() + " not found");
         }
-        final int rank = variable.getRank();
-        final int[] origin = new int[rank];
-        final int[] shape = new int[rank];
-        for (int i = 0; i < rank; i++) {
-            shape[i] = 1;
-            origin[i] = 0;
-        }
-        shape[rank - 2] = 1;
-        shape[rank - 1] = destWidth;
-        origin[rank - 1] = sourceOffsetX;
 
-        pm.beginTask("Reading data from band " + destBand.getName(), destHeight);
+        pm.beginTask("Reading data from band " + destBand.getName(), 1);
         try {
-            for (int y = 0; y < destHeight; y++) {
-                origin[rank - 2] = yFlipped ? y0 - y : y0 + y;
-                final Array array;
-                synchronized (netcdfFile) {
-                    array = variable.read(origin, shape);
-                }
-                System.arraycopy(array.getStorage(), 0, destBuffer.getElems(), y * destWidth, destWidth);
-                pm.worked(1);
-                if (pm.isCanceled()) {
-                    throw new IOException("Process terminated by user."); /*I18N*/
-                }
-            }
-        } catch (InvalidRangeException e) {
-            final IOException ioException = new IOException(e.getMessage());
-            ioException.initCause(e);
-            throw ioException;
+            blockReader.readRaster(variable, -1, sourceOffsetX, y0, destWidth, destHeight, yFlipped, destBuffer);
+            pm.worked(1);
         } finally {
             pm.done();
         }
@@ -30,25 +30,38 @@ import org.esa.snap.core.datamodel.TiePointGrid;
 import org.esa.snap.core.datamodel.VirtualBand;
 import org.esa.snap.core.util.StringUtils;
 import org.esa.snap.core.util.io.FileUtils;
+import org.esa.snap.core.image.ImageManager;
+import org.esa.snap.runtime.Config;
 import ucar.ma2.Array;
-import ucar.ma2.ArrayDouble;
 import ucar.ma2.DataType;
-import ucar.ma2.Index;
 import ucar.ma2.InvalidRangeException;
 import ucar.nc2.Attribute;
 import ucar.nc2.Dimension;
 import ucar.nc2.Group;
 import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+import ucar.nc2.jni.netcdf.Nc4Iosp;
+import ucar.nc2.write.Nc4Chunking;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
 
+/**
+ * Writes bands in their own data type. NetCDF-4 files are chunked by the tile size of the product
+ * and optionally deflated.
+ */
 public class NetCDFWriter extends AbstractProductWriter {
 
+    private static final int DEFLATE_LEVEL = Config.instance().preferences().getInt(
+            "s1tbx.writers.netcdf4.deflateLevel", 0);
+
+    private final NetcdfFileWriter.Version version;
+    private final int deflateLevel;
     private File outputFile = null;
     private NetcdfFileWriter netCDFWriteable = null;
+    private final Map<Band, BandVariable> bandVariables = new HashMap<>();
 
     /**
      * Construct a new instance of a product writer for the given product writer plug-in.
@@ -56,7 +69,27 @@ public class NetCDFWriter extends AbstractProductWriter {
      * @param writerPlugIn the given product writer plug-in, must not be <code>null</code>
      */
     public NetCDFWriter(final ProductWriterPlugIn writerPlugIn) {
+        this(writerPlugIn, NetcdfFileWriter.Version.netcdf3);
+    }
+
+    /**
+     * Construct a new instance of a product writer for the given product writer plug-in.
+     *
+     * @param writerPlugIn the given product writer plug-in, must not be <code>null</code>
+     * @param version      the NetCDF file format to write
+     */
+    public NetCDFWriter(final ProductWriterPlugIn writerPlugIn, final NetcdfFileWriter.Version version) {
+        this(writerPlugIn, version, DEFLATE_LEVEL);
+    }
+
+    /**
+     * @param deflateLevel the deflate level of the NetCDF-4 band variables, 0 for no compression
+     */
+    NetCDFWriter(final ProductWriterPlugIn writerPlugIn, final NetcdfFileWriter.Version version,
+                 final int deflateLevel) {
         super(writerPlugIn);
+        this.version = version;
+        this.deflateLevel = deflateLevel;
     }
 
     private static float[] getLonData(final Product product, final String lonGridName) {
@@ -107,12 +140,20 @@ public class NetCDFWriter extends AbstractProductWriter {
             file = (File) getOutput();
         }
 
-        outputFile = FileUtils.ensureExtension(file, NetcdfConstants.NETCDF_FORMAT_FILE_EXTENSIONS[0]);
+        outputFile = FileUtils.ensureExtension(file, getWriterPlugIn().getDefaultFileExtensions()[0]);
         deleteOutput();
 
         final Product product = getSourceProduct();
 
-        netCDFWriteable = NetcdfFileWriter.createNew(outputFile.getAbsolutePath(), true);
+        if (version == NetcdfFileWriter.Version.netcdf4) {
+            if (!Nc4Iosp.isClibraryPresent()) {
+                throw new IOException("Writing NetCDF-4 requires the NetCDF C library");
+            }
+            netCDFWriteable = NetcdfFileWriter.createNew(version, outputFile.getAbsolutePath(),
+                    new TileChunking(getTileSize(product), deflateLevel));
+        } else {
+            netCDFWriteable = NetcdfFileWriter.createNew(outputFile.getAbsolutePath(), true);
+        }
 
         netCDFWriteable.addDimension(NetcdfConstants.LON_VAR_NAMES[0], product.getSceneRasterWidth());
         netCDFWriteable.addDimension(NetcdfConstants.LAT_VAR_NAMES[0], product.getSceneRasterHeight());
@@ -127,9 +168,17 @@ public class NetCDFWriter extends AbstractProductWriter {
         netCDFWriteable.addVariable(NetcdfConstants.LON_VAR_NAMES[0], DataType.FLOAT, latLonList.subList(1,1));
         netCDFWriteable.addVariableAttribute(NetcdfConstants.LON_VAR_NAMES[0], "units", "degrees_east (+E/-W)");
 
+        bandVariables.clear();
         for (Band band : product.getBands()) {
+            if (!shouldWrite(band)) {
+                continue;
+            }
             final String name = StringUtils.createValidName(band.getName(), new char[]{'_'}, '_');
-            netCDFWriteable.addVariable(name, DataType.DOUBLE, latLonList);
+            final DataType dataType = getDataType(band.getDataType());
+            netCDFWriteable.addVariable(name, dataType, latLonList);
+            bandVariables.put(band, new BandVariable(name, dataType));
+            if (ProductData.isUIntType(band.getDataType()) && dataType != DataType.DOUBLE)
+                netCDFWriteable.addVariableAttribute(name, "_Unsigned", "true");
             if (band.getDescription() != null)
                 netCDFWriteable.addVariableAttribute(name, "description", band.getDescription());
             if (band.getUnit() != null)
@@ -202,32 +251,68 @@ public class NetCDFWriter extends AbstractProductWriter {
                                     final ProductData regionData,
                                     ProgressMonitor pm) throws IOException {
 
-        final int[] origin = new int[2];
-        origin[1] = regionX;
-        origin[0] = regionY;
-        try {
-
-            final ArrayDouble dataTemp = new ArrayDouble.D2(regionHeight, regionWidth);
-            final Index index = dataTemp.getIndex();
-
-            int i = 0;
-            for (int y = 0; y < regionHeight; ++y) {
-                for (int x = 0; x < regionWidth; ++x) {
-                    index.set(y, x);
-                    dataTemp.set(index, regionData.getElemDoubleAt(i));
-                    ++i;
-                }
+        final BandVariable variable = bandVariables.get(sourceBand);
+        if (variable == null) {
+            throw new IOException("Band " + sourceBand.getName() + " is not written");
+        }
+        final int[] origin = new int[]{regionY, regionX};
+        final int[] shape = new int[]{regionHeight, regionWidth};
+        final int numElems = regionWidth * regionHeight;
+
+        final Array array;
+        if (variable.dataType == DataType.DOUBLE && regionData.getType() != ProductData.TYPE_FLOAT64) {
+            final double[] data = new double[numElems];
+            for (int i = 0; i < numElems; ++i) {
+                data[i] = regionData.getElemDoubleAt(i);
             }
+            array = Array.factory(DataType.DOUBLE, shape, data);
+        } else {
+            Object data = regionData.getElems();
+            if (regionData.getNumElems() != numElems) {
+                final ProductData region = ProductData.createInstance(regionData.getType(), numElems);
+                System.arraycopy(data, 0, region.getElems(), 0, numElems);
+                data = region.getElems();
+            }
+            array = Array.factory(variable.dataType, shape, data);
+        }
 
-            netCDFWriteable.write(sourceBand.getName(), origin, dataTemp);
-
-            pm.worked(1);
+        try {
+            synchronized (netCDFWriteable) {
+                netCDFWriteable.write(variable.name, origin, array);
+            }
+        } catch (InvalidRangeException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        pm.worked(1);
+    }
 
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
+    /**
+     * The NetCDF data type holding the values of a band. Unsigned integers are stored in the signed type
+     * of the same size and flagged with the _Unsigned attribute, other types are stored as double.
+     */
+    static DataType getDataType(final int productDataType) {
+        switch (productDataType) {
+            case ProductData.TYPE_INT8:
+            case ProductData.TYPE_UINT8:
+                return DataType.BYTE;
+            case ProductData.TYPE_INT16:
+            case ProductData.TYPE_UINT16:
+                return DataType.SHORT;
+            case ProductData.TYPE_INT32:
+            case ProductData.TYPE_UINT32:
+                return DataType.INT;
+            case ProductData.TYPE_FLOAT32:
+                return DataType.FLOAT;
+            default:
+                return DataType.DOUBLE;
         }
     }
 
+    private static java.awt.Dimension getTileSize(final Product product) {
+        final java.awt.Dimension tileSize = product.getPreferredTileSize();
+        return tileSize != null ? tileSize : ImageManager.getPreferredTileSize(product);
+    }
+
     /**
      * Deletes the physically representation of the given product from the hard disk.
      */
@@ -243,7 +328,11 @@ public class NetCDFWriter extends AbstractProductWriter {
      * @throws java.io.IOException on failure
      */
     public void close() throws IOException {
-        netCDFWriteable.close();
+        if (netCDFWriteable != null) {
+            netCDFWriteable.close();
+            netCDFWriteable = null;
+        }
+        bandVariables.clear();
     }
 
     /**
@@ -360,4 +449,58 @@ public class NetCDFWriter extends AbstractProductWriter {
             }
         }
     }
+
+    private static final class BandVariable {
+        final String name;
+        final DataType dataType;
+
+        BandVariable(final String name, final DataType dataType) {
+            this.name = name;
+            this.dataType = dataType;
+        }
+    }
+
+    /**
+     * Chunks the band variables by the tile size of the product, so that every tile written fills whole chunks
+     */
+    private final class TileChunking implements Nc4Chunking {
+
+        private final java.awt.Dimension tileSize;
+        private final int deflateLevel;
+
+        TileChunking(final java.awt.Dimension tileSize, final int deflateLevel) {
+            this.tileSize = tileSize;
+            this.deflateLevel = deflateLevel;
+        }
+
+        private boolean isBand(final Variable v) {
+            for (BandVariable bandVariable : bandVariables.values()) {
+                if (bandVariable.name.equals(v.getShortName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isChunked(final Variable v) {
+            return v.getRank() == 2 && isBand(v);
+        }
+
+        @Override
+        public long[] computeChunking(final Variable v) {
+            final int[] shape = v.getShape();
+            return new long[]{Math.min(tileSize.height, shape[0]), Math.min(tileSize.width, shape[1])};
+        }
+
+        @Override
+        public int getDeflateLevel(final Variable v) {
+            return deflateLevel;
+        }
+
+        @Override
+        public boolean isShuffle(final Variable v) {
+            return deflateLevel > 0;
+        }
+    }
 }
@@ -26,6 +26,9 @@ public interface NetcdfConstants extends Constants {
     final static String[] NETCDF_FORMAT_FILE_EXTENSIONS = {"nc", "nc3"};
     final static String NETCDF_PLUGIN_DESCRIPTION = "NetCDF Products";
 
+    final static String[] NETCDF4_FORMAT_NAMES = {"NetCDF4"};
+    final static String[] NETCDF4_FORMAT_FILE_EXTENSIONS = {"nc", "nc4"};
+
     final static String GLOBAL_ATTRIBUTES_NAME = "Global_Attributes";
 
     final static String DESCRIPTION = "description";
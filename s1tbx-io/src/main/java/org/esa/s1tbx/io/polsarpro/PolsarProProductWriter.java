@@ -15,24 +15,30 @@
  */
 package org.esa.s1tbx.io.polsarpro;
 
-import org.esa.s1tbx.commons.io.FileImageOutputStreamExtImpl;
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.commons.io.RasterFileWriter;
 import org.esa.s1tbx.commons.polsar.PolBandUtils;
 import org.esa.snap.core.dataio.ProductWriterPlugIn;
 import org.esa.snap.core.dataio.dimap.EnviHeader;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.MetadataElement;
 import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.util.Guardian;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.dataio.envi.EnviProductWriter;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.metadata.AbstractMetadataIO;
 
-import javax.imageio.stream.ImageOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The product writer for PolSARPro products.
@@ -41,6 +47,9 @@ public class PolsarProProductWriter extends EnviProductWriter {
 
     private final static String BIN_EXTENSION = ".bin";
 
+    private final Map<Band, RasterFileWriter> bandWriters = new ConcurrentHashMap<>();
+    private final Map<Band, FileChannel> bandChannels = new ConcurrentHashMap<>();
+
     /**
      * Construct a new instance of a product writer for the given ENVI product writer plug-in.
      *
@@ -74,10 +83,69 @@ public class PolsarProProductWriter extends EnviProductWriter {
                                       band.getRasterHeight(), 0);
     }
 
-    protected ImageOutputStream createImageOutputStream(Band band) throws IOException {
-        final ImageOutputStream out = new FileImageOutputStreamExtImpl(getValidImageFile(band));
-        out.setByteOrder(ByteOrder.LITTLE_ENDIAN);
-        return out;
+    /**
+     * Writes raster data from the given in-memory source buffer into the image file of the band. Tiles of
+     * different bands and of the same band may be written concurrently.
+     */
+    @Override
+    public void writeBandRasterData(final Band sourceBand,
+                                    final int sourceOffsetX, final int sourceOffsetY,
+                                    final int sourceWidth, final int sourceHeight,
+                                    final ProductData sourceBuffer,
+                                    final ProgressMonitor pm) throws IOException {
+        Guardian.assertNotNull("sourceBand", sourceBand);
+        Guardian.assertNotNull("sourceBuffer", sourceBuffer);
+        Guardian.assertEquals("sourceWidth * sourceHeight", sourceBuffer.getNumElems(), sourceWidth * sourceHeight);
+
+        final RasterFileWriter bandWriter = getOrCreateBandWriter(sourceBand);
+        pm.beginTask("Writing band '" + sourceBand.getName() + "'...", sourceHeight);
+        try {
+            final ByteBuffer tile = bandWriter.allocateTile(sourceWidth, sourceHeight);
+            RasterFileWriter.encode(sourceBuffer, 0, sourceWidth * sourceHeight, tile);
+            bandWriter.writeTile(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, tile);
+            pm.worked(sourceHeight);
+        } finally {
+            pm.done();
+        }
+    }
+
+    private RasterFileWriter getOrCreateBandWriter(final Band band) throws IOException {
+        RasterFileWriter bandWriter = bandWriters.get(band);
+        if (bandWriter == null) {
+            synchronized (this) {
+                bandWriter = bandWriters.get(band);
+                if (bandWriter == null) {
+                    final int pixelSize = ProductData.getElemSize(band.getDataType());
+                    final FileChannel channel = RasterFileWriter.openChannel(getValidImageFile(band),
+                            (long) pixelSize * band.getRasterWidth() * band.getRasterHeight());
+                    bandChannels.put(band, channel);
+                    bandWriter = new RasterFileWriter(channel, band.getRasterWidth(), pixelSize, 0,
+                            (long) pixelSize * band.getRasterWidth(), ByteOrder.LITTLE_ENDIAN,
+                            RasterFileWriter.DEFAULT_MAX_BUFFERED_BYTES);
+                    bandWriters.put(band, bandWriter);
+                }
+            }
+        }
+        return bandWriter;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (RasterFileWriter bandWriter : bandWriters.values()) {
+            bandWriter.flush();
+        }
+        super.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (FileChannel channel : bandChannels.values()) {
+            channel.close();
+        }
+        bandWriters.clear();
+        bandChannels.clear();
+        super.close();
     }
 
     /**
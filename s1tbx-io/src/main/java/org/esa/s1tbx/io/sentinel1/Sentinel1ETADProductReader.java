@@ -25,10 +25,8 @@ import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 
 import javax.imageio.ImageReadParam;
-import javax.imageio.ImageReader;
 import java.awt.*;
 import java.awt.image.Raster;
-import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -150,7 +148,7 @@ public class Sentinel1ETADProductReader extends SARReader {
         final int[] srcArray;
         final Rectangle destRect = new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight);
 
-        DataCache.Data cachedData = readRect(null, bandInfo,
+        DataCache.Data cachedData = readRect(bandInfo,
                 sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
 
         srcArray = cachedData.intArray;
@@ -203,19 +201,16 @@ public class Sentinel1ETADProductReader extends SARReader {
         }
     }
 
-    private synchronized DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
-                                         int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
-                                         final Rectangle destRect) {
+    private DataCache.Data readRect(final ImageIOFile.BandInfo bandInfo,
+                                    int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                    final Rectangle destRect) {
         try {
-            final ImageReader imageReader = bandInfo.img.getReader();
-            final ImageReadParam readParam = imageReader.getDefaultReadParam();
+            final ImageReadParam readParam = bandInfo.img.getReader().getDefaultReadParam();
             if (sourceStepX == 1 && sourceStepY == 1) {
                 readParam.setSourceRegion(destRect);
             }
             readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY);
-            final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
-
-            final Raster data = subsampledImage.getData(destRect);
+            final Raster data = bandInfo.img.readRaster(readParam, destRect);
 
             final SampleModel sampleModel = data.getSampleModel();
             final int destWidth = Math.min((int) destRect.getWidth(), sampleModel.getWidth());
@@ -18,6 +18,7 @@ package org.esa.s1tbx.io.sentinel1;
 import org.esa.s1tbx.commons.io.ImageIOFile;
 import org.esa.s1tbx.commons.io.JSONProductDirectory;
 import org.esa.s1tbx.commons.io.SARReader;
+import org.esa.s1tbx.commons.io.UncompressedTiffFile;
 import org.esa.s1tbx.commons.io.XMLProductDirectory;
 import org.esa.s1tbx.io.geotiffxml.GeoTiffUtils;
 import org.esa.snap.core.datamodel.Band;
@@ -62,6 +63,7 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
 
     private final Map<Band, TiePointGeoCoding> bandGeocodingMap = new HashMap<>(5);
     private final transient Map<String, String> imgBandMetadataMap = new HashMap<>(4);
+    private final transient Map<ImageIOFile, UncompressedTiffFile> uncompressedTiffMap = new HashMap<>(4);
     private String acqMode = "";
 
     private final static Double NoDataValue = 0.0;//-9999.0;
@@ -89,6 +91,13 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
 
                     final ImageIOFile img = new ImageIOFile(name, imgStream, GeoTiffUtils.getTiffIIOReader(imgStream),
                                 1, 1, ProductData.TYPE_INT32, productInputFile);
+                    if (!isCompressed()) {
+                        final File imgFile = getFile(imgPath);
+                        img.enableConcurrentReads(imgFile);
+                        if (isSLC()) {
+                            addUncompressedTiff(img, imgFile);
+                        }
+                    }
                     bandImageFileMap.put(img.getName(), img);
                 } else {
                     inStream.close();
@@ -99,6 +108,36 @@ public class Sentinel1Level1Directory extends XMLProductDirectory implements Sen
         }
     }
 
+    private void addUncompressedTiff(final ImageIOFile img, final File imgFile) {
+        try {
+            final UncompressedTiffFile tiff = UncompressedTiffFile.open(imgFile);
+            if (tiff != null && tiff.getBytesPerPixel() == 4) {
+                uncompressedTiffMap.put(img, tiff);
+            } else if (tiff != null) {
+                tiff.close();
+            }
+        } catch (IOException e) {
+            SystemUtils.LOG.warning("Unable to map " + imgFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param img the measurement image
+     * @return the memory mapped complex int16 measurement TIFF or null if the image must be decoded through ImageIO
+     */
+    public UncompressedTiffFile getUncompressedTiff(final ImageIOFile img) {
+        return uncompressedTiffMap.get(img);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (UncompressedTiffFile tiff : uncompressedTiffMap.values()) {
+            tiff.close();
+        }
+        uncompressedTiffMap.clear();
+        super.close();
+    }
+
     public static ImageInputStream createImageInputStream(final InputStream inStream, final Dimension bandDimensions,
                                                           final boolean isSLC) throws IOException {
         final long maxMemory = Runtime.getRuntime().maxMemory() / 1024 / 1024;
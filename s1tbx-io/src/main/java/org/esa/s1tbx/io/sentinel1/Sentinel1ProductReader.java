@@ -18,6 +18,7 @@ package org.esa.s1tbx.io.sentinel1;
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.s1tbx.commons.io.ImageIOFile;
 import org.esa.s1tbx.commons.io.SARReader;
+import org.esa.s1tbx.commons.io.UncompressedTiffFile;
 import org.esa.s1tbx.io.DataCache;
 import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.Band;
@@ -27,10 +28,8 @@ import org.esa.snap.core.datamodel.quicklooks.Quicklook;
 import org.esa.snap.core.util.SystemUtils;
 
 import javax.imageio.ImageReadParam;
-import javax.imageio.ImageReader;
 import java.awt.Rectangle;
 import java.awt.image.Raster;
-import java.awt.image.RenderedImage;
 import java.awt.image.SampleModel;
 import java.io.File;
 import java.io.IOException;
@@ -181,7 +180,21 @@ public class Sentinel1ProductReader extends SARReader {
                                   final ProductData destBuffer,
                                   final int destOffsetX, final int destOffsetY,
                                   int destWidth, int destHeight,
-                                  final ImageIOFile.BandInfo bandInfo) {
+                                  final ImageIOFile.BandInfo bandInfo) throws IOException {
+
+        if (sourceStepX == 1 && sourceStepY == 1 && dataDir instanceof Sentinel1Level1Directory) {
+            final UncompressedTiffFile tiff = ((Sentinel1Level1Directory) dataDir).getUncompressedTiff(bandInfo.img);
+            if (tiff != null) {
+                // uncompressed CInt16 measurement: copy I or Q straight from the mapped file
+                final int component = bandInfo.isImaginary ? 1 : 0;
+                if (destBuffer.getElemSize() > 2) {
+                    tiff.readInt16(sourceOffsetX, sourceOffsetY, destWidth, destHeight, component, (int[]) destBuffer.getElems());
+                } else {
+                    tiff.readInt16(sourceOffsetX, sourceOffsetY, destWidth, destHeight, component, (short[]) destBuffer.getElems());
+                }
+                return;
+            }
+        }
 
         final int length;
         final int[] srcArray;
@@ -189,21 +202,14 @@ public class Sentinel1ProductReader extends SARReader {
 
         if(useCache) {
             final DataCache.DataKey datakey = new DataCache.DataKey(bandInfo.img, destRect);
-            DataCache.Data cachedData = cache.get(datakey);
-            if (cachedData != null && cachedData.valid) {
-                srcArray = cachedData.intArray;
-                length = srcArray.length;
-            } else {
-                cachedData = readRect(datakey, bandInfo,
-                        sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY,
-                        destRect);
+            final DataCache.Data cachedData = cache.get(datakey, () -> readRect(bandInfo,
+                    sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect));
 
-                srcArray = cachedData.intArray;
-                length = srcArray.length;
-            }
+            srcArray = cachedData.intArray;
+            length = srcArray.length;
         } else {
 
-            DataCache.Data cachedData = readRect(null, bandInfo,
+            DataCache.Data cachedData = readRect(bandInfo,
                     sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destRect);
 
             srcArray = cachedData.intArray;
@@ -257,19 +263,16 @@ public class Sentinel1ProductReader extends SARReader {
         }
     }
 
-    private synchronized DataCache.Data readRect(final DataCache.DataKey datakey, final ImageIOFile.BandInfo bandInfo,
-                                         int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
-                                         final Rectangle destRect) {
+    private DataCache.Data readRect(final ImageIOFile.BandInfo bandInfo,
+                                    int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                    final Rectangle destRect) {
         try {
-            final ImageReader imageReader = bandInfo.img.getReader();
-            final ImageReadParam readParam = imageReader.getDefaultReadParam();
+            final ImageReadParam readParam = bandInfo.img.getReader().getDefaultReadParam();
             if (sourceStepX == 1 && sourceStepY == 1) {
                 readParam.setSourceRegion(destRect);
             }
             readParam.setSourceSubsampling(sourceStepX, sourceStepY, sourceOffsetX % sourceStepX, sourceOffsetY % sourceStepY);
-            final RenderedImage subsampledImage = imageReader.readAsRenderedImage(0, readParam);
-
-            final Raster data = subsampledImage.getData(destRect);
+            final Raster data = bandInfo.img.readRaster(readParam, destRect);
 
             final SampleModel sampleModel = data.getSampleModel();
             final int destWidth = Math.min((int) destRect.getWidth(), sampleModel.getWidth());
@@ -280,16 +283,10 @@ public class Sentinel1ProductReader extends SARReader {
             sampleModel.getSamples(0, 0, destWidth, destHeight, bandInfo.bandSampleOffset, srcArray, data.getDataBuffer());
 
             DataCache.Data cachedData = new DataCache.Data(srcArray);
-            if(datakey != null) {
-                cache.put(datakey, cachedData);
-            }
             return cachedData;
         } catch (Exception e) {
             final int[] srcArray = new int[(int)destRect.getWidth()*(int)destRect.getHeight()];
             DataCache.Data cachedData = new DataCache.Data(srcArray);
-            if(datakey != null) {
-                cache.put(datakey, cachedData);
-            }
             return cachedData;
         }
     }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io;
+
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DataCacheTest {
+
+    @Test
+    public void testKeyEquality() {
+        final DataCache.DataKey key1 = new DataCache.DataKey(null, new Rectangle(0, 0, 512, 512));
+        final DataCache.DataKey key2 = new DataCache.DataKey(null, new Rectangle(0, 0, 512, 512));
+        final DataCache.DataKey key3 = new DataCache.DataKey(null, new Rectangle(512, 0, 512, 512));
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertNotEquals(key1, key3);
+        assertNotEquals(key1.hashCode(), key3.hashCode());
+    }
+
+    @Test
+    public void testBoundedByBytes() throws Exception {
+        final DataCache cache = new DataCache(4 * 1000 * 4);
+
+        for (int i = 0; i < 20; ++i) {
+            final DataCache.DataKey key = new DataCache.DataKey(null, new Rectangle(i * 10, 0, 10, 100));
+            cache.get(key, () -> new DataCache.Data(new int[1000]));
+        }
+
+        assertTrue(cache.size() <= 4);
+        assertTrue(cache.getStats().evictionCount() >= 16);
+        assertEquals(20, cache.getStats().missCount());
+    }
+
+    @Test
+    public void testLargeEntrySurvivesLoad() throws Exception {
+        final long maxBytes = 8L * 1024 * 1024;
+        final DataCache cache = new DataCache(maxBytes);
+
+        // as much as one segment holds, more than maxBytes / availableProcessors on hosts with more cores than segments
+        final int numInts = (int) (maxBytes / DataCache.CACHE_SEGMENTS / 4);
+        for (int i = 0; i < 3; ++i) {
+            final DataCache.DataKey key = new DataCache.DataKey(null, new Rectangle(i * 512, 0, 512, 512));
+            final DataCache.Data data = cache.get(key, () -> new DataCache.Data(new int[numInts]));
+
+            assertSame(data, cache.get(key));
+        }
+    }
+
+    @Test
+    public void testConcurrentLoadsAreShared() throws Exception {
+        final DataCache cache = new DataCache(1024 * 1024);
+        final DataCache.DataKey key = new DataCache.DataKey(null, new Rectangle(0, 0, 16, 16));
+        final AtomicInteger numLoads = new AtomicInteger(0);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<DataCache.Data> realBand = executor.submit(() -> {
+                start.await();
+                return cache.get(key, () -> {
+                    numLoads.incrementAndGet();
+                    Thread.sleep(100);
+                    return new DataCache.Data(new int[256]);
+                });
+            });
+            final Future<DataCache.Data> imagBand = executor.submit(() -> {
+                start.await();
+                return cache.get(key, () -> {
+                    numLoads.incrementAndGet();
+                    Thread.sleep(100);
+                    return new DataCache.Data(new int[256]);
+                });
+            });
+            start.countDown();
+
+            assertSame(realBand.get(5, TimeUnit.SECONDS), imagBand.get(5, TimeUnit.SECONDS));
+            assertEquals(1, numLoads.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.ceos;
+
+import org.esa.s1tbx.commons.io.FileImageInputStreamExtImpl;
+import org.esa.s1tbx.io.binary.BinaryFileReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.stream.FileImageInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+public class CEOSRecordReaderTest {
+
+    private static final int fileLength = 300000;
+
+    private File file;
+    private byte[] bytes;
+
+    @Before
+    public void setUp() throws IOException {
+        bytes = new byte[fileLength];
+        for (int i = 0; i < fileLength; i++) {
+            bytes[i] = (byte) (i * 31 + i / 7);
+        }
+        file = File.createTempFile("ceos", ".dat");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testReadFromFile() throws IOException {
+        final BinaryFileReader binaryReader = new BinaryFileReader(new FileImageInputStreamExtImpl(file));
+        try {
+            checkRecords(new CEOSRecordReader(binaryReader));
+        } finally {
+            binaryReader.close();
+        }
+    }
+
+    @Test
+    public void testReadFromStream() throws IOException {
+        final BinaryFileReader binaryReader = new BinaryFileReader(new FileImageInputStream(file));
+        try {
+            checkRecords(new CEOSRecordReader(binaryReader));
+        } finally {
+            binaryReader.close();
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testReadPastEnd() throws IOException {
+        final BinaryFileReader binaryReader = new BinaryFileReader(new FileImageInputStreamExtImpl(file));
+        try {
+            new CEOSRecordReader(binaryReader).read(fileLength - 10, 20, 20, 1);
+        } finally {
+            binaryReader.close();
+        }
+    }
+
+    private void checkRecords(final CEOSRecordReader reader) throws IOException {
+        // contiguous records, records read as a span, records read one by one
+        checkRecords(reader, 100, 50, 50, 20);
+        checkRecords(reader, 100, 40, 50, 20);
+        checkRecords(reader, 3, 16, 100, 2000);
+        checkRecords(reader, 7, 10, 40000, 5);
+        reader.close();
+    }
+
+    private void checkRecords(final CEOSRecordReader reader, final long position, final int length,
+                              final int recordStride, final int numRecords) throws IOException {
+        final ByteBuffer lines = reader.read(position, length, recordStride, numRecords);
+        assertEquals(length * numRecords, lines.remaining());
+        for (int i = 0; i < numRecords; i++) {
+            for (int j = 0; j < length; j++) {
+                assertEquals(bytes[(int) position + i * recordStride + j], lines.get(i * length + j));
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.netcdf;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.Index;
+import ucar.ma2.InvalidRangeException;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the rectangles read by NetCDFBlockReader with Variable.read, across block borders, over the edge
+ * blocks and outside the raster, bottom up or not.
+ */
+public class NetCDFBlockReaderTest {
+
+    private static final double FILL = -1.0;
+
+    // 100x100 chunks make blocks of 300x300, leaving edge blocks of 100 columns and 50 rows
+    private static final int CHUNKED_WIDTH = 700;
+    private static final int CHUNKED_HEIGHT = 650;
+    private static final int CHUNK_SIZE = 100;
+    // blocks of full rows, 953 rows for this width, leaving an edge block of 47 rows
+    private static final int CONTIGUOUS_WIDTH = 1100;
+    private static final int CONTIGUOUS_HEIGHT = 1000;
+
+    private static File file;
+
+    @BeforeClass
+    public static void writeFile() throws IOException, InvalidRangeException {
+        file = File.createTempFile("netcdfblockreader", ".nc");
+
+        final NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3,
+                file.getAbsolutePath());
+        writer.addDimension(null, "rows", CHUNKED_HEIGHT);
+        writer.addDimension(null, "cols", CHUNKED_WIDTH);
+        writer.addDimension(null, "contiguous_rows", CONTIGUOUS_HEIGHT);
+        writer.addDimension(null, "contiguous_cols", CONTIGUOUS_WIDTH);
+        writer.addDimension(null, "iq", 2);
+
+        // the block layout follows the _ChunkSizes attribute, as reported for NetCDF-4 and HDF5 variables
+        final Variable chunked = writer.addVariable(null, "chunked", DataType.FLOAT, "rows cols");
+        writer.addVariableAttribute(chunked, new Attribute("_ChunkSizes", Array.factory(
+                DataType.INT, new int[]{2}, new int[]{CHUNK_SIZE, CHUNK_SIZE})));
+        final Variable complex = writer.addVariable(null, "complex", DataType.SHORT, "rows cols iq");
+        writer.addVariableAttribute(complex, new Attribute("_ChunkSizes", Array.factory(
+                DataType.INT, new int[]{3}, new int[]{CHUNK_SIZE, CHUNK_SIZE, 2})));
+        final Variable contiguous = writer.addVariable(null, "contiguous", DataType.SHORT,
+                "contiguous_rows contiguous_cols");
+        writer.create();
+
+        final float[] floats = new float[CHUNKED_HEIGHT * CHUNKED_WIDTH];
+        final short[] iq = new short[CHUNKED_HEIGHT * CHUNKED_WIDTH * 2];
+        for (int i = 0; i < floats.length; ++i) {
+            floats[i] = i * 0.25f;
+            iq[2 * i] = (short) (i % 30011);
+            iq[2 * i + 1] = (short) -(i % 29989);
+        }
+        final short[] shorts = new short[CONTIGUOUS_HEIGHT * CONTIGUOUS_WIDTH];
+        for (int i = 0; i < shorts.length; ++i) {
+            shorts[i] = (short) (i % 32749);
+        }
+        writer.write(chunked, Array.factory(DataType.FLOAT, new int[]{CHUNKED_HEIGHT, CHUNKED_WIDTH}, floats));
+        writer.write(complex, Array.factory(DataType.SHORT, new int[]{CHUNKED_HEIGHT, CHUNKED_WIDTH, 2}, iq));
+        writer.write(contiguous, Array.factory(DataType.SHORT,
+                new int[]{CONTIGUOUS_HEIGHT, CONTIGUOUS_WIDTH}, shorts));
+        writer.close();
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testChunked() throws IOException {
+        compare("chunked", -1, ProductData.TYPE_FLOAT32, new Rectangle[]{
+                new Rectangle(0, 0, CHUNKED_WIDTH, CHUNKED_HEIGHT),
+                new Rectangle(250, 280, 120, 90),       // across four blocks
+                new Rectangle(590, 590, 110, 60),       // the corner edge block
+                new Rectangle(640, 600, 100, 80),       // past the end of the raster
+                new Rectangle(-20, -10, 60, 40),        // before the start of the raster
+                new Rectangle(299, 0, 2, CHUNKED_HEIGHT)
+        });
+    }
+
+    @Test
+    public void testChunkedComponents() throws IOException {
+        final Rectangle[] rectangles = {
+                new Rectangle(0, 0, CHUNKED_WIDTH, CHUNKED_HEIGHT),
+                new Rectangle(290, 295, 20, 300),
+                new Rectangle(650, 620, 64, 64)
+        };
+        compare("complex", 0, ProductData.TYPE_INT16, rectangles);
+        compare("complex", 1, ProductData.TYPE_INT16, rectangles);
+        // I and Q come from the same blocks
+        compare("complex", 0, ProductData.TYPE_FLOAT32, rectangles);
+    }
+
+    @Test
+    public void testContiguous() throws IOException {
+        compare("contiguous", -1, ProductData.TYPE_INT16, new Rectangle[]{
+                new Rectangle(0, 0, CONTIGUOUS_WIDTH, CONTIGUOUS_HEIGHT),
+                new Rectangle(100, 940, 300, 30),       // across the last block border
+                new Rectangle(1000, 960, 200, 64),      // the edge block and past it
+                new Rectangle(-5, -5, 20, 20)
+        });
+    }
+
+    private static void compare(final String variableName, final int component, final int destType,
+                                final Rectangle[] rectangles) throws IOException {
+
+        try (NetcdfFile netcdfFile = NetcdfFile.open(file.getAbsolutePath())) {
+            final Variable variable = netcdfFile.findVariable(variableName);
+            final Array expected = variable.read();
+            final Index index = expected.getIndex();
+            final int[] shape = variable.getShape();
+            final int height = shape[0];
+            final int width = shape[1];
+
+            final NetCDFBlockReader blockReader = new NetCDFBlockReader(netcdfFile);
+            try {
+                for (Rectangle rect : rectangles) {
+                    for (boolean flipY : new boolean[]{false, true}) {
+                        final ProductData dest = ProductData.createInstance(destType, rect.width * rect.height);
+                        for (int i = 0; i < dest.getNumElems(); ++i) {
+                            dest.setElemDoubleAt(i, FILL);
+                        }
+                        blockReader.readRaster(variable, component, rect.x, rect.y, rect.width, rect.height,
+                                flipY, dest);
+
+                        for (int r = 0; r < rect.height; ++r) {
+                            final int row = flipY ? rect.y + rect.height - 1 - r : rect.y + r;
+                            for (int c = 0; c < rect.width; ++c) {
+                                final int col = rect.x + c;
+                                double value = FILL;
+                                if (row >= 0 && row < height && col >= 0 && col < width) {
+                                    value = component >= 0 ?
+                                            expected.getDouble(index.set(row, col, component)) :
+                                            expected.getDouble(index.set(row, col));
+                                }
+                                assertEquals(variableName + ' ' + rect + " flipY=" + flipY + " at " + col + ',' + row,
+                                        value, dest.getElemDoubleAt(r * rect.width + c), 0.0);
+                            }
+                        }
+                    }
+                }
+                // the flipped reads are served from the blocks of the first ones
+                assertTrue(blockReader.getStats().hitCount() > 0);
+            } finally {
+                blockReader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.io.netcdf;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.dataio.ProductWriter;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.nc2.Attribute;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+import ucar.nc2.jni.netcdf.Nc4Iosp;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class NetCDFWriterTest {
+
+    @Test
+    public void testDataType() {
+        assertEquals(DataType.BYTE, NetCDFWriter.getDataType(ProductData.TYPE_UINT8));
+        assertEquals(DataType.SHORT, NetCDFWriter.getDataType(ProductData.TYPE_INT16));
+        assertEquals(DataType.SHORT, NetCDFWriter.getDataType(ProductData.TYPE_UINT16));
+        assertEquals(DataType.INT, NetCDFWriter.getDataType(ProductData.TYPE_INT32));
+        assertEquals(DataType.FLOAT, NetCDFWriter.getDataType(ProductData.TYPE_FLOAT32));
+        assertEquals(DataType.DOUBLE, NetCDFWriter.getDataType(ProductData.TYPE_FLOAT64));
+    }
+
+    @Test
+    public void testWriteTypedTiles() throws IOException {
+        final int width = 20, height = 10;
+        final Product product = new Product("test", "type", width, height);
+        final Band shortBand = product.addBand("Amplitude_VV", ProductData.TYPE_INT16);
+        final Band floatBand = product.addBand("Intensity_VV", ProductData.TYPE_FLOAT32);
+
+        final File file = File.createTempFile("netcdfwriter", ".nc");
+        final ProductWriter writer = new NetCDFWriterPlugIn().createWriterInstance();
+        try {
+            writer.writeProductNodes(product, file);
+
+            // two tiles side by side
+            for (int x0 = 0; x0 < width; x0 += width / 2) {
+                final ProductData shorts = ProductData.createInstance(ProductData.TYPE_INT16, width / 2 * height);
+                final ProductData floats = ProductData.createInstance(ProductData.TYPE_FLOAT32, width / 2 * height);
+                for (int i = 0; i < shorts.getNumElems(); i++) {
+                    final int x = x0 + i % (width / 2), y = i / (width / 2);
+                    shorts.setElemIntAt(i, y * width + x);
+                    floats.setElemFloatAt(i, (y * width + x) * 0.5f);
+                }
+                writer.writeBandRasterData(shortBand, x0, 0, width / 2, height, shorts, ProgressMonitor.NULL);
+                writer.writeBandRasterData(floatBand, x0, 0, width / 2, height, floats, ProgressMonitor.NULL);
+            }
+            writer.close();
+
+            try (NetcdfFile netcdfFile = NetcdfFile.open(file.getAbsolutePath())) {
+                final Variable shortVar = netcdfFile.findVariable("Amplitude_VV");
+                final Variable floatVar = netcdfFile.findVariable("Intensity_VV");
+                assertEquals(DataType.SHORT, shortVar.getDataType());
+                assertEquals(DataType.FLOAT, floatVar.getDataType());
+
+                final Array shortArray = shortVar.read();
+                final Array floatArray = floatVar.read();
+                for (int i = 0; i < width * height; i++) {
+                    assertEquals(i, shortArray.getShort(i));
+                    assertEquals(i * 0.5f, floatArray.getFloat(i), 0.0f);
+                }
+            }
+        } finally {
+            writer.deleteOutput();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNetCDF4TileChunking() throws IOException {
+        assumeTrue("NetCDF C library not found - Skipping test", Nc4Iosp.isClibraryPresent());
+
+        final File plainFile = writeNetCDF4(0);
+        final File deflatedFile = writeNetCDF4(5);
+        try {
+            for (File file : new File[]{plainFile, deflatedFile}) {
+                try (NetcdfFile netcdfFile = NetcdfFile.open(file.getAbsolutePath())) {
+                    for (String name : new String[]{"Amplitude_VV", "Intensity_VV"}) {
+                        final Variable variable = netcdfFile.findVariable(name);
+                        final Attribute chunkSizes = variable.findAttribute("_ChunkSizes");
+                        assertNotNull(name + " is not chunked", chunkSizes);
+                        assertEquals(2, chunkSizes.getLength());
+                        assertEquals(32, chunkSizes.getNumericValue(0).intValue());
+                        assertEquals(64, chunkSizes.getNumericValue(1).intValue());
+
+                        final Array array = variable.read();
+                        for (int i = 0; i < 200 * 100; i++) {
+                            assertEquals(i % 7, array.getDouble(i), 0.0);
+                        }
+                    }
+                }
+            }
+            assertTrue(deflatedFile.length() < plainFile.length());
+        } finally {
+            plainFile.delete();
+            deflatedFile.delete();
+        }
+    }
+
+    // writes a 200x100 product tile by tile, with 64x32 tiles that leave partial tiles on the right and bottom
+    private static File writeNetCDF4(final int deflateLevel) throws IOException {
+        final int width = 200, height = 100;
+        final Product product = new Product("test", "type", width, height);
+        product.setPreferredTileSize(64, 32);
+        final Band shortBand = product.addBand("Amplitude_VV", ProductData.TYPE_INT16);
+        final Band floatBand = product.addBand("Intensity_VV", ProductData.TYPE_FLOAT32);
+
+        final File file = File.createTempFile("netcdf4writer", ".nc");
+        final ProductWriter writer = new NetCDFWriter(new NetCDF4WriterPlugIn(), NetcdfFileWriter.Version.netcdf4,
+                deflateLevel);
+        writer.writeProductNodes(product, file);
+        for (int y0 = 0; y0 < height; y0 += 32) {
+            for (int x0 = 0; x0 < width; x0 += 64) {
+                final int w = Math.min(64, width - x0), h = Math.min(32, height - y0);
+                final ProductData shorts = ProductData.createInstance(ProductData.TYPE_INT16, w * h);
+                final ProductData floats = ProductData.createInstance(ProductData.TYPE_FLOAT32, w * h);
+                for (int i = 0; i < w * h; i++) {
+                    final int value = ((y0 + i / w) * width + x0 + i % w) % 7;
+                    shorts.setElemIntAt(i, value);
+                    floats.setElemFloatAt(i, value);
+                }
+                writer.writeBandRasterData(shortBand, x0, y0, w, h, shorts, ProgressMonitor.NULL);
+                writer.writeBandRasterData(floatBand, x0, y0, w, h, floats, ProgressMonitor.NULL);
+            }
+        }
+        writer.close();
+        return file;
+    }
+}
@@ -452,7 +452,7 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
             final Tile coPolTile = getSourceTile(coPolBand, targetRectangle);
             final ProductData coPolData = coPolTile.getDataBuffer();
 
-            double coPolDataValue, deNoisedDataValue;
+            double coPolDataValue;
             for (int y = y0; y < yMax; y++) {
                 srcIndex.calculateStride(y);
                 tgtIndex.calculateStride(y);
@@ -460,7 +460,7 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
                 for (int x = x0; x < xMax; x++) {
                     final int srcIdx = srcIndex.getIndex(x);
 
-                    boolean testPixel = x < leftBorder || x > rightBorder || y < topBorder || y > bottomBorder;
+                    boolean testPixel = isNearBorder(x, y);
 
                     if (testPixel) {
                         coPolDataValue = coPolData.getElemDoubleAt(srcIdx);
@@ -468,10 +468,7 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
                             continue;
                         }
 
-                        deNoisedDataValue =
-                                Math.sqrt(Math.max(coPolDataValue * coPolDataValue - noiseLUT[x], 0.0));
-
-                        if (deNoisedDataValue < trimThreshold || coPolDataValue < 30) {
+                        if (isBorderNoise(x, coPolDataValue)) {
                             final int tgtIdx = tgtIndex.getIndex(x);
                             for (int i = 0; i < numBands; i++) {
                                 targetData[i].setElemDoubleAt(tgtIdx, bandNoDataValues[i]);
@@ -495,6 +492,52 @@ public final class RemoveGRDBorderNoiseOp extends Operator {
         }
     }
 
+    private boolean isNearBorder(final int x, final int y) {
+        return x < leftBorder || x > rightBorder || y < topBorder || y > bottomBorder;
+    }
+
+    private boolean isBorderNoise(final int x, final double coPolDataValue) {
+        final double deNoisedDataValue = Math.sqrt(Math.max(coPolDataValue * coPolDataValue - noiseLUT[x], 0.0));
+        return deNoisedDataValue < trimThreshold || coPolDataValue < 30;
+    }
+
+    /**
+     * Find the border noise pixels of a rectangle of the image, so that an operator can mask them in its own pass
+     * over the source data instead of reading the tiles of this operator.
+     *
+     * @param rectangle the rectangle in the coordinates of the source product
+     * @return the mask of the rectangle line by line, true for border noise and no data pixels of the co-pol band
+     * @throws OperatorException if the borders cannot be detected
+     */
+    public boolean[] computeBorderNoiseMask(final Rectangle rectangle) throws OperatorException {
+
+        if (useBorderDetection && !borderDetected) {
+            detectBorders();
+        }
+
+        final int x0 = rectangle.x;
+        final int y0 = rectangle.y;
+        final int w = rectangle.width;
+        final int h = rectangle.height;
+        final boolean[] mask = new boolean[w * h];
+
+        final Tile coPolTile = getSourceTile(coPolBand, rectangle);
+        final ProductData coPolData = coPolTile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(coPolTile);
+
+        for (int y = y0; y < y0 + h; y++) {
+            srcIndex.calculateStride(y);
+            final int offset = (y - y0) * w - x0;
+            for (int x = x0; x < x0 + w; x++) {
+                if (isNearBorder(x, y)) {
+                    final double coPolDataValue = coPolData.getElemDoubleAt(srcIndex.getIndex(x));
+                    mask[offset + x] = noDataValue.equals(coPolDataValue) || isBorderNoise(x, coPolDataValue);
+                }
+            }
+        }
+        return mask;
+    }
+
     private synchronized void detectBorders() throws OperatorException {
 
         if (borderDetected) return;
@@ -646,33 +646,8 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
                 tgtIndex.calculateStride(y);
                 final int sy = y + subsetOffsetY;
 
-                double[] lut = new double[w];
-                if (absoluteCalibrationPerformed) {
-                    final int calVecIdx = calInfo.getCalibrationVectorIndex(sy);
-                    final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
-                    final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
-                    final float[] vec0LUT = Sentinel1Calibrator.getVector(calType, vec0);
-                    final float[] vec1LUT = Sentinel1Calibrator.getVector(calType, vec1);
-                    final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
-                    final int pixelIdx0 = calVec.getPixelIndex(sx0);
-
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileScaledNoiseLUT(sy, sx0, w, noiseInfo, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    } else {
-                        computeTileScaledNoiseLUT(sy, sx0, sy0, w, noiseBlock, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    }
-
-                } else {
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileNoiseLUT(sy, sx0, w, noiseInfo, lut);
-                    } else {
-                        computeTileNoiseLUT(sy - sy0, sx0, w, noiseBlock, lut);
-                    }
-                }
+                final double[] lut = new double[w];
+                computeLineNoiseLUT(targetBandName, calInfo, calType, sy, sx0, sy0, w, noiseBlock, lut);
 
                 for (int x = x0; x < maxX; ++x) {
                     final int xx = x - x0;
@@ -746,33 +721,8 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
                 tgtIndex.calculateStride(y);
                 final int sy = y + subsetOffsetY;
 
-                double[] lut = new double[w];
-                if (absoluteCalibrationPerformed) {
-                    final int calVecIdx = calInfo.getCalibrationVectorIndex(sy);
-                    final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
-                    final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
-                    final float[] vec0LUT = Sentinel1Calibrator.getVector(calType, vec0);
-                    final float[] vec1LUT = Sentinel1Calibrator.getVector(calType, vec1);
-                    final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
-                    final int pixelIdx0 = calVec.getPixelIndex(sx0);
-
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileScaledNoiseLUT(sy, sx0, w, noiseInfo, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    } else {
-                        computeTileScaledNoiseLUT(sy, sx0, sy0, w, noiseBlock, calInfo, vec0.timeMJD, vec1.timeMJD,
-                                vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
-                    }
-
-                } else {
-                    if (version < 2.9 || isSM) {
-                        final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
-                        computeTileNoiseLUT(sy, sx0, w, noiseInfo, lut);
-                    } else {
-                        computeTileNoiseLUT(sy - sy0, sx0, w, noiseBlock, lut);
-                    }
-                }
+                final double[] lut = new double[w];
+                computeLineNoiseLUT(targetBandName, calInfo, calType, sy, sx0, sy0, w, noiseBlock, lut);
 
                 for (int x = x0; x < maxX; ++x) {
                     final int xx = x - x0;
@@ -785,6 +735,86 @@ public final class Sentinel1RemoveThermalNoiseOp extends Operator {
         }
     }
 
+    /**
+     * Compute the noise LUT of one line of a tile, scaled by the calibration LUT for calibrated products.
+     */
+    private void computeLineNoiseLUT(final String targetBandName,
+                                     final Sentinel1Calibrator.CalibrationInfo calInfo,
+                                     final Sentinel1Calibrator.CALTYPE calType,
+                                     final int sy, final int sx0, final int sy0, final int w,
+                                     final double[][] noiseBlock, final double[] lut) {
+        if (absoluteCalibrationPerformed) {
+            final int calVecIdx = calInfo.getCalibrationVectorIndex(sy);
+            final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
+            final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
+            final float[] vec0LUT = Sentinel1Calibrator.getVector(calType, vec0);
+            final float[] vec1LUT = Sentinel1Calibrator.getVector(calType, vec1);
+            final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
+            final int pixelIdx0 = calVec.getPixelIndex(sx0);
+
+            if (version < 2.9 || isSM) {
+                final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
+                computeTileScaledNoiseLUT(sy, sx0, w, noiseInfo, calInfo, vec0.timeMJD, vec1.timeMJD,
+                        vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
+            } else {
+                computeTileScaledNoiseLUT(sy, sx0, sy0, w, noiseBlock, calInfo, vec0.timeMJD, vec1.timeMJD,
+                        vec0LUT, vec1LUT, vec0.pixels, pixelIdx0, lut);
+            }
+
+        } else {
+            if (version < 2.9 || isSM) {
+                final ThermalNoiseInfo noiseInfo = getNoiseInfo(targetBandName);
+                computeTileNoiseLUT(sy, sx0, w, noiseInfo, lut);
+            } else {
+                computeTileNoiseLUT(sy - sy0, sx0, w, noiseBlock, lut);
+            }
+        }
+    }
+
+    /**
+     * Compute the thermal noise of a rectangle of the image, scaled as the image bands of this operator, so that
+     * an operator can remove the noise in its own pass over the source data instead of reading the tiles of this
+     * operator.
+     *
+     * @param targetBandName the name of a target image band of this operator
+     * @param rectangle      the rectangle in the coordinates of the source product
+     * @return the noise of the rectangle line by line
+     * @throws OperatorException if the noise cannot be computed
+     */
+    public double[] computeNoise(final String targetBandName, final Rectangle rectangle) throws OperatorException {
+
+        final int x0 = rectangle.x;
+        final int y0 = rectangle.y;
+        final int w = rectangle.width;
+        final int h = rectangle.height;
+        final int sx0 = subsetOffsetX + x0;
+        final int sy0 = subsetOffsetY + y0;
+
+        try {
+            double[][] noiseBlock = null;
+            if (version >= 2.9 && !isSM) {
+                noiseBlock = populateNoiseAzimuthBlock(sx0, sy0, w, h, targetBandName);
+            }
+
+            Sentinel1Calibrator.CalibrationInfo calInfo = null;
+            Sentinel1Calibrator.CALTYPE calType = null;
+            if (absoluteCalibrationPerformed) {
+                calInfo = getCalInfo(targetBandName);
+                calType = Sentinel1Calibrator.getCalibrationType(targetBandName);
+            }
+
+            final double[] noise = new double[w * h];
+            final double[] lut = new double[w];
+            for (int y = y0; y < y0 + h; ++y) {
+                computeLineNoiseLUT(targetBandName, calInfo, calType, y + subsetOffsetY, sx0, sy0, w, noiseBlock, lut);
+                System.arraycopy(lut, 0, noise, (y - y0) * w, w);
+            }
+            return noise;
+        } catch (Throwable e) {
+            throw new OperatorException(e.getMessage());
+        }
+    }
+
     /**
      * Get thermal noise information for given target band.
      *
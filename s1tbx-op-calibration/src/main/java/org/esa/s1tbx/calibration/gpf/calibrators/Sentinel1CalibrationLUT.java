@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.calibration.gpf.calibrators;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.esa.s1tbx.commons.Sentinel1Utils;
+import org.esa.snap.runtime.Config;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bilinear interpolation of the Sentinel-1 calibration vectors over a tile, done as two separable passes.
+ * <p>
+ * The column weights depend only on the pixel positions of the vectors and the row weights only on the
+ * azimuth times, so both are computed once per tile. The column weights are shared by the sigma0, beta0,
+ * gamma and DN vectors and by all polarisations with the same pixel positions. The interpolated planes are
+ * cached so that the bands of a tile using the same vectors, such as the i and q bands of a complex output,
+ * interpolate them once.
+ */
+final class Sentinel1CalibrationLUT {
+
+    private static final long MAX_PLANE_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.calibration.lutCacheSizeMB", 64L) * 1024L * 1024L;
+
+    private final Cache<PlaneKey, double[]> planeCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_PLANE_BYTES)
+            .weigher((PlaneKey key, double[] plane) -> plane.length * 8)
+            .build();
+
+    private final Cache<ColumnKey, ColumnWeights> columnCache = CacheBuilder.newBuilder()
+            .maximumSize(1024)
+            .build();
+
+    /**
+     * Get the calibration LUT values of a tile, row by row.
+     *
+     * @param calInfo the calibration vectors
+     * @param calType the LUT to interpolate
+     * @param x0      first column of the tile in the full product
+     * @param y0      first line of the tile in the full product
+     * @param w       tile width
+     * @param h       tile height
+     * @return the w x h LUT values. The array is shared and must not be modified
+     * @throws Exception if the tile is outside the calibration vectors
+     */
+    double[] getPlane(final Sentinel1Calibrator.CalibrationInfo calInfo, final Sentinel1Calibrator.CALTYPE calType,
+                      final int x0, final int y0, final int w, final int h) throws Exception {
+        try {
+            return planeCache.get(new PlaneKey(calInfo, calType, x0, y0, w, h),
+                                  () -> interpolate(calInfo, calType, x0, y0, w, h));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private double[] interpolate(final Sentinel1Calibrator.CalibrationInfo calInfo,
+                                 final Sentinel1Calibrator.CALTYPE calType,
+                                 final int x0, final int y0, final int w, final int h) throws Exception {
+
+        final double[] plane = new double[w * h];
+        final double[] lut0 = new double[w];
+        final double[] lut1 = new double[w];
+
+        int y = 0;
+        while (y < h) {
+            final int calVecIdx = calInfo.getCalibrationVectorIndex(y0 + y);
+            if (calVecIdx < 0) {
+                throw new IllegalArgumentException("Line " + (y0 + y) + " is outside the calibration vectors");
+            }
+            final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
+            final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
+
+            // interpolate both vectors across the tile once for all lines between them
+            final ColumnWeights cw = getColumnWeights(vec0.pixels, x0, w);
+            interpolateColumns(Sentinel1Calibrator.getVector(calType, vec0), cw, lut0);
+            interpolateColumns(Sentinel1Calibrator.getVector(calType, vec1), cw, lut1);
+
+            final double timeSpan = vec1.timeMJD - vec0.timeMJD;
+            for (; y < h && y0 + y < vec1.line; ++y) {
+                final double azTime = calInfo.firstLineTime + (y0 + y) * calInfo.lineTimeInterval;
+                final double muY = (azTime - vec0.timeMJD) / timeSpan;
+                final int offset = y * w;
+                for (int x = 0; x < w; ++x) {
+                    plane[offset + x] = (1 - muY) * lut0[x] + muY * lut1[x];
+                }
+            }
+        }
+        return plane;
+    }
+
+    private static void interpolateColumns(final float[] lut, final ColumnWeights cw, final double[] out) {
+        final int[] index = cw.index;
+        final double[] muX = cw.muX;
+        for (int x = 0; x < out.length; ++x) {
+            final int i = index[x];
+            out[x] = (1 - muX[x]) * lut[i] + muX[x] * lut[i + 1];
+        }
+    }
+
+    private ColumnWeights getColumnWeights(final int[] pixels, final int x0, final int w) throws ExecutionException {
+        return columnCache.get(new ColumnKey(pixels, x0, w), () -> new ColumnWeights(pixels, x0, w));
+    }
+
+    /**
+     * Index of the vector pixel at or before x, starting the search from the previous index.
+     */
+    static int getPixelIndex(final int[] pixels, final int lastIndex, final int x) {
+        if (lastIndex >= 0 && lastIndex < pixels.length - 1 && x >= pixels[lastIndex] && x < pixels[lastIndex + 1]) {
+            return lastIndex;
+        }
+        int index = Arrays.binarySearch(pixels, x);
+        if (index < 0) {
+            index *= -1;
+            index -= 2;
+        }
+        if (index >= pixels.length - 1)
+            index--;
+
+        return index;
+    }
+
+    private static final class ColumnWeights {
+        final int[] index;
+        final double[] muX;
+
+        ColumnWeights(final int[] pixels, final int x0, final int w) {
+            index = new int[w];
+            muX = new double[w];
+            int pixelIdx = -1;
+            for (int x = 0; x < w; ++x) {
+                pixelIdx = getPixelIndex(pixels, pixelIdx, x0 + x);
+                index[x] = pixelIdx;
+                muX[x] = (x0 + x - pixels[pixelIdx]) / (double) (pixels[pixelIdx + 1] - pixels[pixelIdx]);
+            }
+        }
+    }
+
+    private static final class ColumnKey {
+        private final int[] pixels;
+        private final int x0, w;
+        private final int hash;
+
+        ColumnKey(final int[] pixels, final int x0, final int w) {
+            this.pixels = pixels;
+            this.x0 = x0;
+            this.w = w;
+            this.hash = 31 * (31 * Arrays.hashCode(pixels) + x0) + w;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ColumnKey)) return false;
+            final ColumnKey that = (ColumnKey) o;
+            return x0 == that.x0 && w == that.w && Arrays.equals(pixels, that.pixels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class PlaneKey {
+        private final Sentinel1Calibrator.CalibrationInfo calInfo;
+        private final Sentinel1Calibrator.CALTYPE calType;
+        private final int x0, y0, w, h;
+
+        PlaneKey(final Sentinel1Calibrator.CalibrationInfo calInfo, final Sentinel1Calibrator.CALTYPE calType,
+                 final int x0, final int y0, final int w, final int h) {
+            this.calInfo = calInfo;
+            this.calType = calType;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.w = w;
+            this.h = h;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PlaneKey)) return false;
+            final PlaneKey that = (PlaneKey) o;
+            return calInfo == that.calInfo && calType == that.calType &&
+                    x0 == that.x0 && y0 == that.y0 && w == that.w && h == that.h;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(calInfo), calType, x0, y0, w, h);
+        }
+    }
+}
@@ -41,7 +41,6 @@ import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
@@ -65,6 +64,7 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
     private CALTYPE dataType = null;
     private int subsetOffsetX = 0;
     private int subsetOffsetY = 0;
+    private final Sentinel1CalibrationLUT calibrationLUT = new Sentinel1CalibrationLUT();
 
     public enum CALTYPE {SIGMA0, BETA0, GAMMA, DN}
 
@@ -576,17 +576,28 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
             final TileIndex srcIndex = new TileIndex(sourceRaster1);
             final TileIndex trgIndex = new TileIndex(targetTile);
             final int maxY = y0 + h;
-            final int maxX = x0 + w;
 
             final CalibrationInfo calInfo = targetBandToCalInfo.get(targetBandName);
             if(calInfo == null) {
                 throw new OperatorException("Calibration information not found.");
             }
+            if (!isUnitAmplitude && !isUnitIntensity && !isUnitReal && !isUnitIntensitydB) {
+                throw new OperatorException("Sentinel-1 Calibration: unhandled unit");
+            }
             final CALTYPE calType = getCalibrationType(targetBandName);
 
-            double dn = 0.0, i, q, muX, lutVal, retroLutVal = 1.0, calValue, calibrationFactor, phaseTerm = 0.0;
-            int srcIdx;
-            int pixelIdx = -1;
+            // LUT values of the whole tile, interpolated once and shared with the other bands of the tile
+            final double[] lutPlane = calibrationLUT.getPlane(
+                    calInfo, calType, subsetOffsetX + x0, subsetOffsetY + y0, w, h);
+            final double[] retroLutPlane = isUnitIntensity && dataType != null ? calibrationLUT.getPlane(
+                    calInfo, dataType, subsetOffsetX + x0, subsetOffsetY + y0, w, h) : null;
+
+            final double[] srcRow1 = new double[w];
+            final double[] srcRow2 = isUnitReal ? new double[w] : null;
+            final double[] tgtRow = new double[w];
+            final boolean outputComplex = isComplex && outputImageInComplex;
+
+            double dn, i, q, lutVal, calValue, calibrationFactor, phaseTerm = 0.0;
 
             float trgFloorValue = Sentinel1RemoveThermalNoiseOp.trgFloorValue;
 
@@ -594,47 +605,28 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
                 srcIndex.calculateStride(y);
                 trgIndex.calculateStride(y);
 
-                final int calVecIdx = calInfo.getCalibrationVectorIndex(subsetOffsetY + y);
-                final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
-                final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
-                final float[] vec0LUT = getVector(calType, vec0);
-                final float[] vec1LUT = getVector(calType, vec1);
-                float[] retroVec0LUT = null;
-                float[] retroVec1LUT = null;
-                if (dataType != null) {
-                    retroVec0LUT = getVector(dataType, vec0);
-                    retroVec1LUT = getVector(dataType, vec1);
+                final int srcOffset = srcIndex.getIndex(x0);
+                readRow(srcData1, srcOffset, srcRow1);
+                if (isUnitReal) {
+                    readRow(srcData2, srcOffset, srcRow2);
                 }
-                final double azTime = calInfo.firstLineTime + (subsetOffsetY + y) * calInfo.lineTimeInterval;
-                final double muY = (azTime - vec0.timeMJD) / (vec1.timeMJD - vec0.timeMJD);
-                final int[] vec0Pixels = vec0.pixels;
-                final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
-
-                for (int x = x0; x < maxX; ++x) {
-                    srcIdx = srcIndex.getIndex(x);
-
-                    dn = srcData1.getElemDoubleAt(srcIdx);
-
-                    pixelIdx = getPixelIndex(calVec, pixelIdx, subsetOffsetX + x);
-                    muX = (subsetOffsetX + x - vec0Pixels[pixelIdx]) /
-                            (double)(vec0Pixels[pixelIdx + 1] - vec0Pixels[pixelIdx]);
+                final int lutOffset = (y - y0) * w;
 
-                    lutVal = (1 - muY) * ((1 - muX) * vec0LUT[pixelIdx] + muX * vec0LUT[pixelIdx + 1]) +
-                            muY * ((1 - muX) * vec1LUT[pixelIdx] + muX * vec1LUT[pixelIdx + 1]);
+                for (int x = 0; x < w; ++x) {
+                    dn = srcRow1[x];
+                    lutVal = lutPlane[lutOffset + x];
 
                     calibrationFactor = 1.0 / (lutVal*lutVal);
 
                     if (isUnitAmplitude) {
                         dn *= dn;
                     } else if (isUnitIntensity) {
-                        if (dataType != null) {
-                            retroLutVal = (1 - muY) * ((1 - muX) * retroVec0LUT[pixelIdx] + muX * retroVec0LUT[pixelIdx + 1]) +
-                                    muY * ((1 - muX) * retroVec1LUT[pixelIdx] + muX * retroVec1LUT[pixelIdx + 1]);
+                        if (retroLutPlane != null) {
+                            calibrationFactor *= retroLutPlane[lutOffset + x];
                         }
-                        calibrationFactor *= retroLutVal;
                     } else if (isUnitReal) {
                         i = dn;
-                        q = srcData2.getElemDoubleAt(srcIdx);
+                        q = srcRow2[x];
                         dn = i * i + q * q;
                         if (dn > 0.0) {
                             if (tgtBandUnit == Unit.UnitType.REAL) {
@@ -645,10 +637,8 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
                         } else {
                             phaseTerm = 0.0;
                         }
-                    } else if (isUnitIntensitydB) {
-                        dn = FastMath.pow(10, dn / 10.0); // convert dB to linear scale
                     } else {
-                        throw new OperatorException("Sentinel-1 Calibration: unhandled unit");
+                        dn = FastMath.pow(10, dn / 10.0); // convert dB to linear scale
                     }
 
                     calValue = dn * calibrationFactor;
@@ -660,12 +650,13 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
                         }
                     }
 
-                    if (isComplex && outputImageInComplex) {
+                    if (outputComplex) {
                         calValue = Math.sqrt(calValue)*phaseTerm;
                     }
 
-                    tgtData.setElemDoubleAt(trgIndex.getIndex(x), calValue);
+                    tgtRow[x] = calValue;
                 }
+                writeRow(tgtData, trgIndex.getIndex(x0), tgtRow);
             }
         } catch (Throwable e) {
             e.printStackTrace();
@@ -675,19 +666,45 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
         }
     }
 
-    private static int getPixelIndex(final Sentinel1Utils.CalibrationVector calVec, final int lastIndex, final int x) {
-        if(lastIndex >= 0 && lastIndex < calVec.pixels.length-1 && x >= calVec.pixels[lastIndex] && x < calVec.pixels[lastIndex+1]) {
-            return lastIndex;
-        }
-        int index = Arrays.binarySearch(calVec.pixels, x);
-        if(index < 0) {
-            index *= -1;
-            index -= 2;
+    private static void readRow(final ProductData data, final int offset, final double[] row) {
+        final Object elems = data.getElems();
+        if (elems instanceof short[]) {
+            final short[] array = (short[]) elems;
+            if (data.isUnsigned()) {
+                for (int x = 0; x < row.length; ++x) {
+                    row[x] = array[offset + x] & 0xffff;
+                }
+            } else {
+                for (int x = 0; x < row.length; ++x) {
+                    row[x] = array[offset + x];
+                }
+            }
+        } else if (elems instanceof float[]) {
+            final float[] array = (float[]) elems;
+            for (int x = 0; x < row.length; ++x) {
+                row[x] = array[offset + x];
+            }
+        } else {
+            for (int x = 0; x < row.length; ++x) {
+                row[x] = data.getElemDoubleAt(offset + x);
+            }
         }
-        if(index >= calVec.pixels.length-1)
-            index--;
+    }
 
-        return index;
+    private static void writeRow(final ProductData data, final int offset, final double[] row) {
+        final Object elems = data.getElems();
+        if (elems instanceof float[]) {
+            final float[] array = (float[]) elems;
+            for (int x = 0; x < row.length; ++x) {
+                array[offset + x] = (float) row[x];
+            }
+        } else if (elems instanceof double[]) {
+            System.arraycopy(row, 0, (double[]) elems, offset, row.length);
+        } else {
+            for (int x = 0; x < row.length; ++x) {
+                data.setElemDoubleAt(offset + x, row[x]);
+            }
+        }
     }
 
     public static CALTYPE getCalibrationType(final String bandName) {
@@ -725,23 +742,22 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
             final String bandName, final String bandPolar, final Unit.UnitType bandUnit, int[] subSwathIndex) {
 
         final CalibrationInfo calInfo = targetBandToCalInfo.get(bandName);
-        final int calVecIdx = calInfo.getCalibrationVectorIndex((int)azimuthIndex);
-        final Sentinel1Utils.CalibrationVector vec0 = calInfo.getCalibrationVector(calVecIdx);
-        final Sentinel1Utils.CalibrationVector vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
-        final CALTYPE calType = getCalibrationType(bandName);
-        final float[] vec0LUT = getVector(calType, vec0);
-        final float[] vec1LUT = getVector(calType, vec1);
-        final Sentinel1Utils.CalibrationVector calVec = calInfo.calibrationVectorList[calVecIdx];
-        final int pixelIdx = calVec.getPixelIndex((int)rangeIndex);
-        final double azTime = calInfo.firstLineTime + azimuthIndex * calInfo.lineTimeInterval;
-        final double muY = (azTime - vec0.timeMJD) / (vec1.timeMJD - vec0.timeMJD);
-        final double muX =
-                (rangeIndex - vec0.pixels[pixelIdx]) / (double)(vec0.pixels[pixelIdx + 1] - vec0.pixels[pixelIdx]);
-
-        final double lutVal =
-                (1 - muY) * ((1 - muX) * vec0LUT[pixelIdx] + muX * vec0LUT[pixelIdx + 1]) +
-                        muY * ((1 - muX) * vec1LUT[pixelIdx] + muX * vec1LUT[pixelIdx + 1]);
+        final CalibrationHandle handle = new CalibrationHandle(calInfo, getCalibrationType(bandName));
+        return calibrate(v, handle.getLUTValue(rangeIndex, azimuthIndex), bandUnit);
+    }
+
+    /**
+     * Get a handle to calibrate the pixels of a band at (range, azimuth) positions of the source image.
+     *
+     * @param bandName the target band name
+     * @return the handle or null if the band has no calibration vectors
+     */
+    public CalibrationHandle getCalibrationHandle(final String bandName) {
+        final CalibrationInfo calInfo = targetBandToCalInfo.get(bandName);
+        return calInfo == null ? null : new CalibrationHandle(calInfo, getCalibrationType(bandName));
+    }
 
+    private static double calibrate(final double v, final double lutVal, final Unit.UnitType bandUnit) {
         double sigma = 0.0;
         if (bandUnit == Unit.UnitType.AMPLITUDE) {
             sigma = v*v / (lutVal*lutVal);
@@ -773,6 +789,66 @@ public final class Sentinel1Calibrator extends BaseCalibrator implements Calibra
         targetTile.setRawSamples(sourceTile.getRawSamples());
     }
 
+    /**
+     * Calibration of one band at (range, azimuth) positions of the source image, such as the positions
+     * of a row of a terrain corrected tile. The calibration vectors and the pixel index found for a
+     * position are kept for the next one, so neighbouring positions are calibrated without searching
+     * the vectors again. A handle is not thread safe.
+     */
+    public static final class CalibrationHandle {
+        private final CalibrationInfo calInfo;
+        private final CALTYPE calType;
+        private int calVecIdx = -1;
+        private int pixelIdx = -1;
+        private Sentinel1Utils.CalibrationVector vec0, vec1;
+        private float[] vec0LUT, vec1LUT;
+
+        CalibrationHandle(final CalibrationInfo calInfo, final CALTYPE calType) {
+            this.calInfo = calInfo;
+            this.calType = calType;
+        }
+
+        /**
+         * Calibrate pixel values in place.
+         *
+         * @param values       the pixel values
+         * @param rangeIndex   the range index of each pixel
+         * @param azimuthIndex the azimuth index of each pixel
+         * @param count        the number of pixels
+         * @param bandUnit     the unit of the pixel values
+         */
+        public void calibrate(final double[] values, final double[] rangeIndex, final double[] azimuthIndex,
+                              final int count, final Unit.UnitType bandUnit) {
+            for (int k = 0; k < count; ++k) {
+                values[k] = Sentinel1Calibrator.calibrate(
+                        values[k], getLUTValue(rangeIndex[k], azimuthIndex[k]), bandUnit);
+            }
+        }
+
+        /**
+         * @return the calibration LUT value interpolated at the given position
+         */
+        public double getLUTValue(final double rangeIndex, final double azimuthIndex) {
+            final int line = (int) azimuthIndex;
+            if (calVecIdx < 0 || line >= vec1.line || (calVecIdx > 0 && line < vec0.line)) {
+                calVecIdx = calInfo.getCalibrationVectorIndex(line);
+                vec0 = calInfo.getCalibrationVector(calVecIdx);
+                vec1 = calInfo.getCalibrationVector(calVecIdx + 1);
+                vec0LUT = getVector(calType, vec0);
+                vec1LUT = getVector(calType, vec1);
+            }
+            pixelIdx = Sentinel1CalibrationLUT.getPixelIndex(vec0.pixels, pixelIdx, (int) rangeIndex);
+
+            final double azTime = calInfo.firstLineTime + azimuthIndex * calInfo.lineTimeInterval;
+            final double muY = (azTime - vec0.timeMJD) / (vec1.timeMJD - vec0.timeMJD);
+            final double muX =
+                    (rangeIndex - vec0.pixels[pixelIdx]) / (double)(vec0.pixels[pixelIdx + 1] - vec0.pixels[pixelIdx]);
+
+            return (1 - muY) * ((1 - muX) * vec0LUT[pixelIdx] + muX * vec0LUT[pixelIdx + 1]) +
+                    muY * ((1 - muX) * vec1LUT[pixelIdx] + muX * vec1LUT[pixelIdx + 1]);
+        }
+    }
+
     public final static class CalibrationInfo {
         public final String subSwath;
         public final String polarization;
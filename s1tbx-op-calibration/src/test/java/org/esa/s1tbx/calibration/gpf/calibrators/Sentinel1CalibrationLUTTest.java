@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.calibration.gpf.calibrators;
+
+import org.esa.s1tbx.commons.Sentinel1Utils;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class Sentinel1CalibrationLUTTest {
+
+    private static final int numOfLines = 1000;
+    private static final double firstLineTime = 7000.0;
+    private static final double lineTimeInterval = 1.0e-7;
+
+    private final Sentinel1Calibrator.CalibrationInfo calInfo = createCalibrationInfo();
+
+    private static Sentinel1Calibrator.CalibrationInfo createCalibrationInfo() {
+        final int[] lines = {0, 300, 650, numOfLines + 50};
+        final Sentinel1Utils.CalibrationVector[] vectors = new Sentinel1Utils.CalibrationVector[lines.length];
+        for (int v = 0; v < lines.length; ++v) {
+            final int[] pixels = {0, 40, 80, 120, 160, 199};
+            final float[] sigma = new float[pixels.length];
+            final float[] beta = new float[pixels.length];
+            for (int p = 0; p < pixels.length; ++p) {
+                sigma[p] = 400 + 10 * v + p * p;
+                beta[p] = 300 + 5 * v - p;
+            }
+            final double time = firstLineTime + lines[v] * lineTimeInterval;
+            vectors[v] = new Sentinel1Utils.CalibrationVector(new ProductData.UTC(time), lines[v], pixels,
+                                                              sigma, beta, sigma, beta);
+        }
+        return new Sentinel1Calibrator.CalibrationInfo("IW1", "VV", firstLineTime,
+                                                       firstLineTime + (numOfLines - 1) * lineTimeInterval,
+                                                       numOfLines, vectors.length, vectors);
+    }
+
+    @Test
+    public void testPlaneMatchesBilinearInterpolation() throws Exception {
+        final Sentinel1CalibrationLUT lut = new Sentinel1CalibrationLUT();
+        final int x0 = 30, y0 = 250, w = 150, h = 500;
+
+        for (Sentinel1Calibrator.CALTYPE calType : new Sentinel1Calibrator.CALTYPE[]{
+                Sentinel1Calibrator.CALTYPE.SIGMA0, Sentinel1Calibrator.CALTYPE.BETA0}) {
+            final double[] plane = lut.getPlane(calInfo, calType, x0, y0, w, h);
+            final Sentinel1Calibrator.CalibrationHandle handle =
+                    new Sentinel1Calibrator.CalibrationHandle(calInfo, calType);
+
+            for (int y = 0; y < h; ++y) {
+                for (int x = 0; x < w; ++x) {
+                    final double expected = getLUTValue(calType, x0 + x, y0 + y);
+                    assertEquals(expected, plane[y * w + x], 1e-9);
+                    assertEquals(expected, handle.getLUTValue(x0 + x, y0 + y), 1e-9);
+                }
+            }
+            assertSame(plane, lut.getPlane(calInfo, calType, x0, y0, w, h));
+        }
+    }
+
+    @Test
+    public void testCalibrateVector() {
+        final Sentinel1Calibrator.CalibrationHandle handle =
+                new Sentinel1Calibrator.CalibrationHandle(calInfo, Sentinel1Calibrator.CALTYPE.SIGMA0);
+        final double[] values = {100, 200, 300, 400};
+        final double[] rangeIndex = {10.5, 180.25, 60, 0};
+        final double[] azimuthIndex = {900.5, 12, 400.75, 650};
+
+        handle.calibrate(values, rangeIndex, azimuthIndex, values.length, Unit.UnitType.INTENSITY);
+
+        final double[] expected = {100, 200, 300, 400};
+        for (int k = 0; k < values.length; ++k) {
+            final double lutVal = getLUTValue(Sentinel1Calibrator.CALTYPE.SIGMA0, rangeIndex[k], azimuthIndex[k]);
+            assertEquals(expected[k] / (lutVal * lutVal), values[k], 1e-12);
+        }
+    }
+
+    // direct bilinear interpolation between the vectors around the position
+    private double getLUTValue(final Sentinel1Calibrator.CALTYPE calType, final double x, final double y) {
+        int v = 0;
+        while (calInfo.calibrationVectorList[v + 1].line <= (int) y) {
+            ++v;
+        }
+        final Sentinel1Utils.CalibrationVector vec0 = calInfo.calibrationVectorList[v];
+        final Sentinel1Utils.CalibrationVector vec1 = calInfo.calibrationVectorList[v + 1];
+        int p = 0;
+        while (p < vec0.pixels.length - 2 && vec0.pixels[p + 1] <= (int) x) {
+            ++p;
+        }
+        final double muX = (x - vec0.pixels[p]) / (vec0.pixels[p + 1] - vec0.pixels[p]);
+        final double azTime = calInfo.firstLineTime + y * calInfo.lineTimeInterval;
+        final double muY = (azTime - vec0.timeMJD) / (vec1.timeMJD - vec0.timeMJD);
+
+        final float[] lut0 = Sentinel1Calibrator.getVector(calType, vec0);
+        final float[] lut1 = Sentinel1Calibrator.getVector(calType, vec1);
+        return (1 - muY) * ((1 - muX) * lut0[p] + muX * lut0[p + 1]) +
+                muY * ((1 - muX) * lut1[p] + muX * lut1[p + 1]);
+    }
+}
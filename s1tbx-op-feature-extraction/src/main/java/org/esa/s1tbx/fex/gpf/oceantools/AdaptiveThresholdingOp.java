@@ -121,6 +121,13 @@ public class AdaptiveThresholdingOp extends Operator {
     private final static int MAX_EVAL = 2000; // TODO: fine tune?
     private final static double DESIRED_ACCURACY = 1.0e-15; // TODO: This should depend on pfa
 
+    // thresholds of the unit mean K-distribution on a log grid of nu, and of the unit sigma chi2 distribution
+    private final static double MIN_NU = 0.1;
+    private final static double MAX_NU = 100.0;
+    private final static int NU_STEPS_PER_DECADE = 20;
+    private double[] kThresholds;
+    private double chi2Threshold;
+
     @Override
     public void initialize() throws OperatorException {
         try {
@@ -159,8 +166,7 @@ public class AdaptiveThresholdingOp extends Operator {
             if (doKDistribution) {
                 final MetadataElement absRoot = AbstractMetadata.getAbstractedMetadata(sourceProduct);
                 final double rangeLooks = AbstractMetadata.getAttributeDouble(absRoot, AbstractMetadata.range_looks);
-                numLooks = (int) rangeLooks;
-                oneMinusPFA = 1.0 - Math.pow(10.0, -pfa);
+                setKDistributionParameters((int) rangeLooks, pfa);
 
                 System.out.println("numLooks = " + numLooks + "; (1 - pfa) = " + oneMinusPFA + "; backgroundWindowSize = " + backgroundWindowSize);
 
@@ -322,6 +328,9 @@ public class AdaptiveThresholdingOp extends Operator {
                 backgroundThreshold = computeBackgroundThreshold(data, noDataValue);
             }
 
+            final CFARStatistics statistics = new CFARStatistics(data, w, h, noDataValue);
+            final double[] stats = new double[3];
+
             final int maxy = ty0 + th;
             final int maxx = tx0 + tw;
             for (int ty = ty0; ty < maxy; ty++) {
@@ -329,7 +338,8 @@ public class AdaptiveThresholdingOp extends Operator {
                 trgIndex.calculateStride(ty);
                 for (int tx = tx0; tx < maxx; tx++) {
                     //System.out.println("ty = " + ty + " tx = " + tx);
-                    final double targetMean = computeTargetMean(tx, ty, data, x0, y0, w, h, noDataValue);
+                    final double targetMean = computeTargetMean(statistics, tx - x0, ty - y0,
+                                                                data[(ty - y0) * w + tx - x0], noDataValue);
                     if (noDataValue == targetMean) {
                         trgData.setElemIntAt(trgIndex.getIndex(tx), 0);
                         continue;
@@ -340,15 +350,9 @@ public class AdaptiveThresholdingOp extends Operator {
                             trgData.setElemIntAt(trgIndex.getIndex(tx), 0);
                             continue;
                         }
-                        backgroundThreshold = computeBackgroundThreshold(tx, ty, data, x0, y0, w, h, noDataValue);
-
-                        // DEBUG...
-                        /*
-                        double oldT = computeBackgroundThreshold(tx, ty, data, x0, y0, w, h, noDataValue);
-                        System.out.println("DEBUG: tx = " + tx + " ty = " + ty + ": backgroundThreshold = " + backgroundThreshold
-                                + " oldT = " + oldT + " targetMean = " + targetMean);
-                        */
-                        // ...DEBUG
+                        backgroundThreshold = doKDistribution ?
+                                computeBackgroundThreshold1(statistics, tx - x0, ty - y0, stats) :
+                                computeBackgroundThreshold(statistics, tx - x0, ty - y0, stats);
                     }
                     if (targetMean > backgroundThreshold) {
                         trgData.setElemIntAt(trgIndex.getIndex(tx), 1);
@@ -368,17 +372,16 @@ public class AdaptiveThresholdingOp extends Operator {
     /**
      * Compute the mean value for pixels in the target window.
      *
-     * @param tx          The x coordinate of the central point of the target window.
-     * @param ty          The y coordinate of the central point of the target window.
-     * @param data        The source tile data array.
-     * @param noDataValue
+     * @param statistics  The window statistics of the source tile.
+     * @param x           The x coordinate of the central point of the target window in the source tile.
+     * @param y           The y coordinate of the central point of the target window in the source tile.
+     * @param v           The value of the central point.
+     * @param noDataValue no data value
      * @return The mean value.
      */
-    private double computeTargetMean(final int tx, final int ty, final float[] data,
-                                     final int xx0, int yy0, int width, int height, final double noDataValue) {
+    private double computeTargetMean(final CFARStatistics statistics, final int x, final int y, final double v,
+                                     final double noDataValue) {
 
-        int index = ((ty - yy0) * width) + (tx - xx0);
-        final double v = data[index];
         if (noDataValue == v) {
             return noDataValue;
         }
@@ -387,91 +390,31 @@ public class AdaptiveThresholdingOp extends Operator {
             return v;
         }
 
-        final int x0 = Math.max((tx - xx0) - halfTargetWindowSize, 0);
-        final int y0 = Math.max((ty - yy0) - halfTargetWindowSize, 0);
-        final int w = Math.min((tx - xx0) + halfTargetWindowSize, width - 1) - x0 + 1;
-        final int h = Math.min((ty - yy0) + halfTargetWindowSize, height - 1) - y0 + 1;
-
-        double mean = 0.0;
-        int numPixels = 0;
-        int nodataCnt = 0;
-
-        final int maxy = y0 + h;
-        final int maxx = x0 + w;
-        for (int y = y0; y < maxy; y++) {
-            int yWidth = y * width;
-            for (int x = x0; x < maxx; x++) {
-                final double val = data[yWidth + x];
-
-                if (noDataValue == val) {
-                    nodataCnt++;
-                } else {
-                    mean += val;
-                    ++numPixels;
-                }
-            }
-        }
-
-        if(nodataCnt > (0.1 * w*h)) {
+        final int area = statistics.getArea(x, y, halfTargetWindowSize);
+        final int nodataCnt = area - statistics.getCount(x, y, halfTargetWindowSize);
+        if (nodataCnt > (0.1 * area)) {
             return noDataValue;
         }
-        return mean / numPixels;
+        return statistics.getMean(x, y, halfTargetWindowSize);
     }
 
     /**
-     * Compute the standard deviation value for pixels in the background window.
+     * Compute the threshold from the mean and standard deviation of the pixels in the background window outside
+     * the guard window.
      *
-     * @param tx          The x coordinate of the central point of the background window.
-     * @param ty          The y coordinate of the central point of the background window.
-     * @param noDataValue no data value
-     * @return The std value.
+     * @param statistics The window statistics of the source tile.
+     * @param x          The x coordinate of the central point of the background window in the source tile.
+     * @param y          The y coordinate of the central point of the background window in the source tile.
+     * @param stats      Work array for the background statistics.
+     * @return The threshold.
      */
-    private double computeBackgroundThreshold(final int tx, final int ty, final float[] data,
-                                              final int xx0, int yy0, int width, int height, final double noDataValue) {
+    private double computeBackgroundThreshold(final CFARStatistics statistics, final int x, final int y,
+                                              final double[] stats) {
 
-        final int x0 = Math.max((tx - xx0) - halfBackgroundWindowSize, 0);
-        final int y0 = Math.max((ty - yy0) - halfBackgroundWindowSize, 0);
-        final int w = Math.min((tx - xx0) + halfBackgroundWindowSize, width - 1) - x0 + 1;
-        final int h = Math.min((ty - yy0) + halfBackgroundWindowSize, height - 1) - y0 + 1;
-
-        // Compute the mean value for pixels in the background window.
-        double sum = 0.0;
-        double val;
-        final int maxy = y0 + h;
-        final int maxx = x0 + w;
-
-        final double[] dataArray = new double[w * h];
-        int numValues = 0;
-
-        for (int y = y0; y < maxy; y++) {
-            final int yy = y - (ty - yy0);
-            final int yWidth = y * width;
-            final boolean yGtrHalfGuard = ((yy < 0) ? -yy : yy) > halfGuardWindowSize;
-            for (int x = x0; x < maxx; x++) {
-                final int xx = x - (tx - xx0);
-                if (yGtrHalfGuard || ((xx < 0) ? -xx : xx) > halfGuardWindowSize) {
-                    val = data[yWidth + x];
-                    if (noDataValue != val) {// && val < backgroundThreshold) {
-                        sum += val;
-                        dataArray[numValues] = val;
-                        numValues++;
-                    }
-                }
-            }
-        }
-        final double mean = sum / numValues;
-
-        // Compute the standard deviation value for pixels in the background window.
-        double std = 0.0;
-        double tmp;
-        for (int i=0; i < numValues; ++i) {
-            tmp = dataArray[i] - mean;
-            std += tmp * tmp;
+        if (!statistics.getRingStatistics(x, y, halfBackgroundWindowSize, halfGuardWindowSize, stats)) {
+            return Double.MAX_VALUE;
         }
-
-        final double backgroundSTD = Math.sqrt(std / numValues);
-
-        return mean + backgroundSTD * t;
+        return stats[0] + stats[2] * t;
     }
 
     private double computeBackgroundThreshold(final float[] data, final double noDataValue) {
@@ -574,80 +517,6 @@ public class AdaptiveThresholdingOp extends Operator {
 
     // For K-distribution
 
-    /**
-     * Compute the mean, square mean and standard deviation values in the background window (ring).
-     *
-     * @param tx          The x coordinate of the central point of the target window.
-     * @param ty          The y coordinate of the central point of the target window.
-     * @param data        The source tile data array.
-     * @param xx0         The x coordinate of the top left pixel of the source tile.
-     * @param yy0         The y coordinate of the top left pixel of the source tile.
-     * @param width       The width of the source tile.
-     * @param height      The height of the source tile.
-     * @param noDataValue Value representing no data available.
-     * @param stats       The mean, mean of square and standard deviation values (output).
-     * @return 'true' if successful
-     */
-    private boolean computeBackgroundStatistics(final int tx, final int ty, final float[] data,
-                                                final int xx0, int yy0, int width, int height,
-                                                final double noDataValue, final double[] stats) {
-
-        // stats[0] = mean = <x>
-        // stats[1] = mean of x^2 = <x^2>
-        // stats[2] = standard deviation sigma
-
-        final int x0 = Math.max((tx - xx0) - halfBackgroundWindowSize, 0);
-        final int y0 = Math.max((ty - yy0) - halfBackgroundWindowSize, 0);
-        final int w = Math.min((tx - xx0) + halfBackgroundWindowSize, width - 1) - x0 + 1;
-        final int h = Math.min((ty - yy0) + halfBackgroundWindowSize, height - 1) - y0 + 1;
-
-        // Compute the mean <x> and mean of square <x^2> values for pixels in the background window.
-        double sum = 0.0;
-        double sumsq = 0.0;
-        double val;
-        final int maxy = y0 + h;
-        final int maxx = x0 + w;
-
-        final double[] dataArray = new double[w * h];
-        int numValues = 0;
-
-        for (int y = y0; y < maxy; y++) {
-            final int yy = y - (ty - yy0);
-            final int yWidth = y * width;
-            final boolean yGtrHalfGuard = ((yy < 0) ? -yy : yy) > halfGuardWindowSize;
-            for (int x = x0; x < maxx; x++) {
-                final int xx = x - (tx - xx0);
-                if (yGtrHalfGuard || ((xx < 0) ? -xx : xx) > halfGuardWindowSize) {
-                    val = data[yWidth + x];
-                    if (noDataValue != val) {// && val < backgroundThreshold) {
-                        sum += val;
-                        sumsq += (val * val);
-                        dataArray[numValues] = val;
-                        numValues++;
-                    }
-                }
-            }
-        }
-
-        if (numValues == 0) {
-            return false;
-        }
-
-        final double mean = sum / numValues;
-        stats[0] = mean;
-        stats[1] = sumsq / numValues;
-
-        double std = 0.0;
-        double tmp;
-        for (int i=0; i < numValues; ++i) {
-            tmp = dataArray[i] - mean;
-            std += tmp * tmp;
-        }
-        stats[2] = Math.sqrt(std / numValues);
-
-        return true;
-    }
-
     private double evaluateProbability(final UnivariateFunction pdf, final double x) {
 
         // integrate pdf from 0 to x
@@ -763,9 +632,7 @@ public class AdaptiveThresholdingOp extends Operator {
         }
     }
 
-    private double computeT(final UnivariateFunction pdf,
-                            final int tx, final int ty // tx and ty are for debugging only
-    ) {
+    double computeT(final UnivariateFunction pdf) {
 
         final double[] bounds = new double[2];
         findBoundsForT(pdf, bounds);
@@ -776,7 +643,7 @@ public class AdaptiveThresholdingOp extends Operator {
         }
 
         if (bounds[1] < 0.0) {
-            System.out.println("DEBUG: ERROR tx = " + tx + " ty = " + ty + " : bounds = " + bounds[0] + ", " + bounds[1]);
+            System.out.println("DEBUG: ERROR bounds = " + bounds[0] + ", " + bounds[1] + getParamsString(pdf));
             return Double.MAX_VALUE; // Failed to compute threshold
         }
 
@@ -793,11 +660,8 @@ public class AdaptiveThresholdingOp extends Operator {
                 return Double.MAX_VALUE; // Failed to compute threshold
             }
             if (Math.abs(leftVal - rightVal) < DESIRED_ACCURACY) {
-                /*System.out.println("tx = " + tx + " ty = " + ty + " : leftT = " + leftT
-                        + "; rightT = " + rightT + "; leftVal = " + leftVal + "; rightVal = " + rightVal
-                        + " T = " + newT);*/
                 if (Math.abs(evaluateProbability(pdf, newT) - oneMinusPFA) > DESIRED_ACCURACY) {
-                    System.out.println("ERROR2: tx = " + tx + " ty = " + ty + ": " + getParamsString(pdf));
+                    System.out.println("ERROR2: " + getParamsString(pdf));
                 }
                 return newT;
             }
@@ -810,20 +674,19 @@ public class AdaptiveThresholdingOp extends Operator {
             } else if (newVal > oneMinusPFA) {
                 rightT = newT;
             } else {
-                //System.out.println("tx = " + tx + " ty = " + ty + " : newVal = " + newVal + "; T = newT = " + newT);
                 if (Math.abs(evaluateProbability(pdf, newT) - oneMinusPFA) > DESIRED_ACCURACY) {
-                    System.out.println("ERROR3: tx = " + tx + " ty = " + ty + ": " + getParamsString(pdf));
+                    System.out.println("ERROR3: " + getParamsString(pdf));
                 }
                 return newT;
             }
         }
 
-        System.out.println("DEBUG ERROR1: tx = " + tx + " ty = " + ty);
+        System.out.println("DEBUG ERROR1: " + getParamsString(pdf));
 
         return Double.MAX_VALUE; // Failed to compute threshold
     }
 
-    private KDistributionPDF getScaledKDistribution(final double mu, final double nu) {
+    KDistributionPDF getScaledKDistribution(final double mu, final double nu) {
 
         KDistributionPDF pdf = new KDistributionPDF((double)numLooks, mu, nu, 1.0);
 
@@ -838,16 +701,68 @@ public class AdaptiveThresholdingOp extends Operator {
         return spdf;
     }
 
-    private double computeBackgroundThreshold1(final int tx, final int ty, final float[] data,
-                                               final int xx0, int yy0, int width, int height, final double noDataValue) {
+    /**
+     * Set the number of looks and the probability of false alarm of the background distributions, and compute
+     * their thresholds.
+     *
+     * @param numLooks The number of looks.
+     * @param pfa      The probability of false alarm as a power of ten, 10^(-pfa).
+     */
+    void setKDistributionParameters(final int numLooks, final double pfa) {
+        this.numLooks = numLooks;
+        oneMinusPFA = 1.0 - Math.pow(10.0, -pfa);
+
+        computeThresholdTable();
+    }
+
+    /**
+     * Compute the thresholds of the background distributions once for the product.
+     * <p>
+     * The scaled K-distribution is a scale family in mu and the chi2 distribution in sigma^2, so the threshold for
+     * (mu, nu) is mu times the threshold of the unit mean distribution with the same nu, and the (mu, nu) table
+     * reduces to one row over nu. The rows are on a log grid of nu and interpolated, and nu outside the grid is
+     * clamped to it.
+     */
+    private void computeThresholdTable() {
+
+        final int numNu = (int) Math.round(NU_STEPS_PER_DECADE * Math.log10(MAX_NU / MIN_NU)) + 1;
+        kThresholds = new double[numNu];
+        for (int i = 0; i < numNu; ++i) {
+            final double nu = MIN_NU * FastMath.pow(10.0, (double) i / NU_STEPS_PER_DECADE);
+            final KDistributionPDF pdf = getScaledKDistribution(1.0, nu);
+            kThresholds[i] = pdf == null ? Double.MAX_VALUE : computeT(pdf);
+        }
+
+        chi2Threshold = computeT(new Chi2DistributionPDF((double) numLooks, 1.0));
+    }
+
+    double getKThreshold(final double mu, final double nu) {
+
+        final double pos = NU_STEPS_PER_DECADE * Math.log10(nu / MIN_NU);
+        if (pos <= 0.0) {
+            return mu * kThresholds[0];
+        }
+        final int last = kThresholds.length - 1;
+        if (pos >= last) {
+            return mu * kThresholds[last];
+        }
+        final int i = (int) pos;
+        final double frac = pos - i;
+        return mu * (kThresholds[i] + frac * (kThresholds[i + 1] - kThresholds[i]));
+    }
+
+    double getChi2Threshold(final double sigma) {
+        return chi2Threshold == Double.MAX_VALUE ? Double.MAX_VALUE : sigma * sigma * chi2Threshold;
+    }
+
+    private double computeBackgroundThreshold1(final CFARStatistics statistics, final int x, final int y,
+                                               final double[] stats) {
 
         // Estimate mu and nu
         // mu = <x>
         // (1 + 1/nu)(1 + 1/L) = <x^2> / <x>^2
         // L is numLooks
-        final double[] stats = new double[3]; // <x>, <x^2> and sigma
-        final boolean ok = computeBackgroundStatistics(tx, ty, data, xx0, yy0, width, height, noDataValue, stats);
-        if (!ok) {
+        if (!statistics.getRingStatistics(x, y, halfBackgroundWindowSize, halfGuardWindowSize, stats)) {
             return Double.MAX_VALUE;
         }
 
@@ -857,17 +772,12 @@ public class AdaptiveThresholdingOp extends Operator {
         final double tmp2 = 1.0 + (1.0 / (double) numLooks);
         final double nu = 1.0 / ((tmp1 / tmp2) - 1.0);
 
-        final UnivariateFunction pdf = (nu < 0.0) ? new Chi2DistributionPDF((double) numLooks, stats[2]) :
-                                                    getScaledKDistribution(mu, nu);
-
-        if (pdf == null) {
-            return Double.MAX_VALUE;
+        if (nu < 0.0) {
+            return getChi2Threshold(stats[2]);
         }
-
-        return computeT(pdf, tx, ty);
+        return getKThreshold(mu, nu);
     }
 
-
     private String getParamsString(final UnivariateFunction pdf) {
         if (pdf instanceof KDistributionPDF) {
             return " K-dis params: " + ((KDistributionPDF) pdf).getParamsString();
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.fex.gpf.oceantools;
+
+/**
+ * Window statistics of a source tile for the CFAR detectors, from integral images (summed area tables) of the
+ * valid pixels, their values and their squared values.
+ * <p>
+ * Once the tables are built, in one pass over the tile, the number of valid pixels, the mean and the standard
+ * deviation of any box are found from its four corners, and those of the background ring as the outer box minus
+ * the guard box, so that the cost per pixel does not depend on the window sizes.
+ * <p>
+ * The values are accumulated relative to the mean of the tile, which keeps the variance from the difference of
+ * the sums accurate for the small intensities of the sea.
+ */
+final class CFARStatistics {
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final double offset;
+
+    private final int[] count;
+    private final double[] sum;
+    private final double[] sumSq;
+
+    /**
+     * @param data        the tile data, row by row
+     * @param width       the tile width
+     * @param height      the tile height
+     * @param noDataValue the value of the pixels without data, which are left out of the statistics
+     */
+    CFARStatistics(final float[] data, final int width, final int height, final double noDataValue) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+
+        double total = 0.0;
+        int numValid = 0;
+        for (int i = 0; i < width * height; ++i) {
+            if (noDataValue != data[i]) {
+                total += data[i];
+                ++numValid;
+            }
+        }
+        offset = numValid > 0 ? total / numValid : 0.0;
+
+        count = new int[stride * (height + 1)];
+        sum = new double[stride * (height + 1)];
+        sumSq = new double[stride * (height + 1)];
+
+        for (int y = 0; y < height; ++y) {
+            int rowCount = 0;
+            double rowSum = 0.0;
+            double rowSumSq = 0.0;
+            final int above = y * stride;
+            final int k0 = above + stride;
+            for (int x = 0; x < width; ++x) {
+                final double val = data[y * width + x];
+                if (noDataValue != val) {
+                    final double v = val - offset;
+                    ++rowCount;
+                    rowSum += v;
+                    rowSumSq += v * v;
+                }
+                final int k = k0 + x + 1;
+                count[k] = count[above + x + 1] + rowCount;
+                sum[k] = sum[above + x + 1] + rowSum;
+                sumSq[k] = sumSq[above + x + 1] + rowSumSq;
+            }
+        }
+    }
+
+    /**
+     * Number of valid pixels in the box of the given half size around (x, y), clipped to the tile.
+     *
+     * @param x    the x coordinate in the tile
+     * @param y    the y coordinate in the tile
+     * @param half the half size of the box
+     * @return the number of valid pixels
+     */
+    int getCount(final int x, final int y, final int half) {
+        return count(Math.max(x - half, 0), Math.max(y - half, 0),
+                     Math.min(x + half, width - 1), Math.min(y + half, height - 1));
+    }
+
+    /**
+     * Number of pixels in the box of the given half size around (x, y), clipped to the tile.
+     */
+    int getArea(final int x, final int y, final int half) {
+        return (Math.min(x + half, width - 1) - Math.max(x - half, 0) + 1) *
+                (Math.min(y + half, height - 1) - Math.max(y - half, 0) + 1);
+    }
+
+    /**
+     * Mean of the valid pixels in the box of the given half size around (x, y), clipped to the tile.
+     *
+     * @return the mean, NaN if there is no valid pixel
+     */
+    double getMean(final int x, final int y, final int half) {
+        final int x0 = Math.max(x - half, 0);
+        final int y0 = Math.max(y - half, 0);
+        final int x1 = Math.min(x + half, width - 1);
+        final int y1 = Math.min(y + half, height - 1);
+        return offset + box(sum, x0, y0, x1, y1) / count(x0, y0, x1, y1);
+    }
+
+    /**
+     * Statistics of the valid pixels in the ring between the box of half size outerHalf around (x, y), clipped to
+     * the tile, and the guard box of half size innerHalf.
+     *
+     * @param x         the x coordinate in the tile
+     * @param y         the y coordinate in the tile
+     * @param outerHalf the half size of the background window
+     * @param innerHalf the half size of the guard window
+     * @param stats     receives the mean, the mean of the squares and the standard deviation
+     * @return false if the ring has no valid pixel
+     */
+    boolean getRingStatistics(final int x, final int y, final int outerHalf, final int innerHalf,
+                              final double[] stats) {
+
+        final int x0 = Math.max(x - outerHalf, 0);
+        final int y0 = Math.max(y - outerHalf, 0);
+        final int x1 = Math.min(x + outerHalf, width - 1);
+        final int y1 = Math.min(y + outerHalf, height - 1);
+
+        int n = count(x0, y0, x1, y1);
+        double s = box(sum, x0, y0, x1, y1);
+        double sq = box(sumSq, x0, y0, x1, y1);
+
+        final int gx0 = Math.max(x - innerHalf, x0);
+        final int gy0 = Math.max(y - innerHalf, y0);
+        final int gx1 = Math.min(x + innerHalf, x1);
+        final int gy1 = Math.min(y + innerHalf, y1);
+        if (gx0 <= gx1 && gy0 <= gy1) {
+            n -= count(gx0, gy0, gx1, gy1);
+            s -= box(sum, gx0, gy0, gx1, gy1);
+            sq -= box(sumSq, gx0, gy0, gx1, gy1);
+        }
+
+        if (n <= 0) {
+            return false;
+        }
+
+        final double mean = s / n;
+        final double variance = Math.max(sq / n - mean * mean, 0.0);
+        stats[0] = offset + mean;
+        stats[1] = variance + stats[0] * stats[0];
+        stats[2] = Math.sqrt(variance);
+        return true;
+    }
+
+    private int count(final int x0, final int y0, final int x1, final int y1) {
+        final int top = y0 * stride;
+        final int bottom = (y1 + 1) * stride;
+        return count[bottom + x1 + 1] - count[top + x1 + 1] - count[bottom + x0] + count[top + x0];
+    }
+
+    private double box(final double[] table, final int x0, final int y0, final int x1, final int y1) {
+        final int top = y0 * stride;
+        final int bottom = (y1 + 1) * stride;
+        return table[bottom + x1 + 1] - table[top + x1 + 1] - table[bottom + x0] + table[top + x0];
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.fex.gpf.oceantools;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming labelling of the 8-connected objects of a detection mask, for tiles of a regular grid computed in any
+ * order.
+ * <p>
+ * Each tile is labelled on its own with a two pass union-find, which needs no lock. The components are then merged
+ * with those of the tiles already done through the labels kept along their borders, and an object is closed and
+ * passed to the listener once none of its components touches a tile that is still to come. Only the borders facing
+ * tiles still to come and the objects crossing them are kept, so the memory follows the frontier of the processed
+ * tiles and not the scene, and a tile computed again is ignored so that no object is counted twice.
+ */
+public final class ConnectedComponentLabeller {
+
+    // neighbour tiles clockwise from the top, the opposite direction is (d + 4) % 8
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int numTilesX;
+    private final int numTilesY;
+    private final Listener listener;
+
+    private final boolean[] processed;
+    private final Map<Integer, Component[][]> borders = new HashMap<>();
+    private int visit = 0;
+
+    public interface Listener {
+        /**
+         * Called with each object once all of it has been labelled, while the labeller is locked.
+         */
+        void objectClosed(Component object);
+    }
+
+    /**
+     * @param imageWidth  the scene width
+     * @param imageHeight the scene height
+     * @param tileWidth   the width of the tiles, which start at multiples of it
+     * @param tileHeight  the height of the tiles
+     * @param listener    receives the closed objects
+     */
+    public ConnectedComponentLabeller(final int imageWidth, final int imageHeight,
+                                      final int tileWidth, final int tileHeight, final Listener listener) {
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.numTilesX = (imageWidth + tileWidth - 1) / tileWidth;
+        this.numTilesY = (imageHeight + tileHeight - 1) / tileHeight;
+        this.listener = listener;
+        this.processed = new boolean[numTilesX * numTilesY];
+    }
+
+    /**
+     * Label a tile and merge it with the tiles already done.
+     *
+     * @param rect   the tile rectangle, a cell of the tile grid
+     * @param mask   the detected pixels of the tile, row by row
+     * @param values the intensity of the pixels for the object moments, may be null
+     */
+    public void addTile(final Rectangle rect, final boolean[] mask, final double[] values) {
+
+        final int tileX = rect.x / tileWidth;
+        final int tileY = rect.y / tileHeight;
+        final int tileIndex = tileY * numTilesX + tileX;
+        synchronized (this) {
+            if (processed[tileIndex]) {
+                return;
+            }
+        }
+
+        final Labels labels = labelTile(rect.x, rect.y, rect.width, rect.height, mask, values);
+        final Component[][] edges = new Component[8][];
+        for (int d = 0; d < 8; ++d) {
+            edges[d] = getEdge(labels, rect.width, rect.height, d);
+        }
+
+        synchronized (this) {
+            if (processed[tileIndex]) {
+                return;
+            }
+            processed[tileIndex] = true;
+
+            final List<Component> candidates = new ArrayList<>(labels.components.length);
+            for (int i = 1; i < labels.components.length; ++i) {
+                candidates.add(labels.components[i]);
+            }
+
+            for (int d = 0; d < 8; ++d) {
+                final int nx = tileX + DX[d];
+                final int ny = tileY + DY[d];
+                if (nx < 0 || ny < 0 || nx >= numTilesX || ny >= numTilesY) {
+                    continue;
+                }
+                final int neighbourIndex = ny * numTilesX + nx;
+                if (processed[neighbourIndex]) {
+                    final Component[][] neighbourBorders = borders.get(neighbourIndex);
+                    final int opposite = (d + 4) % 8;
+                    final Component[] theirs = neighbourBorders == null ? null : neighbourBorders[opposite];
+                    if (theirs != null) {
+                        if (edges[d] != null) {
+                            merge(edges[d], theirs, d % 2 == 0);
+                        }
+                        ++visit;
+                        for (Component c : theirs) {
+                            if (c != null && c.mark != visit) {
+                                c.mark = visit;
+                                find(c).open--;
+                                candidates.add(c);
+                            }
+                        }
+                        neighbourBorders[opposite] = null;
+                        removeIfEmpty(neighbourIndex, neighbourBorders);
+                    }
+                } else if (edges[d] != null) {
+                    ++visit;
+                    for (Component c : edges[d]) {
+                        if (c != null && c.mark != visit) {
+                            c.mark = visit;
+                            find(c).open++;
+                        }
+                    }
+                    borders.computeIfAbsent(tileIndex, k -> new Component[8][])[d] = edges[d];
+                }
+            }
+
+            for (Component c : candidates) {
+                close(find(c));
+            }
+        }
+    }
+
+    /**
+     * Close the objects that are still open, for when not all tiles of the scene are computed.
+     */
+    public synchronized void flush() {
+        for (Component[][] tileBorders : borders.values()) {
+            for (Component[] edge : tileBorders) {
+                if (edge != null) {
+                    for (Component c : edge) {
+                        final Component root = c == null ? null : find(c);
+                        if (root != null && !root.closed) {
+                            root.closed = true;
+                            listener.objectClosed(root);
+                        }
+                    }
+                }
+            }
+        }
+        borders.clear();
+    }
+
+    /**
+     * @return the number of tile borders kept for tiles still to come
+     */
+    synchronized int getNumOpenBorders() {
+        int count = 0;
+        for (Component[][] tileBorders : borders.values()) {
+            for (Component[] edge : tileBorders) {
+                if (edge != null) {
+                    ++count;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void close(final Component root) {
+        if (root.open == 0 && !root.closed) {
+            root.closed = true;
+            listener.objectClosed(root);
+        }
+    }
+
+    private void removeIfEmpty(final int tileIndex, final Component[][] tileBorders) {
+        for (Component[] edge : tileBorders) {
+            if (edge != null) {
+                return;
+            }
+        }
+        borders.remove(tileIndex);
+    }
+
+    private static void merge(final Component[] mine, final Component[] theirs, final boolean side) {
+        if (!side) {
+            if (mine[0] != null && theirs[0] != null) {
+                union(mine[0], theirs[0]);
+            }
+            return;
+        }
+        final int n = mine.length;
+        for (int k = 0; k < n; ++k) {
+            if (mine[k] == null) {
+                continue;
+            }
+            for (int m = Math.max(k - 1, 0); m <= Math.min(k + 1, n - 1); ++m) {
+                if (theirs[m] != null) {
+                    union(mine[k], theirs[m]);
+                }
+            }
+        }
+    }
+
+    private static Component find(Component c) {
+        Component root = c;
+        while (root.parent != null) {
+            root = root.parent;
+        }
+        while (c.parent != null) {
+            final Component next = c.parent;
+            c.parent = root;
+            c = next;
+        }
+        return root;
+    }
+
+    private static void union(final Component a, final Component b) {
+        Component rootA = find(a);
+        Component rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (rootA.area < rootB.area) {
+            final Component tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        rootB.parent = rootA;
+        rootA.add(rootB);
+        rootA.open += rootB.open;
+    }
+
+    private static Component[] getEdge(final Labels labels, final int w, final int h, final int direction) {
+        final Component[] edge;
+        switch (direction) {
+            case 0:
+                edge = getLine(labels, 0, 1, w);
+                break;
+            case 2:
+                edge = getLine(labels, w - 1, w, h);
+                break;
+            case 4:
+                edge = getLine(labels, (h - 1) * w, 1, w);
+                break;
+            case 6:
+                edge = getLine(labels, 0, w, h);
+                break;
+            case 1:
+                edge = getLine(labels, w - 1, 1, 1);
+                break;
+            case 3:
+                edge = getLine(labels, h * w - 1, 1, 1);
+                break;
+            case 5:
+                edge = getLine(labels, (h - 1) * w, 1, 1);
+                break;
+            default:
+                edge = getLine(labels, 0, 1, 1);
+                break;
+        }
+        return edge;
+    }
+
+    private static Component[] getLine(final Labels labels, final int start, final int step, final int length) {
+        final Component[] line = new Component[length];
+        boolean empty = true;
+        for (int k = 0, i = start; k < length; ++k, i += step) {
+            line[k] = labels.components[labels.labels[i]];
+            empty &= line[k] == null;
+        }
+        return empty ? null : line;
+    }
+
+    /**
+     * Label the 8-connected components of a tile.
+     *
+     * @param x0     the x coordinate of the tile in the scene
+     * @param y0     the y coordinate of the tile in the scene
+     * @param w      the tile width
+     * @param h      the tile height
+     * @param mask   the detected pixels, row by row
+     * @param values the intensity of the pixels, may be null
+     * @return the labels, from 1, and the component of each label
+     */
+    static Labels labelTile(final int x0, final int y0, final int w, final int h,
+                            final boolean[] mask, final double[] values) {
+
+        final int[] labels = new int[w * h];
+        int[] parent = new int[64];
+        int numLabels = 0;
+
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final int i = y * w + x;
+                if (!mask[i]) {
+                    continue;
+                }
+                int label = 0;
+                if (x > 0 && labels[i - 1] != 0) {
+                    label = labels[i - 1];
+                }
+                if (y > 0) {
+                    for (int dx = -1; dx <= 1; ++dx) {
+                        if (x + dx < 0 || x + dx >= w) {
+                            continue;
+                        }
+                        final int other = labels[i - w + dx];
+                        if (other != 0) {
+                            label = label == 0 ? other : unionLabels(parent, label, other);
+                        }
+                    }
+                }
+                if (label == 0) {
+                    ++numLabels;
+                    if (numLabels == parent.length) {
+                        parent = Arrays.copyOf(parent, 2 * parent.length);
+                    }
+                    parent[numLabels] = numLabels;
+                    label = numLabels;
+                }
+                labels[i] = label;
+            }
+        }
+
+        // resolve the provisional labels to consecutive ones
+        final int[] compact = new int[numLabels + 1];
+        int numComponents = 0;
+        for (int l = 1; l <= numLabels; ++l) {
+            final int root = findLabel(parent, l);
+            if (root == l) {
+                compact[l] = ++numComponents;
+            }
+        }
+        for (int l = 1; l <= numLabels; ++l) {
+            compact[l] = compact[findLabel(parent, l)];
+        }
+
+        final Component[] components = new Component[numComponents + 1];
+        for (int l = 1; l <= numComponents; ++l) {
+            components[l] = new Component();
+        }
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                final int i = y * w + x;
+                if (labels[i] != 0) {
+                    labels[i] = compact[labels[i]];
+                    components[labels[i]].add(x0 + x, y0 + y, values == null ? 0.0 : values[i]);
+                }
+            }
+        }
+        return new Labels(labels, components);
+    }
+
+    private static int findLabel(final int[] parent, int l) {
+        while (parent[l] != l) {
+            parent[l] = parent[parent[l]];
+            l = parent[l];
+        }
+        return l;
+    }
+
+    private static int unionLabels(final int[] parent, final int a, final int b) {
+        final int rootA = findLabel(parent, a);
+        final int rootB = findLabel(parent, b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+            return rootA;
+        }
+        parent[rootA] = rootB;
+        return rootB;
+    }
+
+    static final class Labels {
+        final int[] labels;
+        final Component[] components;
+
+        Labels(final int[] labels, final Component[] components) {
+            this.labels = labels;
+            this.components = components;
+        }
+    }
+
+    /**
+     * The statistics of a connected object: area, bounding box and intensity moments.
+     */
+    public static final class Component {
+        private int area = 0;
+        private int xMin = Integer.MAX_VALUE;
+        private int xMax = Integer.MIN_VALUE;
+        private int yMin = Integer.MAX_VALUE;
+        private int yMax = Integer.MIN_VALUE;
+        private double sum = 0.0;
+        private double sumSq = 0.0;
+
+        private Component parent = null;
+        private int open = 0;
+        private boolean closed = false;
+        private int mark = 0;
+
+        void add(final int x, final int y, final double value) {
+            ++area;
+            xMin = Math.min(xMin, x);
+            xMax = Math.max(xMax, x);
+            yMin = Math.min(yMin, y);
+            yMax = Math.max(yMax, y);
+            sum += value;
+            sumSq += value * value;
+        }
+
+        void add(final Component other) {
+            area += other.area;
+            xMin = Math.min(xMin, other.xMin);
+            xMax = Math.max(xMax, other.xMax);
+            yMin = Math.min(yMin, other.yMin);
+            yMax = Math.max(yMax, other.yMax);
+            sum += other.sum;
+            sumSq += other.sumSq;
+        }
+
+        public int getArea() {
+            return area;
+        }
+
+        public int getXMin() {
+            return xMin;
+        }
+
+        public int getXMax() {
+            return xMax;
+        }
+
+        public int getYMin() {
+            return yMin;
+        }
+
+        public int getYMax() {
+            return yMax;
+        }
+
+        public double getMeanIntensity() {
+            return sum / area;
+        }
+
+        public double getIntensityVariance() {
+            final double mean = sum / area;
+            return Math.max(sumSq / area - mean * mean, 0.0);
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.esa.snap.core.gpf.annotations.OperatorMetadata;
 import org.esa.snap.core.gpf.annotations.Parameter;
 import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
+import org.esa.snap.core.image.ImageManager;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.StringUtils;
 import org.esa.snap.core.util.SystemUtils;
@@ -47,10 +48,10 @@ import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.jdom2.Document;
 import org.jdom2.Element;
-import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.AttributeDescriptor;
 
+import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.io.File;
 import java.io.IOException;
@@ -65,6 +66,9 @@ import java.util.Map;
  * extracts the width and length information from the target. Based on these measurements and user input
  * discrimination criteria, targets that are too big or too small are eliminated.
  * <p/>
+ * The clusters are labelled tile by tile and merged across the tile borders by a ConnectedComponentLabeller, so
+ * that a target crossing tiles is reported once, when the last of its tiles is computed.
+ * <p/>
  * [1] D. J. Crisp, "The State-of-the-Art in Ship Detection in Synthetic Aperture Radar Imagery." DSTO-RR-0272, 2004-05.
  */
 @OperatorMetadata(alias = "Object-Discrimination",
@@ -94,6 +98,8 @@ public class ObjectDiscriminationOp extends Operator {
     private double azimuthSpacing = 0;
 
     private final Map<String, List<ShipRecord>> bandClusterLists = new HashMap<>();
+    private final Map<String, ConnectedComponentLabeller> bandLabellers = new HashMap<>();
+    private VectorDataNode vectorDataNode = null;
     private File targetReportFile = null;
     private SimpleFeatureType shipFeatureType;
 
@@ -106,6 +112,8 @@ public class ObjectDiscriminationOp extends Operator {
     public static final String ATTRIB_DETECTED_LON = "Detected_lon";
     public static final String ATTRIB_DETECTED_WIDTH = "Detected_width";
     public static final String ATTRIB_DETECTED_LENGTH = "Detected_length";
+    public static final String ATTRIB_DETECTED_AREA = "Detected_area";
+    public static final String ATTRIB_DETECTED_INTENSITY = "Detected_intensity";
     public static final String ATTRIB_CORR_SHIP_LAT = "Corr_ship_lat";
     public static final String ATTRIB_CORR_SHIP_LON = "Corr_ship_lon";
     public static final String ATTRIB_AIS_MMSI = "AIS_MMSI";
@@ -131,6 +139,8 @@ public class ObjectDiscriminationOp extends Operator {
 
             shipFeatureType = createFeatureType();
 
+            createLabellers();
+
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(getId(), e);
         }
@@ -188,6 +198,36 @@ public class ObjectDiscriminationOp extends Operator {
         absTgt.setAttributeString(AbstractMetadata.target_report_file, targetReportFile.getAbsolutePath());
     }
 
+    /**
+     * Create a labeller for each ship mask band, on the tile grid of the target product.
+     */
+    private void createLabellers() {
+
+        Dimension tileSize = targetProduct.getPreferredTileSize();
+        if (tileSize == null) {
+            tileSize = ImageManager.getPreferredTileSize(targetProduct);
+            targetProduct.setPreferredTileSize(tileSize);
+        }
+
+        vectorDataNode = targetProduct.getVectorDataGroup().get(VECTOR_NODE_NAME);
+        if (vectorDataNode == null) {
+            vectorDataNode = new VectorDataNode(VECTOR_NODE_NAME, shipFeatureType);
+            targetProduct.getVectorDataGroup().add(vectorDataNode);
+        }
+
+        for (Band band : targetProduct.getBands()) {
+            final String bandName = band.getName();
+            if (!bandName.contains(AdaptiveThresholdingOp.SHIPMASK_NAME)) {
+                continue;
+            }
+            final List<ShipRecord> clusterList = new ArrayList<>();
+            bandClusterLists.put(bandName, clusterList);
+            bandLabellers.put(bandName, new ConnectedComponentLabeller(
+                    sourceImageWidth, sourceImageHeight, tileSize.width, tileSize.height,
+                    object -> addShipRecord(clusterList, object)));
+        }
+    }
+
     /**
      * Called by the framework in order to compute a tile for the given target band.
      * <p>The default implementation throws a runtime exception with the message "not implemented".</p>
@@ -207,58 +247,45 @@ public class ObjectDiscriminationOp extends Operator {
             final int th = targetTileRectangle.height;
             //System.out.println("tx0 = " + tx0 + ", ty0 = " + ty0 + ", tw = " + tw + ", th = " + th);
 
-            final int x0 = Math.max(tx0 - 10, 0);
-            final int y0 = Math.max(ty0 - 10, 0);
-            final int w = Math.min(tw + 20, sourceImageWidth);
-            final int h = Math.min(th + 20, sourceImageHeight);
-            final Rectangle sourceTileRectangle = new Rectangle(x0, y0, w, h);
-            //System.out.println("x0 = " + x0 + ", y0 = " + y0 + ", w = " + w + ", h = " + h);
-
             final Band sourceBand = sourceProduct.getBand(targetBand.getName());
-            final int[][] pixelsScanned = new int[h][w];
-            final List<ShipRecord> clusterList = new ArrayList<>();
-
-            final Tile bitMaskTile = getSourceTile(sourceBand, sourceTileRectangle);
-            final ProductData bitMaskData = bitMaskTile.getDataBuffer();
-
-            final TileIndex srcIndex = new TileIndex(bitMaskTile);    // src and trg tile are different size
-
-            final int maxy = ty0 + th;
-            final int maxx = tx0 + tw;
-            for (int ty = ty0; ty < maxy; ty++) {
-                srcIndex.calculateStride(ty);
-                for (int tx = tx0; tx < maxx; tx++) {
-
-                    if (pixelsScanned[ty - y0][tx - x0] == 0) {
-
+            final ConnectedComponentLabeller labeller = bandLabellers.get(targetBand.getName());
+            final Tile bitMaskTile = getSourceTile(sourceBand, targetTileRectangle);
+
+            if (labeller != null) {
+                final ProductData bitMaskData = bitMaskTile.getDataBuffer();
+                final TileIndex srcIndex = new TileIndex(bitMaskTile);
+
+                final Band intensityBand = sourceProduct.getBand(
+                        targetBand.getName().replace(AdaptiveThresholdingOp.SHIPMASK_NAME, ""));
+                final Tile intensityTile =
+                        intensityBand != null ? getSourceTile(intensityBand, targetTileRectangle) : null;
+                final ProductData intensityData = intensityTile != null ? intensityTile.getDataBuffer() : null;
+                final TileIndex intensityIndex = intensityTile != null ? new TileIndex(intensityTile) : null;
+
+                final boolean[] mask = new boolean[tw * th];
+                final double[] values = intensityData != null ? new double[tw * th] : null;
+                final int maxy = ty0 + th;
+                final int maxx = tx0 + tw;
+                for (int ty = ty0; ty < maxy; ty++) {
+                    srcIndex.calculateStride(ty);
+                    if (intensityIndex != null) {
+                        intensityIndex.calculateStride(ty);
+                    }
+                    final int offset = (ty - ty0) * tw - tx0;
+                    for (int tx = tx0; tx < maxx; tx++) {
                         if (bitMaskData.getElemIntAt(srcIndex.getIndex(tx)) == 1) {
-
-                            final List<PixelPos> clusterPixels = new ArrayList<>();
-                            clustering(tx, ty, x0, y0, w, h, bitMaskData, bitMaskTile, pixelsScanned, clusterPixels);
-
-                            final ShipRecord record = generateRecord(x0, y0, w, h, clusterPixels);
-
-                            final double size = Math.sqrt(record.length * record.length + record.width * record.width);
-                            if (size >= minTargetSizeInMeter && size <= maxTargetSizeInMeter) {
-                                clusterList.add(record);
+                            mask[offset + tx] = true;
+                            if (values != null) {
+                                values[offset + tx] = intensityData.getElemDoubleAt(intensityIndex.getIndex(tx));
                             }
                         }
                     }
                 }
-            }
 
-            if (!clusterList.isEmpty()) {
-                AddShipRecordsAsVectors(clusterList);
+                labeller.addTile(targetTileRectangle, mask, values);
             }
 
-            List<ShipRecord> shipRecordList = bandClusterLists.get(targetBand.getName());
-            if (shipRecordList == null) {
-                shipRecordList = new ArrayList<>();
-                bandClusterLists.put(targetBand.getName(), shipRecordList);
-            }
-            shipRecordList.addAll(clusterList);
-
-            targetTile.setRawSamples(getSourceTile(sourceBand, targetTileRectangle).getRawSamples());
+            targetTile.setRawSamples(bitMaskTile.getRawSamples());
 
             clusteringPerformed = true;
         } catch (Throwable e) {
@@ -267,83 +294,32 @@ public class ObjectDiscriminationOp extends Operator {
     }
 
     /**
-     * Find pixels detected as target in a 3x3 window centered at a given point.
+     * Generate a ship record for a closed cluster and add it to the band list and the vector data if the target
+     * size is within the limits. Called by the labeller of the band while it is locked.
      *
-     * @param xc            The x coordinate of the given point.
-     * @param yc            The y coordinate of the given point.
-     * @param x0            The x coordinate for the upper left corner point of the source rectangle.
-     * @param y0            The y coordinate for the upper left corner point of the source rectangle.
-     * @param w             The width of the source rectangle.
-     * @param h             The height of the source rectangle.
-     * @param bitMaskData   The bit maks band data.
-     * @param bitMaskTile   The bit mask band tile.
-     * @param pixelsScanned The binary array indicating which pixel in the tile has been scaned.
-     * @param clusterPixels The list of pixels in the cluster.
+     * @param clusterList The ship records of the band.
+     * @param cluster     The cluster statistics.
      */
-    private static void clustering(final int xc, final int yc, final int x0, final int y0, final int w, final int h,
-                                   final ProductData bitMaskData, final Tile bitMaskTile,
-                                   final int[][] pixelsScanned, List<PixelPos> clusterPixels) {
-
-        pixelsScanned[yc - y0][xc - x0] = 1;
-        clusterPixels.add(new PixelPos(xc, yc));
-
-        final int[] x = {xc - 1, xc, xc + 1, xc - 1, xc + 1, xc - 1, xc, xc + 1};
-        final int[] y = {yc - 1, yc - 1, yc - 1, yc, yc, yc + 1, yc + 1, yc + 1};
+    private void addShipRecord(final List<ShipRecord> clusterList, final ConnectedComponentLabeller.Component cluster) {
 
-        for (int i = 0; i < 8; i++) {
+        final double xMid = (cluster.getXMin() + cluster.getXMax()) / 2.0;
+        final double yMid = (cluster.getYMin() + cluster.getYMax()) / 2.0;
 
-            if (x[i] >= x0 && x[i] < x0 + w && y[i] >= y0 && y[i] < y0 + h &&
-                    pixelsScanned[y[i] - y0][x[i] - x0] == 0 &&
-                    bitMaskData.getElemIntAt(bitMaskTile.getDataBufferIndex(x[i], y[i])) == 1) {
-
-                clustering(x[i], y[i], x0, y0, w, h, bitMaskData, bitMaskTile, pixelsScanned, clusterPixels);
-            }
-        }
-    }
-
-    /**
-     * Generate a ship record for the detected cluster.
-     *
-     * @param x0            The x coordinate for the upper left corner point of the source rectangle.
-     * @param y0            The y coordinate for the upper left corner point of the source rectangle.
-     * @param w             The width of the source rectangle.
-     * @param h             The height of the source rectangle.
-     * @param clusterPixels The list of pixels in the cluster.
-     * @return ShipRecord
-     */
-    private ShipRecord generateRecord(final int x0, final int y0, final int w, final int h,
-                                      List<PixelPos> clusterPixels) {
-        int xMin = x0 + w - 1;
-        int xMax = x0;
-        int yMin = y0 + h - 1;
-        int yMax = y0;
-
-        for (PixelPos pixel : clusterPixels) {
-            if (pixel.x < xMin) {
-                xMin = (int) pixel.x;
-            }
-
-            if (pixel.x > xMax) {
-                xMax = (int) pixel.x;
-            }
+        final double width = (cluster.getXMax() - cluster.getXMin() + 1) * rangeSpacing;
+        final double length = (cluster.getYMax() - cluster.getYMin() + 1) * azimuthSpacing;
 
-            if (pixel.y < yMin) {
-                yMin = (int) pixel.y;
-            }
-
-            if (pixel.y > yMax) {
-                yMax = (int) pixel.y;
-            }
+        final double size = Math.sqrt(length * length + width * width);
+        if (size < minTargetSizeInMeter || size > maxTargetSizeInMeter) {
+            return;
         }
 
-        final double xMid = (xMin + xMax) / 2.0;
-        final double yMid = (yMin + yMax) / 2.0;
         final GeoPos geoPos = targetProduct.getSceneGeoCoding().getGeoPos(new PixelPos(xMid, yMid), null);
+        final ShipRecord record = new ShipRecord((int) xMid, (int) yMid, geoPos.lat, geoPos.lon, width, length);
+        record.area = cluster.getArea();
+        record.intensity = cluster.getMeanIntensity();
 
-        final double width = (xMax - xMin + 1) * rangeSpacing;
-        final double length = (yMax - yMin + 1) * azimuthSpacing;
-
-        return new ShipRecord((int) xMid, (int) yMid, geoPos.lat, geoPos.lon, width, length);
+        clusterList.add(record);
+        addShipRecordAsVector(record);
     }
 
     /**
@@ -352,6 +328,10 @@ public class ObjectDiscriminationOp extends Operator {
     @Override
     public void dispose() {
 
+        for (ConnectedComponentLabeller labeller : bandLabellers.values()) {
+            labeller.flush();
+        }
+
         if (!clusteringPerformed) {
             return;
         }
@@ -382,6 +362,8 @@ public class ObjectDiscriminationOp extends Operator {
                     subElem.setAttribute(ATTRIB_DETECTED_LON, String.valueOf(rec.lon));
                     subElem.setAttribute(ATTRIB_DETECTED_WIDTH, String.valueOf(rec.width));
                     subElem.setAttribute(ATTRIB_DETECTED_LENGTH, String.valueOf(rec.length));
+                    subElem.setAttribute(ATTRIB_DETECTED_AREA, String.valueOf(rec.area));
+                    subElem.setAttribute(ATTRIB_DETECTED_INTENSITY, String.valueOf(rec.intensity));
                     elem.addContent(subElem);
                 }
                 root.addContent(elem);
@@ -407,34 +389,25 @@ public class ObjectDiscriminationOp extends Operator {
         return VectorUtils.createFeatureType(targetProduct.getSceneGeoCoding(), VECTOR_NODE_NAME, attributeDescriptors);
     }
 
-    private synchronized void AddShipRecordsAsVectors(final List<ShipRecord> clusterList) {
+    private void addShipRecordAsVector(final ShipRecord rec) {
 
-        VectorDataNode vectorDataNode = targetProduct.getVectorDataGroup().get(VECTOR_NODE_NAME);
-        if (vectorDataNode == null) {
-            vectorDataNode = new VectorDataNode(VECTOR_NODE_NAME, shipFeatureType);
-            targetProduct.getVectorDataGroup().add(vectorDataNode);
-        }
-        DefaultFeatureCollection collection = vectorDataNode.getFeatureCollection();
+        final DefaultFeatureCollection collection = vectorDataNode.getFeatureCollection();
         final GeometryFactory geometryFactory = new GeometryFactory();
 
-        int c = collection.size();
-        for (ShipRecord rec : clusterList) {
-
-            final String name = "target_" + StringUtils.padNum(c, 3, '0');
-
-            final SimpleFeatureBuilder fb = new SimpleFeatureBuilder(shipFeatureType);
-            fb.add(geometryFactory.createPoint(new Coordinate(rec.x, rec.y)));
-            fb.add(rec.x);
-            fb.add(rec.y);
-            fb.add(rec.lat);
-            fb.add(rec.lon);
-            fb.add(rec.width);
-            fb.add(rec.length);
-            fb.add(STYLE_FORMAT);
-            final SimpleFeature feature =  fb.buildFeature(name);
-
-            collection.add(feature);
-            c++;
+        final SimpleFeatureBuilder fb = new SimpleFeatureBuilder(shipFeatureType);
+        fb.add(geometryFactory.createPoint(new Coordinate(rec.x, rec.y)));
+        fb.add(rec.x);
+        fb.add(rec.y);
+        fb.add(rec.lat);
+        fb.add(rec.lon);
+        fb.add(rec.width);
+        fb.add(rec.length);
+        fb.add(STYLE_FORMAT);
+
+        // the labellers of the bands share the collection
+        synchronized (collection) {
+            final String name = "target_" + StringUtils.padNum(collection.size(), 3, '0');
+            collection.add(fb.buildFeature(name));
         }
     }
 
@@ -449,6 +422,8 @@ public class ObjectDiscriminationOp extends Operator {
         public double corr_lon;
         public int mmsi;
         public String shipName;
+        public int area;
+        public double intensity;
 
         public ShipRecord(final int x, final int y,
                           final double lat, final double lon, final double width, final double length) {
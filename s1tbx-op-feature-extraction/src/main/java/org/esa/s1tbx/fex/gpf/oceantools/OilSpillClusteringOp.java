@@ -18,7 +18,6 @@ package org.esa.s1tbx.fex.gpf.oceantools;
 import com.bc.ceres.core.ProgressMonitor;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.MetadataElement;
-import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.gpf.Operator;
@@ -37,11 +36,16 @@ import org.esa.snap.engine_utilities.gpf.TileIndex;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * The oil spill clustering and discrimination operator. The pixels detected as oil spill area are first
  * clustered and then discriminated based on the size of the cluster.
+ * <p>
+ * The clusters of a tile are labelled with the ConnectedComponentLabeller. Clusters that already have the minimum
+ * size, or that do not reach the tile border, are decided from the tile alone. Only for the small clusters at the
+ * border is the source read around the tile, and searched until the cluster reaches the minimum size.
  */
 @OperatorMetadata(alias = "Oil-Spill-Clustering",
         category = "Radar/SAR Applications/Ocean Applications/Oil Spill Detection",
@@ -166,42 +170,16 @@ public class OilSpillClusteringOp extends Operator {
             final ProductData trgData = targetTile.getDataBuffer();
             //System.out.println("tx0 = " + tx0 + ", ty0 = " + ty0 + ", tw = " + tw + ", th = " + th);
 
-            final int x0 = Math.max(tx0 - minClusterSizeInPixels, 0);
-            final int y0 = Math.max(ty0 - minClusterSizeInPixels, 0);
-            final int w = Math.min(tw + 2 * minClusterSizeInPixels, sourceImageWidth);
-            final int h = Math.min(th + 2 * minClusterSizeInPixels, sourceImageHeight);
-            final Rectangle sourceTileRectangle = new Rectangle(x0, y0, w, h);
-            //System.out.println("x0 = " + x0 + ", y0 = " + y0 + ", w = " + w + ", h = " + h);
-
             final Band sourceBand = sourceProduct.getBand(targetBand.getName());
-            final Tile sourceTile = getSourceTile(sourceBand, sourceTileRectangle);
-            final ProductData srcData = sourceTile.getDataBuffer();
-            final int[][] pixelsScaned = new int[h][w];
-
-            final TileIndex srcIndex = new TileIndex(sourceTile);
+            final boolean[] clusters = getClusters(targetTileRectangle, sourceImageWidth, sourceImageHeight,
+                                                   minClusterSizeInPixels, rect -> readMask(sourceBand, rect));
 
             final int maxy = ty0 + th;
             final int maxx = tx0 + tw;
             for (int ty = ty0; ty < maxy; ty++) {
-
-                srcIndex.calculateStride(ty);
                 for (int tx = tx0; tx < maxx; tx++) {
-
-                    if (pixelsScaned[ty - y0][tx - x0] == 0 && srcData.getElemIntAt(srcIndex.getIndex(tx)) == 1) {
-
-                        final List<PixelPos> clusterPixels = new ArrayList<>();
-
-                        clustering(tx, ty, x0, y0, w, h, srcData, sourceTile, pixelsScaned, clusterPixels);
-
-                        if (clusterPixels.size() >= minClusterSizeInPixels) {
-                            for (PixelPos pixel : clusterPixels) {
-                                final int x = (int) pixel.x;
-                                final int y = (int) pixel.y;
-                                if (x >= tx0 && x < tx0 + tw && y >= ty0 && y < ty0 + th) {
-                                    trgData.setElemIntAt(targetTile.getDataBufferIndex(x, y), 1);
-                                }
-                            }
-                        }
+                    if (clusters[(ty - ty0) * tw + tx - tx0]) {
+                        trgData.setElemIntAt(targetTile.getDataBufferIndex(tx, ty), 1);
                     }
                 }
             }
@@ -211,58 +189,160 @@ public class OilSpillClusteringOp extends Operator {
     }
 
     /**
-     * Find pixels detected as target in a 3x3 window centered at a given point.
+     * Read the pixels detected as oil spill in a rectangle of the source band.
      *
-     * @param xc            The x coordinate of the given point.
-     * @param yc            The y coordinate of the given point.
-     * @param x0            The x coordinate for the upper left corner point of the source rectangle.
-     * @param y0            The y coordinate for the upper left corner point of the source rectangle.
-     * @param w             The width of the source rectangle.
-     * @param h             The height of the source rectangle.
-     * @param bitMaskData   The bit maks band data.
-     * @param bitMaskTile   The bit mask band tile.
-     * @param pixelsScaned  The binary array indicating which pixel in the tile has been scaned.
-     * @param clusterPixels The list of pixels in the cluster.
+     * @param sourceBand The bit mask band.
+     * @param rectangle  The rectangle to read.
+     * @return The detected pixels of the rectangle, row by row.
      */
-    private static void clustering(final int xc, final int yc, final int x0, final int y0, final int w, final int h,
-                                   final ProductData bitMaskData, final Tile bitMaskTile,
-                                   final int[][] pixelsScaned, final List<PixelPos> clusterPixels) {
-
-        final List<PixelPos> seeds = new ArrayList<>();
-        seeds.add(new PixelPos(xc, yc));
-        pixelsScaned[yc - y0][xc - x0] = 1;
-        clusterPixels.add(new PixelPos(xc, yc));
-
-        while (seeds.size() > 0) {
-            final List<PixelPos> newSeeds = new ArrayList<>();
-            for (PixelPos pixel : seeds) {
-                searchNeighbourhood(pixel, x0, y0, w, h, bitMaskData, bitMaskTile, pixelsScaned, clusterPixels, newSeeds);
+    private boolean[] readMask(final Band sourceBand, final Rectangle rectangle) {
+        final Tile sourceTile = getSourceTile(sourceBand, rectangle);
+        final ProductData srcData = sourceTile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(sourceTile);
+
+        final boolean[] mask = new boolean[rectangle.width * rectangle.height];
+        final int maxy = rectangle.y + rectangle.height;
+        final int maxx = rectangle.x + rectangle.width;
+        for (int y = rectangle.y; y < maxy; y++) {
+            srcIndex.calculateStride(y);
+            final int offset = (y - rectangle.y) * rectangle.width - rectangle.x;
+            for (int x = rectangle.x; x < maxx; x++) {
+                mask[offset + x] = srcData.getElemIntAt(srcIndex.getIndex(x)) == 1;
             }
-            seeds.clear();
-            seeds.addAll(newSeeds);
         }
+        return mask;
     }
 
-    private static void searchNeighbourhood(final PixelPos pixel, final int x0, final int y0, final int w, final int h,
-                                            final ProductData bitMaskData, final Tile bitMaskTile,
-                                            final int[][] pixelsScaned, final List<PixelPos> clusterPixels,
-                                            final List<PixelPos> newSeeds) {
+    /**
+     * Reads the pixels detected as oil spill in a rectangle of the image, row by row.
+     */
+    interface MaskReader {
+        boolean[] read(Rectangle rectangle);
+    }
+
+    /**
+     * Find the pixels of a tile that belong to clusters of at least the minimum size.
+     *
+     * @param tile        The tile rectangle.
+     * @param imageWidth  The width of the image.
+     * @param imageHeight The height of the image.
+     * @param minSize     The minimum cluster size in pixels.
+     * @param maskReader  The reader of the detected pixels.
+     * @return The pixels of the tile kept, row by row.
+     */
+    static boolean[] getClusters(final Rectangle tile, final int imageWidth, final int imageHeight,
+                                 final int minSize, final MaskReader maskReader) {
+
+        final int tx0 = tile.x;
+        final int ty0 = tile.y;
+        final int tw = tile.width;
+        final int th = tile.height;
+        final int maxy = ty0 + th;
+        final int maxx = tx0 + tw;
+
+        final ConnectedComponentLabeller.Labels labels =
+                ConnectedComponentLabeller.labelTile(tx0, ty0, tw, th, maskReader.read(tile), null);
+
+        final boolean[] keep = new boolean[labels.components.length];
+        final int[] seeds = new int[labels.components.length];
+        boolean undecided = false;
+        for (int i = 0; i < labels.labels.length; ++i) {
+            if (labels.labels[i] != 0 && seeds[labels.labels[i]] == 0) {
+                seeds[labels.labels[i]] = i + 1;
+            }
+        }
+        for (int l = 1; l < labels.components.length; ++l) {
+            final ConnectedComponentLabeller.Component cluster = labels.components[l];
+            if (cluster.getArea() >= minSize) {
+                keep[l] = true;
+            } else {
+                undecided |= cluster.getXMin() == tx0 && tx0 > 0 || cluster.getYMin() == ty0 && ty0 > 0 ||
+                        cluster.getXMax() == maxx - 1 && maxx < imageWidth ||
+                        cluster.getYMax() == maxy - 1 && maxy < imageHeight;
+            }
+        }
+
+        if (undecided) {
+            // small clusters at the tile border may continue in the neighbouring tiles
+            final int x0 = Math.max(tx0 - minSize, 0);
+            final int y0 = Math.max(ty0 - minSize, 0);
+            final int w = Math.min(maxx + minSize, imageWidth) - x0;
+            final int h = Math.min(maxy + minSize, imageHeight) - y0;
+            final boolean[] paddedMask = maskReader.read(new Rectangle(x0, y0, w, h));
+            final int[] pixelsScanned = new int[w * h];
+
+            for (int l = 1; l < labels.components.length; ++l) {
+                if (!keep[l]) {
+                    final int seed = seeds[l] - 1;
+                    keep[l] = reachesSize(l, tx0 + seed % tw - x0, ty0 + seed / tw - y0, w, h,
+                                          paddedMask, pixelsScanned, keep, minSize);
+                }
+            }
+        }
 
-        final int xc = (int) pixel.x;
-        final int yc = (int) pixel.y;
-        final int[] x = {xc - 1, xc, xc + 1, xc - 1, xc + 1, xc - 1, xc, xc + 1};
-        final int[] y = {yc - 1, yc - 1, yc - 1, yc, yc, yc + 1, yc + 1, yc + 1};
+        final boolean[] clusters = new boolean[tw * th];
+        for (int i = 0; i < clusters.length; ++i) {
+            clusters[i] = labels.labels[i] != 0 && keep[labels.labels[i]];
+        }
+        return clusters;
+    }
 
-        for (int i = 0; i < 8; i++) {
-            if (x[i] >= x0 && x[i] < x0 + w && y[i] >= y0 && y[i] < y0 + h &&
-                    pixelsScaned[y[i] - y0][x[i] - x0] == 0 &&
-                    bitMaskData.getElemIntAt(bitMaskTile.getDataBufferIndex(x[i], y[i])) == 1) {
+    /**
+     * Search the cluster of a given point until it has the given number of pixels.
+     *
+     * @param label         The label of the tile cluster of the point.
+     * @param xc            The x coordinate of the given point in the source rectangle.
+     * @param yc            The y coordinate of the given point in the source rectangle.
+     * @param w             The width of the source rectangle.
+     * @param h             The height of the source rectangle.
+     * @param mask          The detected pixels of the source rectangle.
+     * @param pixelsScanned The label of the search that reached each pixel of the source rectangle, 0 if none.
+     * @param keep          The result of the searches done for the other tile clusters.
+     * @param minSize       The number of pixels to reach.
+     * @return true if the cluster has at least minSize pixels.
+     */
+    private static boolean reachesSize(final int label, final int xc, final int yc, final int w, final int h,
+                                       final boolean[] mask, final int[] pixelsScanned, final boolean[] keep,
+                                       final int minSize) {
+
+        final int start = yc * w + xc;
+        if (pixelsScanned[start] != 0) {
+            // joined outside the tile to a cluster searched before
+            return keep[pixelsScanned[start]];
+        }
 
-                pixelsScaned[y[i] - y0][x[i] - x0] = 1;
-                clusterPixels.add(new PixelPos(x[i], y[i]));
-                newSeeds.add(new PixelPos(x[i], y[i]));
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = start;
+        pixelsScanned[start] = label;
+        int size = 1;
+
+        while (top > 0) {
+            final int k = stack[--top];
+            final int xk = k % w;
+            final int yk = k / w;
+            for (int y = Math.max(yk - 1, 0); y <= Math.min(yk + 1, h - 1); y++) {
+                for (int x = Math.max(xk - 1, 0); x <= Math.min(xk + 1, w - 1); x++) {
+                    final int i = y * w + x;
+                    if (pixelsScanned[i] == label || !mask[i]) {
+                        continue;
+                    }
+                    if (pixelsScanned[i] != 0) {
+                        // a search stopped early at the minimum size reached this cluster
+                        return true;
+                    }
+                    pixelsScanned[i] = label;
+                    if (++size >= minSize) {
+                        return true;
+                    }
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    }
+                    stack[top++] = i;
+                }
             }
         }
+        return false;
     }
 
     /**
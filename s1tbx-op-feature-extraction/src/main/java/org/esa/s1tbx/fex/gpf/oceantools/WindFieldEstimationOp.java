@@ -19,9 +19,9 @@ import Jama.Matrix;
 import com.bc.ceres.core.ProgressMonitor;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.collections.list.SynchronizedList;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.GeoCoding;
 import org.esa.snap.core.datamodel.GeoPos;
@@ -134,6 +134,8 @@ public class WindFieldEstimationOp extends Operator {
     private final HashMap<String, List<WindFieldRecord>> bandWindFieldRecord = new HashMap<>();
     private SimpleFeatureType windFeatureType;
 
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("Wind-Field-Estimation");
+
     private static final String VECTOR_NODE_NAME = "WindField";
     private static final String STYLE_FORMAT = "fill:#0000ff; fill-opacity:0.2; stroke:#ff0000; stroke-opacity:1.0; stroke-width:1.0; symbol:star";
 
@@ -616,45 +618,15 @@ public class WindFieldEstimationOp extends Operator {
     private static void perform2DFFT(final double[][] srcImage, final int xMin, final int xMax,
                                      final int yMin, final int yMax, final double[][] spec) {
 
-        // perform 1-D FFT to each row
         final int rowFFTSize = xMax - xMin + 1;
         final int colFFTSize = yMax - yMin + 1;
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(rowFFTSize);
-        final double[][] complexDataI = new double[colFFTSize][rowFFTSize];
-        final double[][] complexDataQ = new double[colFFTSize][rowFFTSize];
-        final double[] rowArray = new double[2 * rowFFTSize];
+        final double[] real = FFTEngine.getDoubleBuffer(0, colFFTSize * rowFFTSize);
+        final double[] complexData = FFTEngine.getDoubleBuffer(1, 2 * colFFTSize * rowFFTSize);
         for (int y = yMin; y <= yMax; y++) {
-            int k = 0;
-            for (int x = xMin; x <= xMax; x++) {
-                rowArray[k++] = srcImage[y][x];
-                rowArray[k++] = 0.0;
-            }
-            row_fft.complexForward(rowArray);
-            for (int c = 0; c < rowFFTSize; c++) {
-                complexDataI[y - yMin][c] = rowArray[c + c];
-                complexDataQ[y - yMin][c] = rowArray[c + c + 1];
-            }
-        }
-        // dumpData("complexDataI after row FFT", complexDataI);
-        // dumpData("complexDataQ after row FFT", complexDataQ);
-
-        // perform 1-D FFT to each column
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(colFFTSize);
-        final double[] colArray = new double[2 * colFFTSize];
-        for (int x = xMin; x <= xMax; x++) {
-            int k = 0;
-            for (int y = yMin; y <= yMax; y++) {
-                colArray[k++] = complexDataI[y - yMin][x - xMin];
-                colArray[k++] = complexDataQ[y - yMin][x - xMin];
-            }
-            col_fft.complexForward(colArray);
-            for (int r = 0; r < colFFTSize; r++) {
-                complexDataI[r][x - xMin] = colArray[r + r];
-                complexDataQ[r][x - xMin] = colArray[r + r + 1];
-            }
+            System.arraycopy(srcImage[y], xMin, real, (y - yMin) * rowFFTSize, rowFFTSize);
         }
-        // dumpData("complexDataI after col FFT", complexDataI);
-        // dumpData("complexDataQ after col FFT", complexDataQ);
+
+        fftEngine.realForward2D(real, colFFTSize, rowFFTSize, complexData);
 
         // get spectrum magnitude and perform fftshift
         final int secondHalfColFFTSize = colFFTSize / 2;
@@ -662,25 +634,23 @@ public class WindFieldEstimationOp extends Operator {
         final int secondHalfRowFFTSize = rowFFTSize / 2;
         final int firstHalfRowFFTSize = rowFFTSize - secondHalfRowFFTSize;
         int rr, cc;
-        for (int y = yMin; y <= yMax; y++) {
-            int r = y - yMin;
+        for (int r = 0; r < colFFTSize; r++) {
             if (r < firstHalfColFFTSize) {
                 rr = r + secondHalfColFFTSize;
             } else {
                 rr = r - firstHalfColFFTSize;
             }
 
-            for (int x = xMin; x <= xMax; x++) {
-                int c = x - xMin;
+            int k = 2 * r * rowFFTSize;
+            for (int c = 0; c < rowFFTSize; c++, k += 2) {
                 if (c < firstHalfRowFFTSize) {
                     cc = c + secondHalfRowFFTSize;
                 } else {
                     cc = c - firstHalfRowFFTSize;
                 }
-                spec[rr][cc] = complexDataI[r][c] * complexDataI[r][c] + complexDataQ[r][c] * complexDataQ[r][c];
+                spec[rr][cc] = complexData[k] * complexData[k] + complexData[k + 1] * complexData[k + 1];
             }
         }
-        // dumpData("spec", spec);
     }
 
     private static RenderedImage createRenderedImage(double[] array, int width, int height) {
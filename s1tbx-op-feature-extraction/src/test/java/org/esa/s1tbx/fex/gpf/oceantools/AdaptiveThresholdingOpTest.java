@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.fex.gpf.oceantools;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the thresholds of the K-distribution table and of the chi2 shortcut with those found by computeT for
+ * the distribution itself.
+ */
+public class AdaptiveThresholdingOpTest {
+
+    private static final int numLooks = 3;
+    private static final double pfa = 3.0;
+    private static final double mu = 0.05;
+
+    private static AdaptiveThresholdingOp createOperator() {
+        final AdaptiveThresholdingOp op = new AdaptiveThresholdingOp();
+        op.setKDistributionParameters(numLooks, pfa);
+        return op;
+    }
+
+    @Test
+    public void testKThresholdOnGrid() {
+        final AdaptiveThresholdingOp op = createOperator();
+
+        // nu = 1 is a row of the table
+        final double nu = 1.0;
+        final double expected = mu * op.computeT(op.getScaledKDistribution(1.0, nu));
+        assertTrue(expected > 0 && expected < Double.MAX_VALUE);
+        assertEquals(expected, op.getKThreshold(mu, nu), 1e-9 * expected);
+    }
+
+    @Test
+    public void testKThresholdBetweenGrid() {
+        final AdaptiveThresholdingOp op = createOperator();
+
+        // nu = 1.5 is between the rows for 10^(3/20) and 10^(4/20), and is interpolated
+        final double nu = 1.5;
+        final double expected = mu * op.computeT(op.getScaledKDistribution(1.0, nu));
+        assertTrue(expected > 0 && expected < Double.MAX_VALUE);
+        assertEquals(expected, op.getKThreshold(mu, nu), 1e-2 * expected);
+    }
+
+    @Test
+    public void testChi2Threshold() {
+        final AdaptiveThresholdingOp op = createOperator();
+
+        final double sigma = 0.3;
+        final double expected = op.computeT(op.new Chi2DistributionPDF(numLooks, sigma));
+        assertTrue(expected > 0 && expected < Double.MAX_VALUE);
+        assertEquals(expected, op.getChi2Threshold(sigma), 1e-6 * expected);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.fex.gpf.oceantools;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CFARStatisticsTest {
+
+    private static final int width = 40;
+    private static final int height = 30;
+    private static final double noDataValue = 0.0;
+
+    private final float[] data = new float[width * height];
+
+    public CFARStatisticsTest() {
+        // sea clutter with a bright target and some pixels without data
+        final Random random = new Random(7);
+        for (int i = 0; i < data.length; ++i) {
+            final double clutter = 0.02 + 0.01 * random.nextGaussian() * random.nextGaussian();
+            data[i] = random.nextInt(10) == 0 ? 0.0f : (float) clutter;
+        }
+        data[15 * width + 20] = 1.5f;
+    }
+
+    @Test
+    public void testTargetWindow() {
+        final CFARStatistics statistics = new CFARStatistics(data, width, height, noDataValue);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int area = 0, count = 0;
+                double sum = 0;
+                for (int yy = Math.max(y - 2, 0); yy <= Math.min(y + 2, height - 1); ++yy) {
+                    for (int xx = Math.max(x - 2, 0); xx <= Math.min(x + 2, width - 1); ++xx) {
+                        ++area;
+                        if (data[yy * width + xx] != noDataValue) {
+                            ++count;
+                            sum += data[yy * width + xx];
+                        }
+                    }
+                }
+                assertEquals(area, statistics.getArea(x, y, 2));
+                assertEquals(count, statistics.getCount(x, y, 2));
+                if (count > 0) {
+                    assertEquals(sum / count, statistics.getMean(x, y, 2), 1e-12);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBackgroundRing() {
+        final CFARStatistics statistics = new CFARStatistics(data, width, height, noDataValue);
+        final double[] stats = new double[3];
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                int n = 0;
+                double sum = 0;
+                for (int yy = Math.max(y - 9, 0); yy <= Math.min(y + 9, height - 1); ++yy) {
+                    for (int xx = Math.max(x - 9, 0); xx <= Math.min(x + 9, width - 1); ++xx) {
+                        final double val = data[yy * width + xx];
+                        if ((Math.abs(yy - y) > 4 || Math.abs(xx - x) > 4) && val != noDataValue) {
+                            sum += val;
+                            ++n;
+                        }
+                    }
+                }
+                final double mean = sum / n;
+                double var = 0;
+                for (int yy = Math.max(y - 9, 0); yy <= Math.min(y + 9, height - 1); ++yy) {
+                    for (int xx = Math.max(x - 9, 0); xx <= Math.min(x + 9, width - 1); ++xx) {
+                        final double val = data[yy * width + xx];
+                        if ((Math.abs(yy - y) > 4 || Math.abs(xx - x) > 4) && val != noDataValue) {
+                            var += (val - mean) * (val - mean);
+                        }
+                    }
+                }
+
+                assertTrue(statistics.getRingStatistics(x, y, 9, 4, stats));
+                assertEquals(mean, stats[0], 1e-12);
+                assertEquals(Math.sqrt(var / n), stats[2], 1e-12);
+                assertEquals(var / n + mean * mean, stats[1], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testGuardCoversWindow() {
+        final CFARStatistics statistics = new CFARStatistics(data, width, height, noDataValue);
+        assertFalse("a guard window covering the background window leaves no ring",
+                statistics.getRingStatistics(10, 10, 3, 5, new double[3]));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.fex.gpf.oceantools;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConnectedComponentLabellerTest {
+
+    private static final int width = 100;
+    private static final int height = 90;
+    private static final int tileWidth = 16;
+    private static final int tileHeight = 20;
+
+    private final boolean[] mask = new boolean[width * height];
+    private final double[] values = new double[width * height];
+
+    public ConnectedComponentLabellerTest() {
+        // random blobs and lines, some of them across several tiles
+        final Random random = new Random(5);
+        for (int n = 0; n < 60; ++n) {
+            final int cx = random.nextInt(width);
+            final int cy = random.nextInt(height);
+            final int r = 1 + random.nextInt(4);
+            for (int y = Math.max(cy - r, 0); y <= Math.min(cy + r, height - 1); ++y) {
+                for (int x = Math.max(cx - r, 0); x <= Math.min(cx + r, width - 1); ++x) {
+                    if ((x - cx) * (x - cx) + (y - cy) * (y - cy) <= r * r) {
+                        mask[y * width + x] = true;
+                    }
+                }
+            }
+        }
+        for (int k = 0; k < 30; ++k) {
+            mask[(5 + k) * width + 30 + k] = true;  // diagonal line crossing tile corners
+        }
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextDouble();
+        }
+    }
+
+    @Test
+    public void testTilesInAnyOrder() {
+        final List<String> expected = new ArrayList<>();
+        final ConnectedComponentLabeller.Labels labels =
+                ConnectedComponentLabeller.labelTile(0, 0, width, height, mask, values);
+        for (int l = 1; l < labels.components.length; ++l) {
+            expected.add(describe(labels.components[l]));
+        }
+        Collections.sort(expected);
+
+        final List<Rectangle> tiles = new ArrayList<>();
+        for (int y = 0; y < height; y += tileHeight) {
+            for (int x = 0; x < width; x += tileWidth) {
+                tiles.add(new Rectangle(x, y, Math.min(tileWidth, width - x), Math.min(tileHeight, height - y)));
+            }
+        }
+
+        for (long seed = 0; seed < 5; ++seed) {
+            Collections.shuffle(tiles, new Random(seed));
+            final List<String> objects = new ArrayList<>();
+            final ConnectedComponentLabeller labeller = new ConnectedComponentLabeller(
+                    width, height, tileWidth, tileHeight, object -> objects.add(describe(object)));
+            for (Rectangle rect : tiles) {
+                labeller.addTile(rect, getTile(mask, rect), getTile(values, rect));
+            }
+            labeller.addTile(tiles.get(0), getTile(mask, tiles.get(0)), null);
+
+            Collections.sort(objects);
+            assertEquals(expected, objects);
+            assertEquals(0, labeller.getNumOpenBorders());
+        }
+    }
+
+    @Test
+    public void testLabelTile() {
+        // reference labelling by flood fill
+        final int[] reference = new int[width * height];
+        int numObjects = 0;
+        for (int i = 0; i < mask.length; ++i) {
+            if (mask[i] && reference[i] == 0) {
+                ++numObjects;
+                final List<Integer> stack = new ArrayList<>();
+                stack.add(i);
+                reference[i] = numObjects;
+                while (!stack.isEmpty()) {
+                    final int p = stack.remove(stack.size() - 1);
+                    for (int dy = -1; dy <= 1; ++dy) {
+                        for (int dx = -1; dx <= 1; ++dx) {
+                            final int x = p % width + dx;
+                            final int y = p / width + dy;
+                            if (x >= 0 && y >= 0 && x < width && y < height &&
+                                    mask[y * width + x] && reference[y * width + x] == 0) {
+                                reference[y * width + x] = numObjects;
+                                stack.add(y * width + x);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        final ConnectedComponentLabeller.Labels labels =
+                ConnectedComponentLabeller.labelTile(0, 0, width, height, mask, null);
+        assertEquals(numObjects + 1, labels.components.length);
+        final int[] map = new int[numObjects + 1];
+        for (int i = 0; i < mask.length; ++i) {
+            if (reference[i] != 0) {
+                if (map[reference[i]] == 0) {
+                    map[reference[i]] = labels.labels[i];
+                }
+                assertEquals(map[reference[i]], labels.labels[i]);
+            } else {
+                assertEquals(0, labels.labels[i]);
+            }
+        }
+    }
+
+    private static String describe(final ConnectedComponentLabeller.Component c) {
+        return c.getArea() + " " + c.getXMin() + " " + c.getXMax() + " " + c.getYMin() + " " + c.getYMax() + " " +
+                Math.round(c.getMeanIntensity() * 1e9);
+    }
+
+    private static boolean[] getTile(final boolean[] image, final Rectangle rect) {
+        final boolean[] tile = new boolean[rect.width * rect.height];
+        for (int y = 0; y < rect.height; ++y) {
+            System.arraycopy(image, (rect.y + y) * width + rect.x, tile, y * rect.width, rect.width);
+        }
+        return tile;
+    }
+
+    private static double[] getTile(final double[] image, final Rectangle rect) {
+        final double[] tile = new double[rect.width * rect.height];
+        for (int y = 0; y < rect.height; ++y) {
+            System.arraycopy(image, (rect.y + y) * width + rect.x, tile, y * rect.width, rect.width);
+        }
+        return tile;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.fex.gpf.oceantools;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OilSpillClusteringOpTest {
+
+    private static final int width = 120;
+    private static final int height = 100;
+    private static final int tileWidth = 32;
+    private static final int tileHeight = 24;
+    private static final int minSize = 12;
+    private static final int lineRow = 4 * tileHeight - 3;
+
+    private final boolean[] mask = new boolean[width * height];
+
+    public OilSpillClusteringOpTest() {
+        // small random clusters, many of them across tile borders
+        final Random random = new Random(11);
+        for (int n = 0; n < 150; ++n) {
+            final int cx = random.nextInt(width);
+            final int cy = random.nextInt(height);
+            final int size = 1 + random.nextInt(2 * minSize);
+            int x = cx, y = cy;
+            for (int k = 0; k < size; ++k) {
+                mask[y * width + x] = true;
+                x = Math.min(Math.max(x + random.nextInt(3) - 1, 0), width - 1);
+                y = Math.min(Math.max(y + random.nextInt(3) - 1, 0), height - 1);
+            }
+        }
+        // a 4x4 cluster kept and a 3x3 cluster removed, both split over four tiles
+        setBlock(tileWidth - 2, tileHeight - 2, 4);
+        setBlock(3 * tileWidth - 1, 2 * tileHeight - 1, 3);
+        // a line with only a few pixels in the tiles at its ends, running past their padded source
+        for (int x = tileWidth - 2; x <= 2 * tileWidth + 2; ++x) {
+            mask[lineRow * width + x] = true;
+        }
+    }
+
+    private void setBlock(final int x0, final int y0, final int size) {
+        for (int y = y0 - 1; y <= y0 + size; ++y) {
+            for (int x = x0 - 1; x <= x0 + size; ++x) {
+                mask[y * width + x] = x >= x0 && x < x0 + size && y >= y0 && y < y0 + size;
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsPaddedFloodFill() {
+        final boolean[] expected = new boolean[width * height];
+        final boolean[] clusters = new boolean[width * height];
+        for (int ty0 = 0; ty0 < height; ty0 += tileHeight) {
+            for (int tx0 = 0; tx0 < width; tx0 += tileWidth) {
+                final Rectangle tile = new Rectangle(tx0, ty0,
+                        Math.min(tileWidth, width - tx0), Math.min(tileHeight, height - ty0));
+                paddedFloodFill(tile, expected);
+
+                final boolean[] tileClusters = OilSpillClusteringOp.getClusters(tile, width, height, minSize,
+                        this::getTile);
+                for (int y = 0; y < tile.height; ++y) {
+                    System.arraycopy(tileClusters, y * tile.width, clusters, (tile.y + y) * width + tile.x, tile.width);
+                }
+            }
+        }
+
+        int numKept = 0, numRemoved = 0;
+        for (int i = 0; i < mask.length; ++i) {
+            assertEquals("at " + i % width + ',' + i / width, expected[i], clusters[i]);
+            numKept += clusters[i] ? 1 : 0;
+            numRemoved += mask[i] && !clusters[i] ? 1 : 0;
+        }
+        assertTrue(numKept > 0 && numRemoved > 0);
+
+        assertTrue("4x4 block kept, upper left tile", clusters[(tileHeight - 1) * width + tileWidth - 1]);
+        assertTrue("4x4 block kept, lower right tile", clusters[tileHeight * width + tileWidth]);
+        assertFalse("3x3 block removed, upper left tile", clusters[(2 * tileHeight - 1) * width + 3 * tileWidth - 1]);
+        assertFalse("3x3 block removed, lower right tile", clusters[2 * tileHeight * width + 3 * tileWidth]);
+        assertTrue("line kept, left end", clusters[lineRow * width + tileWidth - 2]);
+        assertTrue("line kept, right end", clusters[lineRow * width + 2 * tileWidth + 2]);
+    }
+
+    /**
+     * The clustering OilSpillClusteringOp did before the tile labelling: each detected pixel of the tile is grown
+     * into its cluster over the source padded by the minimum size, and the cluster is kept if it has at least the
+     * minimum size there.
+     */
+    private void paddedFloodFill(final Rectangle tile, final boolean[] result) {
+        final int x0 = Math.max(tile.x - minSize, 0);
+        final int y0 = Math.max(tile.y - minSize, 0);
+        final int w = Math.min(tile.width + 2 * minSize, width - x0);
+        final int h = Math.min(tile.height + 2 * minSize, height - y0);
+        final boolean[][] pixelsScanned = new boolean[h][w];
+
+        for (int ty = tile.y; ty < tile.y + tile.height; ++ty) {
+            for (int tx = tile.x; tx < tile.x + tile.width; ++tx) {
+                if (pixelsScanned[ty - y0][tx - x0] || !mask[ty * width + tx]) {
+                    continue;
+                }
+                final List<int[]> clusterPixels = new ArrayList<>();
+                List<int[]> seeds = new ArrayList<>();
+                seeds.add(new int[]{tx, ty});
+                clusterPixels.add(new int[]{tx, ty});
+                pixelsScanned[ty - y0][tx - x0] = true;
+                while (!seeds.isEmpty()) {
+                    final List<int[]> newSeeds = new ArrayList<>();
+                    for (int[] pixel : seeds) {
+                        for (int y = pixel[1] - 1; y <= pixel[1] + 1; ++y) {
+                            for (int x = pixel[0] - 1; x <= pixel[0] + 1; ++x) {
+                                if (x >= x0 && x < x0 + w && y >= y0 && y < y0 + h &&
+                                        !pixelsScanned[y - y0][x - x0] && mask[y * width + x]) {
+                                    pixelsScanned[y - y0][x - x0] = true;
+                                    clusterPixels.add(new int[]{x, y});
+                                    newSeeds.add(new int[]{x, y});
+                                }
+                            }
+                        }
+                    }
+                    seeds = newSeeds;
+                }
+
+                if (clusterPixels.size() >= minSize) {
+                    for (int[] pixel : clusterPixels) {
+                        if (tile.contains(pixel[0], pixel[1])) {
+                            result[pixel[1] * width + pixel[0]] = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean[] getTile(final Rectangle rect) {
+        final boolean[] tile = new boolean[rect.width * rect.height];
+        for (int y = 0; y < rect.height; ++y) {
+            System.arraycopy(mask, (rect.y + y) * width + rect.x, tile, y * rect.width, rect.width);
+        }
+        return tile;
+    }
+}
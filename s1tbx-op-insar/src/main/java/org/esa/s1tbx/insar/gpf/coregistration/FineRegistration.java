@@ -15,8 +15,8 @@
  */
 package org.esa.s1tbx.insar.gpf.coregistration;
 
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.snap.engine_utilities.eo.Constants;
 
 /**
@@ -32,6 +32,8 @@ public class FineRegistration {
     private final static double CGOLD = 0.3819660; // CGOLD is the golden ratio;
     private final static double ZEPS = 1.0e-10;    // ZEPS is a small number that protects against trying to achieve fractional
 
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("FineRegistration");
+
     /**
      * Minimize coherence as a function of row shift and column shift using
      * Powell's method. The 1-D minimization subroutine linmin() is used. p
@@ -502,7 +504,6 @@ public class FineRegistration {
 
         final double[] rowArray = new double[compleData.fTwoWindowWidth];
         final double[] rowPhaseArray = new double[compleData.fTwoWindowWidth];
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(compleData.fWindowWidth);
 
         int signalLength = rowArray.length / 2;
         computeShiftPhaseArray(xShift, signalLength, rowPhaseArray);
@@ -515,9 +516,9 @@ public class FineRegistration {
                 rowArray[k++] = sIQ[c];
             }
 
-            row_fft.complexForward(rowArray);
+            fftEngine.complexForward(rowArray, 0, signalLength);
             multiplySpectrumByShiftFactor(rowArray, rowPhaseArray);
-            row_fft.complexInverse(rowArray, true);
+            fftEngine.complexInverse(rowArray, 0, signalLength, true);
             for (int c = 0; c < compleData.fWindowWidth; c++) {
                 sIIdata[r][c] = rowArray[2 * c];
                 sIQdata[r][c] = rowArray[2 * c + 1];
@@ -526,7 +527,6 @@ public class FineRegistration {
 
         final double[] colArray = new double[compleData.fTwoWindowHeight];
         final double[] colPhaseArray = new double[compleData.fTwoWindowHeight];
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(compleData.fWindowHeight);
 
         signalLength = colArray.length / 2;
         computeShiftPhaseArray(yShift, signalLength, colPhaseArray);
@@ -537,9 +537,9 @@ public class FineRegistration {
                 colArray[k++] = sIQdata[r][c];
             }
 
-            col_fft.complexForward(colArray);
+            fftEngine.complexForward(colArray, 0, signalLength);
             multiplySpectrumByShiftFactor(colArray, colPhaseArray);
-            col_fft.complexInverse(colArray, true);
+            fftEngine.complexInverse(colArray, 0, signalLength, true);
             for (int r = 0; r < compleData.fWindowHeight; r++) {
                 sIIdata[r][c] = colArray[2 * r];
                 sIQdata[r][c] = colArray[2 * r + 1];
@@ -590,7 +590,6 @@ public class FineRegistration {
 
         final double[] rowArray = new double[complexData.fTwoWindowWidth];
         final double[] rowPhaseArray = new double[complexData.fTwoWindowWidth];
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(complexData.fWindowWidth);
 
         int signalLength = rowArray.length / 2;
         computeShiftPhaseArray(xShift, signalLength, rowPhaseArray);
@@ -603,9 +602,9 @@ public class FineRegistration {
                 rowArray[k++] = sIQ[c];
             }
 
-            row_fft.complexForward(rowArray);
+            fftEngine.complexForward(rowArray, 0, signalLength);
             multiplySpectrumByShiftFactor(rowArray, rowPhaseArray);
-            row_fft.complexInverse(rowArray, true);
+            fftEngine.complexInverse(rowArray, 0, signalLength, true);
             for (int c = 0; c < complexData.fWindowWidth; c++) {
                 tgtI[r][c] = rowArray[2 * c];
                 tgtQ[r][c] = rowArray[2 * c + 1];
@@ -614,7 +613,6 @@ public class FineRegistration {
 
         final double[] colArray = new double[complexData.fTwoWindowHeight];
         final double[] colPhaseArray = new double[complexData.fTwoWindowHeight];
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(complexData.fWindowHeight);
 
         signalLength = colArray.length / 2;
         computeShiftPhaseArray(yShift, signalLength, colPhaseArray);
@@ -625,9 +623,9 @@ public class FineRegistration {
                 colArray[k++] = tgtQ[r][c];
             }
 
-            col_fft.complexForward(colArray);
+            fftEngine.complexForward(colArray, 0, signalLength);
             multiplySpectrumByShiftFactor(colArray, colPhaseArray);
-            col_fft.complexInverse(colArray, true);
+            fftEngine.complexInverse(colArray, 0, signalLength, true);
             for (int r = 0; r < complexData.fWindowHeight; r++) {
                 tgtI[r][c] = colArray[2 * r];
                 tgtQ[r][c] = colArray[2 * r + 1];
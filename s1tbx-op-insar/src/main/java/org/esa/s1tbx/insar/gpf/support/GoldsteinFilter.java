@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.insar.gpf.support;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
+import org.esa.snap.runtime.Config;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Goldstein phase filter of a complex image, computed with overlapping FFTSize x FFTSize patches.
+ * <p>
+ * The patches are placed every FFTSize / 4 pixels. The spectrum of each patch is weighted by its smoothed power
+ * spectrum to the power alpha, and the filtered patches are added with triangular weights. The source data of a
+ * region is read once into flat buffers and filtered row of patches by row of patches, with the FFT buffers of the
+ * thread. The patches extending beyond a tile are also needed by the neighbouring tiles, so they are kept in a cache
+ * bounded by bytes and filtered only once. The filter runs in double precision or, optionally, in float precision.
+ */
+public final class GoldsteinFilter {
+
+    private static final long MAX_CACHE_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.insar.goldsteinCacheSizeMB", 64L) * 1024L * 1024L;
+
+    private static final float[] NO_DATA_PATCH = new float[0];
+
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("GoldsteinPhaseFiltering");
+
+    private final int fftSize;
+    private final int stepSize;
+    private final int halfWindowSize;
+    private final double alpha;
+    private final boolean singlePrecision;
+    private final double[] weight;
+
+    private final Cache<PatchKey, float[]> patchCache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHE_BYTES)
+            .weigher((PatchKey key, float[] patch) -> patch.length * 4 + 64)
+            .build();
+
+    /**
+     * @param fftSize         patch size
+     * @param windowSize      size of the window smoothing the power spectrum
+     * @param alpha           filter exponent
+     * @param singlePrecision compute the FFTs in float precision
+     */
+    public GoldsteinFilter(final int fftSize, final int windowSize, final double alpha, final boolean singlePrecision) {
+        this.fftSize = fftSize;
+        this.stepSize = fftSize / 4;
+        this.halfWindowSize = windowSize / 2;
+        this.alpha = alpha;
+        this.singlePrecision = singlePrecision;
+
+        final int halfFFTSize = fftSize / 2;
+        weight = new double[fftSize];
+        for (int i = 0; i < fftSize; ++i) {
+            weight[i] = 1 - Math.abs(i - halfFFTSize + 0.5) / halfFFTSize;
+        }
+    }
+
+    /**
+     * Source data of a region of the image, row by row.
+     */
+    public static final class Region {
+        final String bandName;
+        final int x0, y0, width, height;
+        final float[] i, q;
+        final double noDataValue;
+
+        /**
+         * @param bandName    identifies the image for the patch cache
+         * @param x0          first column of the region in the image
+         * @param y0          first line of the region in the image
+         * @param width       region width
+         * @param height      region height
+         * @param i           real parts
+         * @param q           imaginary parts
+         * @param noDataValue no data value of the real parts
+         */
+        public Region(final String bandName, final int x0, final int y0, final int width, final int height,
+                      final float[] i, final float[] q, final double noDataValue) {
+            this.bandName = bandName;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.height = height;
+            this.i = i;
+            this.q = q;
+            this.noDataValue = noDataValue;
+        }
+    }
+
+    /**
+     * Filter a tile. The patches start at the origin of the source region and step through it, up to the last
+     * patch within the region and the image.
+     *
+     * @param src         source data around the tile
+     * @param imageWidth  image width
+     * @param imageHeight image height
+     * @param x0          first column of the tile
+     * @param y0          first line of the tile
+     * @param w           tile width
+     * @param h           tile height
+     * @param iFiltered   receives the w x h filtered real parts
+     * @param qFiltered   receives the w x h filtered imaginary parts
+     * @throws Exception if the filtering of a cached patch fails
+     */
+    public void filter(final Region src, final int imageWidth, final int imageHeight,
+                       final int x0, final int y0, final int w, final int h,
+                       final float[] iFiltered, final float[] qFiltered) throws Exception {
+
+        final int syMax = Math.min(src.y0 + src.height - fftSize, imageHeight - fftSize);
+        final int sxMax = Math.min(src.x0 + src.width - fftSize, imageWidth - fftSize);
+        final float[] patch = new float[2 * fftSize * fftSize];
+
+        for (int y = src.y0; y <= syMax; y += stepSize) {
+            final boolean sharedRow = y < y0 || y + fftSize > y0 + h;
+            for (int x = src.x0; x <= sxMax; x += stepSize) {
+                final float[] filtered;
+                if (sharedRow || x < x0 || x + fftSize > x0 + w) {
+                    filtered = getSharedPatch(src, x, y);
+                } else {
+                    filtered = filterPatch(src, x, y, patch) ? patch : NO_DATA_PATCH;
+                }
+                if (filtered != NO_DATA_PATCH) {
+                    addPatch(filtered, x, y, x0, y0, w, h, iFiltered, qFiltered);
+                }
+            }
+        }
+    }
+
+    private float[] getSharedPatch(final Region src, final int x, final int y) throws Exception {
+        try {
+            return patchCache.get(new PatchKey(src.bandName, x, y), () -> {
+                final float[] patch = new float[2 * fftSize * fftSize];
+                return filterPatch(src, x, y, patch) ? patch : NO_DATA_PATCH;
+            });
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Filter the patch at (x, y).
+     *
+     * @param patch receives the filtered real and imaginary parts, interleaved row by row. Pixels without data
+     *              are set to 0
+     * @return false if the patch has no data
+     */
+    private boolean filterPatch(final Region src, final int x, final int y, final float[] patch) {
+
+        final int n = fftSize * fftSize;
+        final double[] pwrSpec = FFTEngine.getDoubleBuffer(1, n);
+        final double[] fltSpec = FFTEngine.getDoubleBuffer(2, n);
+
+        // the imaginary parts are transformed as real parts and the real parts as imaginary parts
+        if (singlePrecision) {
+            final float[] data = FFTEngine.getFloatBuffer(0, 2 * n);
+            if (!loadPatch(src, x, y, data)) {
+                return false;
+            }
+            fftEngine.complexForward2D(data, fftSize, fftSize);
+            for (int k = 0; k < n; ++k) {
+                final double re = data[2 * k], im = data[2 * k + 1];
+                pwrSpec[k] = Math.sqrt(re * re + im * im);
+            }
+            getFilteredPowerSpectrum(pwrSpec, fltSpec, src.noDataValue);
+            for (int k = 0; k < n; ++k) {
+                data[2 * k] *= fltSpec[k];
+                data[2 * k + 1] *= fltSpec[k];
+            }
+            fftEngine.complexInverse2D(data, fftSize, fftSize, false);
+            for (int k = 0; k < n; ++k) {
+                patch[2 * k] = data[2 * k + 1];
+                patch[2 * k + 1] = data[2 * k];
+            }
+        } else {
+            final double[] data = FFTEngine.getDoubleBuffer(0, 2 * n);
+            if (!loadPatch(src, x, y, data)) {
+                return false;
+            }
+            fftEngine.complexForward2D(data, fftSize, fftSize);
+            for (int k = 0; k < n; ++k) {
+                final double re = data[2 * k], im = data[2 * k + 1];
+                pwrSpec[k] = Math.sqrt(re * re + im * im);
+            }
+            getFilteredPowerSpectrum(pwrSpec, fltSpec, src.noDataValue);
+            for (int k = 0; k < n; ++k) {
+                data[2 * k] *= fltSpec[k];
+                data[2 * k + 1] *= fltSpec[k];
+            }
+            fftEngine.complexInverse2D(data, fftSize, fftSize, false);
+            for (int k = 0; k < n; ++k) {
+                patch[2 * k] = (float) data[2 * k + 1];
+                patch[2 * k + 1] = (float) data[2 * k];
+            }
+        }
+
+        // pixels without data do not contribute
+        for (int r = 0; r < fftSize; ++r) {
+            final int offset = (y - src.y0 + r) * src.width + x - src.x0;
+            for (int c = 0; c < fftSize; ++c) {
+                if (src.i[offset + c] == src.noDataValue) {
+                    final int k = 2 * (r * fftSize + c);
+                    patch[k] = 0;
+                    patch[k + 1] = 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean loadPatch(final Region src, final int x, final int y, final double[] data) {
+        boolean allNoData = true;
+        int k = 0;
+        for (int r = 0; r < fftSize; ++r) {
+            final int offset = (y - src.y0 + r) * src.width + x - src.x0;
+            for (int c = 0; c < fftSize; ++c) {
+                final float i = src.i[offset + c];
+                if (i != src.noDataValue) {
+                    allNoData = false;
+                }
+                data[k++] = src.q[offset + c];
+                data[k++] = i;
+            }
+        }
+        return !allNoData;
+    }
+
+    private boolean loadPatch(final Region src, final int x, final int y, final float[] data) {
+        boolean allNoData = true;
+        int k = 0;
+        for (int r = 0; r < fftSize; ++r) {
+            final int offset = (y - src.y0 + r) * src.width + x - src.x0;
+            for (int c = 0; c < fftSize; ++c) {
+                final float i = src.i[offset + c];
+                if (i != src.noDataValue) {
+                    allNoData = false;
+                }
+                data[k++] = src.q[offset + c];
+                data[k++] = i;
+            }
+        }
+        return !allNoData;
+    }
+
+    /**
+     * Mean of the power spectrum over the smoothing window, clipped at the borders and leaving out the values
+     * equal to the no data value, to the power alpha. The window sums are computed along the rows and then along
+     * the columns.
+     */
+    private void getFilteredPowerSpectrum(final double[] pwrSpec, final double[] fltSpec, final double noDataValue) {
+
+        final int size = fftSize;
+        final double[] rowSum = FFTEngine.getDoubleBuffer(3, 2 * size * size);
+        final int countOffset = size * size;
+
+        for (int r = 0; r < size; ++r) {
+            final int offset = r * size;
+            for (int c = 0; c < size; ++c) {
+                final int iMin = Math.max(0, c - halfWindowSize);
+                final int iMax = Math.min(size - 1, c + halfWindowSize);
+                double sum = 0;
+                int k = 0;
+                for (int i = iMin; i <= iMax; ++i) {
+                    final double p = pwrSpec[offset + i];
+                    if (p != noDataValue) {
+                        sum += p;
+                        k++;
+                    }
+                }
+                rowSum[offset + c] = sum;
+                rowSum[countOffset + offset + c] = k;
+            }
+        }
+
+        for (int r = 0; r < size; ++r) {
+            final int jMin = Math.max(0, r - halfWindowSize);
+            final int jMax = Math.min(size - 1, r + halfWindowSize);
+            for (int c = 0; c < size; ++c) {
+                double sum = 0;
+                double k = 0;
+                for (int j = jMin; j <= jMax; ++j) {
+                    sum += rowSum[j * size + c];
+                    k += rowSum[countOffset + j * size + c];
+                }
+                fltSpec[r * size + c] = k != 0 ? FastMath.pow(sum / k, alpha) : 0;
+            }
+        }
+    }
+
+    private void addPatch(final float[] patch, final int x, final int y,
+                          final int x0, final int y0, final int w, final int h,
+                          final float[] iFiltered, final float[] qFiltered) {
+
+        final int xSt = Math.max(x, x0);
+        final int ySt = Math.max(y, y0);
+        final int xEd = Math.min(x + fftSize, x0 + w);
+        final int yEd = Math.min(y + fftSize, y0 + h);
+        for (int yy = ySt; yy < yEd; yy++) {
+            final int yi = yy - y;
+            final int yw = (yy - y0) * w - x0;
+            final double weightY = weight[yi];
+            int k = 2 * (yi * fftSize + xSt - x);
+            for (int xx = xSt; xx < xEd; xx++, k += 2) {
+                final double wgt = weight[xx - x] * weightY;
+                iFiltered[yw + xx] += patch[k] * wgt;
+                qFiltered[yw + xx] += patch[k + 1] * wgt;
+            }
+        }
+    }
+
+    private static final class PatchKey {
+        private final String bandName;
+        private final int x, y;
+
+        PatchKey(final String bandName, final int x, final int y) {
+            this.bandName = bandName;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PatchKey)) return false;
+            final PatchKey that = (PatchKey) o;
+            return x == that.x && y == that.y && bandName.equals(that.bandName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bandName, x, y);
+        }
+    }
+}
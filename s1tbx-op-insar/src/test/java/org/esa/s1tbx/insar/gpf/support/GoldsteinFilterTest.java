@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.insar.gpf.support;
+
+import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GoldsteinFilterTest {
+
+    private static final int width = 160;
+    private static final int height = 160;
+    private static final int fftSize = 32;
+    private static final int tileSize = 80;
+
+    private final float[] i = new float[width * height];
+    private final float[] q = new float[width * height];
+
+    public GoldsteinFilterTest() {
+        // a phase ramp with noise and a corner without data
+        final Random random = new Random(3);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                final int k = y * width + x;
+                if (x < 20 && y < 20) {
+                    continue;
+                }
+                final double phase = 0.2 * x + 0.05 * y + random.nextGaussian();
+                i[k] = (float) Math.cos(phase);
+                q[k] = (float) Math.sin(phase);
+            }
+        }
+    }
+
+    @Test
+    public void testTilesMatchWholeImage() throws Exception {
+        final float[][] whole = filterImage(new GoldsteinFilter(fftSize, 3, 1.0, false), i, q, width, height, width);
+        final float[][] tiled = filterImage(new GoldsteinFilter(fftSize, 3, 1.0, false), i, q, width, height, tileSize);
+
+        boolean filtered = false;
+        for (int k = 0; k < width * height; ++k) {
+            assertEquals(whole[0][k], tiled[0][k], 1e-5);
+            assertEquals(whole[1][k], tiled[1][k], 1e-5);
+            filtered |= whole[0][k] != 0;
+        }
+        assertTrue(filtered);
+        assertEquals(0, whole[0][10 * width + 10], 0);
+    }
+
+    @Test
+    public void testSinglePrecision() throws Exception {
+        final float[][] dbl = filterImage(new GoldsteinFilter(fftSize, 5, 0.5, false), i, q, width, height, tileSize);
+        final float[][] flt = filterImage(new GoldsteinFilter(fftSize, 5, 0.5, true), i, q, width, height, tileSize);
+
+        for (int k = 0; k < width * height; ++k) {
+            final double tolerance = 1e-3 * (1 + Math.abs(dbl[0][k]) + Math.abs(dbl[1][k]));
+            assertEquals(dbl[0][k], flt[0][k], tolerance);
+            assertEquals(dbl[1][k], flt[1][k], tolerance);
+        }
+    }
+
+    @Test
+    public void testMatchesPerWindowReference() throws Exception {
+        // a small image with no data in a corner and in scattered pixels
+        final int w = 104;
+        final int h = 88;
+        final float[] smallI = new float[w * h];
+        final float[] smallQ = new float[w * h];
+        final Random random = new Random(7);
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                if ((x < 12 && y < 18) || random.nextInt(20) == 0) {
+                    continue;
+                }
+                final double phase = 0.1 * x - 0.15 * y + 0.5 * random.nextGaussian();
+                smallI[y * w + x] = (float) Math.cos(phase);
+                smallQ[y * w + x] = (float) Math.sin(phase);
+            }
+        }
+
+        final double[][] expected = referenceFilter(smallI, smallQ, w, h, 3, 0.7, 0.0);
+        final float[][] tiled = filterImage(new GoldsteinFilter(fftSize, 3, 0.7, false), smallI, smallQ, w, h, 40);
+
+        double maxValue = 0;
+        for (int k = 0; k < w * h; ++k) {
+            maxValue = Math.max(maxValue, Math.abs(expected[0][k]) + Math.abs(expected[1][k]));
+        }
+        assertTrue(maxValue > 0);
+        for (int k = 0; k < w * h; ++k) {
+            assertEquals("I at " + k % w + ',' + k / w, expected[0][k], tiled[0][k], 1e-5 * maxValue);
+            assertEquals("Q at " + k % w + ',' + k / w, expected[1][k], tiled[1][k], 1e-5 * maxValue);
+        }
+    }
+
+    // filter tile by tile, with the source regions of GoldsteinFilterOp
+    private static float[][] filterImage(final GoldsteinFilter filter, final float[] i, final float[] q,
+                                         final int width, final int height, final int tile) throws Exception {
+        final float[] iFiltered = new float[width * height];
+        final float[] qFiltered = new float[width * height];
+        final int pad = fftSize * 3 / 4;
+
+        for (int y0 = 0; y0 < height; y0 += tile) {
+            for (int x0 = 0; x0 < width; x0 += tile) {
+                final int w = Math.min(tile, width - x0);
+                final int h = Math.min(tile, height - y0);
+                final int sx0 = Math.max(x0 - pad, 0);
+                final int sy0 = Math.max(y0 - pad, 0);
+                final int sw = Math.min(x0 + w - 1 + pad, width - 1) - sx0 + 1;
+                final int sh = Math.min(y0 + h - 1 + pad, height - 1) - sy0 + 1;
+                final float[] srcI = new float[sw * sh];
+                final float[] srcQ = new float[sw * sh];
+                for (int y = 0; y < sh; ++y) {
+                    System.arraycopy(i, (sy0 + y) * width + sx0, srcI, y * sw, sw);
+                    System.arraycopy(q, (sy0 + y) * width + sx0, srcQ, y * sw, sw);
+                }
+                final GoldsteinFilter.Region src =
+                        new GoldsteinFilter.Region("i", sx0, sy0, sw, sh, srcI, srcQ, 0.0);
+
+                final float[] tileI = new float[w * h];
+                final float[] tileQ = new float[w * h];
+                filter.filter(src, width, height, x0, y0, w, h, tileI, tileQ);
+                for (int y = 0; y < h; ++y) {
+                    System.arraycopy(tileI, y * w, iFiltered, (y0 + y) * width + x0, w);
+                    System.arraycopy(tileQ, y * w, qFiltered, (y0 + y) * width + x0, w);
+                }
+            }
+        }
+        return new float[][]{iFiltered, qFiltered};
+    }
+
+    /**
+     * The sliding window filtering GoldsteinFilterOp did before GoldsteinFilter, over the whole image as one tile:
+     * every window with data is transformed, its spectrum weighted by the smoothed power spectrum raised to alpha,
+     * transformed back unscaled and accumulated with triangular weights on the pixels with data.
+     */
+    private static double[][] referenceFilter(final float[] i, final float[] q, final int width, final int height,
+                                              final int windowSize, final double alpha, final double noDataValue) {
+        final double[] iFiltered = new double[width * height];
+        final double[] qFiltered = new double[width * height];
+        final int halfFFTSize = fftSize / 2;
+        final int halfWindowSize = windowSize / 2;
+        final int stepSize = fftSize / 4;
+
+        final boolean[][] mask = new boolean[fftSize][fftSize];
+        final double[][] I = new double[fftSize][fftSize];
+        final double[][] Q = new double[fftSize][fftSize];
+        final double[][] specI = new double[fftSize][fftSize];
+        final double[][] specQ = new double[fftSize][fftSize];
+        final double[][] pwrSpec = new double[fftSize][fftSize];
+        final double[][] fltSpec = new double[fftSize][fftSize];
+
+        for (int y = 0; y <= height - fftSize; y += stepSize) {
+            for (int x = 0; x <= width - fftSize; x += stepSize) {
+                boolean allNoData = true;
+                for (int r = 0; r < fftSize; ++r) {
+                    for (int c = 0; c < fftSize; ++c) {
+                        I[r][c] = i[(y + r) * width + x + c];
+                        Q[r][c] = q[(y + r) * width + x + c];
+                        mask[r][c] = I[r][c] != noDataValue;
+                        allNoData &= !mask[r][c];
+                    }
+                }
+                if (allNoData) {
+                    continue;
+                }
+
+                transform(I, Q, specI, specQ, false);
+
+                for (int r = 0; r < fftSize; ++r) {
+                    for (int c = 0; c < fftSize; ++c) {
+                        pwrSpec[r][c] = Math.sqrt(specI[r][c] * specI[r][c] + specQ[r][c] * specQ[r][c]);
+                    }
+                }
+                for (int r = 0; r < fftSize; ++r) {
+                    for (int c = 0; c < fftSize; ++c) {
+                        double sum = 0;
+                        int k = 0;
+                        for (int j = Math.max(0, r - halfWindowSize); j <= Math.min(fftSize - 1, r + halfWindowSize); ++j) {
+                            for (int l = Math.max(0, c - halfWindowSize); l <= Math.min(fftSize - 1, c + halfWindowSize); ++l) {
+                                if (pwrSpec[j][l] != noDataValue) {
+                                    sum += pwrSpec[j][l];
+                                    k++;
+                                }
+                            }
+                        }
+                        fltSpec[r][c] = k != 0 ? Math.pow(sum / k, alpha) : 0;
+                        specI[r][c] *= fltSpec[r][c];
+                        specQ[r][c] *= fltSpec[r][c];
+                    }
+                }
+
+                transform(specI, specQ, I, Q, true);
+
+                for (int r = 0; r < fftSize; ++r) {
+                    final double weightY = 1 - Math.abs(r - halfFFTSize + 0.5) / halfFFTSize;
+                    for (int c = 0; c < fftSize; ++c) {
+                        if (mask[r][c]) {
+                            final double weight = (1 - Math.abs(c - halfFFTSize + 0.5) / halfFFTSize) * weightY;
+                            iFiltered[(y + r) * width + x + c] += I[r][c] * weight;
+                            qFiltered[(y + r) * width + x + c] += Q[r][c] * weight;
+                        }
+                    }
+                }
+            }
+        }
+        return new double[][]{iFiltered, qFiltered};
+    }
+
+    // 2D FFT of Q + jI by rows then columns, the inverse unscaled
+    private static void transform(final double[][] I, final double[][] Q, final double[][] outI, final double[][] outQ,
+                                  final boolean inverse) {
+        final int n = I.length;
+        final DoubleFFT_1D fft = new DoubleFFT_1D(n);
+        final double[][] re = new double[n][n];
+        final double[][] im = new double[n][n];
+        final double[] array = new double[2 * n];
+        for (int r = 0; r < n; ++r) {
+            for (int c = 0; c < n; ++c) {
+                array[2 * c] = Q[r][c];
+                array[2 * c + 1] = I[r][c];
+            }
+            if (inverse) {
+                fft.complexInverse(array, false);
+            } else {
+                fft.complexForward(array);
+            }
+            for (int c = 0; c < n; ++c) {
+                re[r][c] = array[2 * c];
+                im[r][c] = array[2 * c + 1];
+            }
+        }
+        for (int c = 0; c < n; ++c) {
+            for (int r = 0; r < n; ++r) {
+                array[2 * r] = re[r][c];
+                array[2 * r + 1] = im[r][c];
+            }
+            if (inverse) {
+                fft.complexInverse(array, false);
+            } else {
+                fft.complexForward(array);
+            }
+            for (int r = 0; r < n; ++r) {
+                outQ[r][c] = array[2 * r];
+                outI[r][c] = array[2 * r + 1];
+            }
+        }
+    }
+}
@@ -16,8 +16,8 @@
 package org.esa.s1tbx.sar.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
@@ -83,6 +83,8 @@ public class BandPassFilterOp extends Operator {
     private static final String PRODUCT_SUFFIX_LOW = "_low_subband";
     private static final String PRODUCT_SUFFIX_HIGH = "_high_subband";
 
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("BandPassFilter");
+
     /**
      * Default constructor. The graph processing framework
      * requires that an operator has a default constructor.
@@ -285,15 +287,15 @@ public class BandPassFilterOp extends Operator {
         }
         sourceWindow = rotate(sourceWindow, -Math.floorDiv(sourceWindow.length, 2));
 
+        final int fftLength = dataI[0].length;
         double[] line = new double[2 * sourceWindow.length];
-        DoubleFFT_1D fft = new DoubleFFT_1D(dataI[0].length);
         for (int n = 0; n < sourceWindow.length; n++) {
             int n2 = n * 2;
             line[n2] = sourceWindow[n];
             line[n2 + 1] = 0;
         }
 
-        fft.complexInverse(line, true);
+        fftEngine.complexInverse(line, 0, fftLength, true);
         double[] xAxis = new double[dataI[0].length];
         for (int x = x0; x < xMax; x++) {
             final int xx = x - x0;
@@ -315,7 +317,7 @@ public class BandPassFilterOp extends Operator {
             line[xx2] = valueI;
             line[xx2 + 1] = valueQ;
         }
-        fft.complexForward(line);
+        fftEngine.complexForward(line, 0, fftLength);
 
         for (int n = 0; n < sourceWindow.length; n++) {
             int n2 = n * 2;
@@ -335,7 +337,6 @@ public class BandPassFilterOp extends Operator {
         window = rotate(window, -Math.floorDiv(hammingSize, 2));
 
         line = new double[2 * dataI[0].length];
-        fft = new DoubleFFT_1D(dataI[0].length);
         for (int y = 0; y < dataI.length; y++) {
             for (int x = 0; x < dataI[0].length; x++) {
                 int x2 = x * 2;
@@ -343,7 +344,7 @@ public class BandPassFilterOp extends Operator {
                 line[x2 + 1] = dataQ[y][x];
             }
 
-            fft.complexForward(line);
+            fftEngine.complexForward(line, 0, fftLength);
             for (int n = 0; n < dataI[0].length; n++) {
                 int n2 = n * 2;
                 double weight = window[n];
@@ -353,7 +354,7 @@ public class BandPassFilterOp extends Operator {
                 line[n2] = line[n2] * weight;
                 line[n2 + 1] = line[n2 + 1] * weight;
             }
-            fft.complexInverse(line, true);
+            fftEngine.complexInverse(line, 0, fftLength, true);
 
             for (int x = 0; x < dataI[0].length; x++) {
                 int x2 = x * 2;
@@ -124,25 +124,25 @@ public class Frost implements SpeckleFilter {
         final Unit.UnitType bandUnit = Unit.getUnitType(sourceBand1);
         final double noDataValue = sourceBand1.getNoDataValue();
         final TileIndex srcIndex = new TileIndex(sourceTile1);
-        final double[] neighborValues = new double[windowSizeX * windowSizeY];
         final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
+        final WindowStatistics stats = new WindowStatistics(
+                sourceData1, sourceData2, srcIndex, sourceTileRectangle, noDataValue, isComplex);
         final int xMax = x0 + w;
         final int yMax = y0 + h;
 
-        final double[] mask = new double[windowSizeX * windowSizeY];
-        getFrostMask(mask);
+        final int maxDistance = Math.max(halfWindowSizeX, halfWindowSizeY);
+        final double[] ringSum = new double[maxDistance + 1];
+        final int[] ringCount = new int[maxDistance + 1];
 
         for (int y = y0; y < yMax; ++y) {
             final int yy = y - y0;
             for (int x = x0; x < xMax; ++x) {
                 final int xx = x - x0;
 
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
+                final int numSamples = stats.setWindow(x, y, windowSizeX, windowSizeY);
 
                 if (numSamples > 0) {
-                    filteredTile[yy][xx] = getFrostValue(neighborValues, numSamples, noDataValue, mask);
+                    filteredTile[yy][xx] = getFrostValue(stats, x, y, ringSum, ringCount);
                 } else {
                     filteredTile[yy][xx] = noDataValue;
                 }
@@ -152,57 +152,58 @@ public class Frost implements SpeckleFilter {
         return filteredTile;
     }
 
-    /**
-     * Get Frost mask for given Frost filter size.
-     *
-     * @param mask Array holding Frost filter mask values.
-     * @throws OperatorException If an error occurs in computation of the Frost mask.
-     */
-    private void getFrostMask(final double[] mask) {
-
-        for (int i = 0; i < windowSizeX; i++) {
-
-            final int s = i * windowSizeY;
-            final int dr = Math.abs(i - halfWindowSizeX);
-
-            for (int j = 0; j < windowSizeY; j++) {
-                mask[j + s] = Math.max(dr, Math.abs(j - halfWindowSizeY));
-            }
-        }
-    }
-
     /**
      * Get the Frost filtered pixel intensity for pixels in a given rectangular region.
+     * The Frost weight of a sample only depends on its distance max(|dx|, |dy|) to the window centre,
+     * so the weighted sum is accumulated ring by ring from the window statistics.
      *
-     * @param neighborValues Array holding the pixel values.
-     * @param numSamples     The number of samples.
-     * @param noDataValue    Place holder for no data value.
-     * @param mask           Array holding Frost filter mask values.
+     * @param stats     Statistics of the window at the given pixel.
+     * @param x         X coordinate of the given pixel.
+     * @param y         Y coordinate of the given pixel.
+     * @param ringSum   Work array holding the sum of the samples at each distance.
+     * @param ringCount Work array holding the number of samples at each distance.
      * @return val The Frost filtered value.
-     * @throws OperatorException If an error occurs in computation of the Frost filtered value.
      */
-    private double getFrostValue(
-            final double[] neighborValues, final int numSamples, final double noDataValue, final double[] mask) {
+    private double getFrostValue(final WindowStatistics stats, final int x, final int y,
+                                 final double[] ringSum, final int[] ringCount) {
 
-        final double mean = getMeanValue(neighborValues, numSamples, noDataValue);
+        final double mean = stats.getMean();
         if (mean <= Double.MIN_VALUE) {
             return mean;
         }
 
-        final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+        final double var = stats.getVariance();
         if (var <= Double.MIN_VALUE) {
             return mean;
         }
 
         final double k = dampingFactor * var / (mean * mean);
 
+        final int minX = x - halfWindowSizeX;
+        final int minY = y - halfWindowSizeY;
+        final int maxX = minX + windowSizeX - 1;
+        final int maxY = minY + windowSizeY - 1;
+
+        double prevSum = 0.0;
+        int prevCount = 0;
+        for (int d = 0; d < ringSum.length; d++) {
+            stats.setRectangle(Math.max(x - d, minX), Math.max(y - d, minY),
+                    Math.min(x + d, maxX), Math.min(y + d, maxY));
+            final double sum = stats.getSum();
+            final int count = stats.getCount();
+            ringSum[d] = sum - prevSum;
+            ringCount[d] = count - prevCount;
+            prevSum = sum;
+            prevCount = count;
+        }
+
         double sum = 0.0;
         double totalWeight = 0.0;
-        for (int i = 0; i < neighborValues.length; i++) {
-            if (neighborValues[i] != noDataValue) {
-                final double weight = FastMath.exp(-k * mask[i]);
-                sum += weight * neighborValues[i];
-                totalWeight += weight;
+        for (int d = 0; d < ringSum.length; d++) {
+            if (ringCount[d] > 0) {
+                final double weight = FastMath.exp(-k * d);
+                sum += weight * ringSum[d];
+                totalWeight += weight * ringCount[d];
             }
         }
         return sum / totalWeight;
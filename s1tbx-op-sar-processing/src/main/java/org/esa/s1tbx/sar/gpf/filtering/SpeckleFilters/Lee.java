@@ -126,18 +126,20 @@ public class Lee implements SpeckleFilter {
         final double noDataValue = sourceBand1.getNoDataValue();
         final TileIndex srcIndex = new TileIndex(sourceTile1);
 
+        final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
+        final WindowStatistics stats = new WindowStatistics(
+                sourceData1, sourceData2, srcIndex, sourceTileRectangle, noDataValue, isComplex);
+
         double n;
         if (estimateENL) {
-            n = computeEquivalentNumberOfLooks(sourceData1, sourceData2, noDataValue, bandUnit,
-                    srcIndex, x0, y0, w, h);
+            n = stats.computeEquivalentNumberOfLooks(
+                    isComplex || bandUnit == Unit.UnitType.INTENSITY, x0, y0, w, h);
         } else {
             n = enl;
         }
         final double cu = 1.0 / Math.sqrt(n);
         final double cu2 = cu * cu;
 
-        final double[] neighborValues = new double[windowSizeX * windowSizeY];
-        final boolean isComplex = bandUnit == Unit.UnitType.REAL || bandUnit == Unit.UnitType.IMAGINARY;
         final int xMax = x0 + w;
         final int yMax = y0 + h;
 
@@ -146,12 +148,10 @@ public class Lee implements SpeckleFilter {
             for (int x = x0; x < xMax; ++x) {
                 final int xx = x - x0;
 
-                final int numSamples = getNeighborValues(
-                        x, y, sourceData1, sourceData2, srcIndex, noDataValue, isComplex,
-                        windowSizeX, windowSizeY, sourceImageWidth, sourceImageHeight, neighborValues);
+                final int numSamples = stats.setWindow(x, y, windowSizeX, windowSizeY);
 
                 if (numSamples > 0) {
-                    filteredTile[yy][xx] = getLeeValue(neighborValues, numSamples, noDataValue, cu, cu2);
+                    filteredTile[yy][xx] = getLeeValue(stats, x, y, cu, cu2);
                 } else {
                     filteredTile[yy][xx] = noDataValue;
                 }
@@ -164,21 +164,20 @@ public class Lee implements SpeckleFilter {
     /**
      * Get the Lee filtered pixel intensity for pixels in a given rectangular region.
      *
-     * @param neighborValues Array holding the pixel values.
-     * @param numSamples     The number of samples.
-     * @param noDataValue    Place holder for no data value.
+     * @param stats Statistics of the window at the given pixel.
+     * @param x     X coordinate of the given pixel.
+     * @param y     Y coordinate of the given pixel.
      * @return val The Lee filtered value.
-     * @throws OperatorException If an error occurs in computation of the Lee filtered value.
      */
-    private double getLeeValue(final double[] neighborValues, final int numSamples, final double noDataValue,
+    private double getLeeValue(final WindowStatistics stats, final int x, final int y,
                                final double cu, final double cu2) {
 
-        final double mean = getMeanValue(neighborValues, numSamples, noDataValue);
+        final double mean = stats.getMean();
         if (Double.compare(mean, Double.MIN_VALUE) <= 0) {
             return mean;
         }
 
-        final double var = getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+        final double var = stats.getVariance();
         if (Double.compare(var, Double.MIN_VALUE) <= 0) {
             return mean;
         }
@@ -188,7 +187,7 @@ public class Lee implements SpeckleFilter {
             return mean;
         }
 
-        final double cp = neighborValues[neighborValues.length / 2];
+        final double cp = stats.getCentreValue(x, y, windowSizeX, windowSizeY);
         final double w = 1 - cu2 / (ci * ci);
 
         return cp * w + mean * (1 - w);
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Sliding window median over a source tile.
+ * <p>
+ * The valid samples of the tile (intensities I*I+Q*Q for complex data) are sorted once and replaced by
+ * their rank among the distinct values. The window is kept as a histogram of ranks in a Fenwick tree and
+ * moved incrementally in a serpentine scan of the target tile, adding and removing one column or row of
+ * samples per step, so that no window is ever sorted. For quantized data the histogram has as many bins
+ * as there are distinct values. The median returned is the same as sorting the valid samples of the
+ * window and taking the element at numSamples / 2.
+ */
+public final class SlidingMedian {
+
+    private final int sx0, sy0, sw, sh;
+    private final double noDataValue;
+    private final int[] ranks;
+    private final double[] distinctValues;
+    private final int[] tree;
+    private final int treeTopBit;
+    private int count;
+
+    /**
+     * @param srcData1        the source ProductData for the 1st band
+     * @param srcData2        the source ProductData for the 2nd band, or null
+     * @param srcIndex        the source tile index
+     * @param sourceRectangle the source tile rectangle
+     * @param noDataValue     place holder for no data value
+     * @param isComplex       true if the bands are i and q, in which case intensities are used
+     */
+    public SlidingMedian(final ProductData srcData1, final ProductData srcData2, final TileIndex srcIndex,
+                         final Rectangle sourceRectangle, final double noDataValue, final boolean isComplex) {
+
+        this.sx0 = sourceRectangle.x;
+        this.sy0 = sourceRectangle.y;
+        this.sw = sourceRectangle.width;
+        this.sh = sourceRectangle.height;
+        this.noDataValue = noDataValue;
+
+        final double[] values = new double[sw * sh];
+        ranks = new int[sw * sh];
+        int numValid = 0;
+        for (int y = 0; y < sh; ++y) {
+            srcIndex.calculateStride(sy0 + y);
+            final int offset = y * sw;
+            for (int x = 0; x < sw; ++x) {
+                final int idx = srcIndex.getIndex(sx0 + x);
+                ranks[offset + x] = -1;
+                if (isComplex) {
+                    final double I = srcData1.getElemDoubleAt(idx);
+                    final double Q = srcData2.getElemDoubleAt(idx);
+                    if (Double.compare(I, noDataValue) != 0 && Double.compare(Q, noDataValue) != 0) {
+                        values[offset + x] = I * I + Q * Q;
+                        ranks[offset + x] = 0;
+                        ++numValid;
+                    }
+                } else {
+                    final double v = srcData1.getElemDoubleAt(idx);
+                    if (Double.compare(v, noDataValue) != 0) {
+                        values[offset + x] = v;
+                        ranks[offset + x] = 0;
+                        ++numValid;
+                    }
+                }
+            }
+        }
+
+        final double[] sorted = new double[numValid];
+        int k = 0;
+        for (int i = 0; i < ranks.length; ++i) {
+            if (ranks[i] == 0) {
+                sorted[k++] = values[i];
+            }
+        }
+        Arrays.sort(sorted);
+
+        int numDistinct = 0;
+        for (int i = 0; i < numValid; ++i) {
+            if (numDistinct == 0 || Double.compare(sorted[i], sorted[numDistinct - 1]) != 0) {
+                sorted[numDistinct++] = sorted[i];
+            }
+        }
+        distinctValues = Arrays.copyOf(sorted, numDistinct);
+
+        for (int i = 0; i < ranks.length; ++i) {
+            if (ranks[i] == 0) {
+                ranks[i] = Arrays.binarySearch(distinctValues, values[i]);
+            }
+        }
+
+        tree = new int[numDistinct + 1];
+        treeTopBit = numDistinct > 0 ? Integer.highestOneBit(numDistinct) : 0;
+    }
+
+    /**
+     * Compute the median of a windowSizeX by windowSizeY window, laid out as in
+     * SpeckleFilter.getNeighborValues, for each pixel of a target rectangle.
+     *
+     * @param x0             X coordinate of the upper left corner point of the target tile rectangle.
+     * @param y0             Y coordinate of the upper left corner point of the target tile rectangle.
+     * @param w              The width of the target tile rectangle.
+     * @param h              The height of the target tile rectangle.
+     * @param windowSizeX    The sliding window width.
+     * @param windowSizeY    The sliding window height.
+     * @param filteredTile   Output medians indexed [y - y0][x - x0], no data value where the window is empty.
+     */
+    public void filter(final int x0, final int y0, final int w, final int h,
+                       final int windowSizeX, final int windowSizeY, final double[][] filteredTile) {
+
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        Arrays.fill(tree, 0);
+        count = 0;
+
+        final int halfSizeX = windowSizeX / 2;
+        final int halfSizeY = windowSizeY / 2;
+
+        // window of the first pixel
+        int minX = x0 - halfSizeX;
+        int minY = y0 - halfSizeY;
+        for (int y = minY; y < minY + windowSizeY; ++y) {
+            updateRow(y, minX, minX + windowSizeX - 1, 1);
+        }
+
+        int x = x0;
+        for (int yy = 0; yy < h; ++yy) {
+            final boolean forward = (yy & 1) == 0;
+            for (int i = 0; i < w; ++i) {
+                filteredTile[yy][x - x0] = getMedian();
+                if (i < w - 1) {
+                    if (forward) {
+                        updateColumn(minX, minY, minY + windowSizeY - 1, -1);
+                        updateColumn(minX + windowSizeX, minY, minY + windowSizeY - 1, 1);
+                        ++minX;
+                        ++x;
+                    } else {
+                        updateColumn(minX + windowSizeX - 1, minY, minY + windowSizeY - 1, -1);
+                        updateColumn(minX - 1, minY, minY + windowSizeY - 1, 1);
+                        --minX;
+                        --x;
+                    }
+                }
+            }
+            if (yy < h - 1) {
+                updateRow(minY, minX, minX + windowSizeX - 1, -1);
+                updateRow(minY + windowSizeY, minX, minX + windowSizeX - 1, 1);
+                ++minY;
+            }
+        }
+    }
+
+    private double getMedian() {
+        if (count == 0) {
+            return noDataValue;
+        }
+        return distinctValues[findRank(count / 2)];
+    }
+
+    private void updateRow(final int y, final int minX, final int maxX, final int delta) {
+        final int yy = y - sy0;
+        if (yy < 0 || yy >= sh) {
+            return;
+        }
+        final int start = Math.max(minX - sx0, 0);
+        final int end = Math.min(maxX - sx0, sw - 1);
+        final int offset = yy * sw;
+        for (int xx = start; xx <= end; ++xx) {
+            final int r = ranks[offset + xx];
+            if (r >= 0) {
+                add(r, delta);
+            }
+        }
+    }
+
+    private void updateColumn(final int x, final int minY, final int maxY, final int delta) {
+        final int xx = x - sx0;
+        if (xx < 0 || xx >= sw) {
+            return;
+        }
+        final int start = Math.max(minY - sy0, 0);
+        final int end = Math.min(maxY - sy0, sh - 1);
+        for (int yy = start; yy <= end; ++yy) {
+            final int r = ranks[yy * sw + xx];
+            if (r >= 0) {
+                add(r, delta);
+            }
+        }
+    }
+
+    private void add(final int rank, final int delta) {
+        count += delta;
+        for (int i = rank + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Rank of the k-th smallest sample of the window, k starting at 0
+     */
+    private int findRank(int k) {
+        int pos = 0;
+        for (int bit = treeTopBit; bit != 0; bit >>= 1) {
+            final int next = pos + bit;
+            if (next < tree.length && tree[next] <= k) {
+                pos = next;
+                k -= tree[next];
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+
+import java.awt.*;
+
+/**
+ * Sliding window statistics over a source tile using summed-area tables.
+ * <p>
+ * The source samples (intensities I*I+Q*Q for complex data) are read once and the number of valid
+ * samples, their sum and their sum of squares are accumulated into integral images, so that the count,
+ * mean and variance of any window are obtained in constant time whatever the window size. Samples equal
+ * to the no data value are excluded, as are window positions outside the source rectangle.
+ * <p>
+ * The tables hold double-double sums (a high and a low order part) of the samples and of their exact
+ * squares, so that the differences of the corners keep the small windows of a tile with a high dynamic
+ * range, e.g. dark sea next to bright targets, as accurate as a direct computation over the window.
+ */
+public final class WindowStatistics {
+
+    private static final double SPLIT = 134217729.0; // 2^27 + 1
+
+    private final int sx0, sy0, sw, sh;
+    private final int stride;
+    private final double noDataValue;
+    private final double[] values;
+    private final boolean[] valid;
+    private final int[] countTable;
+    private final double[] sumTable, sumTableLow;
+    private final double[] sum2Table, sum2TableLow;
+
+    // low order part of the last box sum
+    private double boxLow;
+
+    // statistics of the current window
+    private int count;
+    private double sum;
+    private double mean;
+    private double variance;
+
+    /**
+     * @param srcData1        the source ProductData for the 1st band
+     * @param srcData2        the source ProductData for the 2nd band, or null
+     * @param srcIndex        the source tile index
+     * @param sourceRectangle the source tile rectangle
+     * @param noDataValue     place holder for no data value
+     * @param isComplex       true if the bands are i and q, in which case intensities are used
+     */
+    public WindowStatistics(final ProductData srcData1, final ProductData srcData2, final TileIndex srcIndex,
+                            final Rectangle sourceRectangle, final double noDataValue, final boolean isComplex) {
+
+        this.sx0 = sourceRectangle.x;
+        this.sy0 = sourceRectangle.y;
+        this.sw = sourceRectangle.width;
+        this.sh = sourceRectangle.height;
+        this.stride = sw + 1;
+        this.noDataValue = noDataValue;
+
+        values = new double[sw * sh];
+        valid = new boolean[sw * sh];
+
+        for (int y = 0; y < sh; ++y) {
+            srcIndex.calculateStride(sy0 + y);
+            final int offset = y * sw;
+            for (int x = 0; x < sw; ++x) {
+                final int idx = srcIndex.getIndex(sx0 + x);
+                final double v;
+                if (isComplex) {
+                    final double I = srcData1.getElemDoubleAt(idx);
+                    final double Q = srcData2.getElemDoubleAt(idx);
+                    if (Double.compare(I, noDataValue) == 0 || Double.compare(Q, noDataValue) == 0) {
+                        values[offset + x] = noDataValue;
+                        continue;
+                    }
+                    v = I * I + Q * Q;
+                } else {
+                    v = srcData1.getElemDoubleAt(idx);
+                    if (Double.compare(v, noDataValue) == 0) {
+                        values[offset + x] = noDataValue;
+                        continue;
+                    }
+                }
+                values[offset + x] = v;
+                valid[offset + x] = true;
+            }
+        }
+
+        final int tableSize = stride * (sh + 1);
+        countTable = new int[tableSize];
+        sumTable = new double[tableSize];
+        sumTableLow = new double[tableSize];
+        sum2Table = new double[tableSize];
+        sum2TableLow = new double[tableSize];
+        for (int y = 0; y < sh; ++y) {
+            int rowCount = 0;
+            double rowSum = 0.0, rowSumLow = 0.0;
+            double rowSum2 = 0.0, rowSum2Low = 0.0;
+            final int offset = y * sw;
+            final int above = y * stride;
+            final int below = above + stride;
+            for (int x = 0; x < sw; ++x) {
+                if (valid[offset + x]) {
+                    final double v = values[offset + x];
+                    ++rowCount;
+                    double t = rowSum + v;
+                    rowSumLow += sumError(rowSum, v, t);
+                    rowSum = t;
+
+                    final double v2 = v * v;
+                    t = rowSum2 + v2;
+                    rowSum2Low += sumError(rowSum2, v2, t) + productError(v, v, v2);
+                    rowSum2 = t;
+                }
+                countTable[below + x + 1] = countTable[above + x + 1] + rowCount;
+                accumulate(sumTable, sumTableLow, below + x + 1, above + x + 1, rowSum, rowSumLow);
+                accumulate(sum2Table, sum2TableLow, below + x + 1, above + x + 1, rowSum2, rowSum2Low);
+            }
+        }
+    }
+
+    /**
+     * Compute the statistics of a windowSizeX by windowSizeY window at the given pixel, laid out
+     * as in SpeckleFilter.getNeighborValues.
+     *
+     * @return the number of valid samples in the window
+     */
+    public int setWindow(final int x, final int y, final int windowSizeX, final int windowSizeY) {
+        final int minX = x - windowSizeX / 2;
+        final int minY = y - windowSizeY / 2;
+        return setRectangle(minX, minY, minX + windowSizeX - 1, minY + windowSizeY - 1);
+    }
+
+    /**
+     * Compute the statistics of the samples in the given inclusive bounds.
+     *
+     * @return the number of valid samples
+     */
+    public int setRectangle(final int minX, final int minY, final int maxX, final int maxY) {
+        final int x0 = Math.max(minX - sx0, 0);
+        final int y0 = Math.max(minY - sy0, 0);
+        final int x1 = Math.min(maxX - sx0 + 1, sw);
+        final int y1 = Math.min(maxY - sy0 + 1, sh);
+        if (x0 >= x1 || y0 >= y1) {
+            count = 0;
+            sum = 0.0;
+            mean = 0.0;
+            variance = 0.0;
+            return 0;
+        }
+
+        final int a = y0 * stride + x0;
+        final int b = y0 * stride + x1;
+        final int c = y1 * stride + x0;
+        final int d = y1 * stride + x1;
+        count = countTable[d] - countTable[b] - countTable[c] + countTable[a];
+        if (count == 0) {
+            sum = 0.0;
+            mean = 0.0;
+            variance = 0.0;
+            return 0;
+        }
+
+        final double sumHigh = box(sumTable, sumTableLow, a, b, c, d);
+        final double sumLow = boxLow;
+        final double sum2High = box(sum2Table, sum2TableLow, a, b, c, d);
+        final double sum2Low = boxLow;
+        sum = sumHigh + sumLow;
+        mean = sum / count;
+        if (count > 1) {
+            // sum of (v - mean)^2 = sum2 - mean * (2 * sum - count * mean), evaluated in double-double
+            final double p = count * mean;
+            final double pLow = productError(count, mean, p);
+            final double t = 2.0 * sumHigh - p;
+            final double tLow = sumError(2.0 * sumHigh, -p, t) + 2.0 * sumLow - pLow;
+            final double q = mean * t;
+            final double qLow = productError(mean, t, q) + mean * tLow;
+            final double r = sum2High - q;
+            final double rLow = sumError(sum2High, -q, r) + sum2Low - qLow;
+            variance = Math.max(0.0, (r + rLow) / (count - 1));
+        } else {
+            variance = 0.0;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of valid samples in the current window
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return mean of the valid samples in the current window
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return sum of the valid samples in the current window
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return unbiased variance of the valid samples in the current window
+     */
+    public double getVariance() {
+        return variance;
+    }
+
+    /**
+     * Get the sample at a pixel, the intensity for complex data.
+     *
+     * @return the sample or the no data value if the sample is not valid or outside the source rectangle
+     */
+    public double getValue(final int x, final int y) {
+        final int xx = x - sx0;
+        final int yy = y - sy0;
+        if (xx < 0 || yy < 0 || xx >= sw || yy >= sh) {
+            return noDataValue;
+        }
+        return values[yy * sw + xx];
+    }
+
+    /**
+     * Get the sample at the position SpeckleFilter.getNeighborValues puts in the middle of the
+     * neighbour array, which is the centre pixel for odd window sizes.
+     */
+    public double getCentreValue(final int x, final int y, final int windowSizeX, final int windowSizeY) {
+        final int k = windowSizeX * windowSizeY / 2;
+        return getValue(x - windowSizeX / 2 + k % windowSizeX, y - windowSizeY / 2 + k / windowSizeX);
+    }
+
+    /**
+     * Compute the equivalent number of looks over a rectangle of the source tile.
+     * Same estimates as SpeckleFilter.computeEquivalentNumberOfLooks.
+     *
+     * @param isIntensity true if the samples are intensities (complex or intensity bands), false for amplitudes
+     */
+    public double computeEquivalentNumberOfLooks(final boolean isIntensity,
+                                                 final int x0, final int y0, final int w, final int h) {
+        double enl = 1.0;
+        double sum = 0;
+        double sum2 = 0;
+        int numSamples = 0;
+
+        final int xStart = Math.max(x0 - sx0, 0);
+        final int yStart = Math.max(y0 - sy0, 0);
+        final int xEnd = Math.min(x0 + w - sx0, sw);
+        final int yEnd = Math.min(y0 + h - sy0, sh);
+        for (int y = yStart; y < yEnd; ++y) {
+            final int offset = y * sw;
+            for (int x = xStart; x < xEnd; ++x) {
+                if (valid[offset + x]) {
+                    final double v = isIntensity ? values[offset + x] : values[offset + x] * values[offset + x];
+                    sum += v;
+                    sum2 += v * v;
+                    numSamples++;
+                }
+            }
+        }
+
+        if (sum != 0.0 && sum2 > 0.0) {
+            final double m = sum / numSamples;
+            final double m2 = sum2 / numSamples;
+            final double mm = m * m;
+            enl = mm / (m2 - mm);
+        }
+        return enl;
+    }
+
+    /**
+     * Double-double sum of the rectangle with corners a, b, c, d of a table. The high order part is
+     * returned and the low order part is left in boxLow.
+     */
+    private double box(final double[] high, final double[] low, final int a, final int b, final int c, final int d) {
+        double s = high[d] - high[b];
+        double e = sumError(high[d], -high[b], s);
+        double t = s - high[c];
+        e += sumError(s, -high[c], t);
+        s = t;
+        t = s + high[a];
+        e += sumError(s, high[a], t);
+        s = t;
+        e += low[d] - low[b] - low[c] + low[a];
+
+        final double h = s + e;
+        boxLow = e - (h - s);
+        return h;
+    }
+
+    /**
+     * Set entry k of a double-double table to entry above plus the given row sum.
+     */
+    private static void accumulate(final double[] high, final double[] low, final int k, final int above,
+                                   final double rowHigh, final double rowLow) {
+        final double s = high[above] + rowHigh;
+        final double e = sumError(high[above], rowHigh, s) + low[above] + rowLow;
+        high[k] = s + e;
+        low[k] = e - (high[k] - s);
+    }
+
+    /**
+     * Rounding error of s = a + b (Knuth's TwoSum).
+     */
+    private static double sumError(final double a, final double b, final double s) {
+        final double bb = s - a;
+        return (a - (s - bb)) + (b - bb);
+    }
+
+    /**
+     * Rounding error of p = a * b (Dekker's TwoProduct).
+     */
+    private static double productError(final double a, final double b, final double p) {
+        double t = SPLIT * a;
+        final double aHigh = t - (t - a);
+        final double aLow = a - aHigh;
+        t = SPLIT * b;
+        final double bHigh = t - (t - b);
+        final double bLow = b - bHigh;
+        return ((aHigh * bHigh - p) + aHigh * bLow + aLow * bHigh) + aLow * bLow;
+    }
+}
@@ -16,6 +16,8 @@
 package org.esa.s1tbx.sar.gpf.geometric;
 
 import com.bc.ceres.core.ProgressMonitor;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.s1tbx.calibration.gpf.CalibrationOp;
 import org.esa.s1tbx.calibration.gpf.calibrators.Sentinel1Calibrator;
@@ -28,7 +30,6 @@ import org.esa.s1tbx.commons.SARUtils;
 import org.esa.s1tbx.insar.gpf.support.SARPosition;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.dem.ElevationModel;
-import org.esa.snap.core.dataop.downloadable.StatusProgressMonitor;
 import org.esa.snap.core.dataop.resamp.Resampling;
 import org.esa.snap.core.dataop.resamp.ResamplingFactory;
 import org.esa.snap.core.gpf.Operator;
@@ -41,8 +42,6 @@ import org.esa.snap.core.gpf.annotations.SourceProduct;
 import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.SystemUtils;
-import org.esa.snap.core.util.ThreadExecutor;
-import org.esa.snap.core.util.ThreadRunnable;
 import org.esa.snap.dem.dataio.DEMFactory;
 import org.esa.snap.dem.dataio.EarthGravitationalModel96;
 import org.esa.snap.dem.dataio.FileElevationModel;
@@ -54,12 +53,14 @@ import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.eo.GeoUtils;
 import org.esa.snap.engine_utilities.eo.LocalGeometry;
 import org.esa.snap.engine_utilities.gpf.*;
+import org.esa.snap.runtime.Config;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 import java.awt.*;
 import java.io.File;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 
 /**
@@ -267,8 +268,7 @@ public class RangeDopplerGeocodingOp extends Operator {
     private String mission = null;
     private boolean skipBistaticCorrection = false;
 
-    private boolean isLayoverShadowMaskAvailable = false;
-    private byte[][] layoverShadowMask = null;
+    private final LayoverShadowMask layoverShadowMask = new LayoverShadowMask();
 
     public static final String externalDEMStr = "External DEM";
     private static final String PRODUCT_SUFFIX = "_TC";
@@ -868,10 +868,6 @@ public class RangeDopplerGeocodingOp extends Operator {
                 throw new OperatorException(e);
             }
 
-            if (saveLayoverShadowMask && !isLayoverShadowMaskAvailable) {
-                createLayoverShadowMask();
-            }
-
             final int x0 = targetRectangle.x;
             final int y0 = targetRectangle.y;
             final int w = targetRectangle.width;
@@ -901,6 +897,8 @@ public class RangeDopplerGeocodingOp extends Operator {
             }
 
             final Rectangle sourceRectangle = getSourceRectangle(x0, y0, w, h, tileGeoRef, localDEM);
+            final LayoverShadowMask.BlockWindow layoverShadowWindow =
+                    saveLayoverShadowMask ? layoverShadowMask.getWindow(sourceRectangle) : null;
 
             final GeoPos geoPos = new GeoPos();
             final PositionData posData = new PositionData();
@@ -970,8 +968,11 @@ public class RangeDopplerGeocodingOp extends Operator {
                 if (sourceRectangle != null) {
                     try {
                         final Band[] srcBands = targetBandNameToSourceBand.get(tileData.bandName);
-                        tileData.imgResamplingRaster.setSourceTiles(getSourceTile(srcBands[0], sourceRectangle),
+                        final Tile sourceTileI = getSourceTile(srcBands[0], sourceRectangle);
+                        tileData.imgResamplingRaster.setSourceTiles(sourceTileI,
                                 srcBands.length > 1 ? getSourceTile(srcBands[1], sourceRectangle) : null);
+                        tileData.correctedSamples = correctSourceSamples(tileData, sourceTileI);
+                        tileData.imgResamplingRaster.setCorrectedSamples(tileData.correctedSamples);
                     } catch (Exception e) {
                         tileData.imgResamplingRaster.setSourceTiles(null, null);
                     }
@@ -1059,8 +1060,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         }
 
                         if (saveLayoverShadowMask) {
-                            layoverShadowMaskBuffer.setElemIntAt(index,
-                                    layoverShadowMask[(int)(posData.azimuthIndex + 0.5)][(int)(posData.rangeIndex + 0.5)]);
+                            layoverShadowMaskBuffer.setElemIntAt(index, layoverShadowWindow.getValue(
+                                    (int)(posData.rangeIndex + 0.5), (int)(posData.azimuthIndex + 0.5)));
                         }
 
                         double satelliteHeight = 0;
@@ -1078,7 +1079,12 @@ public class RangeDopplerGeocodingOp extends Operator {
                             double v = getPixelValue(posData.azimuthIndex, posData.rangeIndex, tileData, subSwathIndex);
 
                             if (v != tileData.noDataValue && tileData.applyRadiometricNormalization) {
-                                if (localIncidenceAngles[1] != SARGeocoding.NonValidIncidenceAngle) {
+                                if (localIncidenceAngles[1] != SARGeocoding.NonValidIncidenceAngle &&
+                                        tileData.calibrationHandle != null) {
+                                    // calibrated with the rest of the row
+                                    tileData.addToCalibrationBatch(index, v, posData.rangeIndex, posData.azimuthIndex);
+                                    continue;
+                                } else if (localIncidenceAngles[1] != SARGeocoding.NonValidIncidenceAngle) {
                                     v = calibrator.applyCalibration(
                                             v, posData.rangeIndex, posData.azimuthIndex, posData.slantRange,
                                             satelliteHeight, sceneToEarthCentre, localIncidenceAngles[1],
@@ -1096,6 +1102,9 @@ public class RangeDopplerGeocodingOp extends Operator {
                         orthoDataProduced = true;
                     }
                 }
+                for (TileData tileData : tgtTiles) {
+                    tileData.calibrateBatch();
+                }
             }
             localDEM = null;
 
@@ -1105,126 +1114,92 @@ public class RangeDopplerGeocodingOp extends Operator {
         }
     }
 
-    private synchronized void createLayoverShadowMask() {
-
-        if (isLayoverShadowMaskAvailable) return;
-
-        final Dimension tileSize = new Dimension(sourceImageWidth, 10);
-        final Rectangle[] tileRectangles = OperatorUtils.getAllTileRectangles(sourceProduct, tileSize, 0);
-        final StatusProgressMonitor status = new StatusProgressMonitor(StatusProgressMonitor.TYPE.SUBTASK);
-        status.beginTask("Creating Layover/Shadow Mask... ", tileRectangles.length);
-        final ThreadExecutor executor = new ThreadExecutor();
-
-        layoverShadowMask = new byte[sourceImageHeight][sourceImageWidth];
-
-        try {
-            for (final Rectangle rectangle : tileRectangles) {
-                final ThreadRunnable worker = new ThreadRunnable() {
-
-                    @Override
-                    public void process() {
-                        final int x0 = rectangle.x;
-                        final int y0 = rectangle.y;
-                        final int w = rectangle.width;
-                        final int h = rectangle.height;
-                        final int xMax = x0 + w;
-                        final int yMax = y0 + h;
-
-                        final double[][] localDEM = new double[h + 2][w + 2];
-                        final TileGeoreferencing tileGeoRef = new TileGeoreferencing(sourceProduct, x0, y0, w, h);
-                        try {
-                            final boolean valid = DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod,
-                                    tileGeoRef, x0, y0, w, h, sourceProduct, true, localDEM);
-
-                            if (!valid) {
-                                saveLayoverShadowMask = false;
-                                System.out.println("Cannot create layover/shadow mask due to the absent of DEM");
-                                return;
-                            }
-                        } catch (Throwable e) {
-                            OperatorUtils.catchOperatorException(getId(), e);
-                        }
-
-                        final SARPosition sarPosition = new SARPosition(
-                                firstLineUTC,
-                                lastLineUTC,
-                                lineTimeInterval,
-                                wavelength,
-                                rangeSpacing,
-                                sourceImageWidth,
-                                srgrFlag,
-                                nearEdgeSlantRange,
-                                nearRangeOnLeft,
-                                orbit,
-                                srgrConvParams
-                        );
-                        sarPosition.setTileConstraints(x0, y0, w, h);
-
-                        final SARPosition.PositionData posData = new SARPosition.PositionData();
-                        final GeoPos geoPos = new GeoPos();
-                        float[] slrs = new float[w];
-                        float[] elev = new float[w];
-                        float[] azIndex = new float[w];
-                        float[] rgIndex = new float[w];
-                        boolean[] savePixel = new boolean[w];
-
-                        for (int y = y0; y < yMax; ++y) {
-                            final int yy = y - y0;
-                            Arrays.fill(slrs, 0.0f);
-                            Arrays.fill(elev, 0.0f);
-                            Arrays.fill(azIndex, 0.0f);
-                            Arrays.fill(rgIndex, 0.0f);
-                            Arrays.fill(savePixel, Boolean.FALSE);
-
-                            for (int x = x0; x < xMax; ++x) {
-                                final int xx = x - x0;
-                                Double alt = localDEM[yy + 1][xx + 1];
-                                if (alt.equals(demNoDataValue))
-                                    continue;
+    /**
+     * Compute the layover/shadow mask of the source lines [y0, y0 + h) over the full source width.
+     * Only the mask values falling in the lines [blockY0, blockY0 + blockHeight) are saved to the block.
+     */
+    private void computeLayoverShadowStrip(final int y0, final int h, final byte[] block,
+                                           final int blockY0, final int blockHeight) throws Exception {
+        final int x0 = 0;
+        final int w = sourceImageWidth;
+        final int xMax = x0 + w;
+        final int yMax = y0 + h;
+
+        final double[][] localDEM = new double[h + 2][w + 2];
+        final TileGeoreferencing tileGeoRef = new TileGeoreferencing(sourceProduct, x0, y0, w, h);
+        final boolean valid = DEMFactory.getLocalDEM(dem, demNoDataValue, demResamplingMethod,
+                tileGeoRef, x0, y0, w, h, sourceProduct, true, localDEM);
+        if (!valid) {
+            // no DEM coverage, nothing is in layover or shadow
+            return;
+        }
 
-                                tileGeoRef.getGeoPos(x, y, geoPos);
-                                if (!geoPos.isValid())
-                                    continue;
+        final SARPosition sarPosition = new SARPosition(
+                firstLineUTC,
+                lastLineUTC,
+                lineTimeInterval,
+                wavelength,
+                rangeSpacing,
+                sourceImageWidth,
+                srgrFlag,
+                nearEdgeSlantRange,
+                nearRangeOnLeft,
+                orbit,
+                srgrConvParams
+        );
+        sarPosition.setTileConstraints(x0, y0, w, h);
+
+        final SARPosition.PositionData posData = new SARPosition.PositionData();
+        final GeoPos geoPos = new GeoPos();
+        float[] slrs = new float[w];
+        float[] elev = new float[w];
+        float[] azIndex = new float[w];
+        float[] rgIndex = new float[w];
+        boolean[] savePixel = new boolean[w];
+
+        for (int y = y0; y < yMax; ++y) {
+            final int yy = y - y0;
+            Arrays.fill(slrs, 0.0f);
+            Arrays.fill(elev, 0.0f);
+            Arrays.fill(azIndex, 0.0f);
+            Arrays.fill(rgIndex, 0.0f);
+            Arrays.fill(savePixel, Boolean.FALSE);
+
+            for (int x = x0; x < xMax; ++x) {
+                final int xx = x - x0;
+                Double alt = localDEM[yy + 1][xx + 1];
+                if (alt.equals(demNoDataValue))
+                    continue;
 
-                                double lat = geoPos.lat;
-                                double lon = geoPos.lon;
-                                if (lon >= 180.0) {
-                                    lon -= 360.0;
-                                }
+                tileGeoRef.getGeoPos(x, y, geoPos);
+                if (!geoPos.isValid())
+                    continue;
 
-                                GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
-                                if (!sarPosition.getPosition(posData))
-                                    continue;
+                double lat = geoPos.lat;
+                double lon = geoPos.lon;
+                if (lon >= 180.0) {
+                    lon -= 360.0;
+                }
 
-                                int rIndex = (int) posData.rangeIndex;
-                                int aIndex = (int) posData.azimuthIndex;
-                                if (rIndex >= 0 && rIndex < sourceImageWidth && aIndex >= 0 && aIndex < sourceImageHeight) {
-                                    azIndex[xx] = (float)posData.azimuthIndex;
-                                    rgIndex[xx] = (float)posData.rangeIndex;
-                                    slrs[xx] = (float)posData.slantRange;
-                                    elev[xx] = computeElevationAngle(posData.slantRange, posData.earthPoint, posData.sensorPos);
-                                    savePixel[xx] = true;
-                                } else {
-                                    savePixel[xx] = false;
-                                }
-                            }
-                            computeLayoverShadow(x0, y0, w, h, savePixel, slrs, elev, azIndex, rgIndex);
-                        }
-                    }
-                };
-                executor.execute(worker);
-                status.worked(1);
+                GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
+                if (!sarPosition.getPosition(posData))
+                    continue;
 
+                int rIndex = (int) posData.rangeIndex;
+                int aIndex = (int) posData.azimuthIndex;
+                if (rIndex >= 0 && rIndex < sourceImageWidth && aIndex >= 0 && aIndex < sourceImageHeight) {
+                    azIndex[xx] = (float)posData.azimuthIndex;
+                    rgIndex[xx] = (float)posData.rangeIndex;
+                    slrs[xx] = (float)posData.slantRange;
+                    elev[xx] = computeElevationAngle(posData.slantRange, posData.earthPoint, posData.sensorPos);
+                    savePixel[xx] = true;
+                } else {
+                    savePixel[xx] = false;
+                }
             }
-            executor.complete();
-
-        } catch (Throwable e) {
-            OperatorUtils.catchOperatorException(getId(), e);
-        } finally {
-            status.done();
+            computeLayoverShadow(x0, y0, w, h, savePixel, slrs, elev, azIndex, rgIndex,
+                                 block, blockY0, blockHeight);
         }
-
-        isLayoverShadowMaskAvailable = true;
     }
 
     private static float computeElevationAngle(
@@ -1239,7 +1214,8 @@ public class RangeDopplerGeocodingOp extends Operator {
 
     private void computeLayoverShadow(final int x0, final int y0, final int w, final int h,
                                       final boolean[] savePixel, final float[] slrs, final float[] elev,
-                                      final float[] azIndex, final float[] rgIndex) {
+                                      final float[] azIndex, final float[] rgIndex,
+                                      final byte[] block, final int blockY0, final int blockHeight) {
 
         final byte byte1 = 1;
         final byte byte2 = 2;
@@ -1254,7 +1230,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] > maxSlantRange) {
                             maxSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1,
+                                              block, blockY0, blockHeight);
                         }
                     }
                 }
@@ -1266,7 +1243,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] <= minSlantRange) {
                             minSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1,
+                                              block, blockY0, blockHeight);
                         }
                     }
                 }
@@ -1278,7 +1256,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (elev[i] > maxElevAngle) {
                             maxElevAngle = elev[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte2);
+                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte2,
+                                              block, blockY0, blockHeight);
                         }
                     }
                 }
@@ -1292,7 +1271,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] > maxSlantRange) {
                             maxSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1,
+                                              block, blockY0, blockHeight);
                         }
                     }
                 }
@@ -1304,7 +1284,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (slrs[i] < minSlantRange) {
                             minSlantRange = slrs[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1);
+                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte1,
+                                              block, blockY0, blockHeight);
                         }
                     }
                 }
@@ -1316,7 +1297,8 @@ public class RangeDopplerGeocodingOp extends Operator {
                         if (elev[i] > maxElevAngle) {
                             maxElevAngle = elev[i];
                         } else {
-                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte2);
+                            saveLayoverShadow(x0, y0, w, h, rgIndex[i], azIndex[i], byte2,
+                                              block, blockY0, blockHeight);
                         }
                     }
                 }
@@ -1327,21 +1309,21 @@ public class RangeDopplerGeocodingOp extends Operator {
     }
 
     private void saveLayoverShadow(final int x0, final int y0, final int w, final int h,
-                                   final float rgIndex, final float azIndex, final byte value) {
+                                   final float rgIndex, final float azIndex, final byte value,
+                                   final byte[] block, final int blockY0, final int blockHeight) {
 
         final int xMin = (int)rgIndex;
         final int xMax = Math.min(xMin + 1, x0 + w - 1);
-        final int yMin = (int)azIndex;
-        final int yMax = Math.min(yMin + 1, y0 + h - 1);
+        final int yMin = Math.max((int)azIndex, blockY0);
+        final int yMax = Math.min(Math.min((int)azIndex + 1, y0 + h - 1), blockY0 + blockHeight - 1);
         for (int y = yMin; y <= yMax; ++y) {
+            final int offset = (y - blockY0) * sourceImageWidth;
             for (int x = xMin; x <= xMax; ++x) {
-
-                synchronized (layoverShadowMask) {
-                    if (layoverShadowMask[y][x] == 0) {
-                        layoverShadowMask[y][x] = value;
-                    } else if (layoverShadowMask[y][x] == 1 && value == 2){
-                        layoverShadowMask[y][x] += value;
-                    }
+                final int k = offset + x;
+                if (block[k] == 0) {
+                    block[k] = value;
+                } else if (block[k] == 1 && value == 2){
+                    block[k] += value;
                 }
             }
         }
@@ -1519,6 +1501,20 @@ public class RangeDopplerGeocodingOp extends Operator {
         return true;
     }
 
+    /**
+     * Correct the samples of a source tile of a band in the geometry of the source product, once for all the
+     * target pixels resampled from the tile. The corrected samples are intensities and replace the source
+     * samples for the resampling and the radiometric normalization of the band. The default makes no correction.
+     *
+     * @param tileData   the target band
+     * @param sourceTile the source tile of the band
+     * @return the corrected samples of the source tile line by line, or null to use the source tile as it is
+     * @throws Exception The exceptions.
+     */
+    protected double[] correctSourceSamples(final TileData tileData, final Tile sourceTile) throws Exception {
+        return null;
+    }
+
     /**
      * Get unit for the source band corresponding to the given target band.
      *
@@ -1567,8 +1563,10 @@ public class RangeDopplerGeocodingOp extends Operator {
                 Rectangle srcRect = new Rectangle(x0, y0, w, h);
 
                 srcBands = targetBandNameToSourceBand.get(tileData.bandName);
-                tileData.imgResamplingRaster.setSourceTiles(getSourceTile(srcBands[0], srcRect),
+                final Tile sourceTileI = getSourceTile(srcBands[0], srcRect);
+                tileData.imgResamplingRaster.setSourceTiles(sourceTileI,
                                                             srcBands.length > 1 ? getSourceTile(srcBands[1], srcRect) : null);
+                tileData.imgResamplingRaster.setCorrectedSamples(correctSourceSamples(tileData, sourceTileI));
             }
 
             tileData.imgResamplingRaster.setRangeAzimuthIndices(rangeIndex, azimuthIndex);
@@ -1582,6 +1580,7 @@ public class RangeDopplerGeocodingOp extends Operator {
 
             if (computeNewSourceRectangle) {
                 tileData.imgResamplingRaster.setSourceTiles(tileData.sourceTileI, tileData.sourceTileQ);
+                tileData.imgResamplingRaster.setCorrectedSamples(tileData.correctedSamples);
             }
 
             return v;
@@ -1593,7 +1592,7 @@ public class RangeDopplerGeocodingOp extends Operator {
     }
 
     /**
-     * Set flag for radiometric correction. This function is for unit test only.
+     * Set flag for radiometric correction, replacing the selected source bands with Sigma0 bands.
      *
      * @param flag The flag.
      */
@@ -1612,7 +1611,7 @@ public class RangeDopplerGeocodingOp extends Operator {
         final ProductData tileDataBuffer;
         final String bandName;
         final String bandPolar;
-        final Unit.UnitType bandUnit;
+        Unit.UnitType bandUnit;
         final double noDataValue;
         final Band[] srcBands;
         final boolean isPolsar;
@@ -1626,6 +1625,12 @@ public class RangeDopplerGeocodingOp extends Operator {
         final Tile sourceTileI;
         final Tile sourceTileQ;
 
+        final Sentinel1Calibrator.CalibrationHandle calibrationHandle;
+        double[] correctedSamples = null;
+        private int[] batchIndex;
+        private double[] batchValue, batchRangeIndex, batchAzimuthIndex;
+        private int batchCount = 0;
+
         TileData(final Tile tile, final Band[] srcBands, final boolean isPolsar, final boolean outputComplex,
                  final String name, final Unit.UnitType unit, final MetadataElement absRoot, final Calibrator calibrator,
                  final Resampling imgResampling, final Tile sourceTileI, final Tile sourceTileQ) {
@@ -1646,6 +1651,42 @@ public class RangeDopplerGeocodingOp extends Operator {
             imgResamplingIndex = imgResampling.createIndex();
             this.sourceTileI = sourceTileI;
             this.sourceTileQ = sourceTileQ;
+
+            if (calibrator instanceof Sentinel1Calibrator) {
+                this.calibrationHandle = ((Sentinel1Calibrator) calibrator).getCalibrationHandle(name);
+            } else {
+                this.calibrationHandle = null;
+            }
+        }
+
+        void addToCalibrationBatch(final int index, final double v, final double rangeIndex,
+                                   final double azimuthIndex) {
+            if (batchIndex == null) {
+                final int size = targetTile.getWidth();
+                batchIndex = new int[size];
+                batchValue = new double[size];
+                batchRangeIndex = new double[size];
+                batchAzimuthIndex = new double[size];
+            }
+            batchIndex[batchCount] = index;
+            batchValue[batchCount] = v;
+            batchRangeIndex[batchCount] = rangeIndex;
+            batchAzimuthIndex[batchCount] = azimuthIndex;
+            ++batchCount;
+        }
+
+        /**
+         * Calibrate the pixels added since the last call and save them to the target tile.
+         */
+        void calibrateBatch() {
+            if (batchCount == 0) {
+                return;
+            }
+            calibrationHandle.calibrate(batchValue, batchRangeIndex, batchAzimuthIndex, batchCount, bandUnit);
+            for (int k = 0; k < batchCount; ++k) {
+                tileDataBuffer.setElemDoubleAt(batchIndex[k], batchValue[k]);
+            }
+            batchCount = 0;
         }
     }
 
@@ -1659,6 +1700,7 @@ public class RangeDopplerGeocodingOp extends Operator {
         private Tile sourceTileQ = null;
         private ProductData dataBufferI = null;
         private ProductData dataBufferQ = null;
+        private double[] correctedSamples = null;
         private int subSwathIndex = -1;
 
         ResamplingRaster(final TileData tileData) {
@@ -1684,6 +1726,13 @@ public class RangeDopplerGeocodingOp extends Operator {
             }
         }
 
+        void setCorrectedSamples(final double[] correctedSamples) {
+            this.correctedSamples = correctedSamples;
+            if (correctedSamples != null) {
+                tileData.bandUnit = Unit.UnitType.INTENSITY;
+            }
+        }
+
         public final int getWidth() {
             return sourceTileI.getWidth();
         }
@@ -1698,6 +1747,10 @@ public class RangeDopplerGeocodingOp extends Operator {
             boolean allPixelsFromSameSubSwath = true;
             boolean allValid = true;
 
+            if (correctedSamples != null) {
+                return getCorrectedSamples(x, y, samples);
+            }
+
             for (int i = 0; i < y.length; i++) {
                 for (int j = 0; j < x.length; j++) {
 
@@ -1771,6 +1824,22 @@ public class RangeDopplerGeocodingOp extends Operator {
             return allValid;
         }
 
+        private boolean getCorrectedSamples(final int[] x, final int[] y, final double[][] samples) {
+            boolean allValid = true;
+            for (int i = 0; i < y.length; i++) {
+                final int offset = (y[i] - sourceRectangle.y) * sourceRectangle.width - sourceRectangle.x;
+                for (int j = 0; j < x.length; j++) {
+                    final double v = correctedSamples[offset + x[j]];
+                    if (tileData.noDataValue != 0 && v == tileData.noDataValue) {
+                        allValid = false;
+                    }
+                    samples[i][j] = v;
+                }
+            }
+            this.subSwathIndex = -1;
+            return allValid;
+        }
+
         int getSubSwathIndex() {
             return this.subSwathIndex;
         }
@@ -1824,6 +1893,91 @@ public class RangeDopplerGeocodingOp extends Operator {
         log.info("---------------------------------");
     }
 
+    /**
+     * Layover/shadow mask in source geometry, computed on demand in blocks of BLOCK_LINES source lines.
+     * <p>
+     * A block is computed from the 10 line strips starting in it and from the strips up to MARGIN_LINES after it,
+     * whose points can map back into the block. Blocks are kept in a cache bounded by bytes and are recomputed if
+     * they are evicted, so the first tiles do not wait for the mask of the whole scene.
+     */
+    private final class LayoverShadowMask {
+
+        private static final int BLOCK_LINES = 256;
+        private static final int STRIP_LINES = 10;
+        private static final int MARGIN_LINES = 30;
+
+        private final Cache<Integer, byte[]> blockCache = CacheBuilder.newBuilder()
+                .maximumWeight(Config.instance().preferences().getLong(
+                        "s1tbx.terrainCorrection.layoverShadowCacheSizeMB", 64L) * 1024L * 1024L)
+                .weigher((Integer blockIdx, byte[] block) -> block.length)
+                .build();
+
+        /**
+         * Get the blocks of the mask used by a target tile.
+         *
+         * @param sourceRectangle the source rectangle of the target tile, null if not known
+         * @return the window
+         */
+        BlockWindow getWindow(final Rectangle sourceRectangle) {
+            if (sourceRectangle == null) {
+                return new BlockWindow(0, 0);
+            }
+            final int firstBlock = sourceRectangle.y / BLOCK_LINES;
+            final int lastBlock = (sourceRectangle.y + sourceRectangle.height - 1) / BLOCK_LINES;
+            return new BlockWindow(firstBlock, lastBlock - firstBlock + 1);
+        }
+
+        private byte[] getBlock(final int blockIdx) throws Exception {
+            try {
+                return blockCache.get(blockIdx, () -> computeBlock(blockIdx));
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        private byte[] computeBlock(final int blockIdx) throws Exception {
+            final int blockY0 = blockIdx * BLOCK_LINES;
+            final int blockHeight = Math.min(BLOCK_LINES, sourceImageHeight - blockY0);
+            final byte[] block = new byte[blockHeight * sourceImageWidth];
+
+            // strips before the block only save to their own lines
+            final int yEnd = Math.min(blockY0 + blockHeight + MARGIN_LINES, sourceImageHeight);
+            for (int y0 = (blockY0 / STRIP_LINES) * STRIP_LINES; y0 < yEnd; y0 += STRIP_LINES) {
+                final int h = Math.min(STRIP_LINES, sourceImageHeight - y0);
+                computeLayoverShadowStrip(y0, h, block, blockY0, blockHeight);
+            }
+            return block;
+        }
+
+        /**
+         * The blocks of a target tile, fetched from the cache on first use.
+         */
+        final class BlockWindow {
+            private final int firstBlock;
+            private final byte[][] blocks;
+
+            private BlockWindow(final int firstBlock, final int numBlocks) {
+                this.firstBlock = firstBlock;
+                this.blocks = new byte[numBlocks][];
+            }
+
+            int getValue(final int x, final int y) throws Exception {
+                final int blockIdx = y / BLOCK_LINES;
+                final int i = blockIdx - firstBlock;
+                byte[] block;
+                if (i >= 0 && i < blocks.length) {
+                    if (blocks[i] == null) {
+                        blocks[i] = getBlock(blockIdx);
+                    }
+                    block = blocks[i];
+                } else {
+                    block = getBlock(blockIdx);
+                }
+                return block[(y - blockIdx * BLOCK_LINES) * sourceImageWidth + x];
+            }
+        }
+    }
+
     private static class PositionData {
         final PosVector earthPoint = new PosVector();
         final PosVector sensorPos = new PosVector();
@@ -17,6 +17,7 @@ package org.esa.s1tbx.sar.gpf.geometric;
 
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.DEMWindowProvider;
 import org.esa.s1tbx.commons.OrbitStateVectors;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.insar.gpf.support.SARPosition;
@@ -168,6 +169,7 @@ public final class SARSimulationOp extends Operator {
     private double nearEdgeSlantRange = 0.0; // in m
     private double wavelength = 0.0; // in m
     private double demNoDataValue = 0; // no data value for DEM
+    private DEMWindowProvider demWindowProvider = null;
     private OrbitStateVectors orbit = null;
 
     private OrbitStateVector[] orbitStateVectors = null;
@@ -238,6 +240,10 @@ public final class SARSimulationOp extends Operator {
 
     @Override
     public synchronized void dispose() {
+        if (demWindowProvider != null) {
+            demWindowProvider.dispose();
+            demWindowProvider = null;
+        }
         if (dem != null) {
             dem.dispose();
             dem = null;
@@ -313,6 +319,16 @@ public final class SARSimulationOp extends Operator {
         isElevationModelAvailable = true;
     }
 
+    /**
+     * Get the DEM window provider for the simulation grid.
+     */
+    private synchronized DEMWindowProvider getDEMWindowProvider() {
+        if (demWindowProvider == null) {
+            demWindowProvider = new DEMWindowProvider(dem, demNoDataValue, 0.0, 0.0, delLat, delLon);
+        }
+        return demWindowProvider;
+    }
+
     /**
      * Create target product.
      */
@@ -569,16 +585,24 @@ public final class SARSimulationOp extends Operator {
                 final double[] latLonMinMax = new double[4];
                 computeImageGeoBoundary(xmin, xmax, ymin, ymax, latLonMinMax);
 
-                final double latMin = latLonMinMax[0];
-                final double latMax = latLonMinMax[1];
-                final double lonMin = latLonMinMax[2];
-                final double lonMax = latLonMinMax[3];
-                final int nLat = (int) ((latMax - latMin) / delLat) + 1;
-                final int nLon = (int) ((lonMax - lonMin) / delLon) + 1;
+                // the DEM posts are aligned to a global grid so that neighbouring tiles share the samples
+                final DEMWindowProvider.Window demWindow = getDEMWindowProvider().getWindow(
+                        latLonMinMax[0], latLonMinMax[1], latLonMinMax[2], latLonMinMax[3], false);
+                final double latMin = demWindow.getLatitude(demWindow.rows - 1);
+                final double lonMin = demWindow.getLongitude(0);
+                final int nLat = demWindow.rows - 1;
+                final int nLon = demWindow.cols - 1;
 
                 final double[][] tileDEM = new double[nLat + 1][nLon + 1];
+                for (int i = 0; i <= nLat; i++) {
+                    if (saveZeroHeightSimulation) {
+                        Arrays.fill(tileDEM[i], 1.0);
+                    } else {
+                        System.arraycopy(demWindow.elevation, (nLat - i) * demWindow.cols, tileDEM[i], 0, nLon + 1);
+                    }
+                }
                 final double[][] neighbourDEM = new double[3][3];
-                Double alt;
+                double alt;
 
                 if (saveLayoverShadowMask) {
                     slrs = new double[nLon];
@@ -604,15 +628,9 @@ public final class SARSimulationOp extends Operator {
                         if (lon >= 180.0) {
                             lon -= 360.0;
                         }
-                        if (saveZeroHeightSimulation) {
-                            alt = 1.0;
-                        } else {
-                            geoPos.setLocation(lat, lon);
-                            alt = dem.getElevation(geoPos);
-                            if (alt.equals(demNoDataValue))
-                                continue;
-                        }
-                        tileDEM[i][j] = alt;
+                        alt = tileDEM[i][j];
+                        if (alt == demNoDataValue)
+                            continue;
 
                         GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
                         if (!sarPosition.getPosition(posData))
@@ -628,19 +646,9 @@ public final class SARSimulationOp extends Operator {
                         for (int ii = Math.max(0, i - 1); ii <= i + 1; ++ii) {
                             ii = Math.min(nLat, ii);
                             int c = 0;
-                            double neighbourLat = latMin + ii * delLat;
                             for (int jj = Math.max(0, j - 1); jj <= j + 1; ++jj) {
                                 jj = Math.min(nLon, jj);
                                 neighbourDEM[r][c] = tileDEM[ii][jj];
-                                if (neighbourDEM[r][c] == 0) {
-                                    if (saveZeroHeightSimulation) {
-                                        neighbourDEM[r][c] = 1;
-                                    } else {
-                                        geoPos.setLocation(neighbourLat, lonMin + jj * delLon);
-                                        neighbourDEM[r][c] = dem.getElevation(geoPos);
-                                    }
-                                    tileDEM[ii][jj] = neighbourDEM[r][c];
-                                }
                                 ++c;
                             }
                             ++r;
@@ -757,7 +765,8 @@ public final class SARSimulationOp extends Operator {
                             double[] latlon = jOrbit.lp2ell(new Point(x + 0.5, y + 0.5), meta);
                             lat = latlon[0] * Constants.RTOD;
                             lon = latlon[1] * Constants.RTOD;
-                            alt = dem.getElevation(new GeoPos(lat, lon));
+                            geoPos.setLocation(lat, lon);
+                            alt = dem.getElevation(geoPos);
                         }
 
                         GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.geometric;
+
+import org.esa.s1tbx.calibration.gpf.RemoveGRDBorderNoiseOp;
+import org.esa.s1tbx.calibration.gpf.Sentinel1RemoveThermalNoiseOp;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.Parameter;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.gpf.InputProductValidator;
+import org.esa.snap.engine_utilities.gpf.OperatorUtils;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+
+import java.awt.*;
+
+/**
+ * Sentinel-1 GRD to terrain corrected Sigma0 in one operator: border noise removal, thermal noise removal,
+ * calibration and Range Doppler terrain correction.
+ * <p>
+ * The thermal noise and the border noise are removed from each source tile in one pass before it is resampled,
+ * and the calibration is applied to the resampled pixels, so that the source tiles are read once and no
+ * intermediate products are written to the tile cache. The noise LUTs and the border mask are computed by the
+ * Sentinel1RemoveThermalNoiseOp and RemoveGRDBorderNoiseOp operators, which are initialised but not run as
+ * nodes of the graph.
+ */
+
+@OperatorMetadata(alias = "S1-GRD-Preprocessing",
+        category = "Radar/Sentinel-1 TOPS",
+        authors = "Jun Lu, Luis Veci",
+        version = "1.0",
+        copyright = "Copyright (C) 2021 by SkyWatch Space Applications Inc.",
+        description = "Sentinel-1 GRD border noise and thermal noise removal, calibration and terrain correction")
+public final class Sentinel1GRDPreprocessingOp extends RangeDopplerGeocodingOp {
+
+    @Parameter(description = "Remove thermal noise", defaultValue = "true", label = "Remove Thermal Noise")
+    private boolean removeThermalNoise = true;
+
+    @Parameter(description = "Remove GRD border noise", defaultValue = "true", label = "Remove Border Noise")
+    private boolean removeBorderNoise = true;
+
+    @Parameter(description = "The border margin limit", defaultValue = "500", label = "Border margin limit[pixels]")
+    private int borderLimit = 500;
+
+    @Parameter(description = "The trim threshold", defaultValue = "0.5", label = "Threshold")
+    private double trimThreshold = 0.5;
+
+    private static final String PRODUCT_SUFFIX = "_NR_Cal_TC";
+
+    private Sentinel1RemoveThermalNoiseOp thermalNoiseOp = null;
+    private RemoveGRDBorderNoiseOp borderNoiseOp = null;
+
+    @Override
+    public void initialize() throws OperatorException {
+
+        try {
+            final InputProductValidator validator = new InputProductValidator(sourceProduct);
+            validator.checkIfSentinel1Product();
+            validator.checkIfGRD();
+            validator.checkIfCalibrated(false);
+
+            setApplyRadiometricCalibration(true);
+            super.initialize();
+
+            if (removeThermalNoise) {
+                thermalNoiseOp = new Sentinel1RemoveThermalNoiseOp();
+                thermalNoiseOp.setSourceProduct(sourceProduct);
+                thermalNoiseOp.getTargetProduct();
+            }
+
+            if (removeBorderNoise) {
+                borderNoiseOp = new RemoveGRDBorderNoiseOp();
+                borderNoiseOp.setSourceProduct(sourceProduct);
+                borderNoiseOp.setParameter("borderLimit", borderLimit);
+                borderNoiseOp.setParameter("trimThreshold", trimThreshold);
+                borderNoiseOp.getTargetProduct();
+            }
+
+        } catch (Throwable e) {
+            OperatorUtils.catchOperatorException(getId(), e);
+        }
+    }
+
+    @Override
+    public void dispose() throws OperatorException {
+        if (thermalNoiseOp != null) {
+            thermalNoiseOp.dispose();
+        }
+        if (borderNoiseOp != null) {
+            borderNoiseOp.dispose();
+        }
+        super.dispose();
+    }
+
+    @Override
+    protected String getProductSuffix() {
+        return PRODUCT_SUFFIX;
+    }
+
+    /**
+     * Remove the border noise and the thermal noise from the intensity of a source tile.
+     */
+    @Override
+    protected double[] correctSourceSamples(final TileData tileData, final Tile sourceTile) throws Exception {
+
+        if (!tileData.applyRadiometricNormalization || (thermalNoiseOp == null && borderNoiseOp == null)) {
+            return null;
+        }
+
+        final Rectangle rect = sourceTile.getRectangle();
+        final int x0 = rect.x;
+        final int y0 = rect.y;
+        final int w = rect.width;
+        final int h = rect.height;
+
+        final double[] noise = thermalNoiseOp != null ?
+                thermalNoiseOp.computeNoise("Intensity_" + tileData.bandPolar.toUpperCase(), rect) : null;
+        final boolean[] borderMask = borderNoiseOp != null ? borderNoiseOp.computeBorderNoiseMask(rect) : null;
+
+        final boolean isAmplitude = Unit.getUnitType(tileData.srcBands[0]) == Unit.UnitType.AMPLITUDE;
+        final double noDataValue = tileData.noDataValue;
+        final ProductData srcData = sourceTile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(sourceTile);
+        final double[] samples = new double[w * h];
+
+        for (int y = y0; y < y0 + h; ++y) {
+            srcIndex.calculateStride(y);
+            final int offset = (y - y0) * w - x0;
+            for (int x = x0; x < x0 + w; ++x) {
+                final int k = offset + x;
+                final double dn = srcData.getElemDoubleAt(srcIndex.getIndex(x));
+                if (dn == noDataValue || (borderMask != null && borderMask[k])) {
+                    samples[k] = noDataValue;
+                    continue;
+                }
+
+                double value = isAmplitude ? dn * dn : dn;
+                if (noise != null) {
+                    value -= noise[k];
+                    if (value < 0) {
+                        value = Sentinel1RemoveThermalNoiseOp.trgFloorValue;
+                    }
+                }
+                samples[k] = value;
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * The SPI is used to register this operator in the graph processing framework
+     * via the SPI configuration file
+     * {@code META-INF/services/org.esa.snap.core.gpf.OperatorSpi}.
+     * This class may also serve as a factory for new operator instances.
+     *
+     * @see OperatorSpi#createOperator()
+     * @see OperatorSpi#createOperator(java.util.Map, java.util.Map)
+     */
+    public static class Spi extends OperatorSpi {
+        public Spi() {
+            super(Sentinel1GRDPreprocessingOp.class);
+        }
+    }
+}
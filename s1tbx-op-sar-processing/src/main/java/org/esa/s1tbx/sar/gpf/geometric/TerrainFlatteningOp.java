@@ -18,6 +18,7 @@ package org.esa.s1tbx.sar.gpf.geometric;
 import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.s1tbx.calibration.gpf.CalibrationOp;
+import org.esa.s1tbx.commons.DEMWindowProvider;
 import org.esa.s1tbx.commons.OrbitStateVectors;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.commons.SARUtils;
@@ -37,7 +38,6 @@ import org.esa.snap.core.gpf.annotations.TargetProduct;
 import org.esa.snap.core.util.ProductUtils;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.dem.dataio.DEMFactory;
-import org.esa.snap.dem.dataio.EarthGravitationalModel96;
 import org.esa.snap.dem.dataio.FileElevationModel;
 import org.esa.snap.engine_utilities.datamodel.AbstractMetadata;
 import org.esa.snap.engine_utilities.datamodel.OrbitStateVector;
@@ -132,6 +132,7 @@ public final class TerrainFlatteningOp extends Operator {
     private double nearEdgeSlantRange = 0.0; // in m
     private double wavelength = 0.0; // in m
     private double demNoDataValue = 0; // no data value for DEM
+    private DEMWindowProvider demWindowProvider = null;
     private double overSamplingFactor = 1.0;
     private OrbitStateVectors orbit = null;
     private Resampling selectedResampling = null;
@@ -240,6 +241,10 @@ public final class TerrainFlatteningOp extends Operator {
 
     @Override
     public synchronized void dispose() {
+        if (demWindowProvider != null) {
+            demWindowProvider.dispose();
+            demWindowProvider = null;
+        }
         if (dem != null) {
             dem.dispose();
             dem = null;
@@ -563,28 +568,17 @@ public final class TerrainFlatteningOp extends Operator {
 
             final double extralat = 20 * demResolution;
             final double extralon = 20 * demResolution;
-            final double latMin = latLonMinMax[0] - extralat;
-            final double latMax = latLonMinMax[1] + extralat;
-            final double lonMin = latLonMinMax[2] - extralon;
-            final double lonMax = latLonMinMax[3] + extralon;
-
-            final int rows = (int) Math.round((latMax - latMin) / demResolution);
-            final int cols = (int) Math.round((lonMax - lonMin) / demResolution);
-
-            final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
-            final double[][] height = new double[rows][cols];
-            for (int i = 0; i < rows; ++i) {
-                final double lat = latMax - i * demResolution;
-                for (int j = 0; j < cols; ++j) {
-                    final double lon = lonMin + j * demResolution;
-                    Double alt = dem.getElevation(new GeoPos(lat, lon));
-                    if (alt.equals(demNoDataValue) && !nodataValueAtSea) { // get corrected elevation for 0
-                        alt = (double) egm.getEGM(lat, lon);
-                    }
-                    height[i][j] = alt;
-                }
-            }
-            final ResamplingRaster resamplingRaster = new ResamplingRaster(demNoDataValue, height);
+            // the DEM window is aligned to a global grid of posts so that neighbouring tiles share the samples
+            final DEMWindowProvider.Window demWindow = getDEMWindowProvider(demResolution).getWindow(
+                    latLonMinMax[0] - extralat, latLonMinMax[1] + extralat,
+                    latLonMinMax[2] - extralon, latLonMinMax[3] + extralon,
+                    !nodataValueAtSea); // get corrected elevation for 0
+
+            final double latMax = demWindow.getLatitude(0);
+            final double lonMin = demWindow.getLongitude(0);
+            final int rows = demWindow.rows;
+            final int cols = demWindow.cols;
+            final ResamplingRaster resamplingRaster = new ResamplingRaster(demNoDataValue, demWindow.elevation, cols, rows);
             final Resampling.Index resamplingIndex = selectedResampling.createIndex();
 
             final double delta = demResolution / overSamplingFactor;
@@ -985,6 +979,16 @@ public final class TerrainFlatteningOp extends Operator {
         isElevationModelAvailable = true;
     }
 
+    /**
+     * Get the DEM window provider for the given DEM post spacing in degrees.
+     */
+    private synchronized DEMWindowProvider getDEMWindowProvider(final double demResolution) {
+        if (demWindowProvider == null) {
+            demWindowProvider = new DEMWindowProvider(dem, demNoDataValue, 0.0, 0.0, demResolution, demResolution);
+        }
+        return demWindowProvider;
+    }
+
     private OverlapPercentage computeTileOverlapPercentage(final int x0, final int y0, final int w, final int h,
                                                            final ProgressMonitor pm) throws Exception {
 
@@ -1420,20 +1424,24 @@ public final class TerrainFlatteningOp extends Operator {
 
     private static class ResamplingRaster implements Resampling.Raster {
 
-        private final double[][] data;
+        private final double[] data;
+        private final int width;
+        private final int height;
         private final double noDataValue;
 
-        public ResamplingRaster(final double demNoDataValue, final double[][] data) {
+        public ResamplingRaster(final double demNoDataValue, final double[] data, final int width, final int height) {
             this.data = data;
+            this.width = width;
+            this.height = height;
             this.noDataValue = demNoDataValue;
         }
 
         public final int getWidth() {
-            return data[0].length;
+            return width;
         }
 
         public final int getHeight() {
-            return data.length;
+            return height;
         }
 
         public boolean getSamples(final int[] x, final int[] y, final double[][] samples) throws Exception {
@@ -1444,8 +1452,9 @@ public final class TerrainFlatteningOp extends Operator {
                 int i = 0;
                 while (i < y.length) {
                     int j = 0;
+                    final int offset = y[i] * width;
                     while (j < x.length) {
-                        val = data[y[i]][x[j]];
+                        val = data[offset + x[j]];
                         if (noDataValue == val) {
                             val = Double.NaN;
                             allValid = false;
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.filtering;
+
+import org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters.SlidingMedian;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.internal.TileImpl;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the sliding median with sorting each window
+ */
+public class SlidingMedianTest {
+
+    private static final int width = 45;
+    private static final int height = 38;
+    private static final double noDataValue = 0.0;
+
+    @Test
+    public void testFloatData() {
+        final Random random = new Random(3);
+        final double[] values = new double[width * height];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextInt(10) == 0 ? noDataValue : 1000.0 * random.nextDouble();
+        }
+        checkMedians(values);
+    }
+
+    @Test
+    public void testQuantizedData() {
+        final Random random = new Random(7);
+        final double[] values = new double[width * height];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextInt(6);
+        }
+        checkMedians(values);
+    }
+
+    private static void checkMedians(final double[] values) {
+        final Product product = new Product("test", "test", width, height);
+        final Band band = product.addBand("band1", ProductData.TYPE_FLOAT64);
+        band.setData(ProductData.createInstance(values));
+
+        final int x0 = 4, y0 = 6, w = 33, h = 25;
+        for (int windowSize : new int[]{3, 6, 11, 21}) {
+            final int halfSize = windowSize / 2;
+            final int sx0 = Math.max(0, x0 - halfSize);
+            final int sy0 = Math.max(0, y0 - halfSize);
+            final Rectangle sourceRectangle = new Rectangle(sx0, sy0,
+                    Math.min(x0 + w + halfSize, width) - sx0, Math.min(y0 + h + halfSize, height) - sy0);
+            final Tile tile = new TileImpl(band, band.getSourceImage().getData(sourceRectangle));
+
+            final SlidingMedian median = new SlidingMedian(tile.getDataBuffer(), null, new TileIndex(tile),
+                    sourceRectangle, noDataValue, false);
+            final double[][] filteredTile = new double[h][w];
+            median.filter(x0, y0, w, h, windowSize, windowSize, filteredTile);
+
+            for (int y = y0; y < y0 + h; ++y) {
+                for (int x = x0; x < x0 + w; ++x) {
+                    assertEquals(sortedMedian(values, x, y, windowSize), filteredTile[y - y0][x - x0], 0.0);
+                }
+            }
+        }
+    }
+
+    private static double sortedMedian(final double[] values, final int x, final int y, final int windowSize) {
+        final double[] window = new double[windowSize * windowSize];
+        int numSamples = 0;
+        final int minX = x - windowSize / 2;
+        final int minY = y - windowSize / 2;
+        for (int yy = Math.max(minY, 0); yy < Math.min(minY + windowSize, height); ++yy) {
+            for (int xx = Math.max(minX, 0); xx < Math.min(minX + windowSize, width); ++xx) {
+                final double v = values[yy * width + xx];
+                if (v != noDataValue) {
+                    window[numSamples++] = v;
+                }
+            }
+        }
+        if (numSamples == 0) {
+            return noDataValue;
+        }
+        Arrays.sort(window, 0, numSamples);
+        return window[numSamples / 2];
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.filtering;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters.SpeckleFilter;
+import org.esa.s1tbx.sar.gpf.filtering.SpeckleFilters.WindowStatistics;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.internal.TileImpl;
+import org.esa.snap.engine_utilities.datamodel.Unit;
+import org.esa.snap.engine_utilities.gpf.TileIndex;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the summed-area window statistics with the per window computation of SpeckleFilter
+ */
+public class WindowStatisticsTest {
+
+    private static final int width = 40;
+    private static final int height = 30;
+    private static final double noDataValue = 0.0;
+
+    private final SpeckleFilter reference = new SpeckleFilter() {
+        public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) {
+        }
+
+        public double[][] performFiltering(int x0, int y0, int w, int h, String[] srcBandNames) {
+            return null;
+        }
+    };
+
+    @Test
+    public void testWindowStatistics() {
+        final Tile tile = createTile(new Random(5));
+        final ProductData data = tile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(tile);
+
+        final WindowStatistics stats = new WindowStatistics(data, null, srcIndex, tile.getRectangle(),
+                noDataValue, false);
+
+        for (int windowSize : new int[]{3, 4, 7, 15}) {
+            final double[] neighborValues = new double[windowSize * windowSize];
+            for (int y = 0; y < height; ++y) {
+                for (int x = 0; x < width; ++x) {
+                    final int numSamples = reference.getNeighborValues(x, y, data, null, srcIndex, noDataValue,
+                            false, windowSize, windowSize, width, height, neighborValues);
+
+                    assertEquals(numSamples, stats.setWindow(x, y, windowSize, windowSize));
+                    assertEquals(neighborValues[neighborValues.length / 2],
+                            stats.getCentreValue(x, y, windowSize, windowSize), 0.0);
+                    if (numSamples == 0) {
+                        continue;
+                    }
+
+                    final double mean = reference.getMeanValue(neighborValues, numSamples, noDataValue);
+                    final double var = reference.getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+                    assertEquals(mean, stats.getMean(), 1e-12 * mean);
+                    assertEquals(mean * numSamples, stats.getSum(), 1e-12 * mean * numSamples);
+                    assertEquals(var, stats.getVariance(), 1e-10 * var);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEquivalentNumberOfLooks() {
+        final Tile tile = createTile(new Random(9));
+        final ProductData data = tile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(tile);
+
+        final WindowStatistics stats = new WindowStatistics(data, null, srcIndex, tile.getRectangle(),
+                noDataValue, false);
+
+        assertEquals(reference.computeEquivalentNumberOfLooks(data, null, noDataValue,
+                Unit.UnitType.INTENSITY, srcIndex, 5, 5, 20, 15),
+                stats.computeEquivalentNumberOfLooks(true, 5, 5, 20, 15), 1e-10);
+        assertEquals(reference.computeEquivalentNumberOfLooks(data, null, noDataValue,
+                Unit.UnitType.AMPLITUDE, srcIndex, 5, 5, 20, 15),
+                stats.computeEquivalentNumberOfLooks(false, 5, 5, 20, 15), 1e-10);
+    }
+
+    @Test
+    public void testHighDynamicRange() {
+        // bright targets next to dark sea, 1e4 : 1e-3, on a tile large enough for the tables to lose
+        // the dark windows if the sums were not compensated
+        final int size = 512;
+        final Random random = new Random(3);
+        final double[] values = new double[size * size];
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                final double level = x < size / 2 ? 1e4 : 1e-3;
+                values[y * size + x] = random.nextInt(25) == 0 ? noDataValue :
+                        level * -Math.log(1.0 - random.nextDouble());
+            }
+        }
+        final Tile tile = createTile(values, size, size);
+        final ProductData data = tile.getDataBuffer();
+        final TileIndex srcIndex = new TileIndex(tile);
+
+        final WindowStatistics stats = new WindowStatistics(data, null, srcIndex, tile.getRectangle(),
+                noDataValue, false);
+
+        final int windowSize = 7;
+        final double[] neighborValues = new double[windowSize * windowSize];
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                final int numSamples = reference.getNeighborValues(x, y, data, null, srcIndex, noDataValue,
+                        false, windowSize, windowSize, size, size, neighborValues);
+
+                assertEquals(numSamples, stats.setWindow(x, y, windowSize, windowSize));
+                if (numSamples < 2) {
+                    continue;
+                }
+
+                final double mean = reference.getMeanValue(neighborValues, numSamples, noDataValue);
+                final double var = reference.getVarianceValue(neighborValues, numSamples, mean, noDataValue);
+                assertEquals(mean, stats.getMean(), 1e-12 * mean);
+                assertEquals(var, stats.getVariance(), 1e-10 * var);
+            }
+        }
+    }
+
+    // speckled intensities with a few no data samples
+    private static Tile createTile(final Random random) {
+        final double[] values = new double[width * height];
+        for (int i = 0; i < values.length; ++i) {
+            values[i] = random.nextInt(25) == 0 ? noDataValue : 500.0 + 1000.0 * -Math.log(1.0 - random.nextDouble());
+        }
+        return createTile(values, width, height);
+    }
+
+    private static Tile createTile(final double[] values, final int w, final int h) {
+        final Product product = new Product("test", "test", w, h);
+        final Band band = product.addBand("band1", ProductData.TYPE_FLOAT64);
+        band.setData(ProductData.createInstance(values));
+        return new TileImpl(band, band.getSourceImage().getData(new Rectangle(0, 0, w, h)));
+    }
+}
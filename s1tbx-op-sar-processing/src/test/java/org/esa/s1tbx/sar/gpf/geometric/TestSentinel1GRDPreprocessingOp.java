@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sar.gpf.geometric;
+
+import org.esa.s1tbx.calibration.gpf.CalibrationOp;
+import org.esa.s1tbx.calibration.gpf.RemoveGRDBorderNoiseOp;
+import org.esa.s1tbx.calibration.gpf.Sentinel1RemoveThermalNoiseOp;
+import org.esa.s1tbx.commons.test.S1TBXTests;
+import org.esa.s1tbx.commons.test.TestData;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.engine_utilities.gpf.TestProcessor;
+import org.esa.snap.engine_utilities.util.TestUtils;
+import org.junit.Test;
+
+import java.awt.image.Raster;
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Unit test for Sentinel1GRDPreprocessingOp.
+ */
+public class TestSentinel1GRDPreprocessingOp {
+
+    static {
+        TestUtils.initTestEnvironment();
+    }
+    private final static File inputFile = TestData.inputS1_GRDSubset;
+
+    // the fused operator calibrates the resampled pixels, while the chain resamples calibrated pixels,
+    // so pixels are compared within a relative tolerance and a small share of them, at the borders of
+    // the noise masks and of the valid data, may differ more
+    private final static double relativeTolerance = 0.05;
+    private final static double minFractionWithinTolerance = 0.99;
+
+    private final static OperatorSpi spi = new Sentinel1GRDPreprocessingOp.Spi();
+    private final static TestProcessor testProcessor = S1TBXTests.createS1TBXTestProcessor();
+
+    private String[] exceptionExemptions = {"not supported", "not be map projected",
+            "The product has already been calibrated", "not a valid mission for Sentinel1 product",
+            "WV is not a valid acquisition mode from: IW,EW,SM"};
+
+    @Test
+    public void testProcessAllSentinel1() throws Exception {
+        testProcessor.testProcessAllInPath(spi, S1TBXTests.rootPathsSentinel1, null, exceptionExemptions);
+    }
+
+    /**
+     * Compares the fused operator with the chain of the operators it replaces on the same input.
+     */
+    @Test
+    public void testSameAsChainedOperators() throws Exception {
+        assumeTrue(inputFile + " not found", inputFile.exists());
+
+        final Product sourceProduct = TestUtils.readSourceProduct(inputFile);
+
+        final Sentinel1GRDPreprocessingOp fusedOp = (Sentinel1GRDPreprocessingOp) spi.createOperator();
+        fusedOp.setSourceProduct(sourceProduct);
+        final Product fusedProduct = fusedOp.getTargetProduct();
+        TestUtils.verifyProduct(fusedProduct, true, true, true);
+
+        final Sentinel1RemoveThermalNoiseOp thermalNoiseOp = new Sentinel1RemoveThermalNoiseOp();
+        thermalNoiseOp.setSourceProduct(sourceProduct);
+
+        final RemoveGRDBorderNoiseOp borderNoiseOp = new RemoveGRDBorderNoiseOp();
+        borderNoiseOp.setSourceProduct(thermalNoiseOp.getTargetProduct());
+        borderNoiseOp.setParameter("borderLimit", 500);
+        borderNoiseOp.setParameter("trimThreshold", 0.5);
+
+        final CalibrationOp calOp = new CalibrationOp();
+        calOp.setSourceProduct(borderNoiseOp.getTargetProduct());
+
+        final RangeDopplerGeocodingOp terrainCorrectionOp = new RangeDopplerGeocodingOp();
+        terrainCorrectionOp.setSourceProduct(calOp.getTargetProduct());
+        final Product chainedProduct = terrainCorrectionOp.getTargetProduct();
+
+        assertEquals(chainedProduct.getSceneRasterWidth(), fusedProduct.getSceneRasterWidth());
+        assertEquals(chainedProduct.getSceneRasterHeight(), fusedProduct.getSceneRasterHeight());
+
+        int numBands = 0;
+        for (Band fusedBand : fusedProduct.getBands()) {
+            if (!fusedBand.getName().startsWith("Sigma0")) {
+                continue;
+            }
+            final Band chainedBand = chainedProduct.getBand(fusedBand.getName());
+            assertNotNull(fusedBand.getName() + " not found in the chained product", chainedBand);
+            ++numBands;
+
+            final Raster fused = fusedBand.getSourceImage().getData();
+            final Raster chained = chainedBand.getSourceImage().getData();
+            final double fusedNoData = fusedBand.getNoDataValue();
+            final double chainedNoData = chainedBand.getNoDataValue();
+
+            int numValid = 0, numWithinTolerance = 0;
+            for (int y = 0; y < fused.getHeight(); ++y) {
+                for (int x = 0; x < fused.getWidth(); ++x) {
+                    final double f = fused.getSampleDouble(x, y, 0);
+                    final double c = chained.getSampleDouble(x, y, 0);
+                    if (f == fusedNoData || c == chainedNoData) {
+                        continue;
+                    }
+                    ++numValid;
+                    if (Math.abs(f - c) <= relativeTolerance * Math.abs(c)) {
+                        ++numWithinTolerance;
+                    }
+                }
+            }
+            assertTrue(fusedBand.getName() + " has no valid pixels", numValid > 0);
+            assertTrue(fusedBand.getName() + ": " + numWithinTolerance + " of " + numValid +
+                            " pixels within " + relativeTolerance + " of the chained operators",
+                    numWithinTolerance >= minFractionWithinTolerance * numValid);
+        }
+        assertTrue(numBands > 0);
+    }
+}
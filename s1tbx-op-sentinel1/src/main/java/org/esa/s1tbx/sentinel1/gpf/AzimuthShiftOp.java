@@ -16,8 +16,8 @@
 package org.esa.s1tbx.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.downloadable.StatusProgressMonitor;
@@ -78,6 +78,7 @@ public class AzimuthShiftOp extends Operator {
     private String[] polarizations = null;
 
     private static final int cohWin = 5; // window size for coherence calculation
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("Azimuth-Shift");
     private static final String DerampDemodPhase = "derampDemodPhase";
 
     /**
@@ -324,23 +325,28 @@ public class AzimuthShiftOp extends Operator {
             final Tile derampDemodPhaseTile = getSourceTile(derampDemodPhaseBand, targetRectangle);
             final ProductData derampDemodPhaseData = derampDemodPhaseTile.getDataBuffer();
             final TileIndex index = new TileIndex(derampDemodPhaseTile);
-            final double[][] derampDemodPhase = new double[h][w];
+            final double[] derampDemodPhase = new double[h * w];
+            final double[] derampDemodCos = new double[h * w];
+            final double[] derampDemodSin = new double[h * w];
             for (int y = y0; y < yMax; y++) {
                 index.calculateStride(y);
-                final int yy = y - y0;
+                final int offset = (y - y0) * w - x0;
                 for (int x = x0; x < xMax; x++) {
                     final int idx = index.getIndex(x);
-                    derampDemodPhase[yy][x - x0] = derampDemodPhaseData.getElemDoubleAt(idx);
+                    final double p = derampDemodPhaseData.getElemDoubleAt(idx);
+                    derampDemodPhase[offset + x] = p;
+                    derampDemodCos[offset + x] = FastMath.cos(p);
+                    derampDemodSin[offset + x] = FastMath.sin(p);
                 }
             }
 
             // perform deramp and demodulation
             final Tile slvTileI = getSourceTile(slvBandI, targetRectangle);
             final Tile slvTileQ = getSourceTile(slvBandQ, targetRectangle);
-            final double[][] derampDemodI = new double[h][w];
-            final double[][] derampDemodQ = new double[h][w];
+            final double[] derampDemodI = new double[h * w];
+            final double[] derampDemodQ = new double[h * w];
             BackGeocodingOp.performDerampDemod(
-                    slvTileI, slvTileQ, targetRectangle, derampDemodPhase, derampDemodI, derampDemodQ);
+                    slvTileI, slvTileQ, targetRectangle, derampDemodCos, derampDemodSin, derampDemodI, derampDemodQ);
 
             // compute shift phase
             final double[] phase = new double[2*h];
@@ -352,27 +358,27 @@ public class AzimuthShiftOp extends Operator {
             final ProductData tgtDataI = tgtTileI.getDataBuffer();
             final ProductData tgtDataQ = tgtTileQ.getDataBuffer();
 
-            final double[] col1 = new double[2 * h];
-            final double[] col2 = new double[2 * h];
-            final DoubleFFT_1D col_fft = new DoubleFFT_1D(h);
+            final double[] col1 = FFTEngine.getDoubleBuffer(0, 2 * h);
+            final double[] col2 = FFTEngine.getDoubleBuffer(1, 2 * h);
             for (int c = 0; c < w; c++) {
                 final int x = x0 + c;
                 for (int r = 0; r < h; r++) {
-                    col1[2 * r] = derampDemodI[r][c];
-                    col1[2 * r + 1] = derampDemodQ[r][c];
+                    final int k = r * w + c;
+                    col1[2 * r] = derampDemodI[k];
+                    col1[2 * r + 1] = derampDemodQ[k];
 
-                    col2[2 * r] = derampDemodPhase[r][c];
+                    col2[2 * r] = derampDemodPhase[k];
                     col2[2 * r + 1] = 0.0;
                 }
 
-                col_fft.complexForward(col1);
-                col_fft.complexForward(col2);
+                fftEngine.complexForward(col1, 0, h);
+                fftEngine.complexForward(col2, 0, h);
 
                 multiplySpectrumByShiftFactor(col1, phase);
                 multiplySpectrumByShiftFactor(col2, phase);
 
-                col_fft.complexInverse(col1, true);
-                col_fft.complexInverse(col2, true);
+                fftEngine.complexInverse(col1, 0, h, true);
+                fftEngine.complexInverse(col2, 0, h, true);
 
                 for (int r = 0; r < h; r++) {
                     final int y = y0 + r;
@@ -845,7 +851,7 @@ public class AzimuthShiftOp extends Operator {
         int k2;
         double c, s;
         double real, imag;
-        final int signalLength = array.length / 2;
+        final int signalLength = phaseArray.length / 2;
         for (int k = 0; k < signalLength; ++k) {
             k2 = k * 2;
             c = phaseArray[k2];
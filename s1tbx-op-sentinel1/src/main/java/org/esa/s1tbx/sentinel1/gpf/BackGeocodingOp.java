@@ -19,6 +19,7 @@ import com.bc.ceres.core.ProgressMonitor;
 import org.apache.commons.math3.util.FastMath;
 import org.esa.s1tbx.insar.gpf.coregistration.CreateStackOp;
 import org.esa.s1tbx.insar.gpf.coregistration.DEMAssistedCoregistrationOp;
+import org.esa.s1tbx.commons.DEMWindowProvider;
 import org.esa.s1tbx.commons.SARGeocoding;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
@@ -46,6 +47,7 @@ import org.esa.snap.engine_utilities.datamodel.Unit;
 import org.esa.snap.engine_utilities.eo.Constants;
 import org.esa.snap.engine_utilities.eo.GeoUtils;
 import org.esa.snap.engine_utilities.gpf.*;
+import org.esa.snap.runtime.Config;
 import org.jlinda.core.delaunay.TriangleInterpolator;
 
 import java.awt.*;
@@ -55,6 +57,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * "Backgeocoding" + "Coregistration" processing blocks in The Sentinel-1 TOPS InSAR processing chain.
@@ -119,10 +125,11 @@ public final class BackGeocodingOp extends Operator {
     private double demNoDataValue = 0; // no data value for DEM
     private double demSamplingLat = 0.0;
     private double demSamplingLon = 0.0;
+    private DEMWindowProvider demWindowProvider = null;
     private double noDataValue = 0.0;
 
 	private int subSwathIndex = 0;
-    private boolean burstOffsetComputed = false;
+    private List<MasterGridPoint> masterGridPoints = null;
     private String swathIndexStr = null;
 
     private final HashMap<Band, Band> targetBandToSlaveBandMap = new HashMap<>(2);
@@ -132,8 +139,20 @@ public final class BackGeocodingOp extends Operator {
 
     private static final String PRODUCT_SUFFIX = "_Stack";
 
+    // (slave, burst) units of the tiles, shared by all back-geocoding operators
+    private static final ForkJoinPool burstPool = new ForkJoinPool(Config.instance().preferences().getInt(
+            "s1tbx.backgeocoding.parallelism", Runtime.getRuntime().availableProcessors()));
+
     private boolean outputDEM = false;
 
+    private final GeocodingGridCache geocodingGridCache = new GeocodingGridCache();
+
+    // deramp/demodulation buffers of the master and slave rectangles, reused by the tiles of each thread
+    private final ThreadLocal<Sentinel1Utils.DerampDemod> mstDerampDemodBuffers =
+            ThreadLocal.withInitial(Sentinel1Utils.DerampDemod::new);
+    private final ThreadLocal<Sentinel1Utils.DerampDemod> slvDerampDemodBuffers =
+            ThreadLocal.withInitial(Sentinel1Utils.DerampDemod::new);
+
     /**
      * Default constructor. The graph processing framework
      * requires that an operator has a default constructor.
@@ -486,10 +505,9 @@ public final class BackGeocodingOp extends Operator {
                 getElevationModel();
             }
 
-            if (!burstOffsetComputed) {
-                computeBurstOffset();
-            }
-
+            // each slave of each burst is an independent unit writing to its own target bands, and the
+            // bands of the master burst are written by one more unit per burst
+            final List<Callable<Void>> units = new ArrayList<>();
             for (int burstIndex = 0; burstIndex < mSubSwath[subSwathIndex - 1].numOfBursts; burstIndex++) {
                 final int firstLineIdx = burstIndex*mSubSwath[subSwathIndex - 1].linesPerBurst;
                 final int lastLineIdx = firstLineIdx + mSubSwath[subSwathIndex - 1].linesPerBurst - 1;
@@ -508,14 +526,28 @@ public final class BackGeocodingOp extends Operator {
                 double[] extendedAmount = {0.0, 0.0, 0.0, 0.0};
                 computeExtendedAmount(ntx0, nty0, ntw, nth, extendedAmount);
 
+                final int mBurstIndex = burstIndex;
+                if (outputDEM || disableReramp) {
+                    units.add(() -> {
+                        computeMasterPartialTile(subSwathIndex, mBurstIndex, ntx0, nty0, ntw, nth, targetTileMap,
+                                extendedAmount);
+                        return null;
+                    });
+                }
                 for(SlaveData slaveData : slaveDataList) {
                     //slaveData.print();
 
-                    computePartialTile(subSwathIndex, burstIndex, ntx0, nty0, ntw, nth, targetTileMap,
-                            slaveData, extendedAmount);
+                    units.add(() -> {
+                        computeBurstOffset(slaveData);
+                        computePartialTile(subSwathIndex, mBurstIndex, ntx0, nty0, ntw, nth, targetTileMap,
+                                slaveData, extendedAmount);
+                        return null;
+                    });
                 }
             }
 
+            computeUnits(units);
+
         } catch (Throwable e) {
             OperatorUtils.catchOperatorException(getId(), e);
         } finally {
@@ -523,6 +555,33 @@ public final class BackGeocodingOp extends Operator {
         }
     }
 
+    /**
+     * Compute the (slave, burst) units of a tile on the work stealing pool, so that the slaves of a deep stack
+     * are geocoded and resampled in parallel, and the slave tiles of some units are read while others compute.
+     */
+    private static void computeUnits(final List<Callable<Void>> units) throws Exception {
+        if (units.size() == 1) {
+            units.get(0).call();
+            return;
+        }
+        for (Future<Void> future : burstPool.invokeAll(units)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        geocodingGridCache.clear();
+        if (demWindowProvider != null) {
+            demWindowProvider.dispose();
+        }
+        super.dispose();
+    }
+
     /**
      * Get elevation model.
      *
@@ -553,82 +612,98 @@ public final class BackGeocodingOp extends Operator {
                         (double)dem.getDescriptor().getTileWidth();
                 demSamplingLon = demSamplingLat;
             }
+
+            final GeoPos demOrigin = dem.getGeoPos(new PixelPos(0, 0));
+            demWindowProvider = new DEMWindowProvider(dem, demNoDataValue, demOrigin.lat, demOrigin.lon,
+                    demSamplingLat, demSamplingLon);
         } catch (Throwable t) {
             SystemUtils.LOG.severe("Unable to get elevation model: " + t.getMessage());
         }
         isElevationModelAvailable = true;
     }
 
-    private synchronized void computeBurstOffset() throws Exception {
+    /**
+     * Get the master burst indices of the geolocation grid points, computed once and shared by the slaves.
+     */
+    private synchronized List<MasterGridPoint> getMasterGridPoints() {
+
+        if (masterGridPoints != null) return masterGridPoints;
 
-        if (burstOffsetComputed) return;
+        final List<MasterGridPoint> points = new ArrayList<>();
         try {
             final int h = mSubSwath[subSwathIndex - 1].latitude.length;
             final int w = mSubSwath[subSwathIndex - 1].latitude[0].length;
-            final PosVector earthPoint = new PosVector();
+            final GeoPos geoPos = new GeoPos();
             for (int i = 0; i < h; i++) {
                 for (int j = 0; j < w; j++) {
                     final double lat = mSubSwath[subSwathIndex - 1].latitude[i][j];
                     final double lon = mSubSwath[subSwathIndex - 1].longitude[i][j];
-                    final Double alt = dem.getElevation(new GeoPos(lat, lon));
-                    if (alt.equals(demNoDataValue)) {
+                    geoPos.setLocation(lat, lon);
+                    final double alt = dem.getElevation(geoPos);
+                    if (alt == demNoDataValue) {
                         continue;
                     }
+                    final PosVector earthPoint = new PosVector();
                     GeoUtils.geo2xyzWGS84(lat, lon, alt, earthPoint);
                     final BurstIndices mBurstIndices = getBurstIndices(subSwathIndex, mSU, earthPoint);
 
-                    if (mBurstIndices == null) {
+                    if (mBurstIndices == null ||
+                            (mBurstIndices.firstBurstIndex == -1 && mBurstIndices.secondBurstIndex == -1)) {
                         continue;
                     }
+                    points.add(new MasterGridPoint(earthPoint, mBurstIndices));
+                }
+            }
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
 
-                    for(SlaveData slaveData : slaveDataList) {
-                        if(slaveData.burstOffset != -9999)
-                            continue;
+        masterGridPoints = points;
+        return masterGridPoints;
+    }
 
-                        final Sentinel1Utils sSU = slaveData.sSU;
-                        final BurstIndices sBurstIndices = getBurstIndices(subSwathIndex, sSU, earthPoint);
-                        if (mBurstIndices == null || sBurstIndices == null ||
-                                (mBurstIndices.firstBurstIndex == -1 && mBurstIndices.secondBurstIndex == -1) ||
-                                (sBurstIndices.firstBurstIndex == -1 && sBurstIndices.secondBurstIndex == -1)) {
-                            continue;
-                        }
+    private void computeBurstOffset(final SlaveData slaveData) {
 
-                        if (mBurstIndices.inUpperPartOfFirstBurst == sBurstIndices.inUpperPartOfFirstBurst) {
-                            slaveData.burstOffset = sBurstIndices.firstBurstIndex - mBurstIndices.firstBurstIndex;
-                        } else if (sBurstIndices.secondBurstIndex != -1 &&
-                                mBurstIndices.inUpperPartOfFirstBurst == sBurstIndices.inUpperPartOfSecondBurst) {
-                            slaveData.burstOffset = sBurstIndices.secondBurstIndex - mBurstIndices.firstBurstIndex;
-                        } else if (mBurstIndices.secondBurstIndex != -1 &&
-                                mBurstIndices.inUpperPartOfSecondBurst == sBurstIndices.inUpperPartOfFirstBurst) {
-                            slaveData.burstOffset = sBurstIndices.firstBurstIndex - mBurstIndices.secondBurstIndex;
-                        } else if (mBurstIndices.secondBurstIndex != -1 && sBurstIndices.secondBurstIndex != -1 &&
-                                mBurstIndices.inUpperPartOfSecondBurst == sBurstIndices.inUpperPartOfSecondBurst) {
-                            slaveData.burstOffset = sBurstIndices.secondBurstIndex - mBurstIndices.secondBurstIndex;
-                        }
+        if (slaveData.burstOffsetComputed) return;
+        final List<MasterGridPoint> points = getMasterGridPoints();
+
+        synchronized (slaveData) {
+            if (slaveData.burstOffsetComputed) return;
+            try {
+                final Sentinel1Utils sSU = slaveData.sSU;
+                for (MasterGridPoint point : points) {
+                    final BurstIndices mBurstIndices = point.burstIndices;
+                    final BurstIndices sBurstIndices = getBurstIndices(subSwathIndex, sSU, point.earthPoint);
+                    if (sBurstIndices == null ||
+                            (sBurstIndices.firstBurstIndex == -1 && sBurstIndices.secondBurstIndex == -1)) {
+                        continue;
                     }
 
-                    boolean allComputed = true;
-                    for(SlaveData slaveData : slaveDataList) {
-                        if (slaveData.burstOffset == -9999) {
-                            allComputed = false;
-                            break;
-                        }
+                    if (mBurstIndices.inUpperPartOfFirstBurst == sBurstIndices.inUpperPartOfFirstBurst) {
+                        slaveData.burstOffset = sBurstIndices.firstBurstIndex - mBurstIndices.firstBurstIndex;
+                    } else if (sBurstIndices.secondBurstIndex != -1 &&
+                            mBurstIndices.inUpperPartOfFirstBurst == sBurstIndices.inUpperPartOfSecondBurst) {
+                        slaveData.burstOffset = sBurstIndices.secondBurstIndex - mBurstIndices.firstBurstIndex;
+                    } else if (mBurstIndices.secondBurstIndex != -1 &&
+                            mBurstIndices.inUpperPartOfSecondBurst == sBurstIndices.inUpperPartOfFirstBurst) {
+                        slaveData.burstOffset = sBurstIndices.firstBurstIndex - mBurstIndices.secondBurstIndex;
+                    } else if (mBurstIndices.secondBurstIndex != -1 && sBurstIndices.secondBurstIndex != -1 &&
+                            mBurstIndices.inUpperPartOfSecondBurst == sBurstIndices.inUpperPartOfSecondBurst) {
+                        slaveData.burstOffset = sBurstIndices.secondBurstIndex - mBurstIndices.secondBurstIndex;
                     }
-                    if(!allComputed)
-                        continue;
 
-                    burstOffsetComputed = true;
-                    return;
+                    if (slaveData.burstOffset != -9999) {
+                        break;
+                    }
                 }
+            } catch (Throwable t) {
+                t.printStackTrace();
             }
 
-            for(SlaveData slaveData : slaveDataList) {
+            if (slaveData.burstOffset == -9999) {
                 slaveData.burstOffset = 0;
             }
-            burstOffsetComputed = true;
-
-        } catch (Throwable t) {
-            t.printStackTrace();
+            slaveData.burstOffsetComputed = true;
         }
     }
 
@@ -695,9 +770,9 @@ public final class BackGeocodingOp extends Operator {
                 final double lat = mSU.getLatitude(azTime, rgTime, subSwathIndex);
                 final double lon = mSU.getLongitude(azTime, rgTime, subSwathIndex);
                 geoPos.setLocation(lat, lon);
-                Double alt = dem.getElevation(geoPos);
-                if (alt.equals(demNoDataValue)) {
-                    alt = (double)egm.getEGM(lat, lon);
+                double alt = dem.getElevation(geoPos);
+                if (alt == demNoDataValue) {
+                    alt = egm.getEGM(lat, lon);
                 }
 
                 GeoUtils.geo2xyzWGS84(geoPos.getLat(), geoPos.getLon(), alt, posData.earthPoint);
@@ -778,14 +853,9 @@ public final class BackGeocodingOp extends Operator {
             return;
         }
 
-        double[][] elevation = null;
-        if (outputDEM) {
-            elevation = new double[h][w];
-        }
-
         final PixelPos[][] slavePixPos = new PixelPos[h][w];
         final boolean isSuccessful = computeSlavePixPos(
-                subSwathIndex, mBurstIndex, sBurstIndex, x0, y0, w, h, extendedAmount, slavePixPos, slaveData, elevation);
+                subSwathIndex, mBurstIndex, sBurstIndex, x0, y0, w, h, extendedAmount, slavePixPos, slaveData);
 
         if (!isSuccessful) {
             return;
@@ -796,10 +866,6 @@ public final class BackGeocodingOp extends Operator {
                     mBurstIndex, sBurstIndex);
         }
 
-        if (outputDEM) {
-            outputDEM(x0, y0, w, h, targetTileMap, elevation);
-        }
-
         final int margin = selectedResampling.getKernelSize();
         final Rectangle sourceRectangle = getBoundingBox(slavePixPos, margin, subSwathIndex, sBurstIndex,
                 slaveData.sSU.getSubSwath());
@@ -808,25 +874,51 @@ public final class BackGeocodingOp extends Operator {
             return;
         }
 
-        final double[][] slvDerampDemodPhase = slaveData.sSU.computeDerampDemodPhase(slaveData.sSU.getSubSwath(),
-                subSwathIndex, sBurstIndex, sourceRectangle);
+        final Sentinel1Utils.DerampDemod slvDerampDemod = slvDerampDemodBuffers.get();
+        Sentinel1Utils.computeDerampDemod(slaveData.sSU.getSubSwath(), subSwathIndex, sBurstIndex,
+                sourceRectangle, slvDerampDemod);
 
-        if (slvDerampDemodPhase == null) {
-            return;
+        for(String polarization : mSU.getPolarizations()) {
+            final Band slaveBandI = getBand(slaveData.slaveProduct, "i_", swathIndexStr, polarization);
+            final Band slaveBandQ = getBand(slaveData.slaveProduct, "q_", swathIndexStr, polarization);
+            final Tile slaveTileI = getSourceTile(slaveBandI, sourceRectangle);
+            final Tile slaveTileQ = getSourceTile(slaveBandQ, sourceRectangle);
+
+            if (slaveTileI == null || slaveTileQ == null) {
+                return;
+            }
+
+            performDerampDemod(slaveTileI, slaveTileQ, sourceRectangle, slvDerampDemod.cos, slvDerampDemod.sin,
+                    slvDerampDemod.i, slvDerampDemod.q);
+
+            performInterpolation(x0, y0, w, h, sourceRectangle, slaveTileI, slaveTileQ, targetTileMap,
+                    slvDerampDemod.phase, slvDerampDemod.i, slvDerampDemod.q, slavePixPos, subSwathIndex, sBurstIndex,
+                    slaveData, polarization);
         }
+    }
 
-        final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
-        final double[][] mstDerampDemodPhase = mSU.computeDerampDemodPhase(mSubSwath,
-                subSwathIndex, mBurstIndex, targetRectangle);
+    /**
+     * Write the target bands of a master burst tile that do not depend on the slaves, the elevation and the
+     * deramped master I/Q when reramping is disabled, once for all the slaves.
+     */
+    private void computeMasterPartialTile(final int subSwathIndex, final int mBurstIndex,
+                                          final int x0, final int y0, final int w, final int h,
+                                          final Map<Band, Tile> targetTileMap, final double[] extendedAmount)
+            throws Exception {
 
-        if (mstDerampDemodPhase == null) {
-            return;
+        if (outputDEM) {
+            final double[][] elevation = computeElevation(subSwathIndex, mBurstIndex, x0, y0, w, h, extendedAmount);
+            if (elevation != null) {
+                outputDEM(x0, y0, w, h, targetTileMap, elevation);
+            }
         }
 
-        for(String polarization : mSU.getPolarizations()) {
+        if (disableReramp) {
+            final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
+            final Sentinel1Utils.DerampDemod mstDerampDemod = mstDerampDemodBuffers.get();
+            Sentinel1Utils.computeDerampDemod(mSubSwath, subSwathIndex, mBurstIndex, targetRectangle, mstDerampDemod);
 
-            // master bands
-            if (disableReramp) {
+            for (String polarization : mSU.getPolarizations()) {
                 final Band masterBandI = getBand(masterProduct, "i_", swathIndexStr, polarization);
                 final Band masterBandQ = getBand(masterProduct, "q_", swathIndexStr, polarization);
                 final Tile masterTileI = getSourceTile(masterBandI, targetRectangle);
@@ -836,73 +928,149 @@ public final class BackGeocodingOp extends Operator {
                     return;
                 }
 
-                final double[][] mstDerampDemodI = new double[targetRectangle.height][targetRectangle.width];
-                final double[][] mstDerampDemodQ = new double[targetRectangle.height][targetRectangle.width];
-
-                performDerampDemod(masterTileI, masterTileQ, targetRectangle, mstDerampDemodPhase,
-                        mstDerampDemodI, mstDerampDemodQ);
+                performDerampDemod(masterTileI, masterTileQ, targetRectangle, mstDerampDemod.cos,
+                        mstDerampDemod.sin, mstDerampDemod.i, mstDerampDemod.q);
 
-                saveMasterBands(x0, y0, w, h, targetTileMap, mstDerampDemodPhase, mstDerampDemodI,
-                        mstDerampDemodQ, polarization);
+                saveMasterBands(x0, y0, w, h, targetTileMap, mstDerampDemod.phase, mstDerampDemod.i,
+                        mstDerampDemod.q, polarization);
             }
+        }
+    }
 
-            // slave bands
-            final Band slaveBandI = getBand(slaveData.slaveProduct, "i_", swathIndexStr, polarization);
-            final Band slaveBandQ = getBand(slaveData.slaveProduct, "q_", swathIndexStr, polarization);
-            final Tile slaveTileI = getSourceTile(slaveBandI, sourceRectangle);
-            final Tile slaveTileQ = getSourceTile(slaveBandQ, sourceRectangle);
+    /**
+     * Compute the DEM pixel bounds of the posts around a master burst tile and its extension.
+     *
+     * @return the first and last DEM lines and the first and last DEM pixels, last exclusive
+     */
+    private int[] getDEMIndexBounds(final int subSwathIndex, final int mBurstIndex,
+                                    final int x0, final int y0, final int w, final int h,
+                                    final double[] extendedAmount) throws Exception {
+
+        final int xmin = x0 - (int)extendedAmount[3];
+        final int ymin = y0 - (int)extendedAmount[1];
+        final int ymax = y0 + h + (int)Math.abs(extendedAmount[0]);
+        final int xmax = x0 + w + (int)Math.abs(extendedAmount[2]);
+
+        // Compute lat/lon boundaries (with extensions) for target tile
+        final double[] latLonMinMax = new double[4];
+
+        computeImageGeoBoundary(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, latLonMinMax);
+
+        final double delta = Math.max(demSamplingLat, demSamplingLon);
+//        final double extralat = 1.5*delta + 4.0/25.0;
+//        final double extralon = 1.5*delta + 4.0/25.0;
+        final double extralat = 20*delta;
+        final double extralon = 20*delta;
+
+        final double latMin = latLonMinMax[0] - extralat;
+        final double latMax = latLonMinMax[1] + extralat;
+        final double lonMin = latLonMinMax[2] - extralon;
+        final double lonMax = latLonMinMax[3] + extralon;
+
+        // Compute lat/lon indices in DEM for the boundaries;
+        final PixelPos upperLeft = dem.getIndex(new GeoPos(latMax, lonMin));
+        final PixelPos lowerRight = dem.getIndex(new GeoPos(latMin, lonMax));
+        return new int[]{(int)Math.floor(upperLeft.getY()), (int)Math.ceil(lowerRight.getY()),
+                (int)Math.floor(upperLeft.getX()), (int)Math.ceil(lowerRight.getX())};
+    }
 
-            if (slaveTileI == null || slaveTileQ == null) {
-                return;
+    /**
+     * Compute the elevation of the pixels of a master burst tile from the DEM posts geocoded into the master.
+     *
+     * @return the elevation, 0 where no post is around the pixel, or null if no post falls in the burst
+     */
+    private double[][] computeElevation(final int subSwathIndex, final int mBurstIndex,
+                                        final int x0, final int y0, final int w, final int h,
+                                        final double[] extendedAmount) throws Exception {
+
+        final int[] demBounds = getDEMIndexBounds(subSwathIndex, mBurstIndex, x0, y0, w, h, extendedAmount);
+        final int latMaxIdx = demBounds[0];
+        final int latMinIdx = demBounds[1];
+        final int lonMinIdx = demBounds[2];
+        final int lonMaxIdx = demBounds[3];
+
+        final int numLines = latMinIdx - latMaxIdx;
+        final int numPixels = lonMaxIdx - lonMinIdx;
+        final double[][] masterAz = new double[numLines][numPixels];
+        final double[][] masterRg = new double[numLines][numPixels];
+        final double[][] lat = new double[numLines][numPixels];
+        final double[][] lon = new double[numLines][numPixels];
+
+        final int B = GeocodingGridCache.BLOCK_SIZE;
+        boolean noValidPost = true;
+        for (int bl = GeocodingGridCache.blockIndex(latMaxIdx); bl <= GeocodingGridCache.blockIndex(latMinIdx - 1); bl++) {
+            for (int bp = GeocodingGridCache.blockIndex(lonMinIdx); bp <= GeocodingGridCache.blockIndex(lonMaxIdx - 1); bp++) {
+
+                final GeocodingGridCache.Block mBlock = getMasterBlock(subSwathIndex, mBurstIndex, bl, bp);
+
+                final int l0 = Math.max(bl * B, latMaxIdx);
+                final int l1 = Math.min((bl + 1) * B, latMinIdx);
+                final int p0 = Math.max(bp * B, lonMinIdx);
+                final int p1 = Math.min((bp + 1) * B, lonMaxIdx);
+                for (int dl = l0; dl < l1; dl++) {
+                    final int l = dl - latMaxIdx;
+                    final int offset = (dl - bl * B) * B - bp * B;
+                    for (int dp = p0; dp < p1; dp++) {
+                        final int p = dp - lonMinIdx;
+                        final int k = offset + dp;
+                        lat[l][p] = mBlock.lat[k];
+                        lon[l][p] = mBlock.lon[k];
+                        masterAz[l][p] = mBlock.azimuthIndex[k];
+                        masterRg[l][p] = mBlock.rangeIndex[k];
+                        if (mBlock.azimuthIndex[k] != invalidIndex) {
+                            noValidPost = false;
+                        }
+                    }
+                }
             }
+        }
 
-            final double[][] slvDerampDemodI = new double[sourceRectangle.height][sourceRectangle.width];
-            final double[][] slvDerampDemodQ = new double[sourceRectangle.height][sourceRectangle.width];
+        if (noValidPost) {
+            return null;
+        }
 
-            performDerampDemod(slaveTileI, slaveTileQ, sourceRectangle, slvDerampDemodPhase,
-                    slvDerampDemodI, slvDerampDemodQ);
+        final org.jlinda.core.Window tileWindow = new org.jlinda.core.Window(y0, y0 + h - 1, x0, x0 + w - 1);
+        final double rgAzRatio = mSU.rangeSpacing / mSU.azimuthSpacing;
 
-            performInterpolation(x0, y0, w, h, sourceRectangle, slaveTileI, slaveTileQ, targetTileMap, slvDerampDemodPhase,
-                    slvDerampDemodI, slvDerampDemodQ, slavePixPos, subSwathIndex, sBurstIndex, slaveData, polarization);
+        final double[][] latArray = new double[h][w];
+        final double[][] lonArray = new double[h][w];
+        for (double[] data : latArray) {
+            Arrays.fill(data, invalidIndex);
         }
+
+        TriangleInterpolator.ZData[] dataList = new TriangleInterpolator.ZData[] {
+                new TriangleInterpolator.ZData(lat, latArray),
+                new TriangleInterpolator.ZData(lon, lonArray)
+        };
+
+        TriangleInterpolator.gridDataLinear(masterAz, masterRg, dataList,
+                tileWindow, rgAzRatio, 1, 1, invalidIndex, 0);
+
+        final double[][] elevation = new double[h][w];
+        final GeoPos geoPos = new GeoPos();
+        for (int yy = 0; yy < h; yy++) {
+            for (int xx = 0; xx < w; xx++) {
+                if (latArray[yy][xx] != invalidIndex) {
+                    geoPos.setLocation(latArray[yy][xx], lonArray[yy][xx]);
+                    elevation[yy][xx] = dem.getElevation(geoPos);
+                }
+            }
+        }
+        return elevation;
     }
 
     private boolean computeSlavePixPos(final int subSwathIndex, final int mBurstIndex, final int sBurstIndex,
                                        final int x0, final int y0, final int w, final int h,
                                        final double[] extendedAmount, final PixelPos[][] slavePixelPos,
-                                       final SlaveData slaveData,
-                                       final double[][] elevation)
+                                       final SlaveData slaveData)
             throws Exception {
 
         try {
-            final int xmin = x0 - (int)extendedAmount[3];
-            final int ymin = y0 - (int)extendedAmount[1];
-            final int ymax = y0 + h + (int)Math.abs(extendedAmount[0]);
-            final int xmax = x0 + w + (int)Math.abs(extendedAmount[2]);
-
-            // Compute lat/lon boundaries (with extensions) for target tile
-            final double[] latLonMinMax = new double[4];
-
-            computeImageGeoBoundary(subSwathIndex, mBurstIndex, xmin, xmax, ymin, ymax, latLonMinMax);
-
-            final double delta = Math.max(demSamplingLat, demSamplingLon);
-//            final double extralat = 1.5*delta + 4.0/25.0;
-//            final double extralon = 1.5*delta + 4.0/25.0;
-            final double extralat = 20*delta;
-            final double extralon = 20*delta;
-
-            final double latMin = latLonMinMax[0] - extralat;
-            final double latMax = latLonMinMax[1] + extralat;
-            final double lonMin = latLonMinMax[2] - extralon;
-            final double lonMax = latLonMinMax[3] + extralon;
-
-            // Compute lat/lon indices in DEM for the boundaries;
-            final PixelPos upperLeft = dem.getIndex(new GeoPos(latMax, lonMin));
-            final PixelPos lowerRight = dem.getIndex(new GeoPos(latMin, lonMax));
-            final int latMaxIdx = (int)Math.floor(upperLeft.getY());
-            final int latMinIdx = (int)Math.ceil(lowerRight.getY());
-            final int lonMinIdx = (int)Math.floor(upperLeft.getX());
-            final int lonMaxIdx = (int)Math.ceil(lowerRight.getX());
+            final int[] demBounds = getDEMIndexBounds(subSwathIndex, mBurstIndex, x0, y0, w, h, extendedAmount);
+            final int latMaxIdx = demBounds[0];
+            final int latMinIdx = demBounds[1];
+            final int lonMinIdx = demBounds[2];
+            final int lonMaxIdx = demBounds[3];
 
             // Loop through all DEM points bounded by the indices computed above. For each point,
             // get its lat/lon and its azimuth/range indices in target image;
@@ -914,43 +1082,43 @@ public final class BackGeocodingOp extends Operator {
             double[][] slaveRg = new double[numLines][numPixels];
             double[][] lat = new double[numLines][numPixels];
             double[][] lon = new double[numLines][numPixels];
-            final PositionData posData = new PositionData();
-            final PixelPos pix = new PixelPos();
-
-            final EarthGravitationalModel96 egm = EarthGravitationalModel96.instance();
 
+            // The DEM posts are geocoded block by block. Blocks are cached so that overlapping
+            // windows of neighbouring tiles and other slaves reuse the same solutions
+            final int B = GeocodingGridCache.BLOCK_SIZE;
             boolean noValidSlavePixPos = true;
-            for (int l = 0; l < numLines; l++) {
-                for (int p = 0; p < numPixels; p++) {
-
-                    pix.setLocation(lonMinIdx + p, latMaxIdx + l);
-                    GeoPos gp = dem.getGeoPos(pix);
-                    lat[l][p] = gp.lat;
-                    lon[l][p] = gp.lon;
-
-                    Double alt = dem.getElevation(gp);
-                    if (alt.equals(demNoDataValue) && !maskOutAreaWithoutElevation) { // get corrected elevation for 0
-                        alt = (double)egm.getEGM(gp.lat, gp.lon);
-                    }
-
-                    if (!alt.equals(demNoDataValue)) {
-                        GeoUtils.geo2xyzWGS84(gp.lat, gp.lon, alt, posData.earthPoint);
-                        if(getPosition(subSwathIndex, mBurstIndex, mSU, posData)) {
-
-                            masterAz[l][p] = posData.azimuthIndex;
-                            masterRg[l][p] = posData.rangeIndex;
-                            if (getPosition(subSwathIndex, sBurstIndex, slaveData.sSU, posData)) {
-
-                                slaveAz[l][p] = posData.azimuthIndex;
-                                slaveRg[l][p] = posData.rangeIndex;
+            for (int bl = GeocodingGridCache.blockIndex(latMaxIdx); bl <= GeocodingGridCache.blockIndex(latMinIdx - 1); bl++) {
+                for (int bp = GeocodingGridCache.blockIndex(lonMinIdx); bp <= GeocodingGridCache.blockIndex(lonMaxIdx - 1); bp++) {
+
+                    final GeocodingGridCache.Block mBlock = getMasterBlock(subSwathIndex, mBurstIndex, bl, bp);
+                    final GeocodingGridCache.Block sBlock = getSlaveBlock(subSwathIndex, sBurstIndex, slaveData.sSU,
+                            mBlock, bl, bp);
+
+                    final int l0 = Math.max(bl * B, latMaxIdx);
+                    final int l1 = Math.min((bl + 1) * B, latMinIdx);
+                    final int p0 = Math.max(bp * B, lonMinIdx);
+                    final int p1 = Math.min((bp + 1) * B, lonMaxIdx);
+                    for (int dl = l0; dl < l1; dl++) {
+                        final int l = dl - latMaxIdx;
+                        final int offset = (dl - bl * B) * B - bp * B;
+                        for (int dp = p0; dp < p1; dp++) {
+                            final int p = dp - lonMinIdx;
+                            final int k = offset + dp;
+                            lat[l][p] = mBlock.lat[k];
+                            lon[l][p] = mBlock.lon[k];
+
+                            if (mBlock.azimuthIndex[k] != invalidIndex && sBlock.azimuthIndex[k] != invalidIndex) {
+                                masterAz[l][p] = mBlock.azimuthIndex[k];
+                                masterRg[l][p] = mBlock.rangeIndex[k];
+                                slaveAz[l][p] = sBlock.azimuthIndex[k];
+                                slaveRg[l][p] = sBlock.rangeIndex[k];
                                 noValidSlavePixPos = false;
-                                continue;
+                            } else {
+                                masterAz[l][p] = invalidIndex;
+                                masterRg[l][p] = invalidIndex;
                             }
                         }
                     }
-
-                    masterAz[l][p] = invalidIndex;
-                    masterRg[l][p] = invalidIndex;
                 }
             }
 
@@ -986,18 +1154,17 @@ public final class BackGeocodingOp extends Operator {
                     tileWindow, rgAzRatio, 1, 1, invalidIndex, 0);
 
             boolean allElementsAreNull = true;
-            Double alt;
+            final GeoPos geoPos = new GeoPos();
+            double alt;
             for(int yy = 0; yy < h; yy++) {
                 for (int xx = 0; xx < w; xx++) {
                     if (rgArray[yy][xx] == invalidIndex || azArray[yy][xx] == invalidIndex) {
                         slavePixelPos[yy][xx] = null;
                     } else {
-                        if (maskOutAreaWithoutElevation || elevation != null) {
-                            alt = dem.getElevation(new GeoPos(latArray[yy][xx], lonArray[yy][xx]));
-                            if(elevation != null) {
-                                elevation[yy][xx] = alt;
-                            }
-                            if (!alt.equals(demNoDataValue)) {
+                        if (maskOutAreaWithoutElevation) {
+                            geoPos.setLocation(latArray[yy][xx], lonArray[yy][xx]);
+                            alt = dem.getElevation(geoPos);
+                            if (alt != demNoDataValue) {
                                 slavePixelPos[yy][xx] = new PixelPos(rgArray[yy][xx], azArray[yy][xx]);
                                 allElementsAreNull = false;
                             } else {
@@ -1020,6 +1187,82 @@ public final class BackGeocodingOp extends Operator {
         return false;
     }
 
+    private GeocodingGridCache.Block getMasterBlock(final int subSwathIndex, final int mBurstIndex,
+                                                    final int blockLine, final int blockPixel) throws Exception {
+        return geocodingGridCache.get(
+                new GeocodingGridCache.BlockKey(mSU, subSwathIndex, mBurstIndex, blockLine, blockPixel),
+                () -> geocodeMasterBlock(subSwathIndex, mBurstIndex, blockLine, blockPixel));
+    }
+
+    private GeocodingGridCache.Block getSlaveBlock(final int subSwathIndex, final int sBurstIndex,
+                                                   final Sentinel1Utils sSU, final GeocodingGridCache.Block mBlock,
+                                                   final int blockLine, final int blockPixel) throws Exception {
+        return geocodingGridCache.get(
+                new GeocodingGridCache.BlockKey(sSU, subSwathIndex, sBurstIndex, blockLine, blockPixel),
+                () -> geocodeSlaveBlock(subSwathIndex, sBurstIndex, sSU, mBlock));
+    }
+
+    /**
+     * Geocode a block of DEM posts into the given master burst. The geodetic position and elevation of
+     * each post are kept with the block for geocoding the slaves.
+     */
+    private GeocodingGridCache.Block geocodeMasterBlock(final int subSwathIndex, final int mBurstIndex,
+                                                        final int blockLine, final int blockPixel) throws Exception {
+
+        final int B = GeocodingGridCache.BLOCK_SIZE;
+        final GeocodingGridCache.Block block = new GeocodingGridCache.Block(invalidIndex, true);
+        final PositionData posData = new PositionData();
+
+        // the rows and columns of the DEM window are the DEM pixel lines and pixels
+        final DEMWindowProvider.Window demWindow = demWindowProvider.getWindow(
+                blockLine * B, blockPixel * B, B, B, !maskOutAreaWithoutElevation); // get corrected elevation for 0
+
+        for (int l = 0; l < B; l++) {
+            final double lat = demWindow.getLatitude(l);
+            for (int p = 0; p < B; p++) {
+                final int k = l * B + p;
+                final double lon = demWindow.getLongitude(p);
+                block.lat[k] = lat;
+                block.lon[k] = lon;
+                block.alt[k] = Double.NaN;
+
+                final double alt = demWindow.elevation[k];
+                if (alt != demNoDataValue) {
+                    block.alt[k] = alt;
+                    GeoUtils.geo2xyzWGS84(lat, lon, alt, posData.earthPoint);
+                    if (getPosition(subSwathIndex, mBurstIndex, mSU, posData)) {
+                        block.azimuthIndex[k] = posData.azimuthIndex;
+                        block.rangeIndex[k] = posData.rangeIndex;
+                    }
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Geocode into the given slave burst the DEM posts of a block already geocoded into the master.
+     */
+    private static GeocodingGridCache.Block geocodeSlaveBlock(final int subSwathIndex, final int sBurstIndex,
+                                                              final Sentinel1Utils sSU,
+                                                              final GeocodingGridCache.Block mBlock) {
+
+        final GeocodingGridCache.Block block = new GeocodingGridCache.Block(invalidIndex, false);
+        final PositionData posData = new PositionData();
+
+        for (int k = 0; k < block.azimuthIndex.length; k++) {
+            if (mBlock.azimuthIndex[k] == invalidIndex) {
+                continue;
+            }
+            GeoUtils.geo2xyzWGS84(mBlock.lat[k], mBlock.lon[k], mBlock.alt[k], posData.earthPoint);
+            if (getPosition(subSwathIndex, sBurstIndex, sSU, posData)) {
+                block.azimuthIndex[k] = posData.azimuthIndex;
+                block.rangeIndex[k] = posData.rangeIndex;
+            }
+        }
+        return block;
+    }
+
     /**
      * Compute source image geodetic boundary (minimum/maximum latitude/longitude) from the its corner
      * latitude/longitude.
@@ -1175,14 +1418,19 @@ public final class BackGeocodingOp extends Operator {
         return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
     }
 
-    static void performDerampDemod(final Tile tileI, final Tile tileQ,
-                                   final Rectangle rectangle, final double[][] derampDemodPhase,
-                                   final double[][] derampDemodI, final double[][] derampDemodQ) {
+    /**
+     * Rotate the samples of a rectangle by the deramp/demodulation phase, given as its cos and sin.
+     * All arrays are row by row with the width of the rectangle.
+     */
+    static void performDerampDemod(final Tile tileI, final Tile tileQ, final Rectangle rectangle,
+                                   final double[] cosPhase, final double[] sinPhase,
+                                   final double[] derampDemodI, final double[] derampDemodQ) {
 
         try {
             final int x0 = rectangle.x;
             final int y0 = rectangle.y;
-            final int xMax = x0 + rectangle.width;
+            final int w = rectangle.width;
+            final int xMax = x0 + w;
             final int yMax = y0 + rectangle.height;
 
             final ProductData dataI = tileI.getDataBuffer();
@@ -1191,16 +1439,14 @@ public final class BackGeocodingOp extends Operator {
 
             for (int y = y0; y < yMax; y++) {
                 index.calculateStride(y);
-                final int yy = y - y0;
+                final int offset = (y - y0) * w - x0;
                 for (int x = x0; x < xMax; x++) {
                     final int idx = index.getIndex(x);
-                    final int xx = x - x0;
+                    final int k = offset + x;
                     final double valueI = dataI.getElemDoubleAt(idx);
                     final double valueQ = dataQ.getElemDoubleAt(idx);
-                    final double cosPhase = FastMath.cos(derampDemodPhase[yy][xx]);
-                    final double sinPhase = FastMath.sin(derampDemodPhase[yy][xx]);
-                    derampDemodI[yy][xx] = valueI*cosPhase - valueQ*sinPhase;
-                    derampDemodQ[yy][xx] = valueI*sinPhase + valueQ*cosPhase;
+                    derampDemodI[k] = valueI*cosPhase[k] - valueQ*sinPhase[k];
+                    derampDemodQ[k] = valueI*sinPhase[k] + valueQ*cosPhase[k];
                 }
             }
         } catch (Throwable e) {
@@ -1209,8 +1455,8 @@ public final class BackGeocodingOp extends Operator {
     }
 
     private void saveMasterBands(final int x0, final int y0, final int w, final int h,
-                                 final Map<Band, Tile> targetTileMap, final double[][] mstDerampDemodPhase,
-                                 final double[][] mstDerampDemodI, final double[][] mstDerampDemodQ,
+                                 final Map<Band, Tile> targetTileMap, final double[] mstDerampDemodPhase,
+                                 final double[] mstDerampDemodI, final double[] mstDerampDemodQ,
                                  final String polarization) throws OperatorException {
 
         try {
@@ -1240,15 +1486,15 @@ public final class BackGeocodingOp extends Operator {
 
             for (int y = y0; y < y0 + h; y++) {
                 tgtIndex.calculateStride(y);
-                final int yy = y - y0;
+                final int offset = (y - y0) * w - x0;
                 for (int x = x0; x < x0 + w; x++) {
-                    final int xx = x - x0;
+                    final int k = offset + x;
                     final int tgtIdx = tgtIndex.getIndex(x);
-                    tgtBufferI.setElemDoubleAt(tgtIdx, mstDerampDemodI[yy][xx]);
-                    tgtBufferQ.setElemDoubleAt(tgtIdx, mstDerampDemodQ[yy][xx]);
+                    tgtBufferI.setElemDoubleAt(tgtIdx, mstDerampDemodI[k]);
+                    tgtBufferQ.setElemDoubleAt(tgtIdx, mstDerampDemodQ[k]);
 
                     if (outputDerampDemodPhase && tgtBufferPhase != null) {
-                        tgtBufferPhase.setElemFloatAt(tgtIdx, (float)mstDerampDemodPhase[yy][xx]);
+                        tgtBufferPhase.setElemFloatAt(tgtIdx, (float)mstDerampDemodPhase[k]);
                     }
                 }
             }
@@ -1259,8 +1505,8 @@ public final class BackGeocodingOp extends Operator {
 
     private void performInterpolation(final int x0, final int y0, final int w, final int h,
                                       final Rectangle sourceRectangle, final Tile slaveTileI, final Tile slaveTileQ,
-                                      final Map<Band, Tile> targetTileMap, final double[][] derampDemodPhase,
-                                      final double[][] derampDemodI, final double[][] derampDemodQ,
+                                      final Map<Band, Tile> targetTileMap, final double[] derampDemodPhase,
+                                      final double[] derampDemodI, final double[] derampDemodQ,
                                       final PixelPos[][] slavePixPos, final int subswathIndex, final int sBurstIndex,
                                       final SlaveData slaveData, final String polarization) throws OperatorException {
 
@@ -1507,13 +1753,15 @@ public final class BackGeocodingOp extends Operator {
     private static class ResamplingRaster implements Resampling.Raster {
 
         private final Tile tile;
-        private final double[][] data;
+        private final double[] data;
+        private final int width;
         private final boolean usesNoData;
         private final double noDataValue;
 
-        ResamplingRaster(final Tile tile, final double[][] data) {
+        ResamplingRaster(final Tile tile, final double[] data) {
             this.tile = tile;
             this.data = data;
+            this.width = tile.getWidth();
             final RasterDataNode rasterDataNode = tile.getRasterDataNode();
             this.usesNoData = rasterDataNode.isNoDataValueUsed();
             this.noDataValue = rasterDataNode.getNoDataValue();
@@ -1534,9 +1782,10 @@ public final class BackGeocodingOp extends Operator {
                 double val;
                 int i = 0;
                 while (i < y.length) {
+                    final int offset = y[i] * width;
                     int j = 0;
                     while (j < x.length) {
-                        val = data[y[i]][x[j]];
+                        val = data[offset + x[j]];
 
                         if (usesNoData) {
                             if (noDataValue == val) {
@@ -1565,10 +1814,21 @@ public final class BackGeocodingOp extends Operator {
         boolean inUpperPartOfSecondBurst = false;
     }
 
+    private static class MasterGridPoint {
+        final PosVector earthPoint;
+        final BurstIndices burstIndices;
+
+        MasterGridPoint(final PosVector earthPoint, final BurstIndices burstIndices) {
+            this.earthPoint = earthPoint;
+            this.burstIndices = burstIndices;
+        }
+    }
+
     private static class SlaveData {
         Product slaveProduct;
         Sentinel1Utils sSU;
         int burstOffset = -9999;
+        volatile boolean burstOffsetComputed = false;
         String slvSuffix;
 
         SlaveData(final Product product) throws Exception {
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sentinel1.gpf;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.esa.snap.runtime.Config;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Cache of DEM posts geocoded into the azimuth/range grid of a burst. The DEM is divided into square
+ * blocks of BLOCK_SIZE posts and each block is geocoded once per product, sub-swath and burst, so that
+ * neighbouring tiles, whose padded DEM windows overlap, share the solutions instead of repeating them.
+ * Concurrent requests for the same block share a single computation.
+ */
+final class GeocodingGridCache {
+
+    static final int BLOCK_SIZE = 64;
+
+    private static final long DEFAULT_MAX_BYTES = Config.instance().preferences().getLong(
+            "s1tbx.backgeocoding.gridCacheSizeMB", Math.max(64L, Runtime.getRuntime().maxMemory() / 1024 / 1024 / 20)) * 1024L * 1024L;
+
+    private static final int CACHE_SEGMENTS = 4;
+
+    private final Cache<BlockKey, Block> cache;
+
+    GeocodingGridCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    GeocodingGridCache(final long maxBytes) {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((BlockKey key, Block value) -> value.getSizeInBytes())
+                // the weight is split among the segments, which must each hold the largest blocks
+                .concurrencyLevel(CACHE_SEGMENTS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the geocoded block, computing it if absent
+     */
+    Block get(final BlockKey key, final Callable<Block> loader) throws Exception {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    CacheStats getStats() {
+        return cache.stats();
+    }
+
+    void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Index of the block containing the given DEM post index
+     */
+    static int blockIndex(final int demIndex) {
+        return Math.floorDiv(demIndex, BLOCK_SIZE);
+    }
+
+    /**
+     * Identifies a block of DEM posts geocoded for one burst of one product.
+     * Products are compared by identity.
+     */
+    static final class BlockKey {
+        private final Object product;
+        private final int subSwathIndex;
+        private final int burstIndex;
+        private final int blockLine;
+        private final int blockPixel;
+        private final int hash;
+
+        BlockKey(final Object product, final int subSwathIndex, final int burstIndex,
+                 final int blockLine, final int blockPixel) {
+            this.product = product;
+            this.subSwathIndex = subSwathIndex;
+            this.burstIndex = burstIndex;
+            this.blockLine = blockLine;
+            this.blockPixel = blockPixel;
+
+            int h = System.identityHashCode(product);
+            h = 31 * h + subSwathIndex;
+            h = 31 * h + burstIndex;
+            h = 31 * h + blockLine;
+            h = 31 * h + blockPixel;
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BlockKey)) return false;
+            final BlockKey key = (BlockKey) o;
+            return product == key.product && subSwathIndex == key.subSwathIndex && burstIndex == key.burstIndex &&
+                    blockLine == key.blockLine && blockPixel == key.blockPixel;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Azimuth and range indices of the DEM posts of a block, stored line by line.
+     * Posts which could not be geocoded hold the invalid index given at construction.
+     * The reference product also keeps the geodetic position and elevation of each post
+     * so that other products can be geocoded without sampling the DEM again.
+     */
+    static final class Block {
+        final double[] azimuthIndex;
+        final double[] rangeIndex;
+        final double[] lat;
+        final double[] lon;
+        final double[] alt;
+
+        Block(final double invalidIndex, final boolean withGeoPos) {
+            final int n = BLOCK_SIZE * BLOCK_SIZE;
+            azimuthIndex = new double[n];
+            rangeIndex = new double[n];
+            Arrays.fill(azimuthIndex, invalidIndex);
+            Arrays.fill(rangeIndex, invalidIndex);
+            if (withGeoPos) {
+                lat = new double[n];
+                lon = new double[n];
+                alt = new double[n];
+            } else {
+                lat = null;
+                lon = null;
+                alt = null;
+            }
+        }
+
+        int getSizeInBytes() {
+            final int n = BLOCK_SIZE * BLOCK_SIZE;
+            return (lat == null ? 2 : 5) * n * 8;
+        }
+    }
+}
@@ -16,8 +16,8 @@
 package org.esa.s1tbx.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.dataop.downloadable.StatusProgressMonitor;
@@ -112,6 +112,7 @@ public class RangeShiftOp extends Operator {
     private Band slvBandQ = null;
 
     private static final int maxRangeShift = 1;
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("Range-Shift");
 
     /**
      * Default constructor. The graph processing framework
@@ -323,9 +324,8 @@ public class RangeShiftOp extends Operator {
             //==========
             */
 
-            final double[] line = new double[2*w];
+            final double[] line = FFTEngine.getDoubleBuffer(0, 2*w);
             final double[] phase = new double[2*w];
-            final DoubleFFT_1D row_fft = new DoubleFFT_1D(w);
 
             computeShiftPhaseArray(rgOffset, w, phase);
 
@@ -336,11 +336,11 @@ public class RangeShiftOp extends Operator {
                     line[2 * c + 1] = slvArrayQ[rw + c];
                 }
 
-                row_fft.complexForward(line);
+                fftEngine.complexForward(line, 0, w);
 
                 multiplySpectrumByShiftFactor(line, phase);
 
-                row_fft.complexInverse(line, true);
+                fftEngine.complexInverse(line, 0, w, true);
 
                 for (int c = 0; c < w; c++) {
                     tgtArrayI[rw + c] = (float)line[2 * c];
@@ -586,7 +586,7 @@ public class RangeShiftOp extends Operator {
         int k2;
         double c, s;
         double real, imag;
-        final int signalLength = array.length / 2;
+        final int signalLength = phaseArray.length / 2;
         for (int k = 0; k < signalLength; ++k) {
             k2 = k * 2;
             c = phaseArray[k2];
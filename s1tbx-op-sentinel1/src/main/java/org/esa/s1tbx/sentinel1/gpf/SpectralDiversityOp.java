@@ -17,8 +17,8 @@
 package org.esa.s1tbx.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.s1tbx.sentinel1.gpf.util.ArcDataIntegration;
 import org.esa.s1tbx.sentinel1.gpf.util.GraphUtils;
@@ -272,6 +272,7 @@ public class SpectralDiversityOp extends Operator {
 
     private static final int cohWin = 5; // window size for coherence calculation
     private static final int maxRangeShift = 1;
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("Enhanced-Spectral-Diversity");
 
     private boolean outputESDEstimationToFile = true;
 
@@ -2176,7 +2177,7 @@ public class SpectralDiversityOp extends Operator {
         int k2;
         double c, s;
         double real, imag;
-        final int signalLength = array.length / 2;
+        final int signalLength = phaseArray.length / 2;
         for (int k = 0; k < signalLength; ++k) {
             k2 = k * 2;
             c = phaseArray[k2];
@@ -2286,13 +2287,17 @@ public class SpectralDiversityOp extends Operator {
         final float[] slvArrayI = (float[]) slvTileI.getDataBuffer().getElems();
         final float[] slvArrayQ = (float[]) slvTileQ.getDataBuffer().getElems();
 
+        // get deramp/demodulation phase, the range shifted data is kept in the deramp/demodulation buffers
+        final Sentinel1Utils.DerampDemod derampDemod = new Sentinel1Utils.DerampDemod();
+        Sentinel1Utils.computeDerampDemod(subSwath, subSwathIndex, burstIndex, targetRectangle, derampDemod);
+        final double[] derampDemodPhase = derampDemod.phase;
+        final double[] derampDemodI = derampDemod.i;
+        final double[] derampDemodQ = derampDemod.q;
+
         // Perform range shift
 
-        final double[] line = new double[2 * w];
+        final double[] line = FFTEngine.getDoubleBuffer(0, 2 * w);
         final double[] phaseRg = new double[2 * w];
-        final DoubleFFT_1D row_fft = new DoubleFFT_1D(w);
-        final double[][] rangeShiftedI = new double[h][w];
-        final double[][] rangeShiftedQ = new double[h][w];
 
         computeShiftPhaseArray(rgOffset, w, phaseRg);
 
@@ -2304,32 +2309,29 @@ public class SpectralDiversityOp extends Operator {
                 line[c2 + 1] = slvArrayQ[rw + c];
             }
 
-            row_fft.complexForward(line);
+            fftEngine.complexForward(line, 0, w);
 
             multiplySpectrumByShiftFactor(line, phaseRg);
 
-            row_fft.complexInverse(line, true);
+            fftEngine.complexInverse(line, 0, w, true);
 
             for (int c = 0; c < w; c++) {
                 int c2 = c * 2;
-                rangeShiftedI[r][c] = line[c2];
-                rangeShiftedQ[r][c] = line[c2 + 1];
+                derampDemodI[rw + c] = line[c2];
+                derampDemodQ[rw + c] = line[c2 + 1];
             }
         }
 
         // Perform azimuth Shift
 
-        // get deramp/demodulation phase and perform deramp and demodulation
-        final double[][] derampDemodPhase = su.computeDerampDemodPhase(subSwath, subSwathIndex, burstIndex, targetRectangle);
-        final double[][] derampDemodI = new double[h][w];
-        final double[][] derampDemodQ = new double[h][w];
-        for (int r = 0; r < h; r++) {
-            for (int c = 0; c < w; c++) {
-                final double cosPhase = FastMath.cos(derampDemodPhase[r][c]);
-                final double sinPhase = FastMath.sin(derampDemodPhase[r][c]);
-                derampDemodI[r][c] = rangeShiftedI[r][c] * cosPhase - rangeShiftedQ[r][c] * sinPhase;
-                derampDemodQ[r][c] = rangeShiftedI[r][c] * sinPhase + rangeShiftedQ[r][c] * cosPhase;
-            }
+        // perform deramp and demodulation
+        for (int k = 0; k < h * w; k++) {
+            final double cosPhase = derampDemod.cos[k];
+            final double sinPhase = derampDemod.sin[k];
+            final double rangeShiftedI = derampDemodI[k];
+            final double rangeShiftedQ = derampDemodQ[k];
+            derampDemodI[k] = rangeShiftedI * cosPhase - rangeShiftedQ * sinPhase;
+            derampDemodQ[k] = rangeShiftedI * sinPhase + rangeShiftedQ * cosPhase;
         }
 
         // compute shift phase
@@ -2344,28 +2346,28 @@ public class SpectralDiversityOp extends Operator {
         final ProductData tgtDataI = tgtTileI.getDataBuffer();
         final ProductData tgtDataQ = tgtTileQ.getDataBuffer();
 
-        final double[] col1 = new double[2 * h];
-        final double[] col2 = new double[2 * h];
-        final DoubleFFT_1D col_fft = new DoubleFFT_1D(h);
+        final double[] col1 = FFTEngine.getDoubleBuffer(0, 2 * h);
+        final double[] col2 = FFTEngine.getDoubleBuffer(1, 2 * h);
         for (int c = 0; c < w; c++) {
             final int x = x0 + c;
             for (int r = 0; r < h; r++) {
                 int r2 = r * 2;
-                col1[r2] = derampDemodI[r][c];
-                col1[r2 + 1] = derampDemodQ[r][c];
+                final int k = r * w + c;
+                col1[r2] = derampDemodI[k];
+                col1[r2 + 1] = derampDemodQ[k];
 
-                col2[r2] = derampDemodPhase[r][c];
+                col2[r2] = derampDemodPhase[k];
                 col2[r2 + 1] = 0.0;
             }
 
-            col_fft.complexForward(col1);
-            col_fft.complexForward(col2);
+            fftEngine.complexForward(col1, 0, h);
+            fftEngine.complexForward(col2, 0, h);
 
             multiplySpectrumByShiftFactor(col1, phaseAz);
             multiplySpectrumByShiftFactor(col2, phaseAz);
 
-            col_fft.complexInverse(col1, true);
-            col_fft.complexInverse(col2, true);
+            fftEngine.complexInverse(col1, 0, h, true);
+            fftEngine.complexInverse(col2, 0, h, true);
 
             for (int r = 0; r < h; r++) {
                 if (slvArrayI[r * w + c] != noDataValue) {
@@ -16,7 +16,6 @@
 package org.esa.s1tbx.sentinel1.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import org.apache.commons.math3.util.FastMath;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
@@ -59,6 +58,9 @@ public final class TOPSARDerampDemodOp extends Operator {
     private int sourceImageWidth = 0;
     private int sourceImageHeight = 0;
 
+    private final ThreadLocal<Sentinel1Utils.DerampDemod> derampDemodBuffers =
+            ThreadLocal.withInitial(Sentinel1Utils.DerampDemod::new);
+
     /**
      * Default constructor. The graph processing framework
      * requires that an operator has a default constructor.
@@ -227,14 +229,11 @@ public final class TOPSARDerampDemodOp extends Operator {
                                     final Map<Band, Tile> targetTileMap) throws Exception {
 
         final Rectangle targetRectangle = new Rectangle(x0, y0, w, h);
-        final double[][] derampDemodPhase = su.computeDerampDemodPhase(subSwath, subSwathIndex, burstIndex, targetRectangle);
-
-        if (derampDemodPhase == null) {
-            return;
-        }
+        final Sentinel1Utils.DerampDemod derampDemod = derampDemodBuffers.get();
+        Sentinel1Utils.computeDerampDemod(subSwath, subSwathIndex, burstIndex, targetRectangle, derampDemod);
 
         if (outputDerampDemodPhase) {
-            saveDrampDemodPhase(x0, y0, w, h, targetTileMap, derampDemodPhase);
+            saveDrampDemodPhase(x0, y0, w, h, targetTileMap, derampDemod.phase);
         }
 
         for(String polarization : su.getPolarizations()) {
@@ -247,51 +246,16 @@ public final class TOPSARDerampDemodOp extends Operator {
                 return;
             }
 
-            final double[][] derampDemodI = new double[targetRectangle.height][targetRectangle.width];
-            final double[][] derampDemodQ = new double[targetRectangle.height][targetRectangle.width];
-
-            performDerampDemod(tileI, tileQ, targetRectangle, derampDemodPhase, derampDemodI, derampDemodQ);
-
-            saveTargetBands(x0, y0, w, h, targetTileMap, derampDemodI, derampDemodQ, polarization);
-        }
-    }
-
-    private static void performDerampDemod(final Tile tileI, final Tile tileQ,
-                                           final Rectangle targetRectangle, final double[][] derampDemodPhase,
-                                           final double[][] derampDemodI, final double[][] derampDemodQ) {
+            BackGeocodingOp.performDerampDemod(tileI, tileQ, targetRectangle, derampDemod.cos, derampDemod.sin,
+                    derampDemod.i, derampDemod.q);
 
-        try {
-            final int x0 = targetRectangle.x;
-            final int y0 = targetRectangle.y;
-            final int xMax = x0 + targetRectangle.width;
-            final int yMax = y0 + targetRectangle.height;
-
-            final ProductData dataI = tileI.getDataBuffer();
-            final ProductData dataQ = tileQ.getDataBuffer();
-            final TileIndex index = new TileIndex(tileI);
-
-            for (int y = y0; y < yMax; y++) {
-                index.calculateStride(y);
-                final int yy = y - y0;
-                for (int x = x0; x < xMax; x++) {
-                    final int idx = index.getIndex(x);
-                    final int xx = x - x0;
-                    final double valueI = dataI.getElemDoubleAt(idx);
-                    final double valueQ = dataQ.getElemDoubleAt(idx);
-                    final double cosPhase = FastMath.cos(derampDemodPhase[yy][xx]);
-                    final double sinPhase = FastMath.sin(derampDemodPhase[yy][xx]);
-                    derampDemodI[yy][xx] = valueI*cosPhase - valueQ*sinPhase;
-                    derampDemodQ[yy][xx] = valueI*sinPhase + valueQ*cosPhase;
-                }
-            }
-        } catch (Throwable e) {
-            OperatorUtils.catchOperatorException("performDerampDemod", e);
+            saveTargetBands(x0, y0, w, h, targetTileMap, derampDemod.i, derampDemod.q, polarization);
         }
     }
 
     private void saveTargetBands(final int x0, final int y0, final int w, final int h,
-                                 final Map<Band, Tile> targetTileMap, final double[][] derampDemodI,
-                                 final double[][] derampDemodQ, final String polarization) throws OperatorException {
+                                 final Map<Band, Tile> targetTileMap, final double[] derampDemodI,
+                                 final double[] derampDemodQ, final String polarization) throws OperatorException {
 
         try {
             final Band bandI = getBand(targetProduct, "i_", swathIndexStr, polarization);
@@ -309,12 +273,11 @@ public final class TOPSARDerampDemodOp extends Operator {
 
             for (int y = y0; y < y0 + h; y++) {
                 tgtIndex.calculateStride(y);
-                final int yy = y - y0;
+                final int offset = (y - y0) * w - x0;
                 for (int x = x0; x < x0 + w; x++) {
-                    final int xx = x - x0;
                     final int tgtIdx = tgtIndex.getIndex(x);
-                    tgtBufferI.setElemDoubleAt(tgtIdx, derampDemodI[yy][xx]);
-                    tgtBufferQ.setElemDoubleAt(tgtIdx, derampDemodQ[yy][xx]);
+                    tgtBufferI.setElemDoubleAt(tgtIdx, derampDemodI[offset + x]);
+                    tgtBufferQ.setElemDoubleAt(tgtIdx, derampDemodQ[offset + x]);
                 }
             }
         } catch (Throwable e) {
@@ -335,7 +298,7 @@ public final class TOPSARDerampDemodOp extends Operator {
     }
 
     private void saveDrampDemodPhase(final int x0, final int y0, final int w, final int h,
-                                     final Map<Band, Tile> targetTileMap, final double[][] derampDemodPhase) {
+                                     final Map<Band, Tile> targetTileMap, final double[] derampDemodPhase) {
 
         final Band phaseBand = targetProduct.getBand("derampDemodPhase");
         if(phaseBand == null) {
@@ -348,11 +311,10 @@ public final class TOPSARDerampDemodOp extends Operator {
 
         for (int y = y0; y < y0 + h; y++) {
             tgtIndex.calculateStride(y);
-            final int yy = y - y0;
+            final int offset = (y - y0) * w - x0;
             for (int x = x0; x < x0 + w; x++) {
-                final int xx = x - x0;
                 final int tgtIdx = tgtIndex.getIndex(x);
-                tgtBufferPhase.setElemDoubleAt(tgtIdx, derampDemodPhase[yy][xx]);
+                tgtBufferPhase.setElemDoubleAt(tgtIdx, derampDemodPhase[offset + x]);
             }
         }
     }
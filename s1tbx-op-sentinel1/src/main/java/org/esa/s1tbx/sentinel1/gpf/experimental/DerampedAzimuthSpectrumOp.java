@@ -16,8 +16,8 @@
 package org.esa.s1tbx.sentinel1.gpf.experimental;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.s1tbx.commons.Sentinel1Utils;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
@@ -73,6 +73,8 @@ public final class DerampedAzimuthSpectrumOp extends Operator {
     private String swathIndexStr = null;
     private String polarization = null;
 
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("Azimuth-Spectrum");
+
     /**
      * Default constructor. The graph processing framework
      * requires that an operator has a default constructor.
@@ -363,8 +365,7 @@ public final class DerampedAzimuthSpectrumOp extends Operator {
             final Tile targetTile = targetTileMap.get(targetBand);
             final float[] tgtArray  = (float[]) targetTile.getDataBuffer().getElems();
 
-            final double[] col = new double[2*h];
-            final DoubleFFT_1D col_fft = new DoubleFFT_1D(h);
+            final double[] col = FFTEngine.getDoubleBuffer(0, 2*h);
             final int h2 = h*h;
 
             for (int c = 0; c < w; c++) {
@@ -373,7 +374,7 @@ public final class DerampedAzimuthSpectrumOp extends Operator {
                     col[2*r + 1] = derampDemodQ[r][c];
                 }
 
-                col_fft.complexForward(col);
+                fftEngine.complexForward(col, 0, h);
 
                 for (int r = 0; r < h; r++) {
                     tgtArray[r*w + c] = (float)(col[2*r]*col[2*r] + col[2*r + 1]*col[2*r + 1])/h2;
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2021 by SkyWatch Space Applications Inc. http://www.skywatch.com
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.s1tbx.sentinel1.gpf;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GeocodingGridCacheTest {
+
+    private final Object master = new Object();
+    private final Object slave = new Object();
+
+    @Test
+    public void testBlockIndex() {
+        final int B = GeocodingGridCache.BLOCK_SIZE;
+        assertEquals(0, GeocodingGridCache.blockIndex(0));
+        assertEquals(0, GeocodingGridCache.blockIndex(B - 1));
+        assertEquals(1, GeocodingGridCache.blockIndex(B));
+        assertEquals(-1, GeocodingGridCache.blockIndex(-1));
+    }
+
+    @Test
+    public void testKeyEquality() {
+        final GeocodingGridCache.BlockKey key1 = new GeocodingGridCache.BlockKey(master, 1, 2, 10, 20);
+        final GeocodingGridCache.BlockKey key2 = new GeocodingGridCache.BlockKey(master, 1, 2, 10, 20);
+
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+        assertNotEquals(key1, new GeocodingGridCache.BlockKey(slave, 1, 2, 10, 20));
+        assertNotEquals(key1, new GeocodingGridCache.BlockKey(master, 1, 3, 10, 20));
+        assertNotEquals(key1, new GeocodingGridCache.BlockKey(master, 1, 2, 11, 20));
+    }
+
+    @Test
+    public void testBlocksAreComputedOnce() throws Exception {
+        final GeocodingGridCache cache = new GeocodingGridCache(64L * 1024 * 1024);
+        final AtomicInteger numComputed = new AtomicInteger(0);
+
+        for (int tile = 0; tile < 4; ++tile) {
+            for (int bp = 0; bp < 3; ++bp) {
+                final GeocodingGridCache.Block block = cache.get(new GeocodingGridCache.BlockKey(master, 1, 0, 0, bp), () -> {
+                    numComputed.incrementAndGet();
+                    return new GeocodingGridCache.Block(-9999.0, true);
+                });
+                assertEquals(-9999.0, block.azimuthIndex[0], 0.0);
+                assertNotNull(block.lat);
+            }
+        }
+
+        assertEquals(3, numComputed.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testBoundedByBytes() throws Exception {
+        final int blockBytes = new GeocodingGridCache.Block(0, false).getSizeInBytes();
+        final GeocodingGridCache cache = new GeocodingGridCache(4L * blockBytes);
+
+        for (int bp = 0; bp < 20; ++bp) {
+            cache.get(new GeocodingGridCache.BlockKey(slave, 1, 0, 0, bp), () -> new GeocodingGridCache.Block(0, false));
+        }
+
+        assertTrue(cache.size() <= 4);
+        assertEquals(20, cache.getStats().missCount());
+    }
+}
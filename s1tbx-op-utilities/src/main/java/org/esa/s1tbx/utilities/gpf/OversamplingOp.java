@@ -16,8 +16,8 @@
 package org.esa.s1tbx.utilities.gpf;
 
 import com.bc.ceres.core.ProgressMonitor;
-import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import org.apache.commons.math3.util.FastMath;
+import org.esa.s1tbx.commons.FFTEngine;
 import org.esa.snap.core.datamodel.*;
 import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
@@ -105,6 +105,8 @@ public class OversamplingOp extends Operator {
 
     private static final String PRODUCT_SUFFIX = "_Ovr";
 
+    private static final FFTEngine fftEngine = FFTEngine.getInstance("Oversample");
+
     /**
      * Initializes this operator and sets the one and only target product.
      * <p>The target product can be either defined by a field of type {@link Product} annotated with the
@@ -549,10 +551,9 @@ public class OversamplingOp extends Operator {
         final double[] rowArray = new double[sourceTileWidth * 2];
 
         // perform 1-D FFT on each row
-        final DoubleFFT_1D src_row_fft = new DoubleFFT_1D(sourceTileWidth);
         for (int y = 0; y < sourceTileHeight; y++) {
             getRowData(sy0 + y, sx0, sourceTileWidth, srcData, srcRaster, rowArray);
-            src_row_fft.complexForward(rowArray);
+            fftEngine.complexForward(rowArray, 0, sourceTileWidth);
             for (int x = 0; x < sourceTileWidth; x++) {
                 tmpI[y][x] = rowArray[2 * x];
                 tmpQ[y][x] = rowArray[2 * x + 1];
@@ -565,20 +566,17 @@ public class OversamplingOp extends Operator {
         final double[] zeroPaddedColSpec = new double[2 * overSampledSourceTileHeight];
 
         // perform 1-D FFT, zero padding and IFFT on each column
-        final DoubleFFT_1D src_col_fft = new DoubleFFT_1D(sourceTileHeight);
-        final DoubleFFT_1D tgt_col_fft = new DoubleFFT_1D(overSampledSourceTileHeight);
         for (int x = 0; x < sourceTileWidth; x++) {
             getColData(x, sourceTileHeight, colArray, tmpI, tmpQ);
-            src_col_fft.complexForward(colArray);
+            fftEngine.complexForward(colArray, 0, sourceTileHeight);
             paddingZeros(colArray, sourceTileHeight, overSampledSourceTileHeight, d, zeroPaddedColSpec);
-            tgt_col_fft.complexInverse(zeroPaddedColSpec, true);
+            fftEngine.complexInverse(zeroPaddedColSpec, 0, overSampledSourceTileHeight, true);
             saveOverSampledCol(zeroPaddedColSpec, x, overSampledSourceTileHeight, tmpI, tmpQ);
         }
 
         final double[] tgtRow = new double[overSampledSourceTileWidth * 2];
 
         // perform 1-D IFFT on each row
-        final DoubleFFT_1D tgt_row_fft = new DoubleFFT_1D(overSampledSourceTileWidth);
         int ySt = 0;
         if (overlapInfo.topOverlapped) {
             ySt = (int) (heightRatio * overlapInfo.numOfLinesOnTop);
@@ -590,7 +588,7 @@ public class OversamplingOp extends Operator {
 
         for (int y = 0; y < targetTileHeight; y++) {
             getRowData(y + ySt, sourceTileWidth, overSampledSourceTileWidth, tgtRow, tmpI, tmpQ);
-            tgt_row_fft.complexInverse(tgtRow, true);
+            fftEngine.complexInverse(tgtRow, 0, overSampledSourceTileWidth, true);
             saveOverSampledComplexImage(tgtRow, ty0 + y, tx0, targetTileWidth, xSt,
                     widthRatioByHeightRatio, tgtData, targetTile);
         }
@@ -689,10 +687,9 @@ public class OversamplingOp extends Operator {
         final double[] rowArray = new double[sourceTileWidth * 2];
 
         // perform 1-D FFT on each row
-        final DoubleFFT_1D src_row_fft = new DoubleFFT_1D(sourceTileWidth);
         for (int y = 0; y < sourceTileHeight; y++) {
             getRowData(sy0 + y, sx0, sourceTileWidth, iSrcData, qSrcData, iRaster, rowArray);
-            src_row_fft.complexForward(rowArray);
+            fftEngine.complexForward(rowArray, 0, sourceTileWidth);
             for (int x = 0; x < sourceTileWidth; x++) {
                 tmpI[y][x] = rowArray[2 * x];
                 tmpQ[y][x] = rowArray[2 * x + 1];
@@ -706,24 +703,21 @@ public class OversamplingOp extends Operator {
         final double heightByPRF = sourceTileHeight / prf;
 
         // perform 1-D FFT, zero padding and IFFT on each column
-        final DoubleFFT_1D src_col_fft = new DoubleFFT_1D(sourceTileHeight);
-        final DoubleFFT_1D tgt_col_fft = new DoubleFFT_1D(overSampledSourceTileHeight);
         for (int x = 0; x < sourceTileWidth; x++) {
             getColData(x, sourceTileHeight, colArray, tmpI, tmpQ);
-            src_col_fft.complexForward(colArray);
+            fftEngine.complexForward(colArray, 0, sourceTileHeight);
 
             final int idxFdc = (int) (dopplerCentroidFreq[sx0 + x] * heightByPRF + 0.5);
             final int d = (idxFdc + halfHeight) % sourceTileHeight;
 
             paddingZeros(colArray, sourceTileHeight, overSampledSourceTileHeight, d, zeroPaddedColSpec);
-            tgt_col_fft.complexInverse(zeroPaddedColSpec, true);
+            fftEngine.complexInverse(zeroPaddedColSpec, 0, overSampledSourceTileHeight, true);
             saveOverSampledCol(zeroPaddedColSpec, x, overSampledSourceTileHeight, tmpI, tmpQ);
         }
 
         final double[] tgtRow = new double[overSampledSourceTileWidth * 2];
 
         // zero padding and perform 1-D IFFT on each row
-        final DoubleFFT_1D tgt_row_fft = new DoubleFFT_1D(overSampledSourceTileWidth);
         int ySt = 0;
         if (overlapInfo.topOverlapped) {
             ySt = (int) (heightRatio * overlapInfo.numOfLinesOnTop);
@@ -735,7 +729,7 @@ public class OversamplingOp extends Operator {
 
         for (int y = 0; y < targetTileHeight; y++) {
             getRowData(y + ySt, sourceTileWidth, overSampledSourceTileWidth, tgtRow, tmpI, tmpQ);
-            tgt_row_fft.complexInverse(tgtRow, true);
+            fftEngine.complexInverse(tgtRow, 0, overSampledSourceTileWidth, true);
             saveOverSampledComplexImage(tgtRow, ty0 + y, tx0, targetTileWidth, xSt, widthRatioByHeightRatio,
                     iTgtData, qTgtData, iTargetTile);
         }